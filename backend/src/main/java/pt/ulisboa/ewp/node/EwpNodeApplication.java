@@ -27,12 +27,18 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.web.filter.CommonsRequestLoggingFilter;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import pt.ulisboa.ewp.node.config.api.ApiProperties;
 import pt.ulisboa.ewp.node.config.bootstrap.BootstrapProperties;
+import pt.ulisboa.ewp.node.config.client.ClientProperties;
 import pt.ulisboa.ewp.node.config.cnr.CnrProperties;
+import pt.ulisboa.ewp.node.config.communication.CommunicationProperties;
+import pt.ulisboa.ewp.node.config.iia.IiaHashProperties;
 import pt.ulisboa.ewp.node.config.manifest.ManifestProperties;
+import pt.ulisboa.ewp.node.config.mapping.MappingProperties;
 import pt.ulisboa.ewp.node.config.plugins.PluginsProperties;
 import pt.ulisboa.ewp.node.config.registry.RegistryProperties;
 import pt.ulisboa.ewp.node.config.scheduling.SchedulingProperties;
+import pt.ulisboa.ewp.node.config.stats.StatsProperties;
 import pt.ulisboa.ewp.node.config.security.SecurityProperties;
 import pt.ulisboa.ewp.node.config.sync.SyncProperties;
 import pt.ulisboa.ewp.node.domain.utils.DatabaseProperties;
@@ -44,6 +50,7 @@ import pt.ulisboa.ewp.node.utils.http.converter.xml.Jaxb2HttpMessageConverter;
 @EnableConfigurationProperties(
     value = {
       DatabaseProperties.class,
+      ApiProperties.class,
       BootstrapProperties.class,
       ManifestProperties.class,
       PluginsProperties.class,
@@ -51,7 +58,12 @@ import pt.ulisboa.ewp.node.utils.http.converter.xml.Jaxb2HttpMessageConverter;
       SecurityProperties.class,
       SchedulingProperties.class,
       CnrProperties.class,
-      SyncProperties.class
+      SyncProperties.class,
+      ClientProperties.class,
+      CommunicationProperties.class,
+      IiaHashProperties.class,
+      MappingProperties.class,
+      StatsProperties.class
     })
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(securedEnabled = true, jsr250Enabled = true, prePostEnabled = true)
@@ -7,13 +7,8 @@ import eu.erasmuswithoutpaper.api.discovery.v6.ManifestV6;
 import eu.erasmuswithoutpaper.api.registry.v1.ApisImplementedV1;
 import eu.erasmuswithoutpaper.api.registry.v1.OtherHeiIdV1;
 import io.swagger.v3.oas.annotations.Operation;
-import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateException;
 import java.util.Collection;
 import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
@@ -38,6 +33,8 @@ import pt.ulisboa.ewp.node.domain.entity.Host;
 import pt.ulisboa.ewp.node.domain.repository.HostRepository;
 import pt.ulisboa.ewp.node.events.ewp.discovery.EwpDiscoveryManifestRequestedEvent;
 import pt.ulisboa.ewp.node.exception.ApplicationException;
+import pt.ulisboa.ewp.node.service.ewp.discovery.EwpDiscoveryManifestCache;
+import pt.ulisboa.ewp.node.service.ewp.discovery.EwpDiscoveryManifestSnapshot;
 import pt.ulisboa.ewp.node.service.keystore.KeyStoreService;
 import pt.ulisboa.ewp.node.utils.keystore.DecodedCertificateAndKey;
 
@@ -61,6 +58,8 @@ public class EwpApiDiscoveryManifestController {
 
   @Autowired private ApplicationEventPublisher eventPublisher;
 
+  @Autowired private EwpDiscoveryManifestCache manifestCache;
+
   @Autowired
   Collection<EwpManifestEntryProvider> manifestEntryProviders;
 
@@ -69,23 +68,28 @@ public class EwpApiDiscoveryManifestController {
   @Operation(
       summary = "Discovery manifest API.",
       tags = {"ewp"})
-  public ResponseEntity<ManifestV6> manifest(
+  public ResponseEntity<byte[]> manifest(
       HttpServletRequest request,
-      @RequestParam(value = EwpApiParamConstants.HOST_CODE, defaultValue = "") String hostCode)
-      throws UnrecoverableKeyException,
-          CertificateException,
-          NoSuchAlgorithmException,
-          KeyStoreException,
-          IOException {
-    ManifestV6 manifest = new ManifestV6();
+      @RequestParam(value = EwpApiParamConstants.HOST_CODE, defaultValue = "") String hostCode) {
+    String snapshotKey = hostCode + "|" + getBaseUrl(request, true);
+    EwpDiscoveryManifestSnapshot snapshot =
+        manifestCache.getSnapshot(snapshotKey, () -> createManifest(request, hostCode));
+
+    eventPublisher.publishEvent(new EwpDiscoveryManifestRequestedEvent(this, snapshot.getHeiId()));
+
+    // NOTE: Spring replies with 304 (Not Modified) when the request's If-None-Match or
+    // If-Modified-Since headers match the ETag or Last-Modified headers of the response
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_XML)
+        .eTag(snapshot.getETag())
+        .lastModified(snapshot.getLastModified())
+        .body(snapshot.getBody());
+  }
 
+  private ManifestV6 createManifest(HttpServletRequest request, String hostCode) {
+    ManifestV6 manifest = new ManifestV6();
     setHost(request, manifest, hostCode);
-
-    eventPublisher.publishEvent(
-        new EwpDiscoveryManifestRequestedEvent(
-            this, manifest.getHost().getInstitutionsCovered().getHei().getId()));
-
-    return ResponseEntity.ok(manifest);
+    return manifest;
   }
 
   private void setHost(HttpServletRequest request, ManifestV6 manifest, String hostCode) {
@@ -3,6 +3,9 @@ package pt.ulisboa.ewp.node.api.ewp.controller.files;
 import io.swagger.v3.oas.annotations.Operation;
 import java.util.Collection;
 import java.util.Optional;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -41,7 +44,7 @@ public class EwpApiFilesV1Controller {
   @Operation(
       summary = "Files API.",
       tags = {"ewp"})
-  public ResponseEntity<byte[]> getFile(
+  public ResponseEntity<Resource> getFile(
       @PathVariable String heiId,
       @RequestParam(EwpApiParamConstants.FILE_ID) String fileId,
       EwpApiHostAuthenticationToken authenticationToken) {
@@ -55,10 +58,15 @@ public class EwpApiFilesV1Controller {
       throw new EwpNotFoundException("File ID is unknown: " + fileId);
     }
 
+    // NOTE: the file is returned as a resource (with its content hash as ETag), so that
+    // conditional (If-None-Match) and partial (Range) requests are answered without sending the
+    // whole file again
     FileResponse fileResponse = fileResponseOptional.get();
+    byte[] data = fileResponse.getData();
     return ResponseEntity.ok()
         .contentType(MediaType.parseMediaType(fileResponse.getMediaType()))
-        .body(fileResponse.getData());
+        .eTag("\"" + DigestUtils.sha256Hex(data) + "\"")
+        .body(new ByteArrayResource(data));
   }
 
   private static Optional<FileResponse> getFile(String fileId,
@@ -12,8 +12,16 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -30,15 +38,19 @@ import pt.ulisboa.ewp.node.api.ewp.controller.EwpApiEndpoint;
 import pt.ulisboa.ewp.node.api.ewp.security.EwpApiHostAuthenticationToken;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiConstants;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiParamConstants;
-import pt.ulisboa.ewp.node.domain.entity.mapping.EwpInterInstitutionalAgreementMapping;
-import pt.ulisboa.ewp.node.domain.repository.mapping.EwpInterInstitutionalAgreementMappingRepository;
+import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiUtils;
 import pt.ulisboa.ewp.node.exception.ewp.EwpBadRequestException;
 import pt.ulisboa.ewp.node.exception.ewp.EwpUnknownHeiIdException;
 import pt.ulisboa.ewp.node.exception.ewp.EwpUnknownOrganizationalUnitIdException;
 import pt.ulisboa.ewp.node.exception.ewp.hash.HashCalculationException;
+import pt.ulisboa.ewp.node.plugin.executor.HostProviderExecutor;
 import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
 import pt.ulisboa.ewp.node.service.ewp.iia.hash.HashCalculationResult;
 import pt.ulisboa.ewp.node.service.ewp.iia.hash.v7.IiaHashServiceV7;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpInterInstitutionalAgreementMappingNearCache;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpOunitMapping;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsSnapshotService;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsType;
 
 @RestController
 @EwpApi
@@ -51,20 +63,26 @@ public class EwpApiInterInstitutionalAgreementsV7Controller {
   private static final String REGEX_RECEIVING_ACADEMIC_YEAR_ID = "[0-9]{4}/[0-9]{4}";
 
   private final HostPluginManager hostPluginManager;
+  private final HostProviderExecutor hostProviderExecutor;
 
-  private final EwpInterInstitutionalAgreementMappingRepository mappingRepository;
+  private final EwpInterInstitutionalAgreementMappingNearCache mappingNearCache;
   private final IiaHashServiceV7 iiaHashService;
+  private final EwpStatsSnapshotService statsSnapshotService;
 
   private final String statsPortalHeiId;
 
   public EwpApiInterInstitutionalAgreementsV7Controller(
       HostPluginManager hostPluginManager,
-      EwpInterInstitutionalAgreementMappingRepository mappingRepository,
+      HostProviderExecutor hostProviderExecutor,
+      EwpInterInstitutionalAgreementMappingNearCache mappingNearCache,
       IiaHashServiceV7 iiaHashService,
+      EwpStatsSnapshotService statsSnapshotService,
       @Value("${stats.portal.heiId}") String statsPortalHeiId) {
     this.hostPluginManager = hostPluginManager;
-    this.mappingRepository = mappingRepository;
+    this.hostProviderExecutor = hostProviderExecutor;
+    this.mappingNearCache = mappingNearCache;
     this.iiaHashService = iiaHashService;
+    this.statsSnapshotService = statsSnapshotService;
     this.statsPortalHeiId = statsPortalHeiId;
   }
 
@@ -177,17 +195,18 @@ public class EwpApiInterInstitutionalAgreementsV7Controller {
         hostPluginManager.getAllProvidersOfType(
             heiId, InterInstitutionalAgreementsV7HostProvider.class);
 
-    IiasIndexResponseV7 response = new IiasIndexResponseV7();
+    String requesterCoveredHeiId =
+        authenticationToken.getPrincipal().getHeiIdsCoveredByClient().iterator().next();
+    List<Supplier<Collection<String>>> calls = new ArrayList<>();
     providers.forEach(
-        provider -> {
-          Collection<String> iiaIds =
-              provider.findAllIiaIdsByHeiId(
-                  authenticationToken.getPrincipal().getHeiIdsCoveredByClient().iterator().next(),
-                  heiId,
-                  receivingAcademicYearIds,
-                  modifiedSince);
-          response.getIiaId().addAll(iiaIds);
-        });
+        provider ->
+            calls.add(
+                () ->
+                    provider.findAllIiaIdsByHeiId(
+                        requesterCoveredHeiId, heiId, receivingAcademicYearIds, modifiedSince)));
+
+    IiasIndexResponseV7 response = new IiasIndexResponseV7();
+    hostProviderExecutor.invokeAll(calls).forEach(response.getIiaId()::addAll);
     return ResponseEntity.ok(response);
   }
 
@@ -233,27 +252,21 @@ public class EwpApiInterInstitutionalAgreementsV7Controller {
 
     IiasGetResponseV7 response = new IiasGetResponseV7();
 
-    // NOTE: The algorithm handles each IIA ID individually as it may be necessary to fall back to
-    // one or more providers.
-    for (String iiaId : iiaIds) {
-      List<InterInstitutionalAgreementsV7HostProvider> providersChain = getProvidersChainForHeiAndIiaId(
-          heiId, iiaId);
-      for (InterInstitutionalAgreementsV7HostProvider possibleProvider : providersChain) {
-        Collection<IiasGetResponseV7.Iia> providerResponse =
-            possibleProvider.findByHeiIdAndIiaIds(requesterCoveredHeiId, heiId, List.of(iiaId));
-        if (!providerResponse.isEmpty()) {
-          Iia iia = providerResponse.iterator().next();
-          if (StringUtils.isEmpty(iia.getIiaHash())) {
-            List<HashCalculationResult> hashCalculationResults =
-                this.iiaHashService.calculateIiaHashes(List.of(iia));
-            iia.setIiaHash(hashCalculationResults.get(0).getHash());
-          }
-          response.getIia().add(iia);
-          break;
-        }
+    Collection<Iia> iias = findIiasByIiaIds(requesterCoveredHeiId, heiId, iiaIds);
+
+    // NOTE: The missing hashes are calculated all at once (but each as if it was the only IIA)
+    List<Iia> iiasWithoutHash =
+        iias.stream().filter(i -> StringUtils.isEmpty(i.getIiaHash())).collect(Collectors.toList());
+    if (!iiasWithoutHash.isEmpty()) {
+      List<HashCalculationResult> hashCalculationResults =
+          this.iiaHashService.calculateIiaHashesSeparately(iiasWithoutHash);
+      for (int index = 0; index < iiasWithoutHash.size(); index++) {
+        iiasWithoutHash.get(index).setIiaHash(hashCalculationResults.get(index).getHash());
       }
     }
 
+    response.getIia().addAll(iias);
+
     return ResponseEntity.ok(response);
   }
 
@@ -273,45 +286,236 @@ public class EwpApiInterInstitutionalAgreementsV7Controller {
           "Unauthorized HEI IDs: " + authenticationToken.getPrincipal().getHeiIdsCoveredByClient());
     }
 
+    return EwpApiUtils.createStatsResponseEntity(
+        statsSnapshotService.getSnapshot(EwpStatsType.IIAS, heiId, () -> computeStats(heiId)));
+  }
+
+  private IiasStatsResponseV7 computeStats(String heiId) {
     Collection<InterInstitutionalAgreementsV7HostProvider> providers =
         hostPluginManager.getAllProvidersOfType(
             heiId, InterInstitutionalAgreementsV7HostProvider.class);
 
+    List<Supplier<IiasStatsResponseV7>> calls = new ArrayList<>();
+    providers.forEach(provider -> calls.add(() -> provider.getStats(heiId)));
+
     IiasStatsResponseV7 statsResponse = createEmptyStatsResponse();
-    for (InterInstitutionalAgreementsV7HostProvider provider : providers) {
-      IiasStatsResponseV7 newStats = provider.getStats(heiId);
+    for (IiasStatsResponseV7 newStats : hostProviderExecutor.invokeAll(calls)) {
       statsResponse = mergeStatsResponses(statsResponse, newStats);
     }
+    return statsResponse;
+  }
+
+  /**
+   * Finds the IIAs with the given IDs, returning them on the order of the IDs.
+   *
+   * <p>IIA IDs with a known mapping are requested only to the provider of the mapped
+   * organizational unit. The remaining ones go through the chain of providers (primary followed by
+   * non-primary ones). At each step, every provider involved receives a single (batched) call,
+   * with all calls of a step running concurrently. Only IIA IDs not found yet fall through to the
+   * next provider of their chain.
+   *
+   * <p>Returned IIAs are matched to the requested IDs through the partner of the local HEI; IIAs
+   * not matching any requested ID are discarded. If a provider returns IIAs that do not identify
+   * the local partner, then the IDs it was asked for that remain unmatched are requested again to
+   * that provider, one per call, so that each returned IIA can be attributed to its ID.
+   */
+  private Collection<Iia> findIiasByIiaIds(
+      String requesterCoveredHeiId, String heiId, List<String> iiaIds) {
+    Map<String, List<InterInstitutionalAgreementsV7HostProvider>> iiaIdToProvidersChainMap =
+        getProvidersChainsForHeiAndIiaIds(heiId, iiaIds);
+
+    Map<String, Iia> iiaIdToIiaMap = new HashMap<>();
+    RuntimeException firstFailure = null;
+    Set<String> failedIiaIds = new HashSet<>();
+    Set<String> pendingIiaIds = new LinkedHashSet<>(iiaIds);
+    for (int step = 0; !pendingIiaIds.isEmpty(); step++) {
+      Map<InterInstitutionalAgreementsV7HostProvider, List<String>> providerToIiaIdsMap =
+          new LinkedHashMap<>();
+      for (String iiaId : pendingIiaIds) {
+        List<InterInstitutionalAgreementsV7HostProvider> providersChain =
+            iiaIdToProvidersChainMap.get(iiaId);
+        if (step < providersChain.size()) {
+          providerToIiaIdsMap
+              .computeIfAbsent(providersChain.get(step), p -> new ArrayList<>())
+              .add(iiaId);
+        }
+      }
+      if (providerToIiaIdsMap.isEmpty()) {
+        break;
+      }
+
+      List<ProviderBatch> batches = new ArrayList<>();
+      providerToIiaIdsMap.forEach(
+          (provider, providerIiaIds) -> batches.add(new ProviderBatch(provider, providerIiaIds)));
+      List<ProviderBatchResult> results = invokeBatches(requesterCoveredHeiId, heiId, batches);
+
+      // NOTE: IDs whose provider returned IIAs that do not identify the local partner are asked
+      // again, one per call, so that the returned IIA can be attributed to the requested ID
+      List<ProviderBatch> singleIiaIdBatches = new ArrayList<>();
+      for (int index = 0; index < batches.size(); index++) {
+        ProviderBatch batch = batches.get(index);
+        ProviderBatchResult result = results.get(index);
+        if (result.failure != null) {
+          if (firstFailure == null) {
+            firstFailure = result.failure;
+          }
+          failedIiaIds.addAll(batch.iiaIds);
+          continue;
+        }
+
+        boolean hasUnidentifiedIias = matchIias(heiId, batch, result, iiaIdToIiaMap);
+        if (hasUnidentifiedIias && batch.iiaIds.size() > 1) {
+          for (String iiaId : batch.iiaIds) {
+            if (!iiaIdToIiaMap.containsKey(iiaId)) {
+              singleIiaIdBatches.add(new ProviderBatch(batch.provider, List.of(iiaId)));
+            }
+          }
+        }
+      }
+
+      List<ProviderBatchResult> singleIiaIdResults =
+          invokeBatches(requesterCoveredHeiId, heiId, singleIiaIdBatches);
+      for (int index = 0; index < singleIiaIdBatches.size(); index++) {
+        ProviderBatch batch = singleIiaIdBatches.get(index);
+        ProviderBatchResult result = singleIiaIdResults.get(index);
+        if (result.failure != null) {
+          if (firstFailure == null) {
+            firstFailure = result.failure;
+          }
+          failedIiaIds.addAll(batch.iiaIds);
+          continue;
+        }
+        matchIias(heiId, batch, result, iiaIdToIiaMap);
+      }
+
+      pendingIiaIds.removeAll(iiaIdToIiaMap.keySet());
+    }
+
+    // NOTE: A provider failure is only reported if no other provider returned the affected IIAs
+    if (pendingIiaIds.stream().anyMatch(failedIiaIds::contains)) {
+      throw firstFailure;
+    }
 
-    return ResponseEntity.ok(statsResponse);
+    List<Iia> result = new ArrayList<>();
+    for (String iiaId : iiaIds) {
+      Iia iia = iiaIdToIiaMap.remove(iiaId);
+      if (iia != null) {
+        result.add(iia);
+      }
+    }
+    return result;
+  }
+
+  private List<ProviderBatchResult> invokeBatches(
+      String requesterCoveredHeiId, String heiId, List<ProviderBatch> batches) {
+    List<Supplier<ProviderBatchResult>> calls = new ArrayList<>();
+    for (ProviderBatch batch : batches) {
+      calls.add(
+          () -> ProviderBatchResult.of(
+              () -> batch.provider.findByHeiIdAndIiaIds(
+                  requesterCoveredHeiId, heiId, batch.iiaIds)));
+    }
+    return calls.isEmpty() ? List.of() : hostProviderExecutor.invokeAll(calls);
+  }
+
+  /**
+   * Matches the IIAs returned by a provider to the IIA IDs it was asked for, discarding IIAs that
+   * match none of them. An IIA that does not identify the local partner is only matched if the
+   * provider was asked for a single IIA ID.
+   *
+   * @return true if some returned IIA did not identify the local partner
+   */
+  private static boolean matchIias(String heiId, ProviderBatch batch, ProviderBatchResult result,
+      Map<String, Iia> iiaIdToIiaMap) {
+    boolean hasUnidentifiedIias = false;
+    for (Iia iia : result.iias) {
+      String iiaId = getLocalIiaId(heiId, iia);
+      if (iiaId == null) {
+        hasUnidentifiedIias = true;
+        if (batch.iiaIds.size() == 1) {
+          iiaIdToIiaMap.putIfAbsent(batch.iiaIds.get(0), iia);
+        }
+      } else if (batch.iiaIds.contains(iiaId)) {
+        iiaIdToIiaMap.putIfAbsent(iiaId, iia);
+      }
+    }
+    return hasUnidentifiedIias;
   }
 
-  private List<InterInstitutionalAgreementsV7HostProvider> getProvidersChainForHeiAndIiaId(
-      String heiId, String iiaId) throws EwpUnknownHeiIdException {
+  private Map<String, List<InterInstitutionalAgreementsV7HostProvider>>
+      getProvidersChainsForHeiAndIiaIds(String heiId, Collection<String> iiaIds)
+          throws EwpUnknownHeiIdException {
 
+    Map<String, List<InterInstitutionalAgreementsV7HostProvider>> result = new HashMap<>();
     if (!hostPluginManager.hasHostProvider(
         heiId, InterInstitutionalAgreementsV7HostProvider.class)) {
-      return new ArrayList<>();
+      iiaIds.forEach(iiaId -> result.put(iiaId, new ArrayList<>()));
+      return result;
     }
 
-    Optional<EwpInterInstitutionalAgreementMapping> mappingOptional =
-        mappingRepository.findByHeiIdAndIiaId(heiId, iiaId);
-    if (mappingOptional.isPresent()) {
-      EwpInterInstitutionalAgreementMapping mapping = mappingOptional.get();
+    for (EwpOunitMapping mapping : mappingNearCache.getMappings(heiId, iiaIds).values()) {
       Optional<InterInstitutionalAgreementsV7HostProvider> providerOptional =
           hostPluginManager.getSingleProvider(
               heiId, mapping.getOunitId(), InterInstitutionalAgreementsV7HostProvider.class);
       if (providerOptional.isPresent()) {
         InterInstitutionalAgreementsV7HostProvider provider = providerOptional.get();
-        return List.of(provider);
+        result.put(mapping.getElementId(), List.of(provider));
       } else {
         throw new EwpUnknownOrganizationalUnitIdException(heiId, mapping.getOunitId());
       }
+    }
 
-    } else {
-      return hostPluginManager.getPrimaryFollowedByNonPrimaryProviders(
-          heiId, InterInstitutionalAgreementsV7HostProvider.class);
+    List<InterInstitutionalAgreementsV7HostProvider> defaultProvidersChain = null;
+    for (String iiaId : iiaIds) {
+      if (!result.containsKey(iiaId)) {
+        if (defaultProvidersChain == null) {
+          defaultProvidersChain =
+              hostPluginManager.getPrimaryFollowedByNonPrimaryProviders(
+                  heiId, InterInstitutionalAgreementsV7HostProvider.class);
+        }
+        result.put(iiaId, defaultProvidersChain);
+      }
+    }
+    return result;
+  }
+
+  private static String getLocalIiaId(String heiId, Iia iia) {
+    return iia.getPartner().stream()
+        .filter(partner -> heiId.equals(partner.getHeiId()))
+        .map(Iia.Partner::getIiaId)
+        .findFirst()
+        .orElse(null);
+  }
+
+  private static class ProviderBatch {
+
+    private final InterInstitutionalAgreementsV7HostProvider provider;
+    private final List<String> iiaIds;
+
+    private ProviderBatch(InterInstitutionalAgreementsV7HostProvider provider,
+        List<String> iiaIds) {
+      this.provider = provider;
+      this.iiaIds = iiaIds;
     }
   }
 
+  private static class ProviderBatchResult {
+
+    private final Collection<Iia> iias;
+    private final RuntimeException failure;
+
+    private ProviderBatchResult(Collection<Iia> iias, RuntimeException failure) {
+      this.iias = iias;
+      this.failure = failure;
+    }
+
+    private static ProviderBatchResult of(Supplier<Collection<Iia>> call) {
+      try {
+        Collection<Iia> iias = call.get();
+        return new ProviderBatchResult(iias != null ? iias : List.of(), null);
+      } catch (RuntimeException e) {
+        return new ProviderBatchResult(List.of(), e);
+      }
+    }
+  }
 }
@@ -1,12 +1,19 @@
 package pt.ulisboa.ewp.node.api.ewp.controller.iias.approvals;
 
+import com.google.common.collect.Lists;
 import eu.erasmuswithoutpaper.api.iias.approval.v2.IiasApprovalResponseV2;
 import eu.erasmuswithoutpaper.api.iias.approval.v2.IiasApprovalResponseV2.Approval;
 import io.swagger.v3.oas.annotations.Operation;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -20,11 +27,12 @@ import pt.ulisboa.ewp.node.api.ewp.controller.EwpApiEndpoint;
 import pt.ulisboa.ewp.node.api.ewp.security.EwpApiHostAuthenticationToken;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiConstants;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiParamConstants;
-import pt.ulisboa.ewp.node.domain.entity.mapping.EwpInterInstitutionalAgreementMapping;
-import pt.ulisboa.ewp.node.domain.repository.mapping.EwpInterInstitutionalAgreementMappingRepository;
 import pt.ulisboa.ewp.node.exception.ewp.EwpUnknownHeiIdException;
 import pt.ulisboa.ewp.node.exception.ewp.EwpUnknownOrganizationalUnitIdException;
+import pt.ulisboa.ewp.node.plugin.executor.HostProviderExecutor;
 import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpInterInstitutionalAgreementMappingNearCache;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpOunitMapping;
 
 @RestController
 @EwpApi
@@ -36,13 +44,17 @@ public class EwpApiInterInstitutionalAgreementsApprovalV2Controller {
 
   private final HostPluginManager hostPluginManager;
 
-  private final EwpInterInstitutionalAgreementMappingRepository mappingRepository;
+  private final EwpInterInstitutionalAgreementMappingNearCache mappingNearCache;
+
+  private final HostProviderExecutor hostProviderExecutor;
 
   public EwpApiInterInstitutionalAgreementsApprovalV2Controller(
       HostPluginManager hostPluginManager,
-      EwpInterInstitutionalAgreementMappingRepository mappingRepository) {
+      EwpInterInstitutionalAgreementMappingNearCache mappingNearCache,
+      HostProviderExecutor hostProviderExecutor) {
     this.hostPluginManager = hostPluginManager;
-    this.mappingRepository = mappingRepository;
+    this.mappingNearCache = mappingNearCache;
+    this.hostProviderExecutor = hostProviderExecutor;
   }
 
   @EwpApiEndpoint(api = "iias-approval", apiMajorVersion = 2)
@@ -67,38 +79,94 @@ public class EwpApiInterInstitutionalAgreementsApprovalV2Controller {
     }
 
     IiasApprovalResponseV2 response = new IiasApprovalResponseV2();
+    response.getApproval()
+        .addAll(findApprovalsByIiaIds(requesterCoveredHeiId, approvingHeiId, iiaIds));
+    return ResponseEntity.ok(response);
+  }
 
-    // NOTE: The algorithm handles each IIA ID individually as it may be necessary to fall back to
-    // one or more providers.
-    for (String iiaId : iiaIds) {
-      List<InterInstitutionalAgreementsApprovalV2HostProvider> providersChain =
-          getProvidersChainForHeiAndIiaId(approvingHeiId, iiaId);
-      for (InterInstitutionalAgreementsApprovalV2HostProvider possibleProvider : providersChain) {
-        Collection<Approval> providerResponse =
-            possibleProvider.findByIiaIds(approvingHeiId, requesterCoveredHeiId, List.of(iiaId));
-        if (!providerResponse.isEmpty()) {
-          Approval approval = providerResponse.iterator().next();
-          response.getApproval().add(approval);
-          break;
+  /**
+   * Finds the approvals of the IIAs with the given IDs, returning them on the order of the IDs.
+   *
+   * <p>IIA IDs with a known mapping are requested only to the provider of the mapped
+   * organizational unit. The remaining ones go through the chain of providers (primary followed by
+   * non-primary ones). At each step, every provider involved receives batched calls (bounded by
+   * its maximum number of IIA IDs per request), with all calls of a step running concurrently.
+   * Only IIA IDs not found yet fall through to the next provider of their chain.
+   */
+  private Collection<Approval> findApprovalsByIiaIds(
+      String requesterCoveredHeiId, String approvingHeiId, Collection<String> iiaIds) {
+    Map<String, List<InterInstitutionalAgreementsApprovalV2HostProvider>> iiaIdToProvidersChainMap =
+        getProvidersChainsForHeiAndIiaIds(approvingHeiId, iiaIds);
+
+    Map<String, Approval> iiaIdToApprovalMap = new HashMap<>();
+    Set<String> pendingIiaIds = new LinkedHashSet<>(iiaIds);
+    for (int step = 0; !pendingIiaIds.isEmpty(); step++) {
+      Map<InterInstitutionalAgreementsApprovalV2HostProvider, List<String>> providerToIiaIdsMap =
+          new LinkedHashMap<>();
+      for (String iiaId : pendingIiaIds) {
+        List<InterInstitutionalAgreementsApprovalV2HostProvider> providersChain =
+            iiaIdToProvidersChainMap.get(iiaId);
+        if (step < providersChain.size()) {
+          providerToIiaIdsMap
+              .computeIfAbsent(providersChain.get(step), p -> new ArrayList<>())
+              .add(iiaId);
+        }
+      }
+      if (providerToIiaIdsMap.isEmpty()) {
+        break;
+      }
+
+      List<List<String>> iiaIdsChunks = new ArrayList<>();
+      List<Supplier<Collection<Approval>>> calls = new ArrayList<>();
+      providerToIiaIdsMap.forEach(
+          (provider, providerIiaIds) -> {
+            for (List<String> iiaIdsChunk :
+                Lists.partition(providerIiaIds, Math.max(1, provider.getMaxIiaIdsPerRequest()))) {
+              iiaIdsChunks.add(iiaIdsChunk);
+              calls.add(
+                  () -> provider.findByIiaIds(approvingHeiId, requesterCoveredHeiId, iiaIdsChunk));
+            }
+          });
+      List<Collection<Approval>> results = hostProviderExecutor.invokeAll(calls);
+
+      for (int index = 0; index < results.size(); index++) {
+        List<String> iiaIdsChunk = iiaIdsChunks.get(index);
+        Collection<Approval> approvals = results.get(index);
+        if (approvals == null) {
+          continue;
+        }
+        for (Approval approval : approvals) {
+          if (iiaIdsChunk.contains(approval.getIiaId())) {
+            iiaIdToApprovalMap.putIfAbsent(approval.getIiaId(), approval);
+            pendingIiaIds.remove(approval.getIiaId());
+          }
         }
       }
     }
 
-    return ResponseEntity.ok(response);
+    List<Approval> result = new ArrayList<>();
+    for (String iiaId : iiaIds) {
+      Approval approval = iiaIdToApprovalMap.remove(iiaId);
+      if (approval != null) {
+        result.add(approval);
+      }
+    }
+    return result;
   }
 
-  private List<InterInstitutionalAgreementsApprovalV2HostProvider> getProvidersChainForHeiAndIiaId(
-      String heiId, String iiaId) throws EwpUnknownHeiIdException {
+  private Map<String, List<InterInstitutionalAgreementsApprovalV2HostProvider>>
+      getProvidersChainsForHeiAndIiaIds(String heiId, Collection<String> iiaIds)
+          throws EwpUnknownHeiIdException {
 
+    Map<String, List<InterInstitutionalAgreementsApprovalV2HostProvider>> result =
+        new HashMap<>();
     if (!hostPluginManager.hasHostProvider(
         heiId, InterInstitutionalAgreementsApprovalV2HostProvider.class)) {
-      return new ArrayList<>();
+      iiaIds.forEach(iiaId -> result.put(iiaId, new ArrayList<>()));
+      return result;
     }
 
-    Optional<EwpInterInstitutionalAgreementMapping> mappingOptional =
-        mappingRepository.findByHeiIdAndIiaId(heiId, iiaId);
-    if (mappingOptional.isPresent()) {
-      EwpInterInstitutionalAgreementMapping mapping = mappingOptional.get();
+    for (EwpOunitMapping mapping : mappingNearCache.getMappings(heiId, iiaIds).values()) {
       Optional<InterInstitutionalAgreementsApprovalV2HostProvider> providerOptional =
           hostPluginManager.getSingleProvider(
               heiId,
@@ -106,14 +174,23 @@ public class EwpApiInterInstitutionalAgreementsApprovalV2Controller {
               InterInstitutionalAgreementsApprovalV2HostProvider.class);
       if (providerOptional.isPresent()) {
         InterInstitutionalAgreementsApprovalV2HostProvider provider = providerOptional.get();
-        return List.of(provider);
+        result.put(mapping.getElementId(), List.of(provider));
       } else {
         throw new EwpUnknownOrganizationalUnitIdException(heiId, mapping.getOunitId());
       }
+    }
 
-    } else {
-      return hostPluginManager.getPrimaryFollowedByNonPrimaryProviders(
-          heiId, InterInstitutionalAgreementsApprovalV2HostProvider.class);
+    List<InterInstitutionalAgreementsApprovalV2HostProvider> defaultProvidersChain = null;
+    for (String iiaId : iiaIds) {
+      if (!result.containsKey(iiaId)) {
+        if (defaultProvidersChain == null) {
+          defaultProvidersChain =
+              hostPluginManager.getPrimaryFollowedByNonPrimaryProviders(
+                  heiId, InterInstitutionalAgreementsApprovalV2HostProvider.class);
+        }
+        result.put(iiaId, defaultProvidersChain);
+      }
     }
+    return result;
   }
 }
@@ -3,20 +3,20 @@ package pt.ulisboa.ewp.node.api.ewp.controller.iias.approvals.cnr;
 import eu.erasmuswithoutpaper.api.architecture.v1.EmptyV1;
 import eu.erasmuswithoutpaper.api.iias.approval.cnr.v2.IiaApprovalCnrResponseV2;
 import io.swagger.v3.oas.annotations.Operation;
-import java.util.Collection;
+import java.util.List;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import pt.ulisboa.ewp.host.plugin.skeleton.provider.iias.approval.cnr.InterInstitutionalAgreementApprovalCnrV2HostProvider;
 import pt.ulisboa.ewp.node.api.ewp.controller.EwpApi;
 import pt.ulisboa.ewp.node.api.ewp.controller.EwpApiEndpoint;
 import pt.ulisboa.ewp.node.api.ewp.security.EwpApiHostAuthenticationToken;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiConstants;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiParamConstants;
-import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.EwpReceivedChangeNotificationInbox;
 
 @RestController
 @EwpApi
@@ -27,11 +27,11 @@ public class EwpApiInterInstitutionalAgreementApprovalCnrV2Controller {
 
   public static final String BASE_PATH = "iias/approvals/cnr/v2";
 
-  private final HostPluginManager hostPluginManager;
+  private final EwpReceivedChangeNotificationInbox receivedChangeNotificationInbox;
 
   public EwpApiInterInstitutionalAgreementApprovalCnrV2Controller(
-      HostPluginManager hostPluginManager) {
-    this.hostPluginManager = hostPluginManager;
+      EwpReceivedChangeNotificationInbox receivedChangeNotificationInbox) {
+    this.receivedChangeNotificationInbox = receivedChangeNotificationInbox;
   }
 
   @EwpApiEndpoint(api = "iia-approval-cnr", apiMajorVersion = 2)
@@ -49,12 +49,9 @@ public class EwpApiInterInstitutionalAgreementApprovalCnrV2Controller {
     String approvingHeiId =
         authenticationToken.getPrincipal().getHeiIdsCoveredByClient().iterator().next();
 
-    Collection<InterInstitutionalAgreementApprovalCnrV2HostProvider> providers =
-        hostPluginManager.getAllProvidersOfType(
-            InterInstitutionalAgreementApprovalCnrV2HostProvider.class);
-    for (InterInstitutionalAgreementApprovalCnrV2HostProvider provider : providers) {
-      provider.onChangeNotification(approvingHeiId, ownerHeiId, iiaId);
-    }
+    receivedChangeNotificationInbox.receive(
+        EwpReceivedChangeNotification.Type.IIA_APPROVAL, approvingHeiId, ownerHeiId,
+        List.of(iiaId));
 
     return ResponseEntity.ok(new IiaApprovalCnrResponseV2(new EmptyV1()));
   }
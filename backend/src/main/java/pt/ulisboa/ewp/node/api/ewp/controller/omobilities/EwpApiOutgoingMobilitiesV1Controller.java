@@ -26,10 +26,10 @@ import pt.ulisboa.ewp.node.api.ewp.controller.EwpApiEndpoint;
 import pt.ulisboa.ewp.node.api.ewp.security.EwpApiHostAuthenticationToken;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiConstants;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiParamConstants;
-import pt.ulisboa.ewp.node.domain.entity.mapping.EwpOutgoingMobilityMapping;
-import pt.ulisboa.ewp.node.domain.repository.mapping.EwpOutgoingMobilityMappingRepository;
 import pt.ulisboa.ewp.node.exception.ewp.EwpBadRequestException;
 import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpOunitMapping;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpOutgoingMobilityMappingNearCache;
 
 @RestController
 @EwpApi
@@ -41,12 +41,12 @@ public class EwpApiOutgoingMobilitiesV1Controller {
 
   private final HostPluginManager hostPluginManager;
 
-  private final EwpOutgoingMobilityMappingRepository mappingRepository;
+  private final EwpOutgoingMobilityMappingNearCache mappingNearCache;
 
   public EwpApiOutgoingMobilitiesV1Controller(HostPluginManager hostPluginManager,
-      EwpOutgoingMobilityMappingRepository mappingRepository) {
+      EwpOutgoingMobilityMappingNearCache mappingNearCache) {
     this.hostPluginManager = hostPluginManager;
-    this.mappingRepository = mappingRepository;
+    this.mappingNearCache = mappingNearCache;
   }
 
   @EwpApiEndpoint(api = "omobilities", apiMajorVersion = 1, endpoint = "index")
@@ -142,10 +142,10 @@ public class EwpApiOutgoingMobilitiesV1Controller {
       String heiId, Collection<String> omobilityIds) {
     Map<OutgoingMobilitiesV1HostProvider, Collection<String>> result = new HashMap<>();
     for (String omobilityId : omobilityIds) {
-      Optional<EwpOutgoingMobilityMapping> mappingOptional = mappingRepository.findByHeiIdAndOmobilityId(
+      Optional<EwpOunitMapping> mappingOptional = mappingNearCache.getMapping(
           heiId, omobilityId);
       if (mappingOptional.isPresent()) {
-        EwpOutgoingMobilityMapping mapping = mappingOptional.get();
+        EwpOunitMapping mapping = mappingOptional.get();
 
         Optional<OutgoingMobilitiesV1HostProvider> providerOptional = hostPluginManager.getSingleProvider(
             heiId, mapping.getOunitId(), OutgoingMobilitiesV1HostProvider.class);
@@ -3,7 +3,6 @@ package pt.ulisboa.ewp.node.api.ewp.controller.omobilities.cnr;
 import eu.erasmuswithoutpaper.api.architecture.v1.EmptyV1;
 import eu.erasmuswithoutpaper.api.omobilities.cnr.v1.OmobilityCnrResponseV1;
 import io.swagger.v3.oas.annotations.Operation;
-import java.util.Collection;
 import java.util.List;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -11,12 +10,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import pt.ulisboa.ewp.host.plugin.skeleton.provider.omobilities.cnr.OutgoingMobilityCnrV1HostProvider;
 import pt.ulisboa.ewp.node.api.ewp.controller.EwpApi;
 import pt.ulisboa.ewp.node.api.ewp.controller.EwpApiEndpoint;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiConstants;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiParamConstants;
-import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.EwpReceivedChangeNotificationInbox;
 
 @RestController
 @EwpApi
@@ -26,10 +25,11 @@ public class EwpApiOutgoingMobilityCnrV1Controller {
 
   public static final String BASE_PATH = "omobilities/cnr/v1";
 
-  private final HostPluginManager hostPluginManager;
+  private final EwpReceivedChangeNotificationInbox receivedChangeNotificationInbox;
 
-  public EwpApiOutgoingMobilityCnrV1Controller(HostPluginManager hostPluginManager) {
-    this.hostPluginManager = hostPluginManager;
+  public EwpApiOutgoingMobilityCnrV1Controller(
+      EwpReceivedChangeNotificationInbox receivedChangeNotificationInbox) {
+    this.receivedChangeNotificationInbox = receivedChangeNotificationInbox;
   }
 
   @EwpApiEndpoint(api = "omobility-cnr", apiMajorVersion = 1)
@@ -43,11 +43,9 @@ public class EwpApiOutgoingMobilityCnrV1Controller {
       @RequestParam(value = EwpApiParamConstants.SENDING_HEI_ID) String sendingHeiId,
       @RequestParam(value = EwpApiParamConstants.OMOBILITY_ID) List<String> omobilityIds) {
 
-    Collection<OutgoingMobilityCnrV1HostProvider> providers = hostPluginManager.getAllProvidersOfType(
-        OutgoingMobilityCnrV1HostProvider.class);
-    for (OutgoingMobilityCnrV1HostProvider provider : providers) {
-      provider.onChangeNotification(sendingHeiId, omobilityIds);
-    }
+    receivedChangeNotificationInbox.receive(
+        EwpReceivedChangeNotification.Type.OUTGOING_MOBILITY, sendingHeiId, null,
+        omobilityIds);
 
     return ResponseEntity.ok(new OmobilityCnrResponseV1(new EmptyV1()));
   }
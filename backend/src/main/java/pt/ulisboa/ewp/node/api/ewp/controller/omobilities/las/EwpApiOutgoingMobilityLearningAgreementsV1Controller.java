@@ -17,6 +17,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.Optional;
 import javax.validation.Valid;
 import org.slf4j.Logger;
@@ -38,10 +39,14 @@ import pt.ulisboa.ewp.node.api.ewp.controller.EwpApiEndpoint;
 import pt.ulisboa.ewp.node.api.ewp.security.EwpApiHostAuthenticationToken;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiConstants;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiParamConstants;
-import pt.ulisboa.ewp.node.domain.entity.mapping.EwpOutgoingMobilityMapping;
-import pt.ulisboa.ewp.node.domain.repository.mapping.EwpOutgoingMobilityMappingRepository;
+import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiUtils;
 import pt.ulisboa.ewp.node.exception.ewp.EwpBadRequestException;
+import pt.ulisboa.ewp.node.plugin.executor.HostProviderExecutor;
 import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpOunitMapping;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpOutgoingMobilityMappingNearCache;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsSnapshotService;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsType;
 
 @RestController
 @EwpApi
@@ -54,16 +59,22 @@ public class EwpApiOutgoingMobilityLearningAgreementsV1Controller {
   public static final String BASE_PATH = "omobilities/las/v1";
 
   private final HostPluginManager hostPluginManager;
+  private final HostProviderExecutor hostProviderExecutor;
 
-  private final EwpOutgoingMobilityMappingRepository mappingRepository;
+  private final EwpOutgoingMobilityMappingNearCache mappingNearCache;
+  private final EwpStatsSnapshotService statsSnapshotService;
 
   private final String statsPortalHeiId;
 
   public EwpApiOutgoingMobilityLearningAgreementsV1Controller(HostPluginManager hostPluginManager,
-      EwpOutgoingMobilityMappingRepository mappingRepository,
+      HostProviderExecutor hostProviderExecutor,
+      EwpOutgoingMobilityMappingNearCache mappingNearCache,
+      EwpStatsSnapshotService statsSnapshotService,
       @Value("${stats.portal.heiId}") String statsPortalHeiId) {
     this.hostPluginManager = hostPluginManager;
-    this.mappingRepository = mappingRepository;
+    this.hostProviderExecutor = hostProviderExecutor;
+    this.mappingNearCache = mappingNearCache;
+    this.statsSnapshotService = statsSnapshotService;
     this.statsPortalHeiId = statsPortalHeiId;
   }
 
@@ -177,7 +188,7 @@ public class EwpApiOutgoingMobilityLearningAgreementsV1Controller {
 
     String omobilityId = getOmobilityIdOfUpdateData(updateData);
 
-    Optional<EwpOutgoingMobilityMapping> mappingOptional = mappingRepository.findByHeiIdAndOmobilityId(
+    Optional<EwpOunitMapping> mappingOptional = mappingNearCache.getMapping(
         sendingHeiId, omobilityId);
     String ounitIdCoveringAgreement;
     if (mappingOptional.isPresent()) {
@@ -197,6 +208,7 @@ public class EwpApiOutgoingMobilityLearningAgreementsV1Controller {
 
     OmobilityLasUpdateResponseV1 response = provider.updateOutgoingMobilityLearningAgreement(
         authenticationToken.getPrincipal().getHeiIdsCoveredByClient(), updateData);
+    statsSnapshotService.requestRefresh(EwpStatsType.OMOBILITY_LAS, sendingHeiId);
     return ResponseEntity.ok(response);
   }
 
@@ -216,13 +228,21 @@ public class EwpApiOutgoingMobilityLearningAgreementsV1Controller {
           "Unauthorized HEI IDs: " + authenticationToken.getPrincipal().getHeiIdsCoveredByClient());
     }
 
+    return EwpApiUtils.createStatsResponseEntity(
+        statsSnapshotService.getSnapshot(EwpStatsType.OMOBILITY_LAS, heiId,
+            () -> computeStats(heiId)));
+  }
+
+  private LasOutgoingStatsResponseV1 computeStats(String heiId) {
     Collection<OutgoingMobilityLearningAgreementsV1HostProvider> providers =
         hostPluginManager.getAllProvidersOfType(heiId,
             OutgoingMobilityLearningAgreementsV1HostProvider.class);
 
+    List<Supplier<LasOutgoingStatsResponseV1>> calls = new ArrayList<>();
+    providers.forEach(provider -> calls.add(() -> provider.getStats(heiId)));
+
     Map<String, AcademicYearLaStats> receivingAcademicYearToLaStatsMap = new HashMap<>();
-    for (OutgoingMobilityLearningAgreementsV1HostProvider provider : providers) {
-      LasOutgoingStatsResponseV1 stats = provider.getStats(heiId);
+    for (LasOutgoingStatsResponseV1 stats : hostProviderExecutor.invokeAll(calls)) {
       if (stats != null) {
         for (AcademicYearLaStats currentProviderLaStats : stats.getAcademicYearLaStats()) {
           String receivingAcademicYearId = currentProviderLaStats.getReceivingAcademicYearId();
@@ -242,8 +262,7 @@ public class EwpApiOutgoingMobilityLearningAgreementsV1Controller {
     for (AcademicYearLaStats academicYearLaStats : receivingAcademicYearToLaStatsMap.values()) {
       response.getAcademicYearLaStats().add(academicYearLaStats);
     }
-
-    return ResponseEntity.ok(response);
+    return response;
   }
 
   private static AcademicYearLaStats createEmptyAcademicYearLaStats(String receivingAcademicYear) {
@@ -356,10 +375,10 @@ public class EwpApiOutgoingMobilityLearningAgreementsV1Controller {
       String heiId, Collection<String> omobilityIds) {
     Map<OutgoingMobilityLearningAgreementsV1HostProvider, Collection<String>> result = new HashMap<>();
     for (String omobilityId : omobilityIds) {
-      Optional<EwpOutgoingMobilityMapping> mappingOptional = mappingRepository.findByHeiIdAndOmobilityId(
+      Optional<EwpOunitMapping> mappingOptional = mappingNearCache.getMapping(
           heiId, omobilityId);
       if (mappingOptional.isPresent()) {
-        EwpOutgoingMobilityMapping mapping = mappingOptional.get();
+        EwpOunitMapping mapping = mappingOptional.get();
 
         Optional<OutgoingMobilityLearningAgreementsV1HostProvider> providerOptional = hostPluginManager.getSingleProvider(
             heiId, mapping.getOunitId(), OutgoingMobilityLearningAgreementsV1HostProvider.class);
@@ -6,10 +6,12 @@ import eu.erasmuswithoutpaper.api.omobilities.las.cnr.v1.LasIncomingStatsRespons
 import eu.erasmuswithoutpaper.api.omobilities.las.cnr.v1.OmobilityLaCnrResponseV1;
 import io.swagger.v3.oas.annotations.Operation;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -24,8 +26,14 @@ import pt.ulisboa.ewp.node.api.ewp.controller.EwpApiEndpoint;
 import pt.ulisboa.ewp.node.api.ewp.security.EwpApiHostAuthenticationToken;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiConstants;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiParamConstants;
+import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiUtils;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
 import pt.ulisboa.ewp.node.exception.ewp.EwpBadRequestException;
+import pt.ulisboa.ewp.node.plugin.executor.HostProviderExecutor;
 import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.EwpReceivedChangeNotificationInbox;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsSnapshotService;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsType;
 
 @RestController
 @EwpApi
@@ -36,13 +44,22 @@ public class EwpApiOutgoingMobilityLearningAgreementCnrV1Controller {
   public static final String BASE_PATH = "omobilities/las/cnr/v1";
 
   private final HostPluginManager hostPluginManager;
+  private final HostProviderExecutor hostProviderExecutor;
+  private final EwpStatsSnapshotService statsSnapshotService;
+  private final EwpReceivedChangeNotificationInbox receivedChangeNotificationInbox;
 
   private final String statsPortalHeiId;
 
   public EwpApiOutgoingMobilityLearningAgreementCnrV1Controller(
       HostPluginManager hostPluginManager,
+      HostProviderExecutor hostProviderExecutor,
+      EwpStatsSnapshotService statsSnapshotService,
+      EwpReceivedChangeNotificationInbox receivedChangeNotificationInbox,
       @Value("${stats.portal.heiId}") String statsPortalHeiId) {
     this.hostPluginManager = hostPluginManager;
+    this.hostProviderExecutor = hostProviderExecutor;
+    this.statsSnapshotService = statsSnapshotService;
+    this.receivedChangeNotificationInbox = receivedChangeNotificationInbox;
     this.statsPortalHeiId = statsPortalHeiId;
   }
 
@@ -57,11 +74,9 @@ public class EwpApiOutgoingMobilityLearningAgreementCnrV1Controller {
       @RequestParam(value = EwpApiParamConstants.SENDING_HEI_ID) String sendingHeiId,
       @RequestParam(value = EwpApiParamConstants.OMOBILITY_ID) List<String> omobilityIds) {
 
-    Collection<OutgoingMobilityLearningAgreementCnrV1HostProvider> providers = hostPluginManager.getAllProvidersOfType(
-        OutgoingMobilityLearningAgreementCnrV1HostProvider.class);
-    for (OutgoingMobilityLearningAgreementCnrV1HostProvider provider : providers) {
-      provider.onChangeNotification(sendingHeiId, omobilityIds);
-    }
+    receivedChangeNotificationInbox.receive(
+        EwpReceivedChangeNotification.Type.OUTGOING_MOBILITY_LEARNING_AGREEMENT, sendingHeiId,
+        null, omobilityIds);
 
     return ResponseEntity.ok(new OmobilityLaCnrResponseV1(new EmptyV1()));
   }
@@ -82,13 +97,21 @@ public class EwpApiOutgoingMobilityLearningAgreementCnrV1Controller {
           "Unauthorized HEI IDs: " + authenticationToken.getPrincipal().getHeiIdsCoveredByClient());
     }
 
+    return EwpApiUtils.createStatsResponseEntity(
+        statsSnapshotService.getSnapshot(EwpStatsType.OMOBILITY_LA_CNR, heiId,
+            () -> computeStats(heiId)));
+  }
+
+  private LasIncomingStatsResponseV1 computeStats(String heiId) {
     Collection<OutgoingMobilityLearningAgreementCnrV1HostProvider> providers =
         hostPluginManager.getAllProvidersOfType(heiId,
             OutgoingMobilityLearningAgreementCnrV1HostProvider.class);
 
+    List<Supplier<LasIncomingStatsResponseV1>> calls = new ArrayList<>();
+    providers.forEach(provider -> calls.add(() -> provider.getStats(heiId)));
+
     Map<String, AcademicYearLaStats> receivingAcademicYearToLaStatsMap = new HashMap<>();
-    for (OutgoingMobilityLearningAgreementCnrV1HostProvider provider : providers) {
-      LasIncomingStatsResponseV1 stats = provider.getStats(heiId);
+    for (LasIncomingStatsResponseV1 stats : hostProviderExecutor.invokeAll(calls)) {
       if (stats != null) {
         for (AcademicYearLaStats currentProviderLaStats : stats.getAcademicYearLaStats()) {
           String receivingAcademicYearId = currentProviderLaStats.getReceivingAcademicYearId();
@@ -108,8 +131,7 @@ public class EwpApiOutgoingMobilityLearningAgreementCnrV1Controller {
     for (AcademicYearLaStats academicYearLaStats : receivingAcademicYearToLaStatsMap.values()) {
       response.getAcademicYearLaStats().add(academicYearLaStats);
     }
-
-    return ResponseEntity.ok(response);
+    return response;
   }
 
   private static AcademicYearLaStats createEmptyAcademicYearLaStats(String receivingAcademicYear) {
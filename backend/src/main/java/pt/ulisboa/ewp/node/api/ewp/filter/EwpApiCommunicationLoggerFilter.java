@@ -20,10 +20,13 @@ import org.springframework.web.util.ServletRequestPathUtils;
 import pt.ulisboa.ewp.node.api.ewp.controller.EwpApiEndpoint;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiConstants;
 import pt.ulisboa.ewp.node.api.ewp.wrapper.EwpApiHttpRequestWrapper;
+import pt.ulisboa.ewp.node.domain.entity.communication.log.http.HttpResponseLog;
 import pt.ulisboa.ewp.node.domain.entity.communication.log.http.ewp.HttpCommunicationFromEwpNodeLog;
 import pt.ulisboa.ewp.node.exception.domain.DomainException;
 import pt.ulisboa.ewp.node.service.communication.context.CommunicationContext;
 import pt.ulisboa.ewp.node.service.communication.context.CommunicationContextHolder;
+import pt.ulisboa.ewp.node.service.communication.log.async.AsyncCommunicationLogWriter;
+import pt.ulisboa.ewp.node.service.communication.log.async.CommunicationLogEvent;
 import pt.ulisboa.ewp.node.service.communication.log.http.ewp.EwpHttpCommunicationLogService;
 
 /**
@@ -40,12 +43,15 @@ public class EwpApiCommunicationLoggerFilter extends OncePerRequestFilter {
 
   private final RequestMappingHandlerMapping requestMappingHandlerMapping;
   private final EwpHttpCommunicationLogService ewpCommunicationLogService;
+  private final AsyncCommunicationLogWriter asyncCommunicationLogWriter;
 
   public EwpApiCommunicationLoggerFilter(
       RequestMappingHandlerMapping requestMappingHandlerMapping,
-      EwpHttpCommunicationLogService ewpCommunicationLogService) {
+      EwpHttpCommunicationLogService ewpCommunicationLogService,
+      AsyncCommunicationLogWriter asyncCommunicationLogWriter) {
     this.requestMappingHandlerMapping = requestMappingHandlerMapping;
     this.ewpCommunicationLogService = ewpCommunicationLogService;
+    this.asyncCommunicationLogWriter = asyncCommunicationLogWriter;
   }
 
   @Override
@@ -148,12 +154,51 @@ public class EwpApiCommunicationLoggerFilter extends OncePerRequestFilter {
   private void updateCommunicationLogWithResponseAndObservation(
       HttpCommunicationFromEwpNodeLog communicationLog,
       ContentCachingResponseWrapper response,
-      String observations)
-      throws IOException {
-    if (!ewpCommunicationLogService.updateCommunicationFromEwpNodeAfterExecution(
-        communicationLog, response, ZonedDateTime.now(), observations)) {
-      throw new IllegalStateException(
-          "Failed to update communication log #" + communicationLog.getId() + "with response data");
+      String observations) {
+    // NOTE: The response is copied now as the response wrapper is flushed once the request ends
+    HttpResponseLog responseLog = ewpCommunicationLogService.toHttpResponseLog(response);
+    asyncCommunicationLogWriter.submit(
+        new UpdateCommunicationLogEvent(
+            communicationLog.getId(), responseLog, ZonedDateTime.now(), observations));
+  }
+
+  private class UpdateCommunicationLogEvent extends CommunicationLogEvent {
+
+    private final long communicationLogId;
+    private final HttpResponseLog responseLog;
+    private final ZonedDateTime endProcessingDateTime;
+    private final String observations;
+
+    private UpdateCommunicationLogEvent(
+        long communicationLogId,
+        HttpResponseLog responseLog,
+        ZonedDateTime endProcessingDateTime,
+        String observations) {
+      this.communicationLogId = communicationLogId;
+      this.responseLog = responseLog;
+      this.endProcessingDateTime = endProcessingDateTime;
+      this.observations = observations;
+    }
+
+    @Override
+    protected void write() {
+      HttpCommunicationFromEwpNodeLog communicationLog =
+          ewpCommunicationLogService
+              .findCommunicationFromEwpNodeById(communicationLogId)
+              .orElseThrow(
+                  () ->
+                      new IllegalStateException(
+                          "Could not find communication log #" + communicationLogId));
+      if (!ewpCommunicationLogService.updateCommunicationFromEwpNodeAfterExecution(
+          communicationLog, responseLog, endProcessingDateTime, observations)) {
+        throw new IllegalStateException(
+            "Failed to update communication log #" + communicationLogId + " with response data");
+      }
+    }
+
+    @Override
+    protected void dropBodies() {
+      responseLog.setBody(null);
     }
   }
 }
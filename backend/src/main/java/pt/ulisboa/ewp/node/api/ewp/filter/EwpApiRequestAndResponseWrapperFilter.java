@@ -8,18 +8,25 @@ import javax.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiConstants;
 import pt.ulisboa.ewp.node.api.ewp.wrapper.EwpApiHttpRequestWrapper;
+import pt.ulisboa.ewp.node.api.ewp.wrapper.EwpApiHttpResponseWrapper;
+import pt.ulisboa.ewp.node.config.api.ApiProperties;
 
 /**
- * Filter that wraps EWP API requests around an EwpHttpRequestWrapper and responses as
- * ContentCachingResponseWrapper.
+ * Filter that wraps EWP API requests around an EwpHttpRequestWrapper and responses around an
+ * EwpApiHttpResponseWrapper.
  */
 @Configuration
 @Order(Integer.MIN_VALUE)
 public class EwpApiRequestAndResponseWrapperFilter extends OncePerRequestFilter {
 
+  private final ApiProperties apiProperties;
+
+  public EwpApiRequestAndResponseWrapperFilter(ApiProperties apiProperties) {
+    this.apiProperties = apiProperties;
+  }
+
   @Override
   protected boolean shouldNotFilter(HttpServletRequest request) {
     return !request.getRequestURI().startsWith(EwpApiConstants.API_BASE_URI)
@@ -31,12 +38,19 @@ public class EwpApiRequestAndResponseWrapperFilter extends OncePerRequestFilter
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
 
-    EwpApiHttpRequestWrapper ewpRequest = new EwpApiHttpRequestWrapper(request);
-    ContentCachingResponseWrapper contentCachingResponseWrapper =
-        new ContentCachingResponseWrapper(response);
+    EwpApiHttpRequestWrapper ewpRequest =
+        new EwpApiHttpRequestWrapper(request, apiProperties.getRequestBody());
+    EwpApiHttpResponseWrapper ewpResponse =
+        new EwpApiHttpResponseWrapper(response, apiProperties.getResponseBody());
+
+    try {
+      filterChain.doFilter(ewpRequest, ewpResponse);
 
-    filterChain.doFilter(ewpRequest, contentCachingResponseWrapper);
+      ewpResponse.copyBodyToResponse();
 
-    contentCachingResponseWrapper.copyBodyToResponse();
+    } finally {
+      ewpRequest.release();
+      ewpResponse.release();
+    }
   }
 }
@@ -23,6 +23,7 @@ import pt.ulisboa.ewp.node.api.ewp.security.filter.EwpApiResponseCommunicationId
 import pt.ulisboa.ewp.node.api.ewp.security.filter.EwpApiResponseSignerFilter;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiConstants;
 import pt.ulisboa.ewp.node.client.ewp.registry.RegistryClient;
+import pt.ulisboa.ewp.node.config.api.ApiProperties;
 import pt.ulisboa.ewp.node.config.security.SecurityProperties;
 import pt.ulisboa.ewp.node.service.communication.log.http.ewp.EwpHttpCommunicationLogService;
 import pt.ulisboa.ewp.node.service.ewp.security.signer.response.ResponseAuthenticationSigner;
@@ -40,6 +41,8 @@ public class EwpApiSecurityConfig {
 
   @Autowired private SecurityProperties securityProperties;
 
+  @Autowired private ApiProperties apiProperties;
+
   @Autowired private RegistryClient registryClient;
 
   @Autowired private Jaxb2HttpMessageConverter jaxb2HttpMessageConverter;
@@ -66,7 +69,7 @@ public class EwpApiSecurityConfig {
         .exceptionHandling()
         .authenticationEntryPoint(new UnauthorizedAuthenticationEntryPoint());
 
-    http.addFilterBefore(new EwpApiResponseSignerFilter(responseSigner), HeaderWriterFilter.class);
+    http.addFilterBefore(new EwpApiResponseSignerFilter(responseSigner, apiProperties.getResponseBody()), HeaderWriterFilter.class);
     http.addFilterBefore(
         new EwpApiResponseCommunicationIdFillerFilter(), EwpApiResponseSignerFilter.class);
 
@@ -8,21 +8,34 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.springframework.security.web.util.OnCommittedResponseWrapper;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+import pt.ulisboa.ewp.node.api.ewp.wrapper.EwpApiHttpResponseWrapper;
+import pt.ulisboa.ewp.node.config.api.ApiResponseBodyProperties;
 import pt.ulisboa.ewp.node.service.ewp.security.signer.response.ResponseAuthenticationSigner;
 import pt.ulisboa.ewp.node.utils.LoggerUtils;
 
 /**
  * Filter that signs responses following EWP security algorithms once they are about to be
  * committed.
+ *
+ * <p>If the response is already wrapped by an {@link EwpApiHttpResponseWrapper} (see
+ * EwpApiRequestAndResponseWrapperFilter), its body is signed from that wrapper, so that it is not
+ * buffered (and hashed) twice; otherwise, this filter wraps the response itself.
  */
 public class EwpApiResponseSignerFilter extends OncePerRequestFilter {
 
   private final ResponseAuthenticationSigner signer;
+  private final ApiResponseBodyProperties responseBodyProperties;
 
   public EwpApiResponseSignerFilter(
       ResponseAuthenticationSigner signer) {
+    this(signer, new ApiResponseBodyProperties());
+  }
+
+  public EwpApiResponseSignerFilter(
+      ResponseAuthenticationSigner signer, ApiResponseBodyProperties responseBodyProperties) {
     this.signer = signer;
+    this.responseBodyProperties = responseBodyProperties;
   }
 
   @Override
@@ -30,8 +43,14 @@ public class EwpApiResponseSignerFilter extends OncePerRequestFilter {
       HttpServletRequest request, HttpServletResponse response, FilterChain chain)
       throws IOException, ServletException {
 
-    EwpOnCommitedResponseWrapper ewpOnCommitedResponseWrapper =
-        new EwpOnCommitedResponseWrapper(signer, request, response);
+    EwpOnCommitedResponseWrapper ewpOnCommitedResponseWrapper;
+    if (WebUtils.getNativeResponse(response, EwpApiHttpResponseWrapper.class) != null) {
+      ewpOnCommitedResponseWrapper =
+          new EwpOnCommitedResponseWrapper(signer, request, response, false);
+    } else {
+      ewpOnCommitedResponseWrapper = new EwpOnCommitedResponseWrapper(signer, request,
+          new EwpApiHttpResponseWrapper(response, responseBodyProperties), true);
+    }
 
     try {
       chain.doFilter(request, ewpOnCommitedResponseWrapper);
@@ -44,17 +63,23 @@ public class EwpApiResponseSignerFilter extends OncePerRequestFilter {
 
     private final ResponseAuthenticationSigner signer;
     private final HttpServletRequest request;
+    private final boolean ownsBodyBuffer;
 
     /**
      * @param response the response to be wrapped
+     * @param ownsBodyBuffer true if the response is an EwpApiHttpResponseWrapper created by this
+     *     filter, whose body must be copied to the original response once it is signed; otherwise,
+     *     the body is copied by the filter that created the wrapper
      */
     public EwpOnCommitedResponseWrapper(
         ResponseAuthenticationSigner signer,
         HttpServletRequest request,
-        HttpServletResponse response) {
-      super(new ContentCachingResponseWrapper(response));
+        HttpServletResponse response,
+        boolean ownsBodyBuffer) {
+      super(response);
       this.signer = signer;
       this.request = request;
+      this.ownsBodyBuffer = ownsBodyBuffer;
     }
 
     @Override
@@ -74,13 +99,20 @@ public class EwpApiResponseSignerFilter extends OncePerRequestFilter {
 
       signer.sign(request, response);
 
+      if (!ownsBodyBuffer) {
+        return;
+      }
+
+      EwpApiHttpResponseWrapper wrapper = (EwpApiHttpResponseWrapper) getResponse();
       try {
-        ((ContentCachingResponseWrapper) getResponse()).copyBodyToResponse();
+        wrapper.copyBodyToResponse();
       } catch (IOException e) {
         LoggerUtils.error(
             "Failed to copy body from ContentCachingResponseWrapper to original response: "
                 + e.getMessage(),
             EwpApiResponseSignerFilter.class.getCanonicalName());
+      } finally {
+        wrapper.release();
       }
     }
   }
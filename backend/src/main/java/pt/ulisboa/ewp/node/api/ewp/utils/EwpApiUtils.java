@@ -14,6 +14,8 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.w3c.dom.Element;
 import pt.ulisboa.ewp.node.client.ewp.exception.NoEwpApiForHeiIdAndMajorVersionException;
 import pt.ulisboa.ewp.node.client.ewp.registry.RegistryClient;
@@ -23,6 +25,7 @@ import pt.ulisboa.ewp.node.domain.entity.api.ewp.auth.client.EwpClientAuthentica
 import pt.ulisboa.ewp.node.domain.entity.api.ewp.auth.server.EwpServerAuthenticationConfiguration;
 import pt.ulisboa.ewp.node.domain.entity.api.ewp.auth.server.EwpServerAuthenticationConfigurationFactory;
 import pt.ulisboa.ewp.node.service.communication.context.CommunicationContextHolder;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsSnapshot;
 import pt.ulisboa.ewp.node.utils.EwpApi;
 import pt.ulisboa.ewp.node.utils.EwpApiSpecification.SpecificationElementToConfigurationConverter;
 import pt.ulisboa.ewp.node.utils.SemanticVersion;
@@ -40,17 +43,17 @@ public class EwpApiUtils {
       Class<T> apiConfigurationElementClassType,
       SpecificationElementToConfigurationConverter<T, C> apiConfigurationConverter)
       throws NoEwpApiForHeiIdAndMajorVersionException {
-    Optional<T> apiElementOptional =
-        getApiElement(
-            registryClient,
+    Optional<C> apiConfigurationOptional =
+        registryClient.findApiConfiguration(
             heiId,
             apiLocalName,
             wantedMajorVersion,
-            apiConfigurationElementClassType);
-    if (apiElementOptional.isEmpty()) {
+            apiConfigurationElementClassType,
+            apiConfigurationConverter);
+    if (apiConfigurationOptional.isEmpty()) {
       throw new NoEwpApiForHeiIdAndMajorVersionException(heiId, apiLocalName, wantedMajorVersion);
     }
-    return apiConfigurationConverter.convert(heiId, apiElementOptional.get());
+    return apiConfigurationOptional.get();
   }
 
   public static <T> Optional<T> getApiElement(
@@ -70,14 +73,7 @@ public class EwpApiUtils {
 
   public static List<Integer> getSupportedMajorVersions(
       RegistryClient registryClient, String heiId, EwpApi api) {
-    Collection<Element> rawApiElements = getRawApiElements(registryClient, heiId,
-        api.getLocalName());
-    List<Integer> result = new ArrayList<>();
-    for (Element rawApiElement : rawApiElements) {
-      SemanticVersion semanticVersion = getSemanticVersionFromRawApiElement(rawApiElement);
-      result.add(semanticVersion.getMajorVersion());
-    }
-    return result;
+    return new ArrayList<>(registryClient.getSupportedApiMajorVersions(heiId, api.getLocalName()));
   }
 
   public static Optional<Element> getRawApiElement(
@@ -140,6 +136,17 @@ public class EwpApiUtils {
     return result;
   }
 
+  /**
+   * Creates the response of a stats endpoint from a snapshot of statistics, stating when the
+   * statistics were computed (Last-Modified) and how stale they are (Age, in seconds).
+   */
+  public static <T> ResponseEntity<T> createStatsResponseEntity(EwpStatsSnapshot<T> snapshot) {
+    return ResponseEntity.ok()
+        .lastModified(snapshot.getComputedAt())
+        .header(HttpHeaders.AGE, String.valueOf(snapshot.getAgeInSeconds()))
+        .body(snapshot.getStats());
+  }
+
   public static ErrorResponseV1 createErrorResponseWithUserAndDeveloperMessage(
       String userMessage, String developerMessage) {
     if (developerMessage == null) {
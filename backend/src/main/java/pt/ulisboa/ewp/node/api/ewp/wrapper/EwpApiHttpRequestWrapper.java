@@ -1,32 +1,47 @@
 package pt.ulisboa.ewp.node.api.ewp.wrapper;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.catalina.connector.Request;
 import org.apache.catalina.connector.RequestFacade;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.MediaType;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 import pt.ulisboa.ewp.node.api.ewp.security.EwpApiHostAuthenticationToken;
+import pt.ulisboa.ewp.node.config.api.ApiRequestBodyProperties;
+import pt.ulisboa.ewp.node.utils.http.HttpRequestBodyBuffer;
 
 /**
  * A wrapper of HttpServletRequest interface that allows multiple body readings using the method
  * getBody(). The body obtained is as was sent by client. It also allows to filter headers according
  * to a predicate. When used jointly with an EWP authentication procedure it provides authentication
  * details.
+ *
+ * <p>The raw bytes of the body are read once into a {@link HttpRequestBodyBuffer}, which must be
+ * released (by calling {@link #release()}) once the request is handled.
  */
 public class EwpApiHttpRequestWrapper extends ContentCachingRequestWrapper {
 
@@ -34,28 +49,32 @@ public class EwpApiHttpRequestWrapper extends ContentCachingRequestWrapper {
   private static final String REQUEST_FIELD_NAME = "request";
 
   private final String originalQueryString;
+  private final Charset bodyCharset;
+  private final HttpRequestBodyBuffer bodyBuffer;
   private String body;
-  private ServletInputStream inputStream;
+  private Map<String, String[]> formParameters;
 
   private EwpApiHostAuthenticationToken authenticationToken;
   private Predicate<String> headerFilter = headerName -> true;
 
   public EwpApiHttpRequestWrapper(HttpServletRequest request) throws IOException {
+    this(request, new ApiRequestBodyProperties());
+  }
+
+  public EwpApiHttpRequestWrapper(HttpServletRequest request,
+      ApiRequestBodyProperties requestBodyProperties) throws IOException {
     super(request);
 
     this.originalQueryString = request.getQueryString();
+    this.bodyCharset = getBodyCharset(request);
 
     sanitizeRequest(request);
-    initBody(request);
-    initInputStream();
+    this.bodyBuffer = readBody(request, requestBodyProperties);
   }
 
   @Override
   public ServletInputStream getInputStream() throws IOException {
-    if (this.inputStream == null) {
-      return super.getInputStream();
-    }
-    return this.inputStream;
+    return new BodyServletInputStream(bodyBuffer.openInputStream());
   }
 
   private void sanitizeRequest(HttpServletRequest request) {
@@ -86,20 +105,43 @@ public class EwpApiHttpRequestWrapper extends ContentCachingRequestWrapper {
     }
   }
 
-  private void initBody(HttpServletRequest request) throws IOException {
+  private static Charset getBodyCharset(HttpServletRequest request) {
+    if (request.getContentType() != null) {
+      try {
+        Charset charset = MediaType.parseMediaType(request.getContentType()).getCharset();
+        if (charset != null) {
+          return charset;
+        }
+      } catch (IllegalArgumentException e) {
+        log.debug("Invalid content type, assuming UTF-8: {}", request.getContentType());
+      }
+    }
+    return StandardCharsets.UTF_8;
+  }
+
+  private static HttpRequestBodyBuffer readBody(HttpServletRequest request,
+      ApiRequestBodyProperties requestBodyProperties) throws IOException {
     if (HttpMethod.POST.matches(request.getMethod())
         || HttpMethod.PUT.matches(request.getMethod())
         || HttpMethod.PATCH.matches(request.getMethod())) {
-      StringHttpMessageConverter converter = new StringHttpMessageConverter(
-          StandardCharsets.UTF_8);
-      this.body = converter.read(String.class, new ServletServerHttpRequest(this));
-    } else {
-      this.body = "";
+      // NOTE: the raw body is read directly from the request, so that it is kept exactly as sent
+      // by the client (namely, for the digest verification)
+      Path temporaryDirectory =
+          StringUtils.isBlank(requestBodyProperties.getTemporaryDirectory())
+              ? null
+              : Path.of(requestBodyProperties.getTemporaryDirectory());
+      HttpRequestBodyBuffer result = HttpRequestBodyBuffer.read(request.getInputStream(),
+          request.getContentLengthLong(), requestBodyProperties.getMaxInMemorySizeInBytes(),
+          temporaryDirectory);
+      if (result.getSize() == 0 && isFormPost(request)) {
+        // NOTE: the form parameters may have been parsed already (consuming the body), so the
+        // body is rebuilt from them
+        result = HttpRequestBodyBuffer.read(new ServletServerHttpRequest(request).getBody(), -1,
+            requestBodyProperties.getMaxInMemorySizeInBytes(), temporaryDirectory);
+      }
+      return result;
     }
-  }
-
-  private void initInputStream() {
-    this.inputStream = new ContentCachingInputStream(body.getBytes(StandardCharsets.UTF_8));
+    return HttpRequestBodyBuffer.empty();
   }
 
   public String getOriginalQueryString() {
@@ -172,74 +214,192 @@ public class EwpApiHttpRequestWrapper extends ContentCachingRequestWrapper {
   }
 
   /**
-   * Returns request body. It may be called multiple times.
+   * Returns request body. It may be called multiple times. Note that the whole body is decoded
+   * into memory; callers that only need a bounded part of it (e.g. for logging) should use
+   * {@link #getBody(int)} instead.
    */
   public String getBody() {
+    if (this.body == null) {
+      this.body = bodyBuffer.toString(bodyCharset);
+    }
     return body;
   }
 
   /**
-   * Reference: https://stackoverflow.com/questions/30484388/inputstream-to-servletinputstream/33836552
+   * Returns at most a given number of bytes of the request body, decoded. The remaining bytes are
+   * not read, so a large body (kept on a temporary file) is never loaded whole into memory.
+   */
+  public String getBody(int maxSizeInBytes) {
+    return bodyBuffer.toString(bodyCharset, maxSizeInBytes);
+  }
+
+  /**
+   * Returns the raw bytes of the request body, as sent by the client.
+   */
+  public HttpRequestBodyBuffer getBodyBuffer() {
+    return bodyBuffer;
+  }
+
+  @Override
+  public byte[] getContentAsByteArray() {
+    try {
+      return bodyBuffer.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Releases the resources held by the request body (namely, its temporary file, if any).
+   */
+  public void release() {
+    bodyBuffer.close();
+  }
+
+  @Override
+  public String getParameter(String name) {
+    if (!isFormPost(this)) {
+      return super.getParameter(name);
+    }
+    String[] values = getFormParameters().get(name);
+    return values != null && values.length > 0 ? values[0] : null;
+  }
+
+  @Override
+  public Map<String, String[]> getParameterMap() {
+    if (!isFormPost(this)) {
+      return super.getParameterMap();
+    }
+    return Collections.unmodifiableMap(getFormParameters());
+  }
+
+  @Override
+  public Enumeration<String> getParameterNames() {
+    if (!isFormPost(this)) {
+      return super.getParameterNames();
+    }
+    return Collections.enumeration(getFormParameters().keySet());
+  }
+
+  @Override
+  public String[] getParameterValues(String name) {
+    if (!isFormPost(this)) {
+      return super.getParameterValues(name);
+    }
+    String[] values = getFormParameters().get(name);
+    return values != null ? values.clone() : null;
+  }
+
+  private static boolean isFormPost(HttpServletRequest request) {
+    return HttpMethod.POST.matches(request.getMethod())
+        && request.getContentType() != null
+        && request.getContentType().startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE);
+  }
+
+  /**
+   * Returns the parameters of a form POST request, parsed from the request body (as the servlet
+   * container is not able to parse them once the body is consumed). Per EWP specification, query
+   * parameters of a POST request are ignored.
    */
-  private class ContentCachingInputStream extends ServletInputStream {
+  private Map<String, String[]> getFormParameters() {
+    if (this.formParameters == null) {
+      Map<String, List<String>> parameters = new LinkedHashMap<>();
+      String formBody = getBody();
+      for (String pair : formBody.split("&")) {
+        if (pair.isEmpty()) {
+          continue;
+        }
+        int separatorIndex = pair.indexOf('=');
+        String name = separatorIndex >= 0 ? pair.substring(0, separatorIndex) : pair;
+        String value = separatorIndex >= 0 ? pair.substring(separatorIndex + 1) : "";
+        parameters
+            .computeIfAbsent(URLDecoder.decode(name, bodyCharset), n -> new ArrayList<>())
+            .add(URLDecoder.decode(value, bodyCharset));
+      }
 
-    private final byte[] bytes;
+      Map<String, String[]> result = new LinkedHashMap<>();
+      parameters.forEach((name, values) -> result.put(name, values.toArray(new String[0])));
+      this.formParameters = result;
+    }
+    return formParameters;
+  }
 
-    private int lastIndexRetrieved = -1;
-    private ReadListener readListener = null;
+  private static class BodyServletInputStream extends ServletInputStream {
 
-    private ContentCachingInputStream(byte[] bytes) {
-      this.bytes = bytes;
+    private final InputStream delegate;
+    private boolean finished;
+    private ReadListener readListener;
+
+    private BodyServletInputStream(InputStream delegate) {
+      this.delegate = delegate;
     }
 
     @Override
     public int read() throws IOException {
-      int i;
-      if (!isFinished()) {
-        i = bytes[lastIndexRetrieved + 1];
-        lastIndexRetrieved++;
-        if (isFinished() && (readListener != null)) {
-          try {
-            readListener.onAllDataRead();
-          } catch (IOException ex) {
-            readListener.onError(ex);
-            throw ex;
-          }
-        }
-        return i;
-      } else {
-        return -1;
+      return onRead(delegate.read());
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
       }
+      return onRead(delegate.read(bytes, offset, length));
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      return delegate.skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+      return delegate.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
     }
 
     @Override
     public boolean isFinished() {
-      return (lastIndexRetrieved == bytes.length - 1);
+      return finished;
     }
 
     @Override
     public boolean isReady() {
-      // This implementation will never block
-      // We also never need to call the readListener from this method, as this method will never return false
-      return isFinished();
+      // NOTE: the body is already buffered, so reads never block
+      return true;
     }
 
     @Override
     public void setReadListener(ReadListener listener) {
       this.readListener = listener;
-      if (!isFinished()) {
-        try {
-          readListener.onDataAvailable();
-        } catch (IOException e) {
-          readListener.onError(e);
+      try {
+        if (finished) {
+          listener.onAllDataRead();
+        } else {
+          listener.onDataAvailable();
         }
-      } else {
-        try {
-          readListener.onAllDataRead();
-        } catch (IOException e) {
-          readListener.onError(e);
+      } catch (IOException e) {
+        listener.onError(e);
+      }
+    }
+
+    private int onRead(int result) throws IOException {
+      if (result == -1 && !finished) {
+        finished = true;
+        if (readListener != null) {
+          try {
+            readListener.onAllDataRead();
+          } catch (IOException e) {
+            readListener.onError(e);
+            throw e;
+          }
         }
       }
+      return result;
     }
   }
 }
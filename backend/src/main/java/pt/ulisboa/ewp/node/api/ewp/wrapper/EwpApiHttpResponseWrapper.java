@@ -0,0 +1,182 @@
+package pt.ulisboa.ewp.node.api.ewp.wrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import pt.ulisboa.ewp.node.config.api.ApiResponseBodyProperties;
+import pt.ulisboa.ewp.node.utils.http.HttpResponseBodyBuffer;
+
+/**
+ * A ContentCachingResponseWrapper whose body is written into a {@link HttpResponseBodyBuffer}
+ * instead of a plain in-memory buffer, so that large bodies (e.g. files) are kept on a temporary
+ * file while the response is signed and logged. The SHA-256 digest of the body is calculated
+ * while the body is written.
+ *
+ * <p>The buffer must be released (by calling {@link #release()}) once the response is sent.
+ */
+public class EwpApiHttpResponseWrapper extends ContentCachingResponseWrapper {
+
+  private final HttpResponseBodyBuffer bodyBuffer;
+  private ServletOutputStream outputStream;
+  private PrintWriter writer;
+  private Long contentLength;
+
+  public EwpApiHttpResponseWrapper(HttpServletResponse response) {
+    this(response, new ApiResponseBodyProperties());
+  }
+
+  public EwpApiHttpResponseWrapper(HttpServletResponse response,
+      ApiResponseBodyProperties responseBodyProperties) {
+    super(response);
+    this.bodyBuffer = new HttpResponseBodyBuffer(
+        responseBodyProperties.getMaxInMemorySizeInBytes(),
+        StringUtils.isBlank(responseBodyProperties.getTemporaryDirectory())
+            ? null
+            : Path.of(responseBodyProperties.getTemporaryDirectory()));
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (this.outputStream == null) {
+      this.outputStream = new BodyServletOutputStream(getResponse().getOutputStream());
+    }
+    return this.outputStream;
+  }
+
+  @Override
+  public PrintWriter getWriter() throws IOException {
+    if (this.writer == null) {
+      this.writer = new PrintWriter(
+          new OutputStreamWriter(getOutputStream(), getCharacterEncoding()), true);
+    }
+    return this.writer;
+  }
+
+  @Override
+  public void flushBuffer() {
+    // NOTE: do not flush the underlying response, the body is only sent once fully written
+    if (this.writer != null) {
+      this.writer.flush();
+    }
+  }
+
+  @Override
+  public void setContentLength(int len) {
+    this.contentLength = (long) len;
+  }
+
+  @Override
+  public void setContentLengthLong(long len) {
+    this.contentLength = len;
+  }
+
+  @Override
+  public void setBufferSize(int size) {
+    // NOTE: the body is buffered by this wrapper, so the size is ignored
+  }
+
+  @Override
+  public void resetBuffer() {
+    this.bodyBuffer.reset();
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    this.bodyBuffer.reset();
+  }
+
+  @Override
+  public byte[] getContentAsByteArray() {
+    try {
+      flushBuffer();
+      return this.bodyBuffer.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read response body", e);
+    }
+  }
+
+  @Override
+  public InputStream getContentInputStream() {
+    try {
+      flushBuffer();
+      return this.bodyBuffer.openInputStream();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read response body", e);
+    }
+  }
+
+  @Override
+  public int getContentSize() {
+    return (int) Math.min(this.bodyBuffer.getSize(), Integer.MAX_VALUE);
+  }
+
+  /** Returns the SHA-256 digest of the body written so far, without reading it again. */
+  public byte[] getSha256Digest() throws IOException {
+    flushBuffer();
+    return this.bodyBuffer.getSha256Digest();
+  }
+
+  @Override
+  protected void copyBodyToResponse(boolean complete) throws IOException {
+    flushBuffer();
+    if (this.bodyBuffer.getSize() > 0) {
+      HttpServletResponse rawResponse = (HttpServletResponse) getResponse();
+      if ((complete || this.contentLength != null) && !rawResponse.isCommitted()) {
+        if (rawResponse.getHeader(HttpHeaders.TRANSFER_ENCODING) == null) {
+          rawResponse.setContentLengthLong(
+              complete ? this.bodyBuffer.getSize() : this.contentLength);
+        }
+        this.contentLength = null;
+      }
+      this.bodyBuffer.writeTo(rawResponse.getOutputStream());
+      this.bodyBuffer.reset();
+      if (complete) {
+        super.flushBuffer();
+      }
+    }
+  }
+
+  /** Deletes the temporary file of the body, if any. */
+  public void release() {
+    this.bodyBuffer.close();
+  }
+
+  private class BodyServletOutputStream extends ServletOutputStream {
+
+    private final ServletOutputStream os;
+
+    public BodyServletOutputStream(ServletOutputStream os) {
+      this.os = os;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      bodyBuffer.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      bodyBuffer.write(b, off, len);
+    }
+
+    @Override
+    public boolean isReady() {
+      return this.os.isReady();
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      this.os.setWriteListener(writeListener);
+    }
+  }
+}
@@ -8,21 +8,21 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import pt.ulisboa.ewp.node.api.common.filter.security.logging.MDCAuthenticationFilter;
+import pt.ulisboa.ewp.node.api.host.forward.ewp.security.jwt.ForwardEwpApiJwtVerificationCache;
 import pt.ulisboa.ewp.node.api.host.forward.ewp.security.jwt.filter.ForwardEwpApiJwtTokenAuthenticationFilter;
 import pt.ulisboa.ewp.node.api.host.forward.ewp.utils.ForwardEwpApiConstants;
-import pt.ulisboa.ewp.node.domain.repository.host.forward.ewp.client.HostForwardEwpApiClientRepository;
 import pt.ulisboa.ewp.node.utils.http.converter.xml.Jaxb2HttpMessageConverter;
 
 @Configuration
 public class ForwardEwpApiSecurityConfig {
 
-  private final HostForwardEwpApiClientRepository repository;
+  private final ForwardEwpApiJwtVerificationCache verificationCache;
 
   private final Jaxb2HttpMessageConverter jaxb2HttpMessageConverter;
 
-  public ForwardEwpApiSecurityConfig(HostForwardEwpApiClientRepository repository,
+  public ForwardEwpApiSecurityConfig(ForwardEwpApiJwtVerificationCache verificationCache,
       Jaxb2HttpMessageConverter jaxb2HttpMessageConverter) {
-    this.repository = repository;
+    this.verificationCache = verificationCache;
     this.jaxb2HttpMessageConverter = jaxb2HttpMessageConverter;
   }
 
@@ -45,7 +45,7 @@ public class ForwardEwpApiSecurityConfig {
         .sessionCreationPolicy(SessionCreationPolicy.STATELESS);
 
     http.addFilterBefore(
-        new ForwardEwpApiJwtTokenAuthenticationFilter(repository, jaxb2HttpMessageConverter),
+        new ForwardEwpApiJwtTokenAuthenticationFilter(verificationCache, jaxb2HttpMessageConverter),
         UsernamePasswordAuthenticationFilter.class);
     http.addFilterAfter(
         new MDCAuthenticationFilter(), ForwardEwpApiJwtTokenAuthenticationFilter.class);
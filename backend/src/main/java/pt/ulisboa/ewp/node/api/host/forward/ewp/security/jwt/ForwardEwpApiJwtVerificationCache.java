@@ -0,0 +1,198 @@
+package pt.ulisboa.ewp.node.api.host.forward.ewp.security.jwt;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.time.Clock;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pt.ulisboa.ewp.node.config.security.SecurityForwardApiJwtProperties;
+import pt.ulisboa.ewp.node.config.security.SecurityProperties;
+import pt.ulisboa.ewp.node.domain.entity.api.host.forward.ewp.client.HostForwardEwpApiClient;
+import pt.ulisboa.ewp.node.domain.repository.host.forward.ewp.client.HostForwardEwpApiClientRepository;
+import pt.ulisboa.ewp.node.events.host.HostsUpdatedEvent;
+
+/**
+ * Cache of what is needed to authenticate the clients of the Forward EWP APIs: the JWT verifier of
+ * each active client, built from the client's secret, and the authentications of already verified
+ * JWTs, so that a JWT reused by a client over many requests is only verified once in a while.
+ *
+ * <p>A verified JWT is reused for a short period and never past its expiration time ("exp"
+ * claim). As the clients (and their secrets) are only changed when the hosts are bootstrapped,
+ * both caches are invalidated whenever the hosts are updated.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class ForwardEwpApiJwtVerificationCache implements MeterBinder {
+
+  private static final String METRICS_VERIFIERS_CACHE_NAME = "ewp.forward.jwt.verifiers";
+  private static final String METRICS_VERIFIED_TOKENS_CACHE_NAME =
+      "ewp.forward.jwt.verified.tokens";
+
+  private final HostForwardEwpApiClientRepository clientRepository;
+  private final Clock clock;
+  private final Cache<String, ClientVerifier> clientIdToVerifierCache;
+  private final Cache<String, VerifiedToken> tokenToVerifiedTokenCache;
+
+  /**
+   * Incremented whenever the caches are invalidated, so that entries loaded concurrently with an
+   * invalidation are not kept.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  @Autowired
+  public ForwardEwpApiJwtVerificationCache(SecurityProperties securityProperties,
+      HostForwardEwpApiClientRepository clientRepository) {
+    this(securityProperties.getForwardApiJwt(), clientRepository, Clock.systemUTC());
+  }
+
+  ForwardEwpApiJwtVerificationCache(SecurityForwardApiJwtProperties properties,
+      HostForwardEwpApiClientRepository clientRepository, Clock clock) {
+    this.clientRepository = clientRepository;
+    this.clock = clock;
+    this.clientIdToVerifierCache = CacheBuilder.newBuilder()
+        .maximumSize(Math.max(0, properties.getVerifierCacheMaxSize()))
+        .recordStats()
+        .build();
+    this.tokenToVerifiedTokenCache = CacheBuilder.newBuilder()
+        .maximumSize(Math.max(0, properties.getVerifiedTokenCacheMaxSize()))
+        .expireAfterWrite(Math.max(0, properties.getVerifiedTokenCacheTimeToLiveInSeconds()),
+            TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Returns the JWT verifier of a given active client, built from its secret, or empty if there is
+   * no such active client (with a secret).
+   */
+  public Optional<ClientVerifier> getClientVerifier(String clientId) {
+    if (clientId == null) {
+      return Optional.empty();
+    }
+
+    ClientVerifier cachedClientVerifier = clientIdToVerifierCache.getIfPresent(clientId);
+    if (cachedClientVerifier != null) {
+      return Optional.of(cachedClientVerifier);
+    }
+
+    long currentGeneration = generation.get();
+    Optional<HostForwardEwpApiClient> clientOptional =
+        clientRepository.findByIdAndActive(clientId, true);
+    if (clientOptional.isEmpty() || clientOptional.get().getSecret() == null) {
+      return Optional.empty();
+    }
+
+    HostForwardEwpApiClient client = clientOptional.get();
+    ClientVerifier clientVerifier = new ClientVerifier(client,
+        JWT.require(Algorithm.HMAC256(client.getSecret().getBytes())).build());
+    clientIdToVerifierCache.put(clientId, clientVerifier);
+    if (generation.get() != currentGeneration) {
+      clientIdToVerifierCache.invalidate(clientId);
+    }
+    return Optional.of(clientVerifier);
+  }
+
+  /**
+   * Returns the authentication of a given JWT, if the JWT was recently verified and has not expired
+   * since, or null otherwise.
+   */
+  public Authentication getVerifiedAuthentication(String token) {
+    VerifiedToken verifiedToken = tokenToVerifiedTokenCache.getIfPresent(token);
+    if (verifiedToken == null) {
+      return null;
+    }
+    if (verifiedToken.isExpired(clock.millis())) {
+      tokenToVerifiedTokenCache.invalidate(token);
+      return null;
+    }
+    return verifiedToken.getAuthentication();
+  }
+
+  /** Caches the authentication of a verified JWT. */
+  public void putVerifiedAuthentication(String token, DecodedJWT decodedToken,
+      Authentication authentication) {
+    Date expiresAt = decodedToken.getExpiresAt();
+    VerifiedToken verifiedToken = new VerifiedToken(authentication,
+        expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE);
+    if (verifiedToken.isExpired(clock.millis())) {
+      return;
+    }
+
+    long currentGeneration = generation.get();
+    tokenToVerifiedTokenCache.put(token, verifiedToken);
+    if (generation.get() != currentGeneration) {
+      tokenToVerifiedTokenCache.invalidate(token);
+    }
+  }
+
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    clientIdToVerifierCache.invalidateAll();
+    tokenToVerifiedTokenCache.invalidateAll();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onHostsUpdatedEvent(HostsUpdatedEvent event) {
+    invalidateAll();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    GuavaCacheMetrics.monitor(registry, clientIdToVerifierCache, METRICS_VERIFIERS_CACHE_NAME);
+    GuavaCacheMetrics.monitor(registry, tokenToVerifiedTokenCache,
+        METRICS_VERIFIED_TOKENS_CACHE_NAME);
+  }
+
+  public static class ClientVerifier {
+
+    private final HostForwardEwpApiClient client;
+    private final JWTVerifier verifier;
+
+    private ClientVerifier(HostForwardEwpApiClient client, JWTVerifier verifier) {
+      this.client = client;
+      this.verifier = verifier;
+    }
+
+    public HostForwardEwpApiClient getClient() {
+      return client;
+    }
+
+    public JWTVerifier getVerifier() {
+      return verifier;
+    }
+  }
+
+  private static class VerifiedToken {
+
+    private final Authentication authentication;
+    private final long expiresAtInMillis;
+
+    private VerifiedToken(Authentication authentication, long expiresAtInMillis) {
+      this.authentication = authentication;
+      this.expiresAtInMillis = expiresAtInMillis;
+    }
+
+    public Authentication getAuthentication() {
+      return authentication;
+    }
+
+    public boolean isExpired(long currentTimeInMillis) {
+      return currentTimeInMillis > expiresAtInMillis;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package pt.ulisboa.ewp.node.api.host.forward.ewp.security.jwt.filter;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
@@ -25,16 +26,16 @@ import pt.ulisboa.ewp.node.utils.messaging.Severity;
 /**
  * A filter that authenticates a user given the JWT authentication token on header.
  *
- * <p>Token verification is done using HMAC256 algorithm.
+ * <p>Token verification is done using HMAC256 algorithm. The token itself is never logged.
  */
 public abstract class AbstractJwtTokenAuthenticationFilter extends OncePerRequestFilter {
 
   private final boolean isTokenRequired;
-  private String tokenSecret;
+  private JWTVerifier tokenVerifier;
 
   public AbstractJwtTokenAuthenticationFilter(boolean isTokenRequired, String tokenSecret) {
     this(isTokenRequired);
-    this.tokenSecret = tokenSecret;
+    this.tokenVerifier = createTokenVerifier(tokenSecret);
   }
 
   public AbstractJwtTokenAuthenticationFilter(boolean isTokenRequired) {
@@ -57,7 +58,7 @@ public abstract class AbstractJwtTokenAuthenticationFilter extends OncePerReques
 
       Authentication authentication = getAuthentication(token);
 
-      LoggerUtils.info(
+      LoggerUtils.debug(
           "Valid session for user "
               + authentication.getName()
               + " "
@@ -98,32 +99,34 @@ public abstract class AbstractJwtTokenAuthenticationFilter extends OncePerReques
   }
 
   protected DecodedJWT decodeToken(String jwtToken) {
+    DecodedJWT decodedToken = null;
     try {
-      DecodedJWT decodedToken = JWT.decode(jwtToken);
-      Optional<String> tokenSecretOptional = getTokenSecret(decodedToken);
-      if (tokenSecretOptional.isPresent()) {
-        return JWT.require(Algorithm.HMAC256(tokenSecretOptional.get().getBytes()))
-            .build()
-            .verify(jwtToken);
+      decodedToken = JWT.decode(jwtToken);
+      Optional<JWTVerifier> tokenVerifierOptional = getTokenVerifier(decodedToken);
+      if (tokenVerifierOptional.isPresent()) {
+        return tokenVerifierOptional.get().verify(jwtToken);
       } else {
-        LoggerUtils.error(
-            "No token secret found for verification of JWT token: " + jwtToken,
+        LoggerUtils.warning(
+            "No token secret found for verification of JWT token of issuer: "
+                + decodedToken.getIssuer(),
             AbstractJwtTokenAuthenticationFilter.class.getSimpleName());
         throwAuthenticationErrorCode(
             ForwardEwpApiSecurityCommonConstants.ERROR_VERIFICATION_ERROR_CODE);
       }
     } catch (TokenExpiredException e) {
-      LoggerUtils.error(
-          "Token expired: " + jwtToken, AbstractJwtTokenAuthenticationFilter.class.getSimpleName());
+      LoggerUtils.warning(
+          "Token expired (issuer=" + getIssuer(decodedToken) + ")",
+          AbstractJwtTokenAuthenticationFilter.class.getSimpleName());
       throwAuthenticationError("Token expired: " + e.getLocalizedMessage());
     } catch (JWTVerificationException e) {
-      LoggerUtils.error(
-          "Invalid token: " + jwtToken + "(" + e.getMessage() + ")",
+      LoggerUtils.warning(
+          "Invalid token (issuer=" + getIssuer(decodedToken) + "): " + e.getMessage(),
           AbstractJwtTokenAuthenticationFilter.class.getSimpleName());
-      throwAuthenticationError("Invalid token: " + jwtToken + " (" + e.getLocalizedMessage() + ")");
+      throwAuthenticationError("Invalid token (" + e.getLocalizedMessage() + ")");
     } catch (RuntimeException e) {
       LoggerUtils.error(
-          String.format("Exception found (token=%s): %s", jwtToken, e.getLocalizedMessage()),
+          String.format("Exception found (issuer=%s): %s", getIssuer(decodedToken),
+              e.getLocalizedMessage()),
           AbstractJwtTokenAuthenticationFilter.class.getSimpleName());
       throwAuthenticationErrorCode(e.getMessage());
     }
@@ -138,15 +141,23 @@ public abstract class AbstractJwtTokenAuthenticationFilter extends OncePerReques
   protected abstract Authentication resolveToAuthentication(DecodedJWT decodedToken);
 
   /**
-   * Returns the token secret to verify the JWT. It may be overriden to use the decoded JWT (not
-   * verified) in order, for instance, obtain its issuer and, thus obtain the corresponding token
-   * secret. The default implementation ignores the provided decoded JWT, returning the token secret
-   * passed by constructor.
+   * Returns the verifier of the JWT. It may be overriden to use the decoded JWT (not verified) in
+   * order, for instance, obtain its issuer and, thus obtain the verifier for the corresponding
+   * token secret. The default implementation ignores the provided decoded JWT, returning the
+   * verifier of the token secret passed by constructor.
    *
-   * @return Token secret to verify JWT
+   * @return Verifier of the JWT
    */
-  protected Optional<String> getTokenSecret(DecodedJWT jwt) {
-    return Optional.ofNullable(tokenSecret);
+  protected Optional<JWTVerifier> getTokenVerifier(DecodedJWT jwt) {
+    return Optional.ofNullable(tokenVerifier);
+  }
+
+  /** Creates a verifier of JWTs signed with a given token secret (or null if there is none). */
+  protected static JWTVerifier createTokenVerifier(String tokenSecret) {
+    if (tokenSecret == null) {
+      return null;
+    }
+    return JWT.require(Algorithm.HMAC256(tokenSecret.getBytes())).build();
   }
 
   protected void onSuccessfulAuthentication(
@@ -155,6 +166,10 @@ public abstract class AbstractJwtTokenAuthenticationFilter extends OncePerReques
   protected void onUnsuccessfulAuthentication(
       HttpServletRequest request, HttpServletResponse response, AuthenticationException failed) {}
 
+  private static String getIssuer(DecodedJWT decodedToken) {
+    return decodedToken != null ? decodedToken.getIssuer() : null;
+  }
+
   protected void throwAuthenticationErrorCode(String errorCode) throws AuthenticationException {
     throwAuthenticationError(MessageResolver.getInstance().get(errorCode));
   }
@@ -1,5 +1,6 @@
 package pt.ulisboa.ewp.node.api.host.forward.ewp.security.jwt.filter;
 
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -19,16 +20,20 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import pt.ulisboa.ewp.node.api.host.forward.ewp.security.ForwardEwpApiClientAuthenticationToken;
 import pt.ulisboa.ewp.node.api.host.forward.ewp.security.ForwardEwpApiHostClientPrincipal;
+import pt.ulisboa.ewp.node.api.host.forward.ewp.security.ForwardEwpApiSecurityCommonConstants;
+import pt.ulisboa.ewp.node.api.host.forward.ewp.security.jwt.ForwardEwpApiJwtVerificationCache;
+import pt.ulisboa.ewp.node.api.host.forward.ewp.security.jwt.ForwardEwpApiJwtVerificationCache.ClientVerifier;
 import pt.ulisboa.ewp.node.api.host.forward.ewp.security.jwt.JwtAuthenticationUserDetails;
 import pt.ulisboa.ewp.node.api.host.forward.ewp.utils.ForwardEwpApiResponseUtils;
-import pt.ulisboa.ewp.node.domain.entity.api.host.forward.ewp.client.HostForwardEwpApiClient;
-import pt.ulisboa.ewp.node.domain.repository.host.forward.ewp.client.HostForwardEwpApiClientRepository;
 import pt.ulisboa.ewp.node.utils.http.converter.xml.Jaxb2HttpMessageConverter;
 
 /**
  * A filter that authenticates an host, for the Forward EWP APIs. It expects a JWT with the claim
  * "iss" (issuer) filled with the host's code and signed with the host's forward EWP API
  * configuration's secret.
+ *
+ * <p>Verifiers of each client and recently verified JWTs are reused across requests (see {@link
+ * ForwardEwpApiJwtVerificationCache}).
  */
 public class ForwardEwpApiJwtTokenAuthenticationFilter
     extends AbstractJwtTokenAuthenticationFilter {
@@ -37,42 +42,53 @@ public class ForwardEwpApiJwtTokenAuthenticationFilter
       ForwardEwpApiJwtTokenAuthenticationFilter.class.getPackage().getName()
           + ".HOST_FORWARD_EWP_API_CLIENT";
 
-  private final HostForwardEwpApiClientRepository clientRepository;
+  private final ForwardEwpApiJwtVerificationCache verificationCache;
 
   private final Jaxb2HttpMessageConverter jaxb2HttpMessageConverter;
 
   public ForwardEwpApiJwtTokenAuthenticationFilter(
-      HostForwardEwpApiClientRepository clientRepository,
+      ForwardEwpApiJwtVerificationCache verificationCache,
       Jaxb2HttpMessageConverter jaxb2HttpMessageConverter) {
     super(true);
-    this.clientRepository = clientRepository;
+    this.verificationCache = verificationCache;
     this.jaxb2HttpMessageConverter = jaxb2HttpMessageConverter;
   }
 
   @Override
-  protected Optional<String> getTokenSecret(DecodedJWT jwt) {
-    String issuer = jwt.getIssuer();
-    Optional<HostForwardEwpApiClient> hostForwardEwpApiClientOptional = clientRepository.findByIdAndActive(
-        issuer, true);
-    if (hostForwardEwpApiClientOptional.isPresent()) {
-      HostForwardEwpApiClient hostForwardEwpApiClient = hostForwardEwpApiClientOptional.get();
-      return Optional.ofNullable(hostForwardEwpApiClient.getSecret());
-    } else {
-      return Optional.empty();
+  protected Authentication getAuthentication(String token) {
+    Authentication cachedAuthentication = verificationCache.getVerifiedAuthentication(token);
+    if (cachedAuthentication != null) {
+      return cachedAuthentication;
+    }
+
+    DecodedJWT decodedToken = decodeToken(token);
+    if (decodedToken == null) {
+      return null;
     }
+    Authentication authentication = resolveToAuthentication(decodedToken);
+    verificationCache.putVerifiedAuthentication(token, decodedToken, authentication);
+    return authentication;
+  }
+
+  @Override
+  protected Optional<JWTVerifier> getTokenVerifier(DecodedJWT jwt) {
+    return verificationCache.getClientVerifier(jwt.getIssuer()).map(ClientVerifier::getVerifier);
   }
 
   @Override
   protected ForwardEwpApiClientAuthenticationToken resolveToAuthentication(
       DecodedJWT decodedToken) {
-    Optional<HostForwardEwpApiClient> hostForwardEwpApiClientOptional = clientRepository.findByIdAndActive(
-        decodedToken.getIssuer(), true);
-    assert hostForwardEwpApiClientOptional.isPresent();
-    HostForwardEwpApiClient hostForwardEwpApiClient = hostForwardEwpApiClientOptional.get();
+    Optional<ClientVerifier> clientVerifierOptional = verificationCache.getClientVerifier(
+        decodedToken.getIssuer());
+    if (clientVerifierOptional.isEmpty()) {
+      // NOTE: the client was deactivated meanwhile
+      throwAuthenticationErrorCode(
+          ForwardEwpApiSecurityCommonConstants.ERROR_VERIFICATION_ERROR_CODE);
+    }
 
     return new ForwardEwpApiClientAuthenticationToken(
         new JwtAuthenticationUserDetails(decodedToken),
-        new ForwardEwpApiHostClientPrincipal(hostForwardEwpApiClient));
+        new ForwardEwpApiHostClientPrincipal(clientVerifierOptional.get().getClient()));
   }
 
   @Override
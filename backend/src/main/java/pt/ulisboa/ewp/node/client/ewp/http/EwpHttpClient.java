@@ -2,18 +2,11 @@ package pt.ulisboa.ewp.node.client.ewp.http;
 
 import eu.erasmuswithoutpaper.api.architecture.v1.ErrorResponseV1;
 import java.io.Serializable;
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
-import java.security.UnrecoverableKeyException;
 import java.util.Collection;
-import javax.net.ssl.SSLContext;
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Variant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +20,7 @@ import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientErrorException;
 import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientErrorResponseException;
 import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientInvalidResponseException;
 import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientProcessorException;
+import pt.ulisboa.ewp.node.client.ewp.http.EwpHttpClientEngine.ClientLease;
 import pt.ulisboa.ewp.node.client.ewp.http.interceptor.EwpHttpClientInterceptor;
 import pt.ulisboa.ewp.node.client.ewp.operation.request.EwpRequest;
 import pt.ulisboa.ewp.node.client.ewp.operation.request.body.EwpRequestBody;
@@ -41,10 +35,7 @@ import pt.ulisboa.ewp.node.exception.ewp.EwpServerException;
 import pt.ulisboa.ewp.node.service.ewp.security.signer.request.RequestAuthenticationSigner;
 import pt.ulisboa.ewp.node.service.ewp.security.verifier.EwpAuthenticationResult;
 import pt.ulisboa.ewp.node.service.ewp.security.verifier.response.ResponseAuthenticationVerifier;
-import pt.ulisboa.ewp.node.service.keystore.KeyStoreService;
-import pt.ulisboa.ewp.node.utils.SecurityUtils;
 import pt.ulisboa.ewp.node.utils.http.HttpUtils;
-import pt.ulisboa.ewp.node.utils.keystore.DecodedKeystore;
 import pt.ulisboa.ewp.node.utils.xml.XmlUtils;
 
 @Component
@@ -54,18 +45,18 @@ public class EwpHttpClient {
   private static final Logger LOGGER = LoggerFactory.getLogger(EwpHttpClient.class);
 
   private final Collection<EwpHttpClientInterceptor> interceptors;
-  private final KeyStoreService keystoreService;
+  private final EwpHttpClientEngine clientEngine;
   private final RequestAuthenticationSigner requestSigner;
   private final ResponseAuthenticationVerifier responseVerifier;
   private final Jaxb2Marshaller jaxb2Marshaller;
 
   public EwpHttpClient(Collection<EwpHttpClientInterceptor> interceptors,
-      KeyStoreService keystoreService,
+      EwpHttpClientEngine clientEngine,
       RequestAuthenticationSigner requestSigner,
       ResponseAuthenticationVerifier responseVerifier,
       Jaxb2Marshaller jaxb2Marshaller) {
     this.interceptors = interceptors;
-    this.keystoreService = keystoreService;
+    this.clientEngine = clientEngine;
     this.requestSigner = requestSigner;
     this.responseVerifier = responseVerifier;
     this.jaxb2Marshaller = jaxb2Marshaller;
@@ -103,18 +94,20 @@ public class EwpHttpClient {
     EwpResponse response = null;
     EwpAuthenticationResult responseAuthenticationResult = null;
     try {
-      Client client = getClient();
-
       requestSigner.sign(request);
 
-      WebTarget target = client.target(request.getUrl());
-      target.property("http.autoredirect", true);
+      try (ClientLease clientLease = clientEngine.acquireClient(request.getUrl())) {
+        WebTarget target = clientLease.getClient().target(request.getUrl());
+        target.property("http.autoredirect", true);
 
-      Invocation invocation = buildRequest(request, target);
+        Invocation invocation = buildRequest(request, target);
 
-      LOGGER.info("Sending EWP request to: {}", request.getUrl());
+        LOGGER.info("Sending EWP request to: {}", request.getUrl());
 
-      response = EwpResponse.create(invocation.invoke());
+        try (Response invocationResponse = invocation.invoke()) {
+          response = EwpResponse.create(invocationResponse);
+        }
+      }
 
       responseAuthenticationResult = responseVerifier.verifyAgainstMethod(request, response);
       if (!responseAuthenticationResult.isValid()) {
@@ -233,16 +226,6 @@ public class EwpHttpClient {
         new IllegalStateException("Unknown response status code: " + response.getStatus()));
   }
 
-  private Client getClient()
-      throws NoSuchAlgorithmException, NoSuchProviderException, KeyStoreException, UnrecoverableKeyException, KeyManagementException {
-    DecodedKeystore decodedKeystore = keystoreService.getDecodedKeyStoreFromStorage();
-    SSLContext sslContext = SecurityUtils.createSecurityContext(decodedKeystore.getKeyStore(), null,
-        decodedKeystore.getKeyStorePassword());
-    return ClientBuilder.newBuilder().sslContext(sslContext)
-        .hostnameVerifier((hostname, session) -> hostname.equalsIgnoreCase(session.getPeerHost()))
-        .build();
-  }
-
   private Invocation buildRequest(EwpRequest request, WebTarget target) {
     Invocation.Builder requestBuilder = target.request();
     setRequestHeaders(requestBuilder, request);
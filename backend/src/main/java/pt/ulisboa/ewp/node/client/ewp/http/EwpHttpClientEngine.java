@@ -0,0 +1,319 @@
+package pt.ulisboa.ewp.node.client.ewp.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.ulisboa.ewp.node.config.client.ClientHttpProperties;
+import pt.ulisboa.ewp.node.config.client.ClientProperties;
+import pt.ulisboa.ewp.node.service.keystore.KeyStoreService;
+import pt.ulisboa.ewp.node.utils.keystore.KeyStoreSecurityBundle;
+
+/**
+ * Long-lived engine that provides the JAX-RS client used to send requests to other EWP nodes.
+ *
+ * <p>The client is backed by a bounded pool of connections per partner host and by an SSL context
+ * whose TLS sessions are cached, so that connections and TLS sessions are reused between
+ * requests. The client is only rebuilt when {@link KeyStoreService} reports a different keystore.
+ * Clients are leased (see {@link #acquireClient(String)}), so that a previous client is only
+ * closed once every request that leased it has finished.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class EwpHttpClientEngine implements MeterBinder, DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EwpHttpClientEngine.class);
+
+  private static final String METRIC_POOL = "ewp.http.client.pool";
+  private static final String METRIC_ROUTES = "ewp.http.client.routes";
+  private static final String METRIC_ROUTE_LEASED_MAX = "ewp.http.client.route.leased.max";
+  private static final String METRIC_REBUILDS = "ewp.http.client.rebuilds";
+
+  private final KeyStoreService keyStoreService;
+  private final ClientHttpProperties httpProperties;
+
+  private final Object lock = new Object();
+  private volatile EngineInstance currentInstance;
+
+  private volatile Counter rebuildsCounter;
+
+  public EwpHttpClientEngine(KeyStoreService keyStoreService, ClientProperties clientProperties) {
+    this.keyStoreService = keyStoreService;
+    this.httpProperties = clientProperties.getHttp();
+  }
+
+  /**
+   * Leases the client that must be used to send a request to a given URL. The returned lease must
+   * be closed once the request (including the reading of its response) is finished. The leased
+   * client itself must not be closed by the caller.
+   *
+   * @param url URL of the request that will be sent with the leased client
+   * @return The lease of the client to use.
+   */
+  public ClientLease acquireClient(String url) {
+    while (true) {
+      EngineInstance instance = getCurrentInstance();
+      if (instance.tryAcquire()) {
+        return new ClientLease(instance);
+      }
+      // NOTE: the instance was retired and closed meanwhile, so a newer one must be current
+    }
+  }
+
+  private EngineInstance getCurrentInstance() {
+    KeyStoreSecurityBundle securityBundle = keyStoreService.getSecurityBundle();
+    EngineInstance instance = this.currentInstance;
+    if (instance == null || instance.securityBundle != securityBundle) {
+      synchronized (lock) {
+        instance = this.currentInstance;
+        if (instance == null || instance.securityBundle != securityBundle) {
+          EngineInstance previousInstance = instance;
+          instance = createInstance(securityBundle);
+          this.currentInstance = instance;
+          if (previousInstance != null) {
+            previousInstance.retire();
+          }
+          if (this.rebuildsCounter != null) {
+            this.rebuildsCounter.increment();
+          }
+        }
+      }
+    }
+    return instance;
+  }
+
+  public PoolStats getTotalStats() {
+    EngineInstance instance = this.currentInstance;
+    if (instance == null) {
+      return new PoolStats(0, 0, 0, this.httpProperties.getMaxConnectionsTotal());
+    }
+    return instance.connectionManager.getTotalStats();
+  }
+
+  /**
+   * Returns the number of routes (i.e. partner hosts) with connections on the pool.
+   */
+  public int getNumberRoutes() {
+    EngineInstance instance = this.currentInstance;
+    return instance != null ? instance.connectionManager.getRoutes().size() : 0;
+  }
+
+  /**
+   * Returns the highest number of leased connections to a single route (i.e. partner host).
+   */
+  public int getMaxLeasedPerRoute() {
+    EngineInstance instance = this.currentInstance;
+    int result = 0;
+    if (instance != null) {
+      for (HttpRoute route : instance.connectionManager.getRoutes()) {
+        result = Math.max(result, instance.connectionManager.getStats(route).getLeased());
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    this.rebuildsCounter =
+        Counter.builder(METRIC_REBUILDS)
+            .description("Number of times the EWP HTTP client was (re)built")
+            .register(registry);
+    registerPoolGauge(registry, "leased", e -> e.getTotalStats().getLeased());
+    registerPoolGauge(registry, "available", e -> e.getTotalStats().getAvailable());
+    registerPoolGauge(registry, "pending", e -> e.getTotalStats().getPending());
+    registerPoolGauge(registry, "max", e -> e.getTotalStats().getMax());
+    Gauge.builder(METRIC_ROUTES, this, EwpHttpClientEngine::getNumberRoutes)
+        .description("Number of partner hosts with connections on the EWP HTTP client pool")
+        .register(registry);
+    Gauge.builder(METRIC_ROUTE_LEASED_MAX, this, EwpHttpClientEngine::getMaxLeasedPerRoute)
+        .description("Highest number of leased connections to a single partner host")
+        .register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    synchronized (lock) {
+      if (this.currentInstance != null) {
+        this.currentInstance.retire();
+        this.currentInstance = null;
+      }
+    }
+  }
+
+  private EngineInstance createInstance(KeyStoreSecurityBundle securityBundle) {
+    LOG.info("Building EWP HTTP client for current keystore (version {})",
+        securityBundle.getVersion());
+
+    SSLContext sslContext = securityBundle.getSslContext();
+    SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+    sessionContext.setSessionCacheSize(this.httpProperties.getTlsSessionCacheSize());
+    sessionContext.setSessionTimeout(this.httpProperties.getTlsSessionTimeoutInSeconds());
+
+    HostnameVerifier hostnameVerifier =
+        (hostname, session) -> hostname.equalsIgnoreCase(session.getPeerHost());
+    Registry<ConnectionSocketFactory> socketFactoryRegistry =
+        RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", new SSLConnectionSocketFactory(sslContext, hostnameVerifier))
+            .build();
+
+    PoolingHttpClientConnectionManager connectionManager =
+        new PoolingHttpClientConnectionManager(
+            socketFactoryRegistry,
+            null,
+            null,
+            null,
+            this.httpProperties.getConnectionTimeToLiveInMilliseconds(),
+            TimeUnit.MILLISECONDS);
+    connectionManager.setMaxTotal(this.httpProperties.getMaxConnectionsTotal());
+    connectionManager.setDefaultMaxPerRoute(this.httpProperties.getMaxConnectionsPerHost());
+
+    RequestConfig requestConfig =
+        RequestConfig.custom()
+            .setConnectTimeout(this.httpProperties.getConnectTimeoutInMilliseconds())
+            .setSocketTimeout(this.httpProperties.getReadTimeoutInMilliseconds())
+            .setConnectionRequestTimeout(
+                this.httpProperties.getConnectionRequestTimeoutInMilliseconds())
+            .build();
+
+    ClientConfig clientConfig = new ClientConfig();
+    clientConfig.connectorProvider(new ApacheConnectorProvider());
+    clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+    clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER_SHARED, false);
+    clientConfig.property(ApacheClientProperties.REQUEST_CONFIG, requestConfig);
+    clientConfig.property(
+        org.glassfish.jersey.client.ClientProperties.CONNECT_TIMEOUT,
+        this.httpProperties.getConnectTimeoutInMilliseconds());
+    clientConfig.property(
+        org.glassfish.jersey.client.ClientProperties.READ_TIMEOUT,
+        this.httpProperties.getReadTimeoutInMilliseconds());
+    clientConfig.property(
+        org.glassfish.jersey.client.ClientProperties.FOLLOW_REDIRECTS, true);
+    // NOTE: buffer request bodies so that a Content-Length is sent instead of chunked bodies
+    clientConfig.property(
+        org.glassfish.jersey.client.ClientProperties.REQUEST_ENTITY_PROCESSING,
+        RequestEntityProcessing.BUFFERED);
+
+    Client client = ClientBuilder.newBuilder()
+        .withConfig(clientConfig)
+        .sslContext(sslContext)
+        .hostnameVerifier(hostnameVerifier)
+        .build();
+    return new EngineInstance(securityBundle, client, connectionManager);
+  }
+
+  private void registerPoolGauge(MeterRegistry registry, String state,
+      ToIntFunction<EwpHttpClientEngine> valueFunction) {
+    Gauge.builder(METRIC_POOL, this, valueFunction::applyAsInt)
+        .description("Connections of the EWP HTTP client pool")
+        .tag("state", state)
+        .register(registry);
+  }
+
+  /**
+   * Lease of the client of the engine, that must be closed once the request sent with it is
+   * finished.
+   */
+  public static class ClientLease implements AutoCloseable {
+
+    private final EngineInstance instance;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private ClientLease(EngineInstance instance) {
+      this.instance = instance;
+    }
+
+    public Client getClient() {
+      return instance.client;
+    }
+
+    @Override
+    public void close() {
+      if (released.compareAndSet(false, true)) {
+        instance.release();
+      }
+    }
+  }
+
+  private static class EngineInstance {
+
+    private final KeyStoreSecurityBundle securityBundle;
+    private final Client client;
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private int numberLeases;
+    private boolean retired;
+    private boolean closed;
+
+    private EngineInstance(KeyStoreSecurityBundle securityBundle, Client client,
+        PoolingHttpClientConnectionManager connectionManager) {
+      this.securityBundle = securityBundle;
+      this.client = client;
+      this.connectionManager = connectionManager;
+    }
+
+    private synchronized boolean tryAcquire() {
+      if (this.closed) {
+        return false;
+      }
+      this.numberLeases++;
+      return true;
+    }
+
+    private synchronized void release() {
+      this.numberLeases--;
+      if (this.retired && this.numberLeases == 0) {
+        close();
+      }
+    }
+
+    /**
+     * Marks the instance as no longer current, closing it as soon as it has no leases.
+     */
+    private synchronized void retire() {
+      this.retired = true;
+      if (this.numberLeases == 0) {
+        close();
+      }
+    }
+
+    private void close() {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      try {
+        this.client.close();
+      } catch (RuntimeException e) {
+        LOG.warn("Failed to close EWP HTTP client", e);
+      }
+    }
+  }
+}
@@ -2,9 +2,10 @@ package pt.ulisboa.ewp.node.client.ewp.http.interceptor;
 
 import java.io.IOException;
 import java.time.ZonedDateTime;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.WeakHashMap;
-import javax.transaction.Transactional;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -12,30 +13,41 @@ import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientErrorException;
 import pt.ulisboa.ewp.node.client.ewp.operation.request.EwpRequest;
 import pt.ulisboa.ewp.node.client.ewp.operation.result.EwpSuccessOperationResult;
 import pt.ulisboa.ewp.node.domain.entity.communication.log.http.HttpCommunicationLog;
+import pt.ulisboa.ewp.node.domain.entity.communication.log.http.HttpRequestLog;
+import pt.ulisboa.ewp.node.domain.entity.communication.log.http.HttpResponseLog;
 import pt.ulisboa.ewp.node.domain.entity.communication.log.http.ewp.HttpCommunicationToEwpNodeLog;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpChangeNotification;
 import pt.ulisboa.ewp.node.domain.repository.HostRepository;
 import pt.ulisboa.ewp.node.domain.repository.communication.log.http.HttpCommunicationLogRepository;
+import pt.ulisboa.ewp.node.domain.repository.notification.EwpChangeNotificationRepository;
+import pt.ulisboa.ewp.node.service.communication.log.async.AsyncCommunicationLogWriter;
+import pt.ulisboa.ewp.node.service.communication.log.async.CommunicationLogEvent;
 import pt.ulisboa.ewp.node.service.communication.log.http.ewp.EwpHttpCommunicationLogService;
 
 @Component
-@Transactional
 public class EwpHttpClientLoggerInterceptor implements EwpHttpClientInterceptor {
 
   private static final Logger LOG = LoggerFactory.getLogger(EwpHttpClientLoggerInterceptor.class);
 
   private final EwpHttpCommunicationLogService ewpHttpCommunicationLogService;
   private final HttpCommunicationLogRepository httpCommunicationLogRepository;
+  private final EwpChangeNotificationRepository ewpChangeNotificationRepository;
   private final HostRepository hostRepository;
+  private final AsyncCommunicationLogWriter asyncCommunicationLogWriter;
 
   private final WeakHashMap<EwpRequest, EwpCommunicationContext> requestToCommunicationContextMap = new WeakHashMap<>();
 
   public EwpHttpClientLoggerInterceptor(
       EwpHttpCommunicationLogService ewpHttpCommunicationLogService,
       HttpCommunicationLogRepository httpCommunicationLogRepository,
-      HostRepository hostRepository) {
+      EwpChangeNotificationRepository ewpChangeNotificationRepository,
+      HostRepository hostRepository,
+      AsyncCommunicationLogWriter asyncCommunicationLogWriter) {
     this.ewpHttpCommunicationLogService = ewpHttpCommunicationLogService;
     this.httpCommunicationLogRepository = httpCommunicationLogRepository;
+    this.ewpChangeNotificationRepository = ewpChangeNotificationRepository;
     this.hostRepository = hostRepository;
+    this.asyncCommunicationLogWriter = asyncCommunicationLogWriter;
   }
 
   @Override
@@ -54,28 +66,17 @@ public class EwpHttpClientLoggerInterceptor implements EwpHttpClientInterceptor
     EwpCommunicationContext communicationContext = this.requestToCommunicationContextMap.get(
         request);
 
-    HttpCommunicationLog parentCommunication = this.httpCommunicationLogRepository.findById(
-        request.getParentCommunicationId()).orElse(null);
-
-    try {
-      HttpCommunicationToEwpNodeLog communicationLog =
-          ewpHttpCommunicationLogService.logCommunicationToEwpNode(
-              successOperationResult,
-              communicationContext.startProcessingDateTime,
-              ZonedDateTime.now(),
-              parentCommunication,
-              request.getEwpChangeNotifications());
-
-      Optional<Long> ewpNodeCommunicationId =
-          successOperationResult.getResponse().getEwpNodeCommunicationId();
-      if (ewpNodeCommunicationId.isPresent()) {
-        associateCommunicationLogToParent(
-            request, ewpNodeCommunicationId.get(), communicationLog.getId());
-      }
-
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
-    }
+    asyncCommunicationLogWriter.submit(
+        new LogCommunicationToEwpNodeEvent(
+            request,
+            ewpHttpCommunicationLogService.toHttpRequestLog(request),
+            ewpHttpCommunicationLogService.toHttpResponseLog(successOperationResult.getResponse()),
+            communicationContext.startProcessingDateTime,
+            ZonedDateTime.now(),
+            null,
+            "",
+            successOperationResult.getResponse().getEwpNodeCommunicationId().orElse(null),
+            null));
   }
 
   @Override
@@ -87,28 +88,24 @@ public class EwpHttpClientLoggerInterceptor implements EwpHttpClientInterceptor
     EwpCommunicationContext communicationContext = this.requestToCommunicationContextMap.get(
         request);
 
-    HttpCommunicationLog parentCommunication = this.httpCommunicationLogRepository.findById(
-        request.getParentCommunicationId()).orElse(null);
-
-    try {
-      HttpCommunicationToEwpNodeLog communicationLog =
-          this.ewpHttpCommunicationLogService.logCommunicationToEwpNode(
-              e,
-              communicationContext.startProcessingDateTime,
-              ZonedDateTime.now(),
-              parentCommunication,
-              request.getEwpChangeNotifications());
-
-      if (e.getResponse() != null) {
-        Optional<Long> ewpNodeCommunicationId = e.getResponse().getEwpNodeCommunicationId();
-        if (ewpNodeCommunicationId.isPresent()) {
-          associateCommunicationLogToParent(
-              request, ewpNodeCommunicationId.get(), communicationLog.getId());
-        }
-      }
-    } catch (IOException ex) {
-      throw new IllegalStateException(ex);
+    String serverDeveloperMessage = null;
+    Long ewpNodeCommunicationId = null;
+    if (e.getResponse() != null) {
+      serverDeveloperMessage = e.getResponse().getServerDeveloperMessage();
+      ewpNodeCommunicationId = e.getResponse().getEwpNodeCommunicationId().orElse(null);
     }
+
+    asyncCommunicationLogWriter.submit(
+        new LogCommunicationToEwpNodeEvent(
+            request,
+            ewpHttpCommunicationLogService.toHttpRequestLog(request),
+            ewpHttpCommunicationLogService.toHttpResponseLog(e.getResponse()),
+            communicationContext.startProcessingDateTime,
+            ZonedDateTime.now(),
+            serverDeveloperMessage,
+            e.getDetailedMessage(),
+            ewpNodeCommunicationId,
+            e));
   }
 
   private void associateCommunicationLogToParent(
@@ -133,4 +130,95 @@ public class EwpHttpClientLoggerInterceptor implements EwpHttpClientInterceptor
       this.startProcessingDateTime = startProcessingDateTime;
     }
   }
+
+  /**
+   * Logs a communication to an EWP node. As it may be written on another thread, related entities
+   * (parent communication and change notifications) are referenced by ID and loaded on write.
+   */
+  private class LogCommunicationToEwpNodeEvent extends CommunicationLogEvent {
+
+    private final EwpRequest request;
+    private final HttpRequestLog requestLog;
+    private final HttpResponseLog responseLog;
+    private final ZonedDateTime startProcessingDateTime;
+    private final ZonedDateTime endProcessingDateTime;
+    private final String serverDeveloperMessage;
+    private final String observations;
+    private final Long parentCommunicationId;
+    private final Collection<Long> ewpChangeNotificationIds;
+    private final Long ewpNodeCommunicationId;
+    private final EwpClientErrorException ewpClientErrorException;
+
+    private LogCommunicationToEwpNodeEvent(
+        EwpRequest request,
+        HttpRequestLog requestLog,
+        HttpResponseLog responseLog,
+        ZonedDateTime startProcessingDateTime,
+        ZonedDateTime endProcessingDateTime,
+        String serverDeveloperMessage,
+        String observations,
+        Long ewpNodeCommunicationId,
+        EwpClientErrorException ewpClientErrorException) {
+      this.request = request;
+      this.requestLog = requestLog;
+      this.responseLog = responseLog;
+      this.startProcessingDateTime = startProcessingDateTime;
+      this.endProcessingDateTime = endProcessingDateTime;
+      this.serverDeveloperMessage = serverDeveloperMessage;
+      this.observations = observations;
+      this.parentCommunicationId = request.getParentCommunicationId();
+      this.ewpChangeNotificationIds =
+          request.getEwpChangeNotifications().stream()
+              .map(EwpChangeNotification::getId)
+              .collect(Collectors.toList());
+      this.ewpNodeCommunicationId = ewpNodeCommunicationId;
+      this.ewpClientErrorException = ewpClientErrorException;
+    }
+
+    @Override
+    protected void write() {
+      HttpCommunicationLog parentCommunication =
+          parentCommunicationId != null
+              ? httpCommunicationLogRepository.findById(parentCommunicationId).orElse(null)
+              : null;
+
+      Collection<EwpChangeNotification> ewpChangeNotifications = new ArrayList<>();
+      for (Long ewpChangeNotificationId : ewpChangeNotificationIds) {
+        ewpChangeNotificationRepository
+            .findById(ewpChangeNotificationId)
+            .ifPresent(ewpChangeNotifications::add);
+      }
+
+      try {
+        HttpCommunicationToEwpNodeLog communicationLog =
+            ewpHttpCommunicationLogService.logCommunicationToEwpNode(
+                request,
+                requestLog,
+                responseLog,
+                startProcessingDateTime,
+                endProcessingDateTime,
+                serverDeveloperMessage,
+                observations,
+                parentCommunication,
+                ewpChangeNotifications,
+                ewpClientErrorException);
+
+        if (ewpNodeCommunicationId != null) {
+          associateCommunicationLogToParent(
+              request, ewpNodeCommunicationId, communicationLog.getId());
+        }
+
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    protected void dropBodies() {
+      requestLog.setBody(null);
+      if (responseLog != null) {
+        responseLog.setBody(null);
+      }
+    }
+  }
 }
@@ -0,0 +1,121 @@
+package pt.ulisboa.ewp.node.client.ewp.registry;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Map of byte arrays persisted on a directory (one file per entry), given to the registry client
+ * as its persistent cache so that the last catalogue fetched is available right after the node
+ * starts, before the registry is contacted.
+ *
+ * <p>Entries are kept in memory as well. Failing to persist an entry is logged but otherwise
+ * ignored, as the registry client is able to fetch the catalogue again.
+ */
+class FileSystemCatalogueCacheMap extends AbstractMap<String, byte[]> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileSystemCatalogueCacheMap.class);
+
+  private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+  private final Path directory;
+  private final Map<String, byte[]> entries = new ConcurrentHashMap<>();
+  private volatile long lastModifiedTimeInMillis = -1;
+
+  FileSystemCatalogueCacheMap(Path directory) {
+    this.directory = directory;
+    load();
+  }
+
+  /**
+   * Returns the time (in milliseconds since the epoch) an entry was last stored, or -1 if there is
+   * no entry.
+   */
+  long getLastModifiedTimeInMillis() {
+    return lastModifiedTimeInMillis;
+  }
+
+  @Override
+  public byte[] get(Object key) {
+    return entries.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return entries.containsKey(key);
+  }
+
+  @Override
+  public synchronized byte[] put(String key, byte[] value) {
+    byte[] previousValue = entries.put(key, value);
+    try {
+      Path temporaryFile = Files.createTempFile(directory, "entry-", TEMPORARY_FILE_SUFFIX);
+      Files.write(temporaryFile, value);
+      Files.move(temporaryFile, getFile(key), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOG.warn("Failed to persist registry's catalogue cache entry {} on {}", key, directory, e);
+    }
+    this.lastModifiedTimeInMillis = System.currentTimeMillis();
+    return previousValue;
+  }
+
+  @Override
+  public synchronized byte[] remove(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    byte[] previousValue = entries.remove(key);
+    try {
+      Files.deleteIfExists(getFile((String) key));
+    } catch (IOException e) {
+      LOG.warn("Failed to delete registry's catalogue cache entry {} on {}", key, directory, e);
+    }
+    return previousValue;
+  }
+
+  @Override
+  public Set<Entry<String, byte[]>> entrySet() {
+    return Collections.unmodifiableSet(entries.entrySet());
+  }
+
+  private void load() {
+    try {
+      Files.createDirectories(directory);
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+        for (Path file : files) {
+          String fileName = file.getFileName().toString();
+          if (fileName.endsWith(TEMPORARY_FILE_SUFFIX)) {
+            Files.deleteIfExists(file);
+            continue;
+          }
+          entries.put(URLDecoder.decode(fileName, StandardCharsets.UTF_8),
+              Files.readAllBytes(file));
+          lastModifiedTimeInMillis =
+              Math.max(lastModifiedTimeInMillis, Files.getLastModifiedTime(file).toMillis());
+        }
+      }
+      LOG.info("Loaded {} registry's catalogue cache entries from {}", entries.size(), directory);
+
+    } catch (IOException e) {
+      LOG.warn("Failed to load registry's catalogue cache from {}", directory, e);
+    }
+  }
+
+  private Path getFile(String key) {
+    // NOTE: dots are encoded as well, so that entry files never clash with temporary files
+    return directory.resolve(URLEncoder.encode(key, StandardCharsets.UTF_8).replace(".", "%2E"));
+  }
+}
@@ -0,0 +1,199 @@
+package pt.ulisboa.ewp.node.client.ewp.registry;
+
+import static org.joox.JOOX.$;
+
+import eu.erasmuswithoutpaper.api.architecture.v1.ManifestApiEntryBaseV1;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiUtils;
+import pt.ulisboa.ewp.node.domain.entity.api.ewp.EwpApiConfiguration;
+import pt.ulisboa.ewp.node.utils.EwpApiSpecification.SpecificationElementToConfigurationConverter;
+
+/**
+ * Index of the APIs implemented by each HEI on a given registry catalogue, by API local name and
+ * major version.
+ *
+ * <p>An index is built once per catalogue and never changes afterwards: the API configuration of a
+ * given HEI, API and major version is parsed from the catalogue the first time it is requested and
+ * then reused for as long as the index is in use.
+ */
+class RegistryApiIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RegistryApiIndex.class);
+
+  private final Date catalogueExpiryDate;
+  private final Map<ApiKey, Element> apiKeyToApiElementMap;
+  private final Map<HeiApiKey, List<Integer>> heiApiKeyToMajorVersionsMap;
+  private final Map<ApiKey, EwpApiConfiguration> apiKeyToApiConfigurationMap =
+      new ConcurrentHashMap<>();
+
+  private RegistryApiIndex(
+      Date catalogueExpiryDate,
+      Map<ApiKey, Element> apiKeyToApiElementMap,
+      Map<HeiApiKey, List<Integer>> heiApiKeyToMajorVersionsMap) {
+    this.catalogueExpiryDate = catalogueExpiryDate;
+    this.apiKeyToApiElementMap = apiKeyToApiElementMap;
+    this.heiApiKeyToMajorVersionsMap = heiApiKeyToMajorVersionsMap;
+  }
+
+  /**
+   * Builds the index of a catalogue.
+   *
+   * @param catalogueExpiryDate Expiry date of the catalogue, which identifies it
+   * @param heiIds IDs of all HEIs of the catalogue
+   * @param heiIdToApiElementsFunction Returns the raw API elements of a HEI, in catalogue order
+   */
+  static RegistryApiIndex build(
+      Date catalogueExpiryDate,
+      Collection<String> heiIds,
+      Function<String, Collection<Element>> heiIdToApiElementsFunction) {
+    Map<ApiKey, Element> apiKeyToApiElementMap = new HashMap<>();
+    Map<HeiApiKey, List<Integer>> heiApiKeyToMajorVersionsMap = new HashMap<>();
+    for (String heiId : heiIds) {
+      Collection<Element> apiElements = heiIdToApiElementsFunction.apply(heiId);
+      if (apiElements == null) {
+        continue;
+      }
+
+      for (Element apiElement : apiElements) {
+        int majorVersion;
+        try {
+          majorVersion =
+              EwpApiUtils.getSemanticVersionFromRawApiElement(apiElement).getMajorVersion();
+        } catch (IllegalArgumentException e) {
+          LOG.debug("Ignoring API {} of HEI {}: {}", apiElement.getLocalName(), heiId,
+              e.getMessage());
+          continue;
+        }
+
+        String apiLocalName = apiElement.getLocalName();
+        heiApiKeyToMajorVersionsMap
+            .computeIfAbsent(new HeiApiKey(heiId, apiLocalName), ignored -> new ArrayList<>())
+            .add(majorVersion);
+        // NOTE: as in the catalogue lookups, the first API with a given major version prevails
+        apiKeyToApiElementMap.putIfAbsent(
+            new ApiKey(heiId, apiLocalName, majorVersion), apiElement);
+      }
+    }
+
+    heiApiKeyToMajorVersionsMap.replaceAll((key, majorVersions) ->
+        Collections.unmodifiableList(majorVersions));
+    return new RegistryApiIndex(catalogueExpiryDate, apiKeyToApiElementMap,
+        heiApiKeyToMajorVersionsMap);
+  }
+
+  Date getCatalogueExpiryDate() {
+    return catalogueExpiryDate;
+  }
+
+  int size() {
+    return apiKeyToApiElementMap.size();
+  }
+
+  /**
+   * Returns the major versions of an API implemented by a HEI, in catalogue order (possibly with
+   * repetitions).
+   */
+  List<Integer> getSupportedMajorVersions(String heiId, String apiLocalName) {
+    return heiApiKeyToMajorVersionsMap.getOrDefault(
+        new HeiApiKey(heiId, apiLocalName), Collections.emptyList());
+  }
+
+  @SuppressWarnings("unchecked")
+  <T extends ManifestApiEntryBaseV1, C extends EwpApiConfiguration> Optional<C>
+      findApiConfiguration(
+          String heiId,
+          String apiLocalName,
+          int majorVersion,
+          Class<T> apiElementClassType,
+          SpecificationElementToConfigurationConverter<T, C> apiConfigurationConverter) {
+    ApiKey apiKey = new ApiKey(heiId, apiLocalName, majorVersion);
+    Element apiElement = apiKeyToApiElementMap.get(apiKey);
+    if (apiElement == null) {
+      return Optional.empty();
+    }
+
+    // NOTE: a given API and major version always uses the same specification, so the
+    // configuration cached for it is of the expected type
+    return Optional.of(
+        (C)
+            apiKeyToApiConfigurationMap.computeIfAbsent(
+                apiKey,
+                ignored ->
+                    apiConfigurationConverter.convert(
+                        heiId, $(apiElement).unmarshalOne(apiElementClassType))));
+  }
+
+  private static class HeiApiKey {
+
+    private final String heiId;
+    private final String apiLocalName;
+
+    HeiApiKey(String heiId, String apiLocalName) {
+      this.heiId = heiId;
+      this.apiLocalName = apiLocalName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      HeiApiKey that = (HeiApiKey) o;
+      return Objects.equals(heiId, that.heiId)
+          && Objects.equals(apiLocalName, that.apiLocalName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(heiId, apiLocalName);
+    }
+  }
+
+  private static class ApiKey {
+
+    private final String heiId;
+    private final String apiLocalName;
+    private final int majorVersion;
+
+    ApiKey(String heiId, String apiLocalName, int majorVersion) {
+      this.heiId = heiId;
+      this.apiLocalName = apiLocalName;
+      this.majorVersion = majorVersion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ApiKey that = (ApiKey) o;
+      return majorVersion == that.majorVersion
+          && Objects.equals(heiId, that.heiId)
+          && Objects.equals(apiLocalName, that.apiLocalName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(heiId, apiLocalName, majorVersion);
+    }
+  }
+}
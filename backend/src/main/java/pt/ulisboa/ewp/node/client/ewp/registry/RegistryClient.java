@@ -1,54 +1,126 @@
 package pt.ulisboa.ewp.node.client.ewp.registry;
 
+import eu.erasmuswithoutpaper.api.architecture.v1.ManifestApiEntryBaseV1;
+import eu.erasmuswithoutpaper.registryclient.ApiSearchConditions;
 import eu.erasmuswithoutpaper.registryclient.ClientImpl;
 import eu.erasmuswithoutpaper.registryclient.ClientImplOptions;
 import eu.erasmuswithoutpaper.registryclient.DefaultCatalogueFetcher;
 import eu.erasmuswithoutpaper.registryclient.HeiEntry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPublicKey;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.node.config.registry.RegistryProperties;
+import pt.ulisboa.ewp.node.domain.entity.api.ewp.EwpApiConfiguration;
 import pt.ulisboa.ewp.node.events.ewp.discovery.EwpDiscoveryManifestRequestedEvent;
+import pt.ulisboa.ewp.node.utils.EwpApiSpecification.SpecificationElementToConfigurationConverter;
 
 @Service
-public class RegistryClient extends ClientImpl {
+public class RegistryClient extends ClientImpl implements MeterBinder {
 
   private static final Logger LOG = LoggerFactory.getLogger(RegistryClient.class);
 
-  private static final long SLEEP_TIME_AFTER_MANIFEST_REQUESTED_IN_MS = 3 * 1000L;
+  private static final long DEFAULT_REFRESH_DEBOUNCE_DELAY_IN_MS =
+      new RegistryProperties().getRefreshDebounceDelayInMilliseconds();
 
-  private final Lock handleEwpDiscoveryManifestRequestedEventLock = new ReentrantLock();
+  private final FileSystemCatalogueCacheMap catalogueCacheMap;
+  private final RegistryRefreshScheduler refreshScheduler;
+  private final AtomicLong numberRefreshRequests = new AtomicLong();
+  private volatile long lastRefreshTimeInMillis = -1;
+  private volatile Timer refreshTimer;
+
+  private final Object apiIndexLock = new Object();
+  private volatile RegistryApiIndex apiIndex;
+  private volatile Timer apiLookupTimer;
+  private volatile Timer apiIndexRebuildTimer;
 
   @Autowired
   public RegistryClient(RegistryProperties properties) {
-    this(createClientOptions(properties));
+    this(properties, createCatalogueCacheMap(properties));
   }
 
+  /**
+   * Creates a client with the given options (e.g. to use a catalogue fetcher other than the
+   * registry's), without keeping a copy of the catalogue on disk.
+   */
   public RegistryClient(ClientImplOptions options) {
-    super(options);
+    this(options, null);
+  }
+
+  /**
+   * Creates a client with the given options, keeping a copy of the catalogue on a given map (that
+   * is set as the persistent cache of the options), if not null.
+   */
+  RegistryClient(ClientImplOptions options, FileSystemCatalogueCacheMap catalogueCacheMap) {
+    super(withPersistentCacheMap(options, catalogueCacheMap));
+    this.catalogueCacheMap = catalogueCacheMap;
+    this.refreshScheduler =
+        new RegistryRefreshScheduler(this::refreshCatalogue, DEFAULT_REFRESH_DEBOUNCE_DELAY_IN_MS);
   }
 
-  private static ClientImplOptions createClientOptions(RegistryProperties properties) {
+  private RegistryClient(RegistryProperties properties,
+      FileSystemCatalogueCacheMap catalogueCacheMap) {
+    super(createClientOptions(properties, catalogueCacheMap));
+    this.catalogueCacheMap = catalogueCacheMap;
+    this.refreshScheduler = new RegistryRefreshScheduler(this::refreshCatalogue,
+        properties.getRefreshDebounceDelayInMilliseconds());
+  }
+
+  private static ClientImplOptions createClientOptions(RegistryProperties properties,
+      FileSystemCatalogueCacheMap catalogueCacheMap) {
     LOG.info("Using registry at: " + properties.getUrl());
     ClientImplOptions options = new ClientImplOptions();
     options.setCatalogueFetcher(new DefaultCatalogueFetcher(properties.getUrl()));
     options.setAutoRefreshing(properties.isAutoRefresh());
     options.setTimeBetweenRetries(properties.getTimeBetweenRetriesInMilliseconds());
     options.setMinTimeBetweenQueries(properties.getMinTimeBetweenQueriesInMilliseconds());
+    return withPersistentCacheMap(options, catalogueCacheMap);
+  }
+
+  private static ClientImplOptions withPersistentCacheMap(ClientImplOptions options,
+      FileSystemCatalogueCacheMap catalogueCacheMap) {
+    if (catalogueCacheMap != null) {
+      // NOTE: the client loads the catalogue from this map when created (if it is not expired)
+      // and stores there every catalogue it fetches
+      options.setPersistentCacheMap(catalogueCacheMap);
+    }
     return options;
   }
 
+  private static FileSystemCatalogueCacheMap createCatalogueCacheMap(
+      RegistryProperties properties) {
+    if (StringUtils.isBlank(properties.getCatalogueSnapshotPath())) {
+      return null;
+    }
+    Path directory = Paths.get(properties.getCatalogueSnapshotPath());
+    if (!directory.isAbsolute()) {
+      LOG.warn("Registry's catalogue snapshot path is relative, resolving it to {}",
+          directory.toAbsolutePath());
+    }
+    return new FileSystemCatalogueCacheMap(directory.toAbsolutePath());
+  }
+
   public X509Certificate getCertificateKnownInEwpNetwork(X509Certificate[] certificates) {
     if (certificates == null) {
       return null;
@@ -78,36 +150,150 @@ public class RegistryClient extends ClientImpl {
     return getAllHeis().stream().map(HeiEntry::getId).collect(Collectors.toList());
   }
 
-  @EventListener
-  @Async
-  public void onEwpDiscoveryManifestRequestedEvent(EwpDiscoveryManifestRequestedEvent event)
-      throws RefreshFailureException, InterruptedException {
-    // NOTE: ensure that only one thread (event) is handled at a given moment
-    this.handleEwpDiscoveryManifestRequestedEventLock.lock();
-
+  /**
+   * Returns the configuration of a given API major version implemented by a HEI, if any.
+   *
+   * <p>Lookups are served by an index of the APIs of the catalogue currently loaded, which is
+   * rebuilt (as a whole) once the catalogue is refreshed.
+   */
+  public <T extends ManifestApiEntryBaseV1, C extends EwpApiConfiguration> Optional<C>
+      findApiConfiguration(
+          String heiId,
+          String apiLocalName,
+          int majorVersion,
+          Class<T> apiElementClassType,
+          SpecificationElementToConfigurationConverter<T, C> apiConfigurationConverter) {
+    long startTime = System.nanoTime();
     try {
-      Date registryCacheExpiryDate = super.getExpiryDate();
-      boolean scheduleCacheRefresh = false;
-      if (registryCacheExpiryDate == null || registryCacheExpiryDate.before(new Date())) {
-        LOG.info(
-            "Registry's cache is outdated (or not existing) and a manifest request was received, scheduling a refresh attempt");
-        scheduleCacheRefresh = true;
-
-      } else if (super.findHei(event.getRequestedHeiId()) == null) {
-        LOG.info(
-            "Registry's cache does not contain the requested HEI, scheduling a refresh attempt");
-        scheduleCacheRefresh = true;
+      return getApiIndex()
+          .findApiConfiguration(
+              heiId, apiLocalName, majorVersion, apiElementClassType, apiConfigurationConverter);
+    } finally {
+      Timer timer = this.apiLookupTimer;
+      if (timer != null) {
+        timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
       }
+    }
+  }
+
+  /**
+   * Returns the major versions of an API implemented by a HEI, in catalogue order.
+   */
+  public List<Integer> getSupportedApiMajorVersions(String heiId, String apiLocalName) {
+    return getApiIndex().getSupportedMajorVersions(heiId, apiLocalName);
+  }
+
+  private RegistryApiIndex getApiIndex() {
+    RegistryApiIndex index = this.apiIndex;
+    if (index != null && Objects.equals(index.getCatalogueExpiryDate(), super.getExpiryDate())) {
+      return index;
+    }
+    return rebuildApiIndex();
+  }
 
-      if (scheduleCacheRefresh) {
-        // NOTE: wait some few seconds to ensure that registry's is able to cache the requested
-        // manifest
-        Thread.sleep(SLEEP_TIME_AFTER_MANIFEST_REQUESTED_IN_MS);
-        super.refresh();
+  private RegistryApiIndex rebuildApiIndex() {
+    synchronized (apiIndexLock) {
+      // NOTE: the expiry date is obtained before indexing, so that a refresh happening meanwhile
+      // results in a new rebuild on the next lookup
+      Date catalogueExpiryDate = super.getExpiryDate();
+      RegistryApiIndex index = this.apiIndex;
+      if (index != null && Objects.equals(index.getCatalogueExpiryDate(), catalogueExpiryDate)) {
+        return index;
       }
 
-    } finally {
-      this.handleEwpDiscoveryManifestRequestedEventLock.unlock();
+      long startTime = System.nanoTime();
+      index =
+          RegistryApiIndex.build(
+              catalogueExpiryDate,
+              getAllHeiIds(),
+              heiId -> findApis(new ApiSearchConditions().setRequiredHei(heiId)));
+      long elapsedTime = System.nanoTime() - startTime;
+      this.apiIndex = index;
+
+      Timer timer = this.apiIndexRebuildTimer;
+      if (timer != null) {
+        timer.record(elapsedTime, TimeUnit.NANOSECONDS);
+      }
+      LOG.info("Indexed {} APIs of registry's catalogue in {} ms", index.size(),
+          TimeUnit.NANOSECONDS.toMillis(elapsedTime));
+      return index;
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    this.refreshTimer = Timer.builder("ewp.registry.refresh")
+        .description("Time taken to refresh the registry's catalogue")
+        .register(registry);
+    registry.more().counter("ewp.registry.refresh.requests", List.of(), numberRefreshRequests,
+        AtomicLong::doubleValue);
+    TimeGauge.builder("ewp.registry.catalogue.age", this, TimeUnit.MILLISECONDS,
+            RegistryClient::getCatalogueAgeInMillis)
+        .description("Time elapsed since the registry's catalogue was last fetched")
+        .register(registry);
+    this.apiLookupTimer = Timer.builder("ewp.registry.api.lookup")
+        .description("Time taken to look up the configuration of an API of a HEI")
+        .register(registry);
+    this.apiIndexRebuildTimer = Timer.builder("ewp.registry.api.index.rebuild")
+        .description("Time taken to index the APIs of the registry's catalogue")
+        .register(registry);
+    Gauge.builder("ewp.registry.api.index.size", this, RegistryClient::getApiIndexSize)
+        .description("Number of APIs indexed from the registry's catalogue")
+        .register(registry);
+  }
+
+  private double getApiIndexSize() {
+    RegistryApiIndex index = this.apiIndex;
+    return index != null ? index.size() : 0;
+  }
+
+  private double getCatalogueAgeInMillis() {
+    long lastUpdateTimeInMillis = this.lastRefreshTimeInMillis;
+    if (catalogueCacheMap != null) {
+      // NOTE: the cache is also written when the client refreshes the catalogue on its own
+      lastUpdateTimeInMillis =
+          Math.max(lastUpdateTimeInMillis, catalogueCacheMap.getLastModifiedTimeInMillis());
+    }
+    return lastUpdateTimeInMillis >= 0
+        ? System.currentTimeMillis() - lastUpdateTimeInMillis
+        : Double.NaN;
+  }
+
+  @EventListener
+  public void onEwpDiscoveryManifestRequestedEvent(EwpDiscoveryManifestRequestedEvent event) {
+    Date registryCacheExpiryDate = super.getExpiryDate();
+    String reason;
+    if (registryCacheExpiryDate == null || registryCacheExpiryDate.before(new Date())) {
+      reason = "Registry's cache is outdated (or not existing) and a manifest request was received";
+    } else if (super.findHei(event.getRequestedHeiId()) == null) {
+      reason = "Registry's cache does not contain the requested HEI";
+    } else {
+      return;
     }
+
+    numberRefreshRequests.incrementAndGet();
+    // NOTE: the refresh only runs some few seconds later, to ensure that the registry is able to
+    // cache the requested manifest, and any other refresh requested meanwhile is coalesced into it
+    if (refreshScheduler.requestRefresh()) {
+      LOG.info("{}, scheduling a refresh attempt", reason);
+    }
+  }
+
+  private void refreshCatalogue() throws RefreshFailureException {
+    long startTime = System.nanoTime();
+    super.refresh();
+    long elapsedTime = System.nanoTime() - startTime;
+    this.lastRefreshTimeInMillis = System.currentTimeMillis();
+
+    Timer timer = this.refreshTimer;
+    if (timer != null) {
+      timer.record(elapsedTime, TimeUnit.NANOSECONDS);
+    }
+    getApiIndex();
+  }
+
+  @PreDestroy
+  public void shutdownRefreshScheduler() {
+    refreshScheduler.shutdown();
   }
 }
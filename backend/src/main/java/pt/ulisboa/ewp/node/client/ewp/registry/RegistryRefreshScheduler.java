@@ -0,0 +1,77 @@
+package pt.ulisboa.ewp.node.client.ewp.registry;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs refreshes of the registry's catalogue on a background thread, coalescing the refreshes
+ * requested within a given delay into a single one.
+ */
+class RegistryRefreshScheduler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RegistryRefreshScheduler.class);
+
+  private final RefreshTask refreshTask;
+  private final long debounceDelayInMilliseconds;
+  private final ScheduledExecutorService executorService;
+  private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+  RegistryRefreshScheduler(RefreshTask refreshTask, long debounceDelayInMilliseconds) {
+    this(refreshTask, debounceDelayInMilliseconds, createExecutorService());
+  }
+
+  RegistryRefreshScheduler(RefreshTask refreshTask, long debounceDelayInMilliseconds,
+      ScheduledExecutorService executorService) {
+    this.refreshTask = refreshTask;
+    this.debounceDelayInMilliseconds = Math.max(0, debounceDelayInMilliseconds);
+    this.executorService = executorService;
+  }
+
+  /**
+   * Requests a refresh, which runs once the debounce delay elapses. Requests received while a
+   * refresh is pending are coalesced into that refresh.
+   *
+   * @return true if a new refresh was scheduled, false if the request was coalesced
+   */
+  boolean requestRefresh() {
+    if (!refreshPending.compareAndSet(false, true)) {
+      return false;
+    }
+    executorService.schedule(this::refresh, debounceDelayInMilliseconds, TimeUnit.MILLISECONDS);
+    return true;
+  }
+
+  void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  private void refresh() {
+    // NOTE: requests received from now on may need a catalogue newer than the one about to be
+    // fetched, so they schedule another refresh
+    refreshPending.set(false);
+    try {
+      refreshTask.refresh();
+    } catch (Exception e) {
+      LOG.warn("Failed to refresh registry's catalogue", e);
+    }
+  }
+
+  private static ScheduledExecutorService createExecutorService() {
+    return Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+          Thread thread = new Thread(runnable, "ewp-registry-refresh");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  @FunctionalInterface
+  interface RefreshTask {
+
+    void refresh() throws Exception;
+  }
+}
@@ -0,0 +1,29 @@
+package pt.ulisboa.ewp.node.config.api;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Scope;
+
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+@ConfigurationProperties(prefix = "api")
+public class ApiProperties {
+
+  private ApiRequestBodyProperties requestBody = new ApiRequestBodyProperties();
+  private ApiResponseBodyProperties responseBody = new ApiResponseBodyProperties();
+
+  public ApiRequestBodyProperties getRequestBody() {
+    return requestBody;
+  }
+
+  public void setRequestBody(ApiRequestBodyProperties requestBody) {
+    this.requestBody = requestBody;
+  }
+
+  public ApiResponseBodyProperties getResponseBody() {
+    return responseBody;
+  }
+
+  public void setResponseBody(ApiResponseBodyProperties responseBody) {
+    this.responseBody = responseBody;
+  }
+}
@@ -0,0 +1,23 @@
+package pt.ulisboa.ewp.node.config.api;
+
+public class ApiRequestBodyProperties {
+
+  private long maxInMemorySizeInBytes = 1024 * 1024;
+  private String temporaryDirectory;
+
+  public long getMaxInMemorySizeInBytes() {
+    return maxInMemorySizeInBytes;
+  }
+
+  public void setMaxInMemorySizeInBytes(long maxInMemorySizeInBytes) {
+    this.maxInMemorySizeInBytes = maxInMemorySizeInBytes;
+  }
+
+  public String getTemporaryDirectory() {
+    return temporaryDirectory;
+  }
+
+  public void setTemporaryDirectory(String temporaryDirectory) {
+    this.temporaryDirectory = temporaryDirectory;
+  }
+}
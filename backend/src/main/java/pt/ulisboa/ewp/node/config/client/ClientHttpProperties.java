@@ -0,0 +1,78 @@
+package pt.ulisboa.ewp.node.config.client;
+
+public class ClientHttpProperties {
+
+  private int connectTimeoutInMilliseconds = 10000;
+  private int readTimeoutInMilliseconds = 60000;
+  private int connectionRequestTimeoutInMilliseconds = 30000;
+  private int maxConnectionsTotal = 200;
+  private int maxConnectionsPerHost = 20;
+  private long connectionTimeToLiveInMilliseconds = 300000;
+  private int tlsSessionCacheSize = 1000;
+  private int tlsSessionTimeoutInSeconds = 3600;
+
+  public int getConnectTimeoutInMilliseconds() {
+    return connectTimeoutInMilliseconds;
+  }
+
+  public void setConnectTimeoutInMilliseconds(int connectTimeoutInMilliseconds) {
+    this.connectTimeoutInMilliseconds = connectTimeoutInMilliseconds;
+  }
+
+  public int getReadTimeoutInMilliseconds() {
+    return readTimeoutInMilliseconds;
+  }
+
+  public void setReadTimeoutInMilliseconds(int readTimeoutInMilliseconds) {
+    this.readTimeoutInMilliseconds = readTimeoutInMilliseconds;
+  }
+
+  public int getConnectionRequestTimeoutInMilliseconds() {
+    return connectionRequestTimeoutInMilliseconds;
+  }
+
+  public void setConnectionRequestTimeoutInMilliseconds(
+      int connectionRequestTimeoutInMilliseconds) {
+    this.connectionRequestTimeoutInMilliseconds = connectionRequestTimeoutInMilliseconds;
+  }
+
+  public int getMaxConnectionsTotal() {
+    return maxConnectionsTotal;
+  }
+
+  public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+    this.maxConnectionsTotal = maxConnectionsTotal;
+  }
+
+  public int getMaxConnectionsPerHost() {
+    return maxConnectionsPerHost;
+  }
+
+  public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+    this.maxConnectionsPerHost = maxConnectionsPerHost;
+  }
+
+  public long getConnectionTimeToLiveInMilliseconds() {
+    return connectionTimeToLiveInMilliseconds;
+  }
+
+  public void setConnectionTimeToLiveInMilliseconds(long connectionTimeToLiveInMilliseconds) {
+    this.connectionTimeToLiveInMilliseconds = connectionTimeToLiveInMilliseconds;
+  }
+
+  public int getTlsSessionCacheSize() {
+    return tlsSessionCacheSize;
+  }
+
+  public void setTlsSessionCacheSize(int tlsSessionCacheSize) {
+    this.tlsSessionCacheSize = tlsSessionCacheSize;
+  }
+
+  public int getTlsSessionTimeoutInSeconds() {
+    return tlsSessionTimeoutInSeconds;
+  }
+
+  public void setTlsSessionTimeoutInSeconds(int tlsSessionTimeoutInSeconds) {
+    this.tlsSessionTimeoutInSeconds = tlsSessionTimeoutInSeconds;
+  }
+}
@@ -0,0 +1,26 @@
+package pt.ulisboa.ewp.node.config.client;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Scope;
+
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+@ConfigurationProperties(prefix = "client")
+public class ClientProperties {
+
+  private ClientHttpProperties http = new ClientHttpProperties();
+
+  public ClientHttpProperties getHttp() {
+    return http;
+  }
+
+  public void setHttp(ClientHttpProperties http) {
+    this.http = http;
+  }
+
+  public static ClientProperties create(ClientHttpProperties clientHttpProperties) {
+    ClientProperties result = new ClientProperties();
+    result.setHttp(clientHttpProperties);
+    return result;
+  }
+}
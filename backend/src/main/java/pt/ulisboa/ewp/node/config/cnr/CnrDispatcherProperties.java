@@ -0,0 +1,50 @@
+package pt.ulisboa.ewp.node.config.cnr;
+
+public class CnrDispatcherProperties {
+
+  private int pageSize = 500;
+  private int parallelism = 8;
+  private int maxConcurrentRequestsPerHei = 2;
+  private double maxRequestsPerSecondPerHei = 5.0;
+  private long claimTimeoutInSeconds = 300;
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  public void setPageSize(int pageSize) {
+    this.pageSize = pageSize;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public int getMaxConcurrentRequestsPerHei() {
+    return maxConcurrentRequestsPerHei;
+  }
+
+  public void setMaxConcurrentRequestsPerHei(int maxConcurrentRequestsPerHei) {
+    this.maxConcurrentRequestsPerHei = maxConcurrentRequestsPerHei;
+  }
+
+  public double getMaxRequestsPerSecondPerHei() {
+    return maxRequestsPerSecondPerHei;
+  }
+
+  public void setMaxRequestsPerSecondPerHei(double maxRequestsPerSecondPerHei) {
+    this.maxRequestsPerSecondPerHei = maxRequestsPerSecondPerHei;
+  }
+
+  public long getClaimTimeoutInSeconds() {
+    return claimTimeoutInSeconds;
+  }
+
+  public void setClaimTimeoutInSeconds(long claimTimeoutInSeconds) {
+    this.claimTimeoutInSeconds = claimTimeoutInSeconds;
+  }
+}
@@ -0,0 +1,77 @@
+package pt.ulisboa.ewp.node.config.cnr;
+
+public class CnrInboxProperties {
+
+  private boolean enabled = false;
+  private long intervalInMilliseconds = 1000;
+  private int pageSize = 500;
+  private int parallelism = 4;
+  private long claimTimeoutInSeconds = 300;
+  private int maxNumberAttempts = 10;
+  private long initialRetryDelayInSeconds = 30;
+  private long maxRetryDelayInSeconds = 3600;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getIntervalInMilliseconds() {
+    return intervalInMilliseconds;
+  }
+
+  public void setIntervalInMilliseconds(long intervalInMilliseconds) {
+    this.intervalInMilliseconds = intervalInMilliseconds;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  public void setPageSize(int pageSize) {
+    this.pageSize = pageSize;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public long getClaimTimeoutInSeconds() {
+    return claimTimeoutInSeconds;
+  }
+
+  public void setClaimTimeoutInSeconds(long claimTimeoutInSeconds) {
+    this.claimTimeoutInSeconds = claimTimeoutInSeconds;
+  }
+
+  public int getMaxNumberAttempts() {
+    return maxNumberAttempts;
+  }
+
+  public void setMaxNumberAttempts(int maxNumberAttempts) {
+    this.maxNumberAttempts = maxNumberAttempts;
+  }
+
+  public long getInitialRetryDelayInSeconds() {
+    return initialRetryDelayInSeconds;
+  }
+
+  public void setInitialRetryDelayInSeconds(long initialRetryDelayInSeconds) {
+    this.initialRetryDelayInSeconds = initialRetryDelayInSeconds;
+  }
+
+  public long getMaxRetryDelayInSeconds() {
+    return maxRetryDelayInSeconds;
+  }
+
+  public void setMaxRetryDelayInSeconds(long maxRetryDelayInSeconds) {
+    this.maxRetryDelayInSeconds = maxRetryDelayInSeconds;
+  }
+}
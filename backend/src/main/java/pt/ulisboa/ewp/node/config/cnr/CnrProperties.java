@@ -10,6 +10,8 @@ public class CnrProperties {
 
   private long intervalInMilliseconds;
   private int maxNumberAttempts;
+  private CnrDispatcherProperties dispatcher = new CnrDispatcherProperties();
+  private CnrInboxProperties inbox = new CnrInboxProperties();
 
   public long getIntervalInMilliseconds() {
     return intervalInMilliseconds;
@@ -26,4 +28,20 @@ public class CnrProperties {
   public void setMaxNumberAttempts(int maxNumberAttempts) {
     this.maxNumberAttempts = maxNumberAttempts;
   }
+
+  public CnrDispatcherProperties getDispatcher() {
+    return dispatcher;
+  }
+
+  public void setDispatcher(CnrDispatcherProperties dispatcher) {
+    this.dispatcher = dispatcher;
+  }
+
+  public CnrInboxProperties getInbox() {
+    return inbox;
+  }
+
+  public void setInbox(CnrInboxProperties inbox) {
+    this.inbox = inbox;
+  }
 }
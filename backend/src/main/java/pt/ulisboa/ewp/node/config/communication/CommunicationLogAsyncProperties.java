@@ -0,0 +1,79 @@
+package pt.ulisboa.ewp.node.config.communication;
+
+public class CommunicationLogAsyncProperties {
+
+  private boolean enabled = false;
+  private int queueCapacity = 10000;
+  private int batchSize = 100;
+  private CommunicationLogBackpressureStrategy backpressureStrategy =
+      CommunicationLogBackpressureStrategy.BLOCK;
+  private double dropBodiesThreshold = 0.75;
+  private int sampleRate = 10;
+  private long offerTimeoutInMilliseconds = 100;
+  private long shutdownTimeoutInMilliseconds = 30000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public CommunicationLogBackpressureStrategy getBackpressureStrategy() {
+    return backpressureStrategy;
+  }
+
+  public void setBackpressureStrategy(
+      CommunicationLogBackpressureStrategy backpressureStrategy) {
+    this.backpressureStrategy = backpressureStrategy;
+  }
+
+  public double getDropBodiesThreshold() {
+    return dropBodiesThreshold;
+  }
+
+  public void setDropBodiesThreshold(double dropBodiesThreshold) {
+    this.dropBodiesThreshold = dropBodiesThreshold;
+  }
+
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  public void setSampleRate(int sampleRate) {
+    this.sampleRate = sampleRate;
+  }
+
+  public long getOfferTimeoutInMilliseconds() {
+    return offerTimeoutInMilliseconds;
+  }
+
+  public void setOfferTimeoutInMilliseconds(long offerTimeoutInMilliseconds) {
+    this.offerTimeoutInMilliseconds = offerTimeoutInMilliseconds;
+  }
+
+  public long getShutdownTimeoutInMilliseconds() {
+    return shutdownTimeoutInMilliseconds;
+  }
+
+  public void setShutdownTimeoutInMilliseconds(long shutdownTimeoutInMilliseconds) {
+    this.shutdownTimeoutInMilliseconds = shutdownTimeoutInMilliseconds;
+  }
+}
@@ -0,0 +1,22 @@
+package pt.ulisboa.ewp.node.config.communication;
+
+public enum CommunicationLogBackpressureStrategy {
+
+  /**
+   * Callers wait until there is free space on the queue. This is the only strategy on which
+   * callers may wait indefinitely.
+   */
+  BLOCK,
+
+  /**
+   * Bodies are not kept for communications queued while the queue is above a threshold. If the
+   * queue is full, callers wait up to a timeout, after which the communication is discarded.
+   */
+  DROP_BODIES,
+
+  /**
+   * When the queue is full, only one out of every N communications is kept (callers wait for
+   * those up to a timeout, after which they are also discarded), the remaining ones are discarded.
+   */
+  SAMPLE
+}
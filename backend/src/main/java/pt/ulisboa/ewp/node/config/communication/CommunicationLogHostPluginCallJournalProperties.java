@@ -0,0 +1,50 @@
+package pt.ulisboa.ewp.node.config.communication;
+
+public class CommunicationLogHostPluginCallJournalProperties {
+
+  private boolean enabled = false;
+  private int capacity = 8192;
+  private int sampleRate = 1;
+  private int maxValueLength = 64 * 1024;
+  private long maxPendingSizeInBytes = 16 * 1024 * 1024;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  public void setSampleRate(int sampleRate) {
+    this.sampleRate = sampleRate;
+  }
+
+  public int getMaxValueLength() {
+    return maxValueLength;
+  }
+
+  public void setMaxValueLength(int maxValueLength) {
+    this.maxValueLength = maxValueLength;
+  }
+
+  public long getMaxPendingSizeInBytes() {
+    return maxPendingSizeInBytes;
+  }
+
+  public void setMaxPendingSizeInBytes(long maxPendingSizeInBytes) {
+    this.maxPendingSizeInBytes = maxPendingSizeInBytes;
+  }
+}
@@ -0,0 +1,36 @@
+package pt.ulisboa.ewp.node.config.communication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CommunicationLogHostPluginCallsProperties {
+
+  private List<String> includedMethods = new ArrayList<>();
+  private List<String> excludedMethods = new ArrayList<>(List.of("getMax(.*)PerRequest"));
+  private CommunicationLogHostPluginCallJournalProperties journal =
+      new CommunicationLogHostPluginCallJournalProperties();
+
+  public List<String> getIncludedMethods() {
+    return includedMethods;
+  }
+
+  public void setIncludedMethods(List<String> includedMethods) {
+    this.includedMethods = includedMethods;
+  }
+
+  public List<String> getExcludedMethods() {
+    return excludedMethods;
+  }
+
+  public void setExcludedMethods(List<String> excludedMethods) {
+    this.excludedMethods = excludedMethods;
+  }
+
+  public CommunicationLogHostPluginCallJournalProperties getJournal() {
+    return journal;
+  }
+
+  public void setJournal(CommunicationLogHostPluginCallJournalProperties journal) {
+    this.journal = journal;
+  }
+}
@@ -0,0 +1,34 @@
+package pt.ulisboa.ewp.node.config.communication;
+
+public class CommunicationLogProperties {
+
+  private CommunicationLogAsyncProperties async = new CommunicationLogAsyncProperties();
+  private CommunicationLogValidationProperties validation =
+      new CommunicationLogValidationProperties();
+  private CommunicationLogHostPluginCallsProperties hostPluginCalls =
+      new CommunicationLogHostPluginCallsProperties();
+
+  public CommunicationLogAsyncProperties getAsync() {
+    return async;
+  }
+
+  public void setAsync(CommunicationLogAsyncProperties async) {
+    this.async = async;
+  }
+
+  public CommunicationLogValidationProperties getValidation() {
+    return validation;
+  }
+
+  public void setValidation(CommunicationLogValidationProperties validation) {
+    this.validation = validation;
+  }
+
+  public CommunicationLogHostPluginCallsProperties getHostPluginCalls() {
+    return hostPluginCalls;
+  }
+
+  public void setHostPluginCalls(CommunicationLogHostPluginCallsProperties hostPluginCalls) {
+    this.hostPluginCalls = hostPluginCalls;
+  }
+}
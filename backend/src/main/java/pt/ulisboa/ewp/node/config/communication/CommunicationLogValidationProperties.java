@@ -0,0 +1,14 @@
+package pt.ulisboa.ewp.node.config.communication;
+
+public class CommunicationLogValidationProperties {
+
+  private boolean rootNamespaceSchemaOnly = false;
+
+  public boolean isRootNamespaceSchemaOnly() {
+    return rootNamespaceSchemaOnly;
+  }
+
+  public void setRootNamespaceSchemaOnly(boolean rootNamespaceSchemaOnly) {
+    this.rootNamespaceSchemaOnly = rootNamespaceSchemaOnly;
+  }
+}
@@ -0,0 +1,20 @@
+package pt.ulisboa.ewp.node.config.communication;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Scope;
+
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+@ConfigurationProperties(prefix = "communication")
+public class CommunicationProperties {
+
+  private CommunicationLogProperties log = new CommunicationLogProperties();
+
+  public CommunicationLogProperties getLog() {
+    return log;
+  }
+
+  public void setLog(CommunicationLogProperties log) {
+    this.log = log;
+  }
+}
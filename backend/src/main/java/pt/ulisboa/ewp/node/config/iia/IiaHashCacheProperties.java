@@ -0,0 +1,32 @@
+package pt.ulisboa.ewp.node.config.iia;
+
+public class IiaHashCacheProperties {
+
+  private boolean enabled = true;
+  private long maxSizeInBytes = 32L * 1024 * 1024;
+  private boolean persistent = false;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getMaxSizeInBytes() {
+    return maxSizeInBytes;
+  }
+
+  public void setMaxSizeInBytes(long maxSizeInBytes) {
+    this.maxSizeInBytes = maxSizeInBytes;
+  }
+
+  public boolean isPersistent() {
+    return persistent;
+  }
+
+  public void setPersistent(boolean persistent) {
+    this.persistent = persistent;
+  }
+}
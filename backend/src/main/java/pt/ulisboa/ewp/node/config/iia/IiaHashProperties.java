@@ -0,0 +1,38 @@
+package pt.ulisboa.ewp.node.config.iia;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Scope;
+
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+@ConfigurationProperties(prefix = "iias.hash")
+public class IiaHashProperties {
+
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private int minBatchSizePerTask = 25;
+  private IiaHashCacheProperties cache = new IiaHashCacheProperties();
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public int getMinBatchSizePerTask() {
+    return minBatchSizePerTask;
+  }
+
+  public void setMinBatchSizePerTask(int minBatchSizePerTask) {
+    this.minBatchSizePerTask = minBatchSizePerTask;
+  }
+
+  public IiaHashCacheProperties getCache() {
+    return cache;
+  }
+
+  public void setCache(IiaHashCacheProperties cache) {
+    this.cache = cache;
+  }
+}
@@ -0,0 +1,32 @@
+package pt.ulisboa.ewp.node.config.manifest;
+
+public class ManifestCacheProperties {
+
+  private boolean enabled = true;
+  private long timeToLiveInSeconds = 300;
+  private long maxNumberSnapshots = 32;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getTimeToLiveInSeconds() {
+    return timeToLiveInSeconds;
+  }
+
+  public void setTimeToLiveInSeconds(long timeToLiveInSeconds) {
+    this.timeToLiveInSeconds = timeToLiveInSeconds;
+  }
+
+  public long getMaxNumberSnapshots() {
+    return maxNumberSnapshots;
+  }
+
+  public void setMaxNumberSnapshots(long maxNumberSnapshots) {
+    this.maxNumberSnapshots = maxNumberSnapshots;
+  }
+}
@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Scope;
 public class ManifestProperties {
 
   private ManifestEntriesProperties entries;
+  private ManifestCacheProperties cache = new ManifestCacheProperties();
 
   public ManifestEntriesProperties getEntries() {
     return entries;
@@ -18,6 +19,14 @@ public class ManifestProperties {
     this.entries = entries;
   }
 
+  public ManifestCacheProperties getCache() {
+    return cache;
+  }
+
+  public void setCache(ManifestCacheProperties cache) {
+    this.cache = cache;
+  }
+
   public static ManifestProperties create(ManifestEntriesProperties entries) {
     ManifestProperties result = new ManifestProperties();
     result.setEntries(entries);
@@ -0,0 +1,68 @@
+package pt.ulisboa.ewp.node.config.mapping;
+
+public class MappingCacheProperties {
+
+  private boolean enabled = true;
+  private long maxSize = 100000;
+  private long timeToLiveInSeconds = 60;
+  private long missingTimeToLiveInSeconds = 60;
+  private long flushIntervalInMilliseconds = 1000;
+  private int flushBatchSize = 500;
+  private int maxWriteAttempts = 5;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public void setMaxSize(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public long getTimeToLiveInSeconds() {
+    return timeToLiveInSeconds;
+  }
+
+  public void setTimeToLiveInSeconds(long timeToLiveInSeconds) {
+    this.timeToLiveInSeconds = timeToLiveInSeconds;
+  }
+
+  public long getMissingTimeToLiveInSeconds() {
+    return missingTimeToLiveInSeconds;
+  }
+
+  public void setMissingTimeToLiveInSeconds(long missingTimeToLiveInSeconds) {
+    this.missingTimeToLiveInSeconds = missingTimeToLiveInSeconds;
+  }
+
+  public long getFlushIntervalInMilliseconds() {
+    return flushIntervalInMilliseconds;
+  }
+
+  public void setFlushIntervalInMilliseconds(long flushIntervalInMilliseconds) {
+    this.flushIntervalInMilliseconds = flushIntervalInMilliseconds;
+  }
+
+  public int getFlushBatchSize() {
+    return flushBatchSize;
+  }
+
+  public void setFlushBatchSize(int flushBatchSize) {
+    this.flushBatchSize = flushBatchSize;
+  }
+
+  public int getMaxWriteAttempts() {
+    return maxWriteAttempts;
+  }
+
+  public void setMaxWriteAttempts(int maxWriteAttempts) {
+    this.maxWriteAttempts = maxWriteAttempts;
+  }
+}
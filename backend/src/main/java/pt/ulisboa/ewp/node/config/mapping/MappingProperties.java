@@ -0,0 +1,20 @@
+package pt.ulisboa.ewp.node.config.mapping;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Scope;
+
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+@ConfigurationProperties(prefix = "mappings")
+public class MappingProperties {
+
+  private MappingCacheProperties cache = new MappingCacheProperties();
+
+  public MappingCacheProperties getCache() {
+    return cache;
+  }
+
+  public void setCache(MappingCacheProperties cache) {
+    this.cache = cache;
+  }
+}
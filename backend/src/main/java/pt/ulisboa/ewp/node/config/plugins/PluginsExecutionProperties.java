@@ -0,0 +1,32 @@
+package pt.ulisboa.ewp.node.config.plugins;
+
+public class PluginsExecutionProperties {
+
+  private int parallelism = 16;
+  private int queueCapacity = 1000;
+  private long timeoutInMilliseconds = 60000;
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public long getTimeoutInMilliseconds() {
+    return timeoutInMilliseconds;
+  }
+
+  public void setTimeoutInMilliseconds(long timeoutInMilliseconds) {
+    this.timeoutInMilliseconds = timeoutInMilliseconds;
+  }
+}
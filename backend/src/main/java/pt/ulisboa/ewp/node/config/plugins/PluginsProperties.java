@@ -10,6 +10,7 @@ public class PluginsProperties {
 
   private String path;
   private PluginsAspectsProperties aspects;
+  private PluginsExecutionProperties execution = new PluginsExecutionProperties();
 
   public String getPath() {
     return path;
@@ -26,4 +27,12 @@ public class PluginsProperties {
   public void setAspects(PluginsAspectsProperties aspects) {
     this.aspects = aspects;
   }
+
+  public PluginsExecutionProperties getExecution() {
+    return execution;
+  }
+
+  public void setExecution(PluginsExecutionProperties execution) {
+    this.execution = execution;
+  }
 }
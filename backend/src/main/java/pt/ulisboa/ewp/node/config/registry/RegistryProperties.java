@@ -12,6 +12,8 @@ public class RegistryProperties {
   private boolean autoRefresh;
   private long timeBetweenRetriesInMilliseconds;
   private long minTimeBetweenQueriesInMilliseconds;
+  private long refreshDebounceDelayInMilliseconds = 3000;
+  private String catalogueSnapshotPath;
 
   public String getUrl() {
     return url;
@@ -44,4 +46,20 @@ public class RegistryProperties {
   public void setMinTimeBetweenQueriesInMilliseconds(long minTimeBetweenQueriesInMilliseconds) {
     this.minTimeBetweenQueriesInMilliseconds = minTimeBetweenQueriesInMilliseconds;
   }
+
+  public long getRefreshDebounceDelayInMilliseconds() {
+    return refreshDebounceDelayInMilliseconds;
+  }
+
+  public void setRefreshDebounceDelayInMilliseconds(long refreshDebounceDelayInMilliseconds) {
+    this.refreshDebounceDelayInMilliseconds = refreshDebounceDelayInMilliseconds;
+  }
+
+  public String getCatalogueSnapshotPath() {
+    return catalogueSnapshotPath;
+  }
+
+  public void setCatalogueSnapshotPath(String catalogueSnapshotPath) {
+    this.catalogueSnapshotPath = catalogueSnapshotPath;
+  }
 }
@@ -0,0 +1,33 @@
+package pt.ulisboa.ewp.node.config.security;
+
+public class SecurityForwardApiJwtProperties {
+
+  private long verifierCacheMaxSize = 1000;
+  private long verifiedTokenCacheMaxSize = 10000;
+  private long verifiedTokenCacheTimeToLiveInSeconds = 60;
+
+  public long getVerifierCacheMaxSize() {
+    return verifierCacheMaxSize;
+  }
+
+  public void setVerifierCacheMaxSize(long verifierCacheMaxSize) {
+    this.verifierCacheMaxSize = verifierCacheMaxSize;
+  }
+
+  public long getVerifiedTokenCacheMaxSize() {
+    return verifiedTokenCacheMaxSize;
+  }
+
+  public void setVerifiedTokenCacheMaxSize(long verifiedTokenCacheMaxSize) {
+    this.verifiedTokenCacheMaxSize = verifiedTokenCacheMaxSize;
+  }
+
+  public long getVerifiedTokenCacheTimeToLiveInSeconds() {
+    return verifiedTokenCacheTimeToLiveInSeconds;
+  }
+
+  public void setVerifiedTokenCacheTimeToLiveInSeconds(
+      long verifiedTokenCacheTimeToLiveInSeconds) {
+    this.verifiedTokenCacheTimeToLiveInSeconds = verifiedTokenCacheTimeToLiveInSeconds;
+  }
+}
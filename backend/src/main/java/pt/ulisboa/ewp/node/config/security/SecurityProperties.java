@@ -11,6 +11,7 @@ public class SecurityProperties {
   private boolean allowMissingClientCertificate;
   private SecurityClientTlsProperties clientTls;
   private SecurityKeyStoreProperties keyStore;
+  private SecurityForwardApiJwtProperties forwardApiJwt = new SecurityForwardApiJwtProperties();
 
   public boolean isAllowMissingClientCertificate() {
     return allowMissingClientCertificate;
@@ -35,4 +36,12 @@ public class SecurityProperties {
   public void setKeyStore(SecurityKeyStoreProperties keyStore) {
     this.keyStore = keyStore;
   }
+
+  public SecurityForwardApiJwtProperties getForwardApiJwt() {
+    return forwardApiJwt;
+  }
+
+  public void setForwardApiJwt(SecurityForwardApiJwtProperties forwardApiJwt) {
+    this.forwardApiJwt = forwardApiJwt;
+  }
 }
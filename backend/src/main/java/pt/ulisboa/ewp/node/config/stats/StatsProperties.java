@@ -0,0 +1,20 @@
+package pt.ulisboa.ewp.node.config.stats;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Scope;
+
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+@ConfigurationProperties(prefix = "stats")
+public class StatsProperties {
+
+  private StatsSnapshotsProperties snapshots = new StatsSnapshotsProperties();
+
+  public StatsSnapshotsProperties getSnapshots() {
+    return snapshots;
+  }
+
+  public void setSnapshots(StatsSnapshotsProperties snapshots) {
+    this.snapshots = snapshots;
+  }
+}
@@ -0,0 +1,23 @@
+package pt.ulisboa.ewp.node.config.stats;
+
+public class StatsSnapshotsProperties {
+
+  private boolean enabled = true;
+  private long refreshIntervalInSeconds = 900;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getRefreshIntervalInSeconds() {
+    return refreshIntervalInSeconds;
+  }
+
+  public void setRefreshIntervalInSeconds(long refreshIntervalInSeconds) {
+    this.refreshIntervalInSeconds = refreshIntervalInSeconds;
+  }
+}
@@ -3,6 +3,7 @@ package pt.ulisboa.ewp.node.config.sync;
 public class SyncMappingsProperties {
 
   private long intervalInMilliseconds;
+  private int parallelism = 4;
 
   public long getIntervalInMilliseconds() {
     return intervalInMilliseconds;
@@ -12,6 +13,14 @@ public class SyncMappingsProperties {
     this.intervalInMilliseconds = intervalInMilliseconds;
   }
 
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
   public static SyncMappingsProperties create(long intervalInMilliseconds) {
     SyncMappingsProperties result = new SyncMappingsProperties();
     result.setIntervalInMilliseconds(intervalInMilliseconds);
@@ -13,6 +13,7 @@ public class EwpChangeNotificationDto {
   private int attemptNumber;
   private ZonedDateTime scheduledDateTime;
   private String status;
+  private Long mergedIntoId;
 
   // NOTE: used to store actual CNR variables (e.g. iia_id)
   private List<ExtraVariableEntryDto> extraVariables = new ArrayList<>();
@@ -65,6 +66,14 @@ public class EwpChangeNotificationDto {
     this.status = status;
   }
 
+  public Long getMergedIntoId() {
+    return mergedIntoId;
+  }
+
+  public void setMergedIntoId(Long mergedIntoId) {
+    this.mergedIntoId = mergedIntoId;
+  }
+
   public List<ExtraVariableEntryDto> getExtraVariables() {
     return extraVariables;
   }
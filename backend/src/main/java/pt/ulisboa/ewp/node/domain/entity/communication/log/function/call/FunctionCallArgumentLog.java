@@ -38,9 +38,14 @@ public class FunctionCallArgumentLog {
 
   public static FunctionCallArgumentLog create(
       FunctionCallCommunicationLog functionCallCommunicationLog, Object value) {
+    return create(functionCallCommunicationLog, SerializationUtils.convertToTypeAndString(value));
+  }
+
+  public static FunctionCallArgumentLog create(
+      FunctionCallCommunicationLog functionCallCommunicationLog,
+      TypeAndString valueAsTypeAndString) {
     Objects.requireNonNull(functionCallCommunicationLog);
     int order = functionCallCommunicationLog.getArguments().size() + 1;
-    TypeAndString valueAsTypeAndString = SerializationUtils.convertToTypeAndString(value);
     return new FunctionCallArgumentLog(
         functionCallCommunicationLog,
         order,
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 import javax.persistence.*;
 import pt.ulisboa.ewp.node.domain.entity.communication.log.CommunicationLog;
+import pt.ulisboa.ewp.node.utils.serialization.TypeAndString;
 
 @Entity
 @DiscriminatorValue(FunctionCallCommunicationLog.TYPE)
@@ -100,6 +101,11 @@ public class FunctionCallCommunicationLog extends CommunicationLog {
     this.arguments.add(FunctionCallArgumentLog.create(this, value));
   }
 
+  /** Adds an argument that was already serialized. */
+  public void addSerializedArgument(TypeAndString valueAsTypeAndString) {
+    this.arguments.add(FunctionCallArgumentLog.create(this, valueAsTypeAndString));
+  }
+
   public void editResult(String resultType, String result) {
     setResultType(resultType);
     setResult(result);
@@ -20,6 +20,8 @@ import pt.ulisboa.ewp.node.utils.StringUtils;
 @Table(name = "HTTP_REQUEST_LOG")
 public class HttpRequestLog {
 
+  public static final String TRUNCATED_BODY_SUFFIX = "====TRUNCATED====";
+
   private long id;
   private HttpCommunicationLog communication;
   private HttpMethodLog method;
@@ -94,7 +96,7 @@ public class HttpRequestLog {
   public void setBody(String body) {
     this.body =
             StringUtils.truncateWithSuffix(
-                    body, DomainConstants.MAX_TEXT_COLUMN_TEXT_LENGTH, "====TRUNCATED====");
+                    body, DomainConstants.MAX_TEXT_COLUMN_TEXT_LENGTH, TRUNCATED_BODY_SUFFIX);
   }
 
   public void setHeaders(Collection<HttpHeaderLog> headers) {
@@ -0,0 +1,83 @@
+package pt.ulisboa.ewp.node.domain.entity.iia;
+
+import java.time.ZonedDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Persisted IIA hash calculation, identified by a digest of the content of the IIA it was
+ * calculated for, so that it survives restarts of the node.
+ */
+@Entity
+@Table(name = "EWP_IIA_HASH_CACHE_ENTRY")
+public class EwpIiaHashCacheEntry {
+
+  private String contentDigest;
+  private String hash;
+  private String hashedString;
+  private ZonedDateTime creationDateTime;
+
+  protected EwpIiaHashCacheEntry() {
+  }
+
+  protected EwpIiaHashCacheEntry(String contentDigest, String hash, String hashedString,
+      ZonedDateTime creationDateTime) {
+    this.contentDigest = contentDigest;
+    this.hash = hash;
+    this.hashedString = hashedString;
+    this.creationDateTime = creationDateTime;
+  }
+
+  @Id
+  @Column(name = "content_digest", unique = true, nullable = false, length = 128)
+  public String getContentDigest() {
+    return contentDigest;
+  }
+
+  public void setContentDigest(String contentDigest) {
+    this.contentDigest = contentDigest;
+  }
+
+  @Column(name = "hash", nullable = false)
+  public String getHash() {
+    return hash;
+  }
+
+  public void setHash(String hash) {
+    this.hash = hash;
+  }
+
+  @Column(name = "hashed_string", nullable = false, columnDefinition = "TEXT")
+  public String getHashedString() {
+    return hashedString;
+  }
+
+  public void setHashedString(String hashedString) {
+    this.hashedString = hashedString;
+  }
+
+  @Column(name = "creation_date_time", nullable = false)
+  public ZonedDateTime getCreationDateTime() {
+    return creationDateTime;
+  }
+
+  public void setCreationDateTime(ZonedDateTime creationDateTime) {
+    this.creationDateTime = creationDateTime;
+  }
+
+  public static EwpIiaHashCacheEntry create(String contentDigest, String hash,
+      String hashedString) {
+    return new EwpIiaHashCacheEntry(contentDigest, hash, hashedString, ZonedDateTime.now());
+  }
+
+  @Override
+  public String toString() {
+    return "EwpIiaHashCacheEntry{" +
+        "contentDigest='" + contentDigest + '\'' +
+        ", hash='" + hash + '\'' +
+        ", creationDateTime=" + creationDateTime +
+        '}';
+  }
+}
@@ -0,0 +1,102 @@
+package pt.ulisboa.ewp.node.domain.entity.mapping;
+
+import java.time.ZonedDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * Keeps the moment since when the providers of a given plugin were last fully synchronized, for
+ * a HEI ID and a mapping sync type (e.g. IIAs), so that following syncs only need to process what
+ * was modified since then.
+ */
+@Entity
+@Table(
+    name = "EWP_MAPPING_SYNC_WATERMARK",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"sync_type", "hei_id", "plugin_id"}))
+public class EwpMappingSyncWatermark {
+
+  private long id;
+  private String syncType;
+  private String heiId;
+  private String pluginId;
+  private ZonedDateTime lastSyncDateTime;
+
+  protected EwpMappingSyncWatermark() {
+  }
+
+  protected EwpMappingSyncWatermark(String syncType, String heiId, String pluginId,
+      ZonedDateTime lastSyncDateTime) {
+    this.syncType = syncType;
+    this.heiId = heiId;
+    this.pluginId = pluginId;
+    this.lastSyncDateTime = lastSyncDateTime;
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "id", unique = true, nullable = false)
+  public long getId() {
+    return id;
+  }
+
+  public void setId(long id) {
+    this.id = id;
+  }
+
+  @Column(name = "sync_type", nullable = false)
+  public String getSyncType() {
+    return syncType;
+  }
+
+  public void setSyncType(String syncType) {
+    this.syncType = syncType;
+  }
+
+  @Column(name = "hei_id", nullable = false)
+  public String getHeiId() {
+    return heiId;
+  }
+
+  public void setHeiId(String heiId) {
+    this.heiId = heiId;
+  }
+
+  @Column(name = "plugin_id", nullable = false)
+  public String getPluginId() {
+    return pluginId;
+  }
+
+  public void setPluginId(String pluginId) {
+    this.pluginId = pluginId;
+  }
+
+  @Column(name = "last_sync_date_time", nullable = false)
+  public ZonedDateTime getLastSyncDateTime() {
+    return lastSyncDateTime;
+  }
+
+  public void setLastSyncDateTime(ZonedDateTime lastSyncDateTime) {
+    this.lastSyncDateTime = lastSyncDateTime;
+  }
+
+  public static EwpMappingSyncWatermark create(String syncType, String heiId, String pluginId,
+      ZonedDateTime lastSyncDateTime) {
+    return new EwpMappingSyncWatermark(syncType, heiId, pluginId, lastSyncDateTime);
+  }
+
+  @Override
+  public String toString() {
+    return "EwpMappingSyncWatermark{" +
+        "id=" + id +
+        ", syncType='" + syncType + '\'' +
+        ", heiId='" + heiId + '\'' +
+        ", pluginId='" + pluginId + '\'' +
+        ", lastSyncDateTime=" + lastSyncDateTime +
+        '}';
+  }
+}
@@ -6,6 +6,7 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import javax.persistence.Column;
@@ -18,6 +19,7 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
 import javax.persistence.JoinColumn;
@@ -28,7 +30,13 @@ import javax.persistence.Transient;
 import pt.ulisboa.ewp.node.domain.entity.communication.log.CommunicationLog;
 
 @Entity
-@Table(name = "EWP_CHANGE_NOTIFICATION")
+@Table(
+    name = "EWP_CHANGE_NOTIFICATION",
+    indexes = {
+        @Index(
+            name = "IDX_EWP_CHANGE_NOTIFICATION_STATUS_SCHEDULED",
+            columnList = "status, scheduled_date_time")
+    })
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "type", discriminatorType = DiscriminatorType.STRING)
 public abstract class EwpChangeNotification {
@@ -39,7 +47,9 @@ public abstract class EwpChangeNotification {
   private Collection<CommunicationLog> communications = new HashSet<>();
   private int attemptNumber;
   private ZonedDateTime scheduledDateTime;
+  private ZonedDateTime claimExpirationDateTime;
   private Status status;
+  private EwpChangeNotification mergedInto;
 
   protected EwpChangeNotification() {}
 
@@ -125,6 +135,15 @@ public abstract class EwpChangeNotification {
     this.scheduledDateTime = scheduledDateTime;
   }
 
+  @Column(name = "claim_expiration_date_time")
+  public ZonedDateTime getClaimExpirationDateTime() {
+    return claimExpirationDateTime;
+  }
+
+  public void setClaimExpirationDateTime(ZonedDateTime claimExpirationDateTime) {
+    this.claimExpirationDateTime = claimExpirationDateTime;
+  }
+
   @Transient
   public boolean isPending() {
     return getStatus() == Status.PENDING;
@@ -160,36 +179,61 @@ public abstract class EwpChangeNotification {
     this.status = status;
   }
 
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "merged_into_id")
+  public EwpChangeNotification getMergedInto() {
+    return mergedInto;
+  }
+
+  public void setMergedInto(EwpChangeNotification mergedInto) {
+    this.mergedInto = mergedInto;
+  }
+
+  /**
+   * Claims the change notification until a given date time, so that no other node instance picks
+   * it up while it is being sent.
+   */
+  @Transient
+  public void claimUntil(ZonedDateTime claimExpirationDateTime) {
+    this.claimExpirationDateTime = claimExpirationDateTime;
+  }
+
   @Transient
   public void scheduleNewAttempt() {
     BigInteger newDelayInMinutes = BigInteger.TWO.pow(this.attemptNumber);
 
     this.attemptNumber++;
     this.scheduledDateTime = this.scheduledDateTime.plusMinutes(newDelayInMinutes.longValueExact());
+    this.claimExpirationDateTime = null;
   }
 
   @Transient
   public void markAsSuccess() {
     this.status = Status.SUCCESS;
     this.scheduledDateTime = null;
+    this.claimExpirationDateTime = null;
   }
 
   @Transient
   public void markAsFailedDueToMaxAttempts() {
     this.status = Status.FAILED_MAX_ATTEMPTS;
     this.scheduledDateTime = null;
+    this.claimExpirationDateTime = null;
   }
 
   @Transient
   public void markAsFailedDueToNoCnrApiAvailable() {
     this.status = Status.FAILED_NO_CNR_API_AVAILABLE;
     this.scheduledDateTime = null;
+    this.claimExpirationDateTime = null;
   }
 
   @Transient
-  public void markAsMerged() {
+  public void markAsMerged(EwpChangeNotification mergedInto) {
     this.status = Status.MERGED;
     this.scheduledDateTime = null;
+    this.claimExpirationDateTime = null;
+    this.mergedInto = mergedInto;
   }
 
   @Transient
@@ -198,6 +242,28 @@ public abstract class EwpChangeNotification {
         other.getCreationDateTime());
   }
 
+  /**
+   * Returns true if both change notifications may be sent to the target HEI on a single request.
+   */
+  @Transient
+  public boolean canBeBatchedWith(EwpChangeNotification other) {
+    return false;
+  }
+
+  /**
+   * Returns the HEI ID to which the change notification is sent.
+   */
+  @Transient
+  public abstract String getTargetHeiId();
+
+  /**
+   * Returns the values, by attribute name, of the attributes that must be equal for a change
+   * notification of the same type to be merged into this one (see {@link
+   * #canBeMergedInto(EwpChangeNotification)}), namely the target HEI ID and the element ID.
+   */
+  @Transient
+  public abstract Map<String, String> getMergeKeyAttributes();
+
   /**
    * Returns a map of a key (label) to the actual value for every specific variable of the change
    * notification (e.g. iiaId).
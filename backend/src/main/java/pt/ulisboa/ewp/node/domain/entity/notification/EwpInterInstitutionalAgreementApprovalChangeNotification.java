@@ -3,6 +3,7 @@ package pt.ulisboa.ewp.node.domain.entity.notification;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
@@ -102,6 +103,22 @@ public class EwpInterInstitutionalAgreementApprovalChangeNotification extends
         && super.canBeMergedInto(o);
   }
 
+  @Override
+  @Transient
+  public String getTargetHeiId() {
+    return getPartnerHeiId();
+  }
+
+  @Override
+  @Transient
+  public Map<String, String> getMergeKeyAttributes() {
+    return Map.of(
+        "approvingHeiId", getApprovingHeiId(),
+        "partnerHeiId", getPartnerHeiId(),
+        "ownerHeiId", getOwnerHeiId(),
+        "iiaId", getIiaId());
+  }
+
   @Override
   @Transient
   public List<ExtraVariableEntry> getExtraVariables() {
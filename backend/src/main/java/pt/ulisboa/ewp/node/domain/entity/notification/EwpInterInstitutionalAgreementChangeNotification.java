@@ -3,6 +3,7 @@ package pt.ulisboa.ewp.node.domain.entity.notification;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
@@ -86,6 +87,21 @@ public class EwpInterInstitutionalAgreementChangeNotification extends EwpChangeN
         && super.canBeMergedInto(o);
   }
 
+  @Override
+  @Transient
+  public String getTargetHeiId() {
+    return getPartnerHeiId();
+  }
+
+  @Override
+  @Transient
+  public Map<String, String> getMergeKeyAttributes() {
+    return Map.of(
+        "notifierHeiId", getNotifierHeiId(),
+        "partnerHeiId", getPartnerHeiId(),
+        "iiaId", getIiaId());
+  }
+
   @Override
   @Transient
   public List<ExtraVariableEntry> getExtraVariables() {
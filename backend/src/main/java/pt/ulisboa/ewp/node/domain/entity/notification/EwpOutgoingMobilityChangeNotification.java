@@ -3,6 +3,7 @@ package pt.ulisboa.ewp.node.domain.entity.notification;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
@@ -86,6 +87,32 @@ public class EwpOutgoingMobilityChangeNotification extends EwpChangeNotification
         && super.canBeMergedInto(o);
   }
 
+  @Override
+  public boolean canBeBatchedWith(EwpChangeNotification o) {
+    if (!(o instanceof EwpOutgoingMobilityChangeNotification)) {
+      return false;
+    }
+
+    EwpOutgoingMobilityChangeNotification otherChangeNotification = (EwpOutgoingMobilityChangeNotification) o;
+    return sendingHeiId.equals(otherChangeNotification.sendingHeiId)
+        && receivingHeiId.equals(otherChangeNotification.receivingHeiId);
+  }
+
+  @Override
+  @Transient
+  public String getTargetHeiId() {
+    return getReceivingHeiId();
+  }
+
+  @Override
+  @Transient
+  public Map<String, String> getMergeKeyAttributes() {
+    return Map.of(
+        "sendingHeiId", getSendingHeiId(),
+        "receivingHeiId", getReceivingHeiId(),
+        "outgoingMobilityId", getOutgoingMobilityId());
+  }
+
   @Override
   @Transient
   public List<ExtraVariableEntry> getExtraVariables() {
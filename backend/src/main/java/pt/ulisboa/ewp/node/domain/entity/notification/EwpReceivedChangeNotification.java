@@ -0,0 +1,281 @@
+package pt.ulisboa.ewp.node.domain.entity.notification;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+/**
+ * Change notification received from another EWP node, kept on the inbox until it is processed by
+ * the host plugins. Each received change notification refers to a single element (e.g. an IIA or
+ * an outgoing mobility).
+ */
+@Entity
+@Table(
+    name = "EWP_RECEIVED_CHANGE_NOTIFICATION",
+    indexes = {
+        @Index(
+            name = "IDX_EWP_RECEIVED_CHANGE_NOTIFICATION_STATUS_SCHEDULED",
+            columnList = "status, scheduled_date_time"),
+        @Index(
+            name = "IDX_EWP_RECEIVED_CHANGE_NOTIFICATION_ELEMENT",
+            columnList = "type, notifier_hei_id, element_id")
+    })
+public class EwpReceivedChangeNotification {
+
+  private long id;
+  private Type type;
+  private String notifierHeiId;
+  private String localHeiId;
+  private String elementId;
+  private ZonedDateTime creationDateTime;
+  private int attemptNumber;
+  private ZonedDateTime scheduledDateTime;
+  private ZonedDateTime claimExpirationDateTime;
+  private ZonedDateTime processingDateTime;
+  private Status status;
+
+  protected EwpReceivedChangeNotification() {}
+
+  /**
+   * @param type Type of the change notification
+   * @param notifierHeiId HEI ID of the notifier of the change
+   * @param localHeiId HEI ID, covered by this node, to which the changed element refers (or null
+   *     if the change notification does not identify it)
+   * @param elementId ID of the changed element
+   */
+  public EwpReceivedChangeNotification(Type type, String notifierHeiId, String localHeiId,
+      String elementId) {
+    this.type = type;
+    this.notifierHeiId = notifierHeiId;
+    this.localHeiId = localHeiId;
+    this.elementId = elementId;
+    this.creationDateTime = ZonedDateTime.now();
+    this.attemptNumber = 1;
+    this.scheduledDateTime = this.creationDateTime;
+    this.status = Status.PENDING;
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "id", unique = true, nullable = false)
+  public long getId() {
+    return id;
+  }
+
+  public void setId(long id) {
+    this.id = id;
+  }
+
+  @Column(name = "type", nullable = false)
+  @Enumerated(EnumType.STRING)
+  public Type getType() {
+    return type;
+  }
+
+  public void setType(Type type) {
+    this.type = type;
+  }
+
+  @Column(name = "notifier_hei_id", nullable = false)
+  public String getNotifierHeiId() {
+    return notifierHeiId;
+  }
+
+  public void setNotifierHeiId(String notifierHeiId) {
+    this.notifierHeiId = notifierHeiId;
+  }
+
+  @Column(name = "local_hei_id")
+  public String getLocalHeiId() {
+    return localHeiId;
+  }
+
+  public void setLocalHeiId(String localHeiId) {
+    this.localHeiId = localHeiId;
+  }
+
+  @Column(name = "element_id", nullable = false)
+  public String getElementId() {
+    return elementId;
+  }
+
+  public void setElementId(String elementId) {
+    this.elementId = elementId;
+  }
+
+  @Column(name = "creation_date_time", nullable = false)
+  public ZonedDateTime getCreationDateTime() {
+    return creationDateTime;
+  }
+
+  public void setCreationDateTime(ZonedDateTime creationDateTime) {
+    this.creationDateTime = creationDateTime;
+  }
+
+  @Column(name = "attempt_number", nullable = false)
+  public int getAttemptNumber() {
+    return attemptNumber;
+  }
+
+  public void setAttemptNumber(int attemptNumber) {
+    this.attemptNumber = attemptNumber;
+  }
+
+  @Column(name = "scheduled_date_time")
+  public ZonedDateTime getScheduledDateTime() {
+    return scheduledDateTime;
+  }
+
+  public void setScheduledDateTime(ZonedDateTime scheduledDateTime) {
+    this.scheduledDateTime = scheduledDateTime;
+  }
+
+  @Column(name = "claim_expiration_date_time")
+  public ZonedDateTime getClaimExpirationDateTime() {
+    return claimExpirationDateTime;
+  }
+
+  public void setClaimExpirationDateTime(ZonedDateTime claimExpirationDateTime) {
+    this.claimExpirationDateTime = claimExpirationDateTime;
+  }
+
+  @Column(name = "processing_date_time")
+  public ZonedDateTime getProcessingDateTime() {
+    return processingDateTime;
+  }
+
+  public void setProcessingDateTime(ZonedDateTime processingDateTime) {
+    this.processingDateTime = processingDateTime;
+  }
+
+  @Column(name = "status", nullable = false)
+  @Enumerated(EnumType.STRING)
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  @Transient
+  public boolean isPending() {
+    return getStatus() == Status.PENDING;
+  }
+
+  /**
+   * Claims the change notification until a given date time, so that no other node instance picks
+   * it up while it is being processed.
+   */
+  @Transient
+  public void claimUntil(ZonedDateTime claimExpirationDateTime) {
+    this.claimExpirationDateTime = claimExpirationDateTime;
+  }
+
+  @Transient
+  public void scheduleNewAttempt(Duration delay) {
+    this.attemptNumber++;
+    this.scheduledDateTime = ZonedDateTime.now().plus(delay);
+    this.claimExpirationDateTime = null;
+  }
+
+  @Transient
+  public void markAsSuccess() {
+    markAsProcessed(Status.SUCCESS);
+  }
+
+  @Transient
+  public void markAsFailedDueToMaxAttempts() {
+    markAsProcessed(Status.FAILED_MAX_ATTEMPTS);
+  }
+
+  @Transient
+  public void markAsRejected() {
+    markAsProcessed(Status.REJECTED);
+  }
+
+  private void markAsProcessed(Status status) {
+    this.status = status;
+    this.processingDateTime = ZonedDateTime.now();
+    this.scheduledDateTime = null;
+    this.claimExpirationDateTime = null;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    EwpReceivedChangeNotification that = (EwpReceivedChangeNotification) o;
+    return id == that.id
+        && attemptNumber == that.attemptNumber
+        && type == that.type
+        && Objects.equals(notifierHeiId, that.notifierHeiId)
+        && Objects.equals(localHeiId, that.localHeiId)
+        && Objects.equals(elementId, that.elementId)
+        && Objects.equals(creationDateTime, that.creationDateTime)
+        && status == that.status;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, type, notifierHeiId, localHeiId, elementId, creationDateTime,
+        attemptNumber, status);
+  }
+
+  @Override
+  public String toString() {
+    return "EwpReceivedChangeNotification{"
+        + "id="
+        + id
+        + ", type="
+        + type
+        + ", notifierHeiId='"
+        + notifierHeiId
+        + '\''
+        + ", localHeiId='"
+        + localHeiId
+        + '\''
+        + ", elementId='"
+        + elementId
+        + '\''
+        + ", creationDateTime="
+        + creationDateTime
+        + ", attemptNumber="
+        + attemptNumber
+        + ", scheduledDateTime="
+        + scheduledDateTime
+        + ", status="
+        + status
+        + '}';
+  }
+
+  public enum Type {
+    IIA,
+    IIA_APPROVAL,
+    OUTGOING_MOBILITY,
+    OUTGOING_MOBILITY_LEARNING_AGREEMENT,
+    INCOMING_MOBILITY,
+    INCOMING_MOBILITY_TOR
+  }
+
+  public enum Status {
+    PENDING,
+    SUCCESS,
+    FAILED_MAX_ATTEMPTS,
+    REJECTED
+  }
+}
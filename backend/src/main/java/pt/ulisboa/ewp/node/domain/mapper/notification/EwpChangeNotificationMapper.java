@@ -21,6 +21,7 @@ public interface EwpChangeNotificationMapper {
       source = "sortedCommunications",
       target = "sortedCommunicationLogs",
       qualifiedByName = "convertToSummaryDto")
+  @Mapping(source = "mergedInto.id", target = "mergedIntoId")
   EwpChangeNotificationDto mapEwpChangeNotificationToEwpChangeNotificationDto(
       EwpChangeNotification ewpChangeNotification);
 
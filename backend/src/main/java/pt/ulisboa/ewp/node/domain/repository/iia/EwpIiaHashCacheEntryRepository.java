@@ -0,0 +1,62 @@
+package pt.ulisboa.ewp.node.domain.repository.iia;
+
+import com.google.common.base.Strings;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Repository;
+import pt.ulisboa.ewp.node.domain.entity.iia.EwpIiaHashCacheEntry;
+import pt.ulisboa.ewp.node.domain.entity.iia.EwpIiaHashCacheEntry_;
+import pt.ulisboa.ewp.node.domain.repository.AbstractRepository;
+import pt.ulisboa.ewp.node.exception.domain.DomainException;
+
+@Repository
+public class EwpIiaHashCacheEntryRepository extends AbstractRepository<EwpIiaHashCacheEntry> {
+
+  protected EwpIiaHashCacheEntryRepository(SessionFactory sessionFactory) {
+    super(EwpIiaHashCacheEntry.class, sessionFactory);
+  }
+
+  public List<EwpIiaHashCacheEntry> findAllByContentDigests(Collection<String> contentDigests) {
+    if (contentDigests.isEmpty()) {
+      return List.of();
+    }
+    return runInSession(
+        session -> {
+          CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+          CriteriaQuery<EwpIiaHashCacheEntry> query = criteriaBuilder.createQuery(
+              EwpIiaHashCacheEntry.class);
+          Root<EwpIiaHashCacheEntry> selection = query.from(EwpIiaHashCacheEntry.class);
+          return session
+              .createQuery(
+                  query.where(
+                      selection.get(EwpIiaHashCacheEntry_.contentDigest).in(contentDigests)))
+              .getResultList();
+        });
+  }
+
+  /** Persists the given entries, skipping the ones (with the same content digest) already stored. */
+  public void persistAllIfAbsent(Collection<EwpIiaHashCacheEntry> entries) {
+    runInSession(
+        session -> {
+          for (EwpIiaHashCacheEntry entry : entries) {
+            if (session.get(EwpIiaHashCacheEntry.class, entry.getContentDigest()) == null) {
+              session.persist(entry);
+            }
+          }
+          return null;
+        });
+  }
+
+  @Override
+  protected boolean checkDomainConstraints(EwpIiaHashCacheEntry entity) throws DomainException {
+    if (Strings.isNullOrEmpty(entity.getContentDigest())
+        || Strings.isNullOrEmpty(entity.getHash())) {
+      throw new DomainException("IIA hash cache entry must define content digest and hash");
+    }
+    return true;
+  }
+}
@@ -1,6 +1,8 @@
 package pt.ulisboa.ewp.node.domain.repository.mapping;
 
 import com.google.common.base.Strings;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Optional;
 import javax.persistence.NoResultException;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -55,6 +57,29 @@ public class EwpIncomingMobilityMappingRepository extends
         });
   }
 
+  public Collection<EwpIncomingMobilityMapping> findByReceivingHeiIdAndOmobilityIds(
+      String receivingHeiId, Collection<String> omobilityIds) {
+    if (omobilityIds.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return runInSession(
+        session -> {
+          CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+          CriteriaQuery<EwpIncomingMobilityMapping> query = criteriaBuilder.createQuery(
+              EwpIncomingMobilityMapping.class);
+          Root<EwpIncomingMobilityMapping> selection = query.from(
+              EwpIncomingMobilityMapping.class);
+          return session
+              .createQuery(
+                  query.where(
+                      criteriaBuilder.equal(
+                          selection.get(EwpIncomingMobilityMapping_.receivingHeiId),
+                          receivingHeiId),
+                      selection.get(EwpIncomingMobilityMapping_.omobilityId).in(omobilityIds)))
+              .getResultList();
+        });
+  }
+
   @Override
   protected boolean checkDomainConstraints(EwpIncomingMobilityMapping entity)
       throws DomainException {
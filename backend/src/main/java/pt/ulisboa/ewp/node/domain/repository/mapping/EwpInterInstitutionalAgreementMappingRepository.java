@@ -1,6 +1,9 @@
 package pt.ulisboa.ewp.node.domain.repository.mapping;
 
 import com.google.common.base.Strings;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import javax.persistence.NoResultException;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -55,6 +58,28 @@ public class EwpInterInstitutionalAgreementMappingRepository extends
         });
   }
 
+  public Collection<EwpInterInstitutionalAgreementMapping> findByHeiIdAndIiaIds(String heiId,
+      Collection<String> iiaIds) {
+    if (iiaIds.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return runInSession(
+        session -> {
+          CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+          CriteriaQuery<EwpInterInstitutionalAgreementMapping> query = criteriaBuilder.createQuery(
+              EwpInterInstitutionalAgreementMapping.class);
+          Root<EwpInterInstitutionalAgreementMapping> selection = query.from(
+              EwpInterInstitutionalAgreementMapping.class);
+          return session
+              .createQuery(
+                  query.where(
+                      criteriaBuilder.equal(
+                          selection.get(EwpInterInstitutionalAgreementMapping_.heiId), heiId),
+                      selection.get(EwpInterInstitutionalAgreementMapping_.iiaId).in(iiaIds)))
+              .getResultList();
+        });
+  }
+
   @Override
   protected boolean checkDomainConstraints(EwpInterInstitutionalAgreementMapping entity)
       throws DomainException {
@@ -68,9 +93,10 @@ public class EwpInterInstitutionalAgreementMappingRepository extends
           messages.get("error.interInstitutionalAgreementMapping.iiaId.must.be.defined"));
     }
 
-    if (findAll().stream().anyMatch(o -> o != entity && o.getHeiId().equals(entity.getHeiId()) &&
-        o.getIiaId().equals(entity.getIiaId()))) {
-      messages.get("error.interInstitutionalAgreementMapping.must.be.unique");
+    if (findByHeiIdAndIiaIds(entity.getHeiId(), List.of(entity.getIiaId())).stream()
+        .anyMatch(o -> o != entity)) {
+      throw new DomainException(
+          messages.get("error.interInstitutionalAgreementMapping.must.be.unique"));
     }
 
     return true;
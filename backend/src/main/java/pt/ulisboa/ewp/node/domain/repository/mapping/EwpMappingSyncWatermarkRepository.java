@@ -0,0 +1,55 @@
+package pt.ulisboa.ewp.node.domain.repository.mapping;
+
+import com.google.common.base.Strings;
+import java.util.Optional;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Repository;
+import pt.ulisboa.ewp.node.domain.entity.mapping.EwpMappingSyncWatermark;
+import pt.ulisboa.ewp.node.domain.entity.mapping.EwpMappingSyncWatermark_;
+import pt.ulisboa.ewp.node.domain.repository.AbstractRepository;
+import pt.ulisboa.ewp.node.exception.domain.DomainException;
+
+@Repository
+public class EwpMappingSyncWatermarkRepository extends
+    AbstractRepository<EwpMappingSyncWatermark> {
+
+  protected EwpMappingSyncWatermarkRepository(SessionFactory sessionFactory) {
+    super(EwpMappingSyncWatermark.class, sessionFactory);
+  }
+
+  public Optional<EwpMappingSyncWatermark> findBySyncTypeAndHeiIdAndPluginId(String syncType,
+      String heiId, String pluginId) {
+    return runInSession(
+        session -> {
+          CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+          CriteriaQuery<EwpMappingSyncWatermark> query = criteriaBuilder.createQuery(
+              EwpMappingSyncWatermark.class);
+          Root<EwpMappingSyncWatermark> selection = query.from(EwpMappingSyncWatermark.class);
+          return session
+              .createQuery(
+                  query.where(
+                      criteriaBuilder.equal(
+                          selection.get(EwpMappingSyncWatermark_.syncType), syncType),
+                      criteriaBuilder.equal(
+                          selection.get(EwpMappingSyncWatermark_.heiId), heiId),
+                      criteriaBuilder.equal(
+                          selection.get(EwpMappingSyncWatermark_.pluginId), pluginId)))
+              .stream()
+              .findFirst();
+        });
+  }
+
+  @Override
+  protected boolean checkDomainConstraints(EwpMappingSyncWatermark entity)
+      throws DomainException {
+    if (Strings.isNullOrEmpty(entity.getSyncType())
+        || Strings.isNullOrEmpty(entity.getHeiId())
+        || Strings.isNullOrEmpty(entity.getPluginId())) {
+      throw new DomainException("Mapping sync watermark must define sync type, HEI ID and plugin");
+    }
+    return true;
+  }
+}
@@ -1,6 +1,9 @@
 package pt.ulisboa.ewp.node.domain.repository.mapping;
 
 import com.google.common.base.Strings;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import javax.persistence.NoResultException;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -55,6 +58,28 @@ public class EwpOutgoingMobilityMappingRepository extends
         });
   }
 
+  public Collection<EwpOutgoingMobilityMapping> findByHeiIdAndOmobilityIds(String heiId,
+      Collection<String> omobilityIds) {
+    if (omobilityIds.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return runInSession(
+        session -> {
+          CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+          CriteriaQuery<EwpOutgoingMobilityMapping> query = criteriaBuilder.createQuery(
+              EwpOutgoingMobilityMapping.class);
+          Root<EwpOutgoingMobilityMapping> selection = query.from(
+              EwpOutgoingMobilityMapping.class);
+          return session
+              .createQuery(
+                  query.where(
+                      criteriaBuilder.equal(
+                          selection.get(EwpOutgoingMobilityMapping_.heiId), heiId),
+                      selection.get(EwpOutgoingMobilityMapping_.omobilityId).in(omobilityIds)))
+              .getResultList();
+        });
+  }
+
   @Override
   protected boolean checkDomainConstraints(EwpOutgoingMobilityMapping entity)
       throws DomainException {
@@ -68,9 +93,10 @@ public class EwpOutgoingMobilityMappingRepository extends
           messages.get("error.outgoingMobilityMapping.omobilityId.must.be.defined"));
     }
 
-    if (findAll().stream().anyMatch(o -> o != entity && o.getHeiId().equals(entity.getHeiId()) &&
-        o.getOmobilityId().equals(entity.getOmobilityId()))) {
-      messages.get("error.outgoingMobilityMapping.must.be.unique");
+    if (findByHeiIdAndOmobilityIds(entity.getHeiId(), List.of(entity.getOmobilityId())).stream()
+        .anyMatch(o -> o != entity)) {
+      throw new DomainException(
+          messages.get("error.outgoingMobilityMapping.must.be.unique"));
     }
 
     return true;
@@ -1,12 +1,18 @@
 package pt.ulisboa.ewp.node.domain.repository.notification;
 
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import javax.persistence.LockModeType;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.transaction.Transactional;
+import org.hibernate.LockOptions;
 import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -23,6 +29,8 @@ import pt.ulisboa.ewp.node.utils.i18n.MessageResolver;
 public class EwpChangeNotificationRepository
     extends AbstractRepository<EwpChangeNotification> {
 
+  private static final String LOCK_TIMEOUT_HINT = "javax.persistence.lock.timeout";
+
   @Autowired
   @Lazy
   private MessageResolver messages;
@@ -65,11 +73,15 @@ public class EwpChangeNotificationRepository
   @Override
   @Transactional
   public boolean persist(EwpChangeNotification entity) {
+    boolean isNew = entity.getId() == 0;
     if (!super.persist(entity)) {
       return false;
     }
 
-    mergeOldChangeNotifications(entity);
+    // NOTE: Older change notifications are only coalesced when a new one is inserted
+    if (isNew) {
+      mergeOldChangeNotifications(entity);
+    }
 
     return true;
   }
@@ -89,17 +101,92 @@ public class EwpChangeNotificationRepository
         });
   }
 
-  public Collection<EwpChangeNotification> findAllPending() {
-    return super.findAll().stream().filter(EwpChangeNotification::isPending)
-        .collect(Collectors.toSet());
+  /**
+   * Claims, until a given date time, up to a limit of pending change notifications that are due at
+   * a given date time, ordered by their scheduled date time. Rows locked by another node instance
+   * are skipped, as well as change notifications whose claim has not expired yet.
+   */
+  public List<EwpChangeNotification> claimDuePending(ZonedDateTime now, int limit,
+      ZonedDateTime claimExpirationDateTime) {
+    return runInSession(
+        session -> {
+          CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+          CriteriaQuery<EwpChangeNotification> query = criteriaBuilder.createQuery(
+              EwpChangeNotification.class);
+          Root<EwpChangeNotification> selection = query.from(EwpChangeNotification.class);
+          query
+              .where(
+                  criteriaBuilder.equal(
+                      selection.get(EwpChangeNotification_.status),
+                      EwpChangeNotification.Status.PENDING),
+                  criteriaBuilder.lessThan(
+                      selection.get(EwpChangeNotification_.scheduledDateTime), now),
+                  criteriaBuilder.or(
+                      criteriaBuilder.isNull(
+                          selection.get(EwpChangeNotification_.claimExpirationDateTime)),
+                      criteriaBuilder.lessThan(
+                          selection.get(EwpChangeNotification_.claimExpirationDateTime), now)))
+              .orderBy(
+                  criteriaBuilder.asc(selection.get(EwpChangeNotification_.scheduledDateTime)),
+                  criteriaBuilder.asc(selection.get(EwpChangeNotification_.id)));
+
+          List<EwpChangeNotification> changeNotifications = session
+              .createQuery(query)
+              .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+              .setHint(LOCK_TIMEOUT_HINT, LockOptions.SKIP_LOCKED)
+              .setMaxResults(limit)
+              .getResultList();
+          for (EwpChangeNotification changeNotification : changeNotifications) {
+            changeNotification.claimUntil(claimExpirationDateTime);
+            session.update(changeNotification);
+          }
+          return changeNotifications;
+        });
+  }
+
+  /**
+   * Finds the pending change notifications, of the same type of a given one, that are not claimed
+   * (or whose claim expired) and that have the same merge key attributes (see {@link
+   * EwpChangeNotification#getMergeKeyAttributes()}).
+   */
+  private <T extends EwpChangeNotification> List<T> findUnclaimedPendingWithSameMergeKey(
+      T entity, ZonedDateTime now) {
+    @SuppressWarnings("unchecked")
+    Class<T> type = (Class<T>) entity.getClass();
+    return runInSession(
+        session -> {
+          CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+          CriteriaQuery<T> query = criteriaBuilder.createQuery(type);
+          Root<T> selection = query.from(type);
+
+          List<Predicate> predicates = new ArrayList<>();
+          predicates.add(
+              criteriaBuilder.equal(
+                  selection.get(EwpChangeNotification_.status),
+                  EwpChangeNotification.Status.PENDING));
+          predicates.add(
+              criteriaBuilder.or(
+                  criteriaBuilder.isNull(
+                      selection.get(EwpChangeNotification_.claimExpirationDateTime)),
+                  criteriaBuilder.lessThan(
+                      selection.get(EwpChangeNotification_.claimExpirationDateTime), now)));
+          predicates.add(
+              criteriaBuilder.notEqual(selection.get(EwpChangeNotification_.id), entity.getId()));
+          entity.getMergeKeyAttributes().forEach((attributeName, value) ->
+              predicates.add(criteriaBuilder.equal(selection.get(attributeName), value)));
+
+          return session
+              .createQuery(query.where(predicates.toArray(new Predicate[0])))
+              .getResultList();
+        });
   }
 
   private void mergeOldChangeNotifications(EwpChangeNotification entity) {
     if (entity.isPending()) {
-      findAll().stream()
-          .filter(i -> i != entity && i.canBeMergedInto(entity))
+      findUnclaimedPendingWithSameMergeKey(entity, ZonedDateTime.now()).stream()
+          .filter(i -> i.canBeMergedInto(entity))
           .forEach(i -> {
-            i.markAsMerged();
+            i.markAsMerged(entity);
             this.persist(i);
           });
     }
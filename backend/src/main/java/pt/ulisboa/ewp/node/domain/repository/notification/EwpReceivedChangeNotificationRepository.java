@@ -0,0 +1,154 @@
+package pt.ulisboa.ewp.node.domain.repository.notification;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.LockModeType;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.transaction.Transactional;
+import org.hibernate.LockOptions;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Repository;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification_;
+import pt.ulisboa.ewp.node.domain.repository.AbstractRepository;
+import pt.ulisboa.ewp.node.exception.domain.DomainException;
+import pt.ulisboa.ewp.node.utils.i18n.MessageResolver;
+
+@Repository
+@Transactional
+public class EwpReceivedChangeNotificationRepository
+    extends AbstractRepository<EwpReceivedChangeNotification> {
+
+  private static final String LOCK_TIMEOUT_HINT = "javax.persistence.lock.timeout";
+
+  @Autowired
+  @Lazy
+  private MessageResolver messages;
+
+  protected EwpReceivedChangeNotificationRepository(SessionFactory sessionFactory) {
+    super(EwpReceivedChangeNotification.class, sessionFactory);
+  }
+
+  /**
+   * Returns, from a given collection of element IDs, the ones that already have a pending change
+   * notification, of a given type and notifier, that was not claimed yet for processing. Such
+   * change notifications still reflect the latest state of the elements, so a new one is redundant.
+   */
+  public Set<String> findElementIdsWithUnclaimedPending(EwpReceivedChangeNotification.Type type,
+      String notifierHeiId, String localHeiId, Collection<String> elementIds) {
+    if (elementIds.isEmpty()) {
+      return Set.of();
+    }
+    return runInSession(
+        session -> {
+          CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+          CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
+          Root<EwpReceivedChangeNotification> selection = query.from(
+              EwpReceivedChangeNotification.class);
+
+          List<Predicate> predicates = new ArrayList<>();
+          predicates.add(
+              criteriaBuilder.equal(selection.get(EwpReceivedChangeNotification_.type), type));
+          predicates.add(criteriaBuilder.equal(
+              selection.get(EwpReceivedChangeNotification_.notifierHeiId), notifierHeiId));
+          predicates.add(localHeiId != null
+              ? criteriaBuilder.equal(
+              selection.get(EwpReceivedChangeNotification_.localHeiId), localHeiId)
+              : criteriaBuilder.isNull(selection.get(EwpReceivedChangeNotification_.localHeiId)));
+          predicates.add(
+              selection.get(EwpReceivedChangeNotification_.elementId).in(elementIds));
+          predicates.add(criteriaBuilder.equal(
+              selection.get(EwpReceivedChangeNotification_.status),
+              EwpReceivedChangeNotification.Status.PENDING));
+          predicates.add(criteriaBuilder.isNull(
+              selection.get(EwpReceivedChangeNotification_.claimExpirationDateTime)));
+
+          query
+              .select(selection.get(EwpReceivedChangeNotification_.elementId))
+              .where(predicates.toArray(new Predicate[0]));
+          return session.createQuery(query).stream().collect(Collectors.toSet());
+        });
+  }
+
+  /**
+   * Claims, until a given date time, up to a limit of pending received change notifications that
+   * are due at a given date time, ordered by their scheduled date time. Rows locked by another node
+   * instance are skipped, as well as change notifications whose claim has not expired yet.
+   */
+  public List<EwpReceivedChangeNotification> claimDuePending(ZonedDateTime now, int limit,
+      ZonedDateTime claimExpirationDateTime) {
+    return runInSession(
+        session -> {
+          CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+          CriteriaQuery<EwpReceivedChangeNotification> query = criteriaBuilder.createQuery(
+              EwpReceivedChangeNotification.class);
+          Root<EwpReceivedChangeNotification> selection = query.from(
+              EwpReceivedChangeNotification.class);
+          query
+              .where(
+                  criteriaBuilder.equal(
+                      selection.get(EwpReceivedChangeNotification_.status),
+                      EwpReceivedChangeNotification.Status.PENDING),
+                  criteriaBuilder.lessThanOrEqualTo(
+                      selection.get(EwpReceivedChangeNotification_.scheduledDateTime), now),
+                  criteriaBuilder.or(
+                      criteriaBuilder.isNull(
+                          selection.get(EwpReceivedChangeNotification_.claimExpirationDateTime)),
+                      criteriaBuilder.lessThan(
+                          selection.get(EwpReceivedChangeNotification_.claimExpirationDateTime),
+                          now)))
+              .orderBy(
+                  criteriaBuilder.asc(
+                      selection.get(EwpReceivedChangeNotification_.scheduledDateTime)),
+                  criteriaBuilder.asc(selection.get(EwpReceivedChangeNotification_.id)));
+
+          List<EwpReceivedChangeNotification> changeNotifications = session
+              .createQuery(query)
+              .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+              .setHint(LOCK_TIMEOUT_HINT, LockOptions.SKIP_LOCKED)
+              .setMaxResults(limit)
+              .getResultList();
+          for (EwpReceivedChangeNotification changeNotification : changeNotifications) {
+            changeNotification.claimUntil(claimExpirationDateTime);
+            session.update(changeNotification);
+          }
+          return changeNotifications;
+        });
+  }
+
+  public long countPending() {
+    return runInSession(
+        session -> {
+          CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+          CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+          Root<EwpReceivedChangeNotification> selection = query.from(
+              EwpReceivedChangeNotification.class);
+          query
+              .select(criteriaBuilder.count(selection))
+              .where(criteriaBuilder.equal(
+                  selection.get(EwpReceivedChangeNotification_.status),
+                  EwpReceivedChangeNotification.Status.PENDING));
+          return session.createQuery(query).getSingleResult();
+        });
+  }
+
+  @Override
+  protected boolean checkDomainConstraints(EwpReceivedChangeNotification entity)
+      throws DomainException {
+    if (entity.getStatus() == null) {
+      throw new DomainException(
+          messages.get("error.ewp.received.change.notification.status.must.be.defined"));
+    }
+
+    return true;
+  }
+}
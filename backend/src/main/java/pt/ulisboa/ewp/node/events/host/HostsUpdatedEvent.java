@@ -0,0 +1,11 @@
+package pt.ulisboa.ewp.node.events.host;
+
+import org.springframework.context.ApplicationEvent;
+
+/** Published when the hosts (and their covered HEIs) may have been created or updated. */
+public class HostsUpdatedEvent extends ApplicationEvent {
+
+  public HostsUpdatedEvent(Object source) {
+    super(source);
+  }
+}
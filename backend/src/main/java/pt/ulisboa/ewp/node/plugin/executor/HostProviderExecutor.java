@@ -0,0 +1,207 @@
+package pt.ulisboa.ewp.node.plugin.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import pt.ulisboa.ewp.node.config.plugins.PluginsExecutionProperties;
+import pt.ulisboa.ewp.node.config.plugins.PluginsProperties;
+import pt.ulisboa.ewp.node.exception.ApplicationException;
+import pt.ulisboa.ewp.node.service.communication.context.CommunicationContext;
+import pt.ulisboa.ewp.node.service.communication.context.CommunicationContextHolder;
+
+/**
+ * Runs calls to host providers concurrently, on a bounded pool of threads.
+ *
+ * <p>The communication context of the caller is propagated to the threads running the calls, so
+ * that host plugin function calls are still logged as children of the current communication.
+ *
+ * <p>Each call has its own timeout (see {@link PluginsExecutionProperties#getTimeoutInMilliseconds()}),
+ * counted from when it starts running, so that a call is not penalized by the time taken by the
+ * calls before it. A call waiting for a free thread must also start within that timeout.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class HostProviderExecutor implements DisposableBean {
+
+  private final PluginsExecutionProperties properties;
+  private final ExecutorService executorService;
+
+  public HostProviderExecutor(PluginsProperties pluginsProperties) {
+    this.properties = pluginsProperties.getExecution();
+    this.executorService = properties.getParallelism() > 1 ? createExecutorService() : null;
+  }
+
+  /**
+   * Runs all calls, returning their results on the same order as the calls. If any call fails
+   * then its exception is thrown.
+   */
+  public <T> List<T> invokeAll(List<Supplier<T>> calls) {
+    List<TimedCall<T>> timedCalls = submitAll(calls);
+    try {
+      List<T> result = new ArrayList<>(timedCalls.size());
+      for (TimedCall<T> timedCall : timedCalls) {
+        result.add(await(timedCall));
+      }
+      return result;
+
+    } finally {
+      timedCalls.forEach(c -> c.future.cancel(true));
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (executorService != null) {
+      executorService.shutdownNow();
+    }
+  }
+
+  private <T> List<TimedCall<T>> submitAll(List<Supplier<T>> calls) {
+    List<TimedCall<T>> result = new ArrayList<>(calls.size());
+    for (Supplier<T> call : calls) {
+      result.add(submit(call));
+    }
+    return result;
+  }
+
+  private <T> TimedCall<T> submit(Supplier<T> call) {
+    TimedCall<T> timedCall = new TimedCall<>(System.nanoTime());
+    if (executorService == null) {
+      timedCall.markAsStarted();
+      timedCall.future = runOnCallerThread(call);
+      return timedCall;
+    }
+
+    CommunicationContext callerContext = CommunicationContextHolder.getContext();
+    Thread callerThread = Thread.currentThread();
+    timedCall.future = executorService.submit(
+        () -> {
+          timedCall.markAsStarted();
+          // NOTE: Calls rejected by the pool run on the caller thread (that already has the context)
+          if (Thread.currentThread() == callerThread) {
+            return call.get();
+          }
+          CommunicationContextHolder.setContext(callerContext);
+          try {
+            return call.get();
+          } finally {
+            CommunicationContextHolder.clearContext();
+          }
+        });
+    return timedCall;
+  }
+
+  private <T> Future<T> runOnCallerThread(Supplier<T> call) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      future.complete(call.get());
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private <T> T await(TimedCall<T> timedCall) {
+    long timeoutInNanoseconds = getTimeoutInNanoseconds();
+    try {
+      while (true) {
+        long startTimeInNanoseconds = timedCall.startTimeInNanoseconds;
+        boolean started = startTimeInNanoseconds != TimedCall.NOT_STARTED;
+        long deadline = (started ? startTimeInNanoseconds : timedCall.submissionTimeInNanoseconds)
+            + timeoutInNanoseconds;
+        try {
+          return timedCall.future.get(
+              Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+        } catch (TimeoutException e) {
+          if (started || timedCall.startTimeInNanoseconds == TimedCall.NOT_STARTED) {
+            throw e;
+          }
+          // NOTE: the call started meanwhile, so it is given its own timeout
+        }
+      }
+
+    } catch (TimeoutException | CancellationException e) {
+      timedCall.future.cancel(true);
+      throw new ApplicationException(
+          "Host provider call did not finish within "
+              + properties.getTimeoutInMilliseconds()
+              + " ms",
+          HttpStatus.GATEWAY_TIMEOUT);
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for host provider call", e);
+
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private long getTimeoutInNanoseconds() {
+    return TimeUnit.MILLISECONDS.toNanos(properties.getTimeoutInMilliseconds());
+  }
+
+  private ExecutorService createExecutorService() {
+    return new ThreadPoolExecutor(
+        properties.getParallelism(),
+        properties.getParallelism(),
+        60L,
+        TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+        createThreadFactory(),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    AtomicInteger threadCounter = new AtomicInteger();
+    ThreadFactory defaultThreadFactory = Executors.defaultThreadFactory();
+    return runnable -> {
+      Thread thread = defaultThreadFactory.newThread(runnable);
+      thread.setName("host-provider-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static class TimedCall<T> {
+
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final long submissionTimeInNanoseconds;
+    private volatile long startTimeInNanoseconds = NOT_STARTED;
+    private Future<T> future;
+
+    private TimedCall(long submissionTimeInNanoseconds) {
+      this.submissionTimeInNanoseconds = submissionTimeInNanoseconds;
+    }
+
+    private void markAsStarted() {
+      this.startTimeInNanoseconds = System.nanoTime();
+    }
+  }
+}
@@ -6,7 +6,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Predicate;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
@@ -29,11 +29,16 @@ public abstract class AbstractHostPluginManager implements HostPluginManager {
 
   private final Collection<HostPluginProviderAspect> hostPluginProviderAspects;
 
-  private final Map<String, Collection<HostPlugin>> heiIdToPluginsMap = new HashMap<>();
-  private final Map<String, HostPlugin> heiIdToPrimaryPluginMap = new HashMap<>();
+  private final List<HostPlugin> registeredPlugins = new ArrayList<>();
+  private final Map<HostPlugin, List<HostProvider>> pluginToHostProvidersMap = new HashMap<>();
 
-  private final Map<HostPlugin, Collection<HostProvider>> pluginToHostProvidersMap =
-      new HashMap<>();
+  /**
+   * Routing table of the registered plugins, rebuilt (and replaced as a whole) every time a plugin
+   * is registered, so that lookups never see a partially registered plugin.
+   */
+  private volatile HostProviderRoutingTable routingTable = HostProviderRoutingTable.EMPTY;
+
+  private final AtomicLong pluginsVersion = new AtomicLong();
 
   protected AbstractHostPluginManager(
       PluginsProperties pluginsProperties,
@@ -65,33 +70,31 @@ public abstract class AbstractHostPluginManager implements HostPluginManager {
     this.initializer.init(plugin);
   }
 
-  public void registerPlugin(HostPlugin plugin) {
+  public synchronized void registerPlugin(HostPlugin plugin) {
     for (String heiId : plugin.getCoveredHeiIds()) {
-      this.heiIdToPluginsMap.computeIfAbsent(heiId, ignored -> new ArrayList<>());
-      this.heiIdToPluginsMap.get(heiId).add(plugin);
-
-      if (plugin.isPrimaryForHeiId(heiId)) {
-        if (this.heiIdToPrimaryPluginMap.containsKey(heiId)) {
-          throw new IllegalStateException(
-              "Multiple plugins are set as primary for HEI ID "
-                  + heiId
-                  + ": "
-                  + this.heiIdToPrimaryPluginMap.get(heiId).getWrapper().getPluginId()
-                  + " and "
-                  + plugin.getWrapper().getPluginId());
-        }
-        this.heiIdToPrimaryPluginMap.put(heiId, plugin);
+      HostPlugin primaryPlugin = this.routingTable.getPrimaryPlugin(heiId);
+      if (plugin.isPrimaryForHeiId(heiId) && primaryPlugin != null) {
+        throw new IllegalStateException(
+            "Multiple plugins are set as primary for HEI ID "
+                + heiId
+                + ": "
+                + primaryPlugin.getWrapper().getPluginId()
+                + " and "
+                + plugin.getWrapper().getPluginId());
       }
     }
 
+    this.registeredPlugins.add(plugin);
     registerPluginHostProviders(plugin);
+    this.routingTable =
+        HostProviderRoutingTable.build(this.registeredPlugins, this.pluginToHostProvidersMap);
+    this.pluginsVersion.incrementAndGet();
   }
 
   private void registerPluginHostProviders(HostPlugin plugin) {
+    List<HostProvider> pluginProviders = new ArrayList<>();
     Collection<HostProvider> providers = getAllProvidersOfPlugin(plugin);
     for (HostProvider provider : providers) {
-      this.pluginToHostProvidersMap.computeIfAbsent(plugin, p -> new ArrayList<>());
-
       HostProvider providerToAdd;
       if (this.pluginsProperties.getAspects().isEnabled()) {
         AspectJProxyFactory proxyFactory = new AspectJProxyFactory(provider);
@@ -107,8 +110,9 @@ public abstract class AbstractHostPluginManager implements HostPluginManager {
       }
 
       processAwareInterfaces(plugin, providerToAdd);
-      this.pluginToHostProvidersMap.get(plugin).add(providerToAdd);
+      pluginProviders.add(providerToAdd);
     }
+    this.pluginToHostProvidersMap.put(plugin, pluginProviders);
   }
 
   private void processAwareInterfaces(HostPlugin hostPlugin, HostProvider hostProvider) {
@@ -181,28 +185,25 @@ public abstract class AbstractHostPluginManager implements HostPluginManager {
 
   public <T extends HostProvider> Map<String, Collection<T>> getAllProvidersOfTypePerHeiId(
       Class<T> providerClassType) {
+    HostProviderRoutingTable table = this.routingTable;
     Map<String, Collection<T>> result = new HashMap<>();
-    for (String heiId : this.heiIdToPluginsMap.keySet()) {
-      result.computeIfAbsent(heiId, ignored -> new ArrayList<>());
-      result.get(heiId).addAll(getAllProvidersOfType(heiId, providerClassType));
+    for (String heiId : table.getHeiIds()) {
+      result.put(heiId, table.getProviders(heiId, providerClassType));
     }
     return result;
   }
 
   public <T extends HostProvider> Collection<T> getAllProvidersOfType(Class<T> providerClassType) {
-    return this.heiIdToPluginsMap.values().stream()
-        .flatMap(Collection::stream)
-        .flatMap(p -> getAllProviders(p, providerClassType).stream())
+    HostProviderRoutingTable table = this.routingTable;
+    return table.getHeiIds().stream()
+        .flatMap(heiId -> table.getPlugins(heiId).stream())
+        .flatMap(p -> table.getProviders(p, providerClassType).stream())
         .collect(Collectors.toList());
   }
 
   public <T extends HostProvider> Collection<T> getAllProvidersOfType(
       String heiId, Class<T> providerClassType) {
-    this.heiIdToPluginsMap.computeIfAbsent(heiId, ignored -> new ArrayList<>());
-    Collection<HostPlugin> plugins = getSortedPlugins(heiId);
-    return plugins.stream()
-        .flatMap(p -> getAllProviders(p, providerClassType).stream())
-        .collect(Collectors.toList());
+    return this.routingTable.getProviders(heiId, providerClassType);
   }
 
   public <T extends HostProvider> Optional<T> getSingleProviderByHeiIdAndOunitCode(
@@ -217,7 +218,7 @@ public abstract class AbstractHostPluginManager implements HostPluginManager {
 
   public <T extends HostProvider> Optional<T> getSingleProvider(
       HostPlugin hostPlugin, Class<T> providerClassType) {
-    Collection<T> providers = getAllProviders(hostPlugin, providerClassType);
+    Collection<T> providers = this.routingTable.getProviders(hostPlugin, providerClassType);
     if (providers.isEmpty()) {
       return Optional.empty();
     }
@@ -236,13 +237,7 @@ public abstract class AbstractHostPluginManager implements HostPluginManager {
   @Override
   public Optional<HostPlugin> getSingleHostPluginByProvider(Class<?> providerClassType) {
     List<HostPlugin> validHostPlugins =
-        this.pluginToHostProvidersMap.entrySet().stream()
-            .filter(
-                e ->
-                    e.getValue().stream()
-                        .anyMatch(p -> providerClassType.isAssignableFrom(p.getClass())))
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
+        this.routingTable.getPluginsWithProviderOfType(providerClassType);
     if (validHostPlugins.isEmpty()) {
       return Optional.empty();
     }
@@ -255,32 +250,14 @@ public abstract class AbstractHostPluginManager implements HostPluginManager {
     return Optional.of(validHostPlugins.iterator().next());
   }
 
-  private <T extends HostProvider> Collection<T> getAllProviders(
-      HostPlugin hostPlugin, Class<T> providerClassType) {
-    return this.pluginToHostProvidersMap.getOrDefault(hostPlugin, new ArrayList<>()).stream()
-        .filter(p -> providerClassType.isAssignableFrom(p.getClass()))
-        .map(providerClassType::cast)
-        .collect(Collectors.toSet());
+  @Override
+  public Optional<HostPlugin> getHostPluginOfProvider(HostProvider provider) {
+    return Optional.ofNullable(this.routingTable.getPlugin(provider));
   }
 
-  /**
-   * Returns the sorted collection of plugins covering a given HEI ID. The sorting rules are, in
-   * order:
-   *
-   * <p>1. Primary host plugins before non-primary host plugins
-   *
-   * <p>2. Lexicographical order of the plugin IDs
-   */
-  private Collection<HostPlugin> getSortedPlugins(String heiId) {
-    return this.heiIdToPluginsMap.get(heiId).stream()
-        .sorted(
-            (x, y) -> {
-              if (x.isPrimaryForHeiId(heiId) != y.isPrimaryForHeiId(heiId)) {
-                return x.isPrimaryForHeiId(heiId) ? -1 : 1;
-              }
-              return x.getWrapper().getPluginId().compareTo(y.getWrapper().getPluginId());
-            })
-        .collect(Collectors.toList());
+  @Override
+  public long getPluginsVersion() {
+    return this.pluginsVersion.get();
   }
 
   private Optional<HostPlugin> getSinglePluginCoveringHeiIdAndOunitId(
@@ -289,8 +266,7 @@ public abstract class AbstractHostPluginManager implements HostPluginManager {
       return getPrimaryPluginCoveringHeiId(heiId);
 
     } else {
-      return getSinglePluginCoveringHeiIdAndSatisfyingCondition(
-          heiId, p -> p.getCoveredOunitIdsByHeiId(heiId).contains(ounitId));
+      return getSinglePlugin(heiId, this.routingTable.getPluginsCoveringOunitId(heiId, ounitId));
     }
   }
 
@@ -300,17 +276,12 @@ public abstract class AbstractHostPluginManager implements HostPluginManager {
       return getPrimaryPluginCoveringHeiId(heiId);
 
     } else {
-      return getSinglePluginCoveringHeiIdAndSatisfyingCondition(
-          heiId, p -> p.getCoveredOunitCodesByHeiId(heiId).contains(ounitCode));
+      return getSinglePlugin(
+          heiId, this.routingTable.getPluginsCoveringOunitCode(heiId, ounitCode));
     }
   }
 
-  private Optional<HostPlugin> getSinglePluginCoveringHeiIdAndSatisfyingCondition(
-      String heiId, Predicate<HostPlugin> filter) {
-    List<HostPlugin> plugins =
-        this.heiIdToPluginsMap.getOrDefault(heiId, new ArrayList<>()).stream()
-            .filter(filter)
-            .collect(Collectors.toList());
+  private Optional<HostPlugin> getSinglePlugin(String heiId, List<HostPlugin> plugins) {
     if (plugins.isEmpty()) {
       return Optional.empty();
     }
@@ -324,9 +295,6 @@ public abstract class AbstractHostPluginManager implements HostPluginManager {
   }
 
   private Optional<HostPlugin> getPrimaryPluginCoveringHeiId(String heiId) {
-    if (!this.heiIdToPrimaryPluginMap.containsKey(heiId)) {
-      return Optional.empty();
-    }
-    return Optional.ofNullable(this.heiIdToPrimaryPluginMap.get(heiId));
+    return Optional.ofNullable(this.routingTable.getPrimaryPlugin(heiId));
   }
 }
@@ -52,4 +52,15 @@ public interface HostPluginManager {
       String heiId, Collection<String> ounitCodes, Class<T> providerClassType);
 
   Optional<HostPlugin> getSingleHostPluginByProvider(Class<?> providerClassType);
+
+  /**
+   * Returns the host plugin that registered a given provider (as returned by this manager).
+   */
+  Optional<HostPlugin> getHostPluginOfProvider(HostProvider provider);
+
+  /**
+   * Returns the version of the registered plugins, which changes every time a plugin is registered.
+   * It allows callers to detect when data derived from the plugins must be rebuilt.
+   */
+  long getPluginsVersion();
 }
@@ -0,0 +1,250 @@
+package pt.ulisboa.ewp.node.plugin.manager.host;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import org.springframework.util.ClassUtils;
+import pt.ulisboa.ewp.host.plugin.skeleton.HostPlugin;
+import pt.ulisboa.ewp.host.plugin.skeleton.provider.HostProvider;
+
+/**
+ * Immutable routing table of the registered host plugins and their providers, built once the
+ * plugins are registered, so that lookups by HEI ID, provider type and organizational unit do not
+ * need to go through every plugin and provider.
+ *
+ * <p>A provider is indexed under every type it is assignable to (its class, superclasses and
+ * interfaces), so that a lookup by type is equivalent to filtering the providers with {@link
+ * Class#isAssignableFrom(Class)}. The organizational units covered by each plugin are read when
+ * the table is built.
+ */
+class HostProviderRoutingTable {
+
+  static final HostProviderRoutingTable EMPTY = build(List.of(), Map.of());
+
+  private final Map<String, List<HostPlugin>> heiIdToPluginsMap;
+  private final Map<String, HostPlugin> heiIdToPrimaryPluginMap;
+  private final Map<HostPlugin, Map<Class<?>, List<HostProvider>>> pluginToProvidersPerTypeMap;
+  private final Map<String, Map<Class<?>, List<HostProvider>>> heiIdToProvidersPerTypeMap;
+  private final Map<String, Map<String, List<HostPlugin>>> heiIdToPluginsPerOunitIdMap;
+  private final Map<String, Map<String, List<HostPlugin>>> heiIdToPluginsPerOunitCodeMap;
+  private final Map<Class<?>, List<HostPlugin>> providerTypeToPluginsMap;
+  private final Map<HostProvider, HostPlugin> providerToPluginMap;
+
+  private HostProviderRoutingTable(
+      Map<String, List<HostPlugin>> heiIdToPluginsMap,
+      Map<String, HostPlugin> heiIdToPrimaryPluginMap,
+      Map<HostPlugin, Map<Class<?>, List<HostProvider>>> pluginToProvidersPerTypeMap,
+      Map<String, Map<Class<?>, List<HostProvider>>> heiIdToProvidersPerTypeMap,
+      Map<String, Map<String, List<HostPlugin>>> heiIdToPluginsPerOunitIdMap,
+      Map<String, Map<String, List<HostPlugin>>> heiIdToPluginsPerOunitCodeMap,
+      Map<Class<?>, List<HostPlugin>> providerTypeToPluginsMap,
+      Map<HostProvider, HostPlugin> providerToPluginMap) {
+    this.heiIdToPluginsMap = heiIdToPluginsMap;
+    this.heiIdToPrimaryPluginMap = heiIdToPrimaryPluginMap;
+    this.pluginToProvidersPerTypeMap = pluginToProvidersPerTypeMap;
+    this.heiIdToProvidersPerTypeMap = heiIdToProvidersPerTypeMap;
+    this.heiIdToPluginsPerOunitIdMap = heiIdToPluginsPerOunitIdMap;
+    this.heiIdToPluginsPerOunitCodeMap = heiIdToPluginsPerOunitCodeMap;
+    this.providerTypeToPluginsMap = providerTypeToPluginsMap;
+    this.providerToPluginMap = providerToPluginMap;
+  }
+
+  /**
+   * Builds a routing table of the given plugins.
+   *
+   * @param plugins The registered plugins, in registration order
+   * @param pluginToProvidersMap The providers (as to be returned to callers) of each plugin
+   */
+  static HostProviderRoutingTable build(List<HostPlugin> plugins,
+      Map<HostPlugin, ? extends Collection<HostProvider>> pluginToProvidersMap) {
+    Map<String, List<HostPlugin>> heiIdToPluginsMap = new LinkedHashMap<>();
+    Map<String, HostPlugin> heiIdToPrimaryPluginMap = new HashMap<>();
+    Map<HostPlugin, Map<Class<?>, List<HostProvider>>> pluginToProvidersPerTypeMap =
+        new HashMap<>();
+    Map<Class<?>, List<HostPlugin>> providerTypeToPluginsMap = new HashMap<>();
+    Map<HostProvider, HostPlugin> providerToPluginMap = new IdentityHashMap<>();
+
+    for (HostPlugin plugin : plugins) {
+      for (String heiId : plugin.getCoveredHeiIds()) {
+        heiIdToPluginsMap.computeIfAbsent(heiId, ignored -> new ArrayList<>()).add(plugin);
+        if (plugin.isPrimaryForHeiId(heiId)) {
+          heiIdToPrimaryPluginMap.putIfAbsent(heiId, plugin);
+        }
+      }
+
+      Map<Class<?>, List<HostProvider>> providersPerTypeMap = new HashMap<>();
+      for (HostProvider provider :
+          new LinkedHashSet<>(pluginToProvidersMap.getOrDefault(plugin, List.of()))) {
+        providerToPluginMap.putIfAbsent(provider, plugin);
+        for (Class<?> type : getAssignableTypes(provider.getClass())) {
+          providersPerTypeMap.computeIfAbsent(type, ignored -> new ArrayList<>()).add(provider);
+        }
+      }
+      pluginToProvidersPerTypeMap.put(plugin, freeze(providersPerTypeMap));
+      for (Class<?> type : providersPerTypeMap.keySet()) {
+        providerTypeToPluginsMap.computeIfAbsent(type, ignored -> new ArrayList<>()).add(plugin);
+      }
+    }
+
+    Map<String, Map<Class<?>, List<HostProvider>>> heiIdToProvidersPerTypeMap = new HashMap<>();
+    Map<String, Map<String, List<HostPlugin>>> heiIdToPluginsPerOunitIdMap = new HashMap<>();
+    Map<String, Map<String, List<HostPlugin>>> heiIdToPluginsPerOunitCodeMap = new HashMap<>();
+    for (Map.Entry<String, List<HostPlugin>> entry : heiIdToPluginsMap.entrySet()) {
+      String heiId = entry.getKey();
+
+      Map<Class<?>, List<HostProvider>> providersPerTypeMap = new HashMap<>();
+      for (HostPlugin plugin : sortPlugins(heiId, entry.getValue())) {
+        pluginToProvidersPerTypeMap.get(plugin).forEach((type, providers) ->
+            providersPerTypeMap.computeIfAbsent(type, ignored -> new ArrayList<>())
+                .addAll(providers));
+      }
+      heiIdToProvidersPerTypeMap.put(heiId, freeze(providersPerTypeMap));
+
+      heiIdToPluginsPerOunitIdMap.put(heiId,
+          indexPluginsPerOunit(heiId, entry.getValue(), HostPlugin::getCoveredOunitIdsByHeiId));
+      heiIdToPluginsPerOunitCodeMap.put(heiId,
+          indexPluginsPerOunit(heiId, entry.getValue(), HostPlugin::getCoveredOunitCodesByHeiId));
+    }
+
+    return new HostProviderRoutingTable(
+        freeze(heiIdToPluginsMap),
+        Collections.unmodifiableMap(heiIdToPrimaryPluginMap),
+        Collections.unmodifiableMap(pluginToProvidersPerTypeMap),
+        Collections.unmodifiableMap(heiIdToProvidersPerTypeMap),
+        Collections.unmodifiableMap(heiIdToPluginsPerOunitIdMap),
+        Collections.unmodifiableMap(heiIdToPluginsPerOunitCodeMap),
+        freeze(providerTypeToPluginsMap),
+        Collections.unmodifiableMap(providerToPluginMap));
+  }
+
+  Set<String> getHeiIds() {
+    return heiIdToPluginsMap.keySet();
+  }
+
+  /** Returns the plugins covering a given HEI ID, in registration order. */
+  List<HostPlugin> getPlugins(String heiId) {
+    return heiIdToPluginsMap.getOrDefault(heiId, List.of());
+  }
+
+  HostPlugin getPrimaryPlugin(String heiId) {
+    return heiIdToPrimaryPluginMap.get(heiId);
+  }
+
+  /** Returns the providers of a given type of a plugin, in registration order. */
+  <T extends HostProvider> List<T> getProviders(HostPlugin plugin, Class<T> providerClassType) {
+    Map<Class<?>, List<HostProvider>> providersPerTypeMap =
+        pluginToProvidersPerTypeMap.get(plugin);
+    if (providersPerTypeMap == null) {
+      return List.of();
+    }
+    return cast(providersPerTypeMap.getOrDefault(providerClassType, List.of()));
+  }
+
+  /**
+   * Returns the providers of a given type of the plugins covering a given HEI ID. Providers of
+   * primary plugins come first, followed by the providers of the other plugins, by plugin ID.
+   */
+  <T extends HostProvider> List<T> getProviders(String heiId, Class<T> providerClassType) {
+    Map<Class<?>, List<HostProvider>> providersPerTypeMap = heiIdToProvidersPerTypeMap.get(heiId);
+    if (providersPerTypeMap == null) {
+      return List.of();
+    }
+    return cast(providersPerTypeMap.getOrDefault(providerClassType, List.of()));
+  }
+
+  /** Returns the plugins covering a given organizational unit ID of a HEI. */
+  List<HostPlugin> getPluginsCoveringOunitId(String heiId, String ounitId) {
+    return heiIdToPluginsPerOunitIdMap.getOrDefault(heiId, Collections.emptyMap())
+        .getOrDefault(ounitId, List.of());
+  }
+
+  /** Returns the plugins covering a given organizational unit code of a HEI. */
+  List<HostPlugin> getPluginsCoveringOunitCode(String heiId, String ounitCode) {
+    return heiIdToPluginsPerOunitCodeMap.getOrDefault(heiId, Collections.emptyMap())
+        .getOrDefault(ounitCode, List.of());
+  }
+
+  /** Returns the plugins with at least one provider of a given type, in registration order. */
+  List<HostPlugin> getPluginsWithProviderOfType(Class<?> providerClassType) {
+    return providerTypeToPluginsMap.getOrDefault(providerClassType, List.of());
+  }
+
+  /** Returns the plugin of a given provider (as returned to callers), or null if unknown. */
+  HostPlugin getPlugin(HostProvider provider) {
+    return providerToPluginMap.get(provider);
+  }
+
+  private static Set<Class<?>> getAssignableTypes(Class<?> providerClass) {
+    Set<Class<?>> result = new LinkedHashSet<>();
+    for (Class<?> type = providerClass; type != null; type = type.getSuperclass()) {
+      result.add(type);
+    }
+    result.addAll(ClassUtils.getAllInterfacesForClassAsSet(providerClass));
+    return result;
+  }
+
+  /**
+   * Sorts the plugins covering a given HEI ID. The sorting rules are, in order:
+   *
+   * <p>1. Primary host plugins before non-primary host plugins
+   *
+   * <p>2. Lexicographical order of the plugin IDs
+   */
+  private static List<HostPlugin> sortPlugins(String heiId, List<HostPlugin> plugins) {
+    List<HostPlugin> result = new ArrayList<>(plugins);
+    result.sort(
+        Comparator.comparing((HostPlugin p) -> !p.isPrimaryForHeiId(heiId))
+            .thenComparing(
+                HostProviderRoutingTable::getPluginId,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+    return result;
+  }
+
+  private static String getPluginId(HostPlugin plugin) {
+    return plugin.getWrapper() != null && plugin.getWrapper().getDescriptor() != null
+        ? plugin.getWrapper().getPluginId()
+        : null;
+  }
+
+  private static Map<String, List<HostPlugin>> indexPluginsPerOunit(
+      String heiId,
+      List<HostPlugin> plugins,
+      BiFunction<HostPlugin, String, Collection<String>> coveredOunitsExtractor) {
+    Map<String, Set<HostPlugin>> result = new HashMap<>();
+    for (HostPlugin plugin : plugins) {
+      Collection<String> coveredOunits = coveredOunitsExtractor.apply(plugin, heiId);
+      if (coveredOunits == null) {
+        continue;
+      }
+      for (String ounit : coveredOunits) {
+        if (ounit != null) {
+          result.computeIfAbsent(ounit, ignored -> new LinkedHashSet<>()).add(plugin);
+        }
+      }
+    }
+    Map<String, List<HostPlugin>> frozenResult = new HashMap<>();
+    result.forEach((ounit, ounitPlugins) -> frozenResult.put(ounit, List.copyOf(ounitPlugins)));
+    return Collections.unmodifiableMap(frozenResult);
+  }
+
+  private static <K, V> Map<K, List<V>> freeze(Map<K, List<V>> map) {
+    Map<K, List<V>> result = new LinkedHashMap<>();
+    map.forEach((key, values) -> result.put(key, List.copyOf(values)));
+    return Collections.unmodifiableMap(result);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends HostProvider> List<T> cast(List<HostProvider> providers) {
+    // NOTE: providers are indexed under the types they are assignable to
+    return (List<T>) providers;
+  }
+}
@@ -9,6 +9,7 @@ import javax.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.node.config.bootstrap.BootstrapProperties;
 import pt.ulisboa.ewp.node.config.bootstrap.HeiLocalizedNameBootstrapProperties;
@@ -23,6 +24,7 @@ import pt.ulisboa.ewp.node.domain.entity.OtherHeiId;
 import pt.ulisboa.ewp.node.domain.entity.api.host.forward.ewp.HostForwardEwpApi;
 import pt.ulisboa.ewp.node.domain.entity.api.host.forward.ewp.client.HostForwardEwpApiClient;
 import pt.ulisboa.ewp.node.domain.repository.HostRepository;
+import pt.ulisboa.ewp.node.events.host.HostsUpdatedEvent;
 
 @Service
 @Transactional
@@ -36,12 +38,15 @@ public class HostsBootstrapService {
   @Autowired
   private HostRepository hostRepository;
 
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
 
   public void bootstrap() {
     LOG.info("Bootstrapping hosts");
     for (HostBootstrapProperties hostProperties : bootstrapProperties.getHosts()) {
       createOrUpdateHost(hostProperties);
     }
+    eventPublisher.publishEvent(new HostsUpdatedEvent(this));
   }
 
   private Host createOrUpdateHost(HostBootstrapProperties hostBootstrapProperties) {
@@ -3,34 +3,56 @@ package pt.ulisboa.ewp.node.service.communication.log.aspect.host.plugin.provide
 import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
 import pt.ulisboa.ewp.host.plugin.skeleton.HostPlugin;
 import pt.ulisboa.ewp.host.plugin.skeleton.provider.HostProvider;
+import pt.ulisboa.ewp.node.config.communication.CommunicationLogHostPluginCallsProperties;
+import pt.ulisboa.ewp.node.config.communication.CommunicationProperties;
 import pt.ulisboa.ewp.node.domain.entity.communication.log.CommunicationLog;
 import pt.ulisboa.ewp.node.domain.entity.communication.log.host.plugin.HostPluginFunctionCallCommunicationLog;
 import pt.ulisboa.ewp.node.exception.domain.DomainException;
+import pt.ulisboa.ewp.node.service.communication.context.CommunicationContext;
 import pt.ulisboa.ewp.node.service.communication.context.CommunicationContextHolder;
 import pt.ulisboa.ewp.node.service.communication.log.host.plugin.HostPluginFunctionCallCommunicationLogService;
+import pt.ulisboa.ewp.node.service.communication.log.host.plugin.journal.HostPluginCallJournal;
+import pt.ulisboa.ewp.node.service.communication.log.host.plugin.journal.HostPluginCallRecord;
 import pt.ulisboa.ewp.node.utils.serialization.SerializationUtils;
 import pt.ulisboa.ewp.node.utils.serialization.TypeAndString;
 
+/**
+ * Logs the calls to host plugin providers. Calls are either logged (and their arguments and result
+ * serialized) on the calling thread or, if the journal is enabled (see {@link
+ * HostPluginCallJournal}), recorded to be serialized and logged on a background thread.
+ */
 @Aspect
 @Configuration
 public class HostPluginProviderCallLoggingAspect extends HostPluginProviderAspect {
 
-  private static final List<Pattern> LOGGING_BLACKLIST_METHOD_PATTERNS =
-      List.of(Pattern.compile("getMax(.*)PerRequest"));
-
   private final HostPluginFunctionCallCommunicationLogService communicationLogService;
+  private final HostPluginCallJournal journal;
+  private final List<Pattern> includedMethodPatterns;
+  private final List<Pattern> excludedMethodPatterns;
+  private final Map<String, Boolean> methodToLoggedMap = new ConcurrentHashMap<>();
 
   public HostPluginProviderCallLoggingAspect(
-      HostPluginFunctionCallCommunicationLogService communicationLogService) {
+      HostPluginFunctionCallCommunicationLogService communicationLogService,
+      HostPluginCallJournal journal,
+      CommunicationProperties communicationProperties) {
     this.communicationLogService = communicationLogService;
+    this.journal = journal;
+    CommunicationLogHostPluginCallsProperties hostPluginCallsProperties =
+        communicationProperties.getLog().getHostPluginCalls();
+    this.includedMethodPatterns = compilePatterns(hostPluginCallsProperties.getIncludedMethods());
+    this.excludedMethodPatterns = compilePatterns(hostPluginCallsProperties.getExcludedMethods());
   }
 
   @Pointcut("execution(* pt.ulisboa.ewp.host.plugin.skeleton.provider.HostProvider+.*(..))")
@@ -43,55 +65,155 @@ public class HostPluginProviderCallLoggingAspect extends HostPluginProviderAspec
   public Object onFunctionCall(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
     return CommunicationContextHolder.runInNestedContext(
         (context) -> {
-          HostPluginFunctionCallCommunicationLog communicationLog = null;
           HostProvider hostProvider = (HostProvider) proceedingJoinPoint.getTarget();
-          boolean logged = false;
-          try {
-            CommunicationLog parentCommunicationLog =
-                context.getParentContext() != null
-                    ? context.getParentContext().getCurrentCommunicationLog()
-                    : null;
-            HostPlugin hostPlugin = hostProvider.getPlugin();
-            String hostPluginId = hostPlugin.getWrapper().getPluginId();
-            String className = proceedingJoinPoint.getSignature().getDeclaringTypeName();
-            String method = proceedingJoinPoint.getSignature().getName();
-            List<Object> arguments = Arrays.asList(proceedingJoinPoint.getArgs());
-            if (isNotBlacklistedToBeLogged(method)) {
-              communicationLog =
-                  this.communicationLogService.logCommunicationBeforeExecution(
-                      ZonedDateTime.now(),
-                      parentCommunicationLog,
-                      hostPluginId,
-                      className,
-                      method,
-                      arguments);
-              logged = true;
-            }
-
-          } catch (DomainException e) {
-            throw new IllegalStateException("Failed to prepare to process host plugin call", e);
+          HostPlugin hostPlugin = hostProvider.getPlugin();
+          String hostPluginId = hostPlugin.getWrapper().getPluginId();
+          String className = proceedingJoinPoint.getSignature().getDeclaringTypeName();
+          String method = proceedingJoinPoint.getSignature().getName();
+          if (!isToBeLogged(className, method)) {
+            return proceed(proceedingJoinPoint);
           }
 
-          try {
-            Object result = proceedingJoinPoint.proceed();
-            if (logged) {
-              TypeAndString resultTypeAndString = SerializationUtils.convertToTypeAndString(result);
-              this.communicationLogService.updateCommunicationAfterExecution(
-                  communicationLog, resultTypeAndString.getType(), resultTypeAndString.getString());
-            }
-            return result;
-
-          } catch (Throwable throwable) {
-            if (logged) {
-              communicationLogService.registerException(communicationLog, throwable);
-            }
-            throw new RuntimeException(throwable);
+          CommunicationLog parentCommunicationLog = getParentCommunicationLog(context);
+          if (journal.isEnabled()) {
+            // NOTE: the log of this call only exists once the journal writes it, so nested calls
+            // (e.g. to other providers or EWP nodes) are logged as children of its parent instead
+            context.setCurrentCommunicationLog(parentCommunicationLog);
+            return proceedAndRecordOnJournal(
+                proceedingJoinPoint, parentCommunicationLog, hostPluginId, className, method);
           }
+          return proceedAndLog(proceedingJoinPoint, context, parentCommunicationLog, hostPluginId,
+              className, method);
         });
   }
 
-  private boolean isNotBlacklistedToBeLogged(String method) {
-    return LOGGING_BLACKLIST_METHOD_PATTERNS.stream().noneMatch(p -> p.matcher(method).matches());
+  private Object proceedAndLog(
+      ProceedingJoinPoint proceedingJoinPoint,
+      CommunicationContext context,
+      CommunicationLog parentCommunicationLog,
+      String hostPluginId,
+      String className,
+      String method) {
+    HostPluginFunctionCallCommunicationLog communicationLog;
+    try {
+      List<Object> arguments = Arrays.asList(proceedingJoinPoint.getArgs());
+      communicationLog =
+          this.communicationLogService.logCommunicationBeforeExecution(
+              ZonedDateTime.now(),
+              parentCommunicationLog,
+              hostPluginId,
+              className,
+              method,
+              arguments);
+
+    } catch (DomainException e) {
+      throw new IllegalStateException("Failed to prepare to process host plugin call", e);
+    }
+
+    // NOTE: nested calls (e.g. to other providers) are logged as children of this call
+    context.setCurrentCommunicationLog(communicationLog);
+
+    try {
+      Object result = proceedingJoinPoint.proceed();
+      TypeAndString resultTypeAndString = SerializationUtils.convertToTypeAndString(result);
+      this.communicationLogService.updateCommunicationAfterExecution(
+          communicationLog, resultTypeAndString.getType(), resultTypeAndString.getString());
+      return result;
+
+    } catch (Throwable throwable) {
+      communicationLogService.registerException(communicationLog, throwable);
+      throw new RuntimeException(throwable);
+    }
+  }
+
+  private Object proceedAndRecordOnJournal(
+      ProceedingJoinPoint proceedingJoinPoint,
+      CommunicationLog parentCommunicationLog,
+      String hostPluginId,
+      String className,
+      String method) {
+    ZonedDateTime startProcessingDateTime = ZonedDateTime.now();
+    Long parentCommunicationId =
+        parentCommunicationLog != null ? parentCommunicationLog.getId() : null;
+    Object[] arguments = proceedingJoinPoint.getArgs();
+
+    Object result;
+    try {
+      result = proceedingJoinPoint.proceed();
+
+    } catch (Throwable throwable) {
+      journal.record(
+          new HostPluginCallRecord(
+              startProcessingDateTime,
+              ZonedDateTime.now(),
+              parentCommunicationId,
+              hostPluginId,
+              className,
+              method,
+              arguments,
+              null,
+              throwable));
+      throw new RuntimeException(throwable);
+    }
+
+    journal.record(
+        new HostPluginCallRecord(
+            startProcessingDateTime,
+            ZonedDateTime.now(),
+            parentCommunicationId,
+            hostPluginId,
+            className,
+            method,
+            arguments,
+            result,
+            null));
+    return result;
   }
 
+  private static Object proceed(ProceedingJoinPoint proceedingJoinPoint) {
+    try {
+      return proceedingJoinPoint.proceed();
+    } catch (Throwable throwable) {
+      throw new RuntimeException(throwable);
+    }
+  }
+
+  /**
+   * Returns the communication log of the nearest ancestor context that has one (contexts of calls
+   * that are not logged have none).
+   */
+  private static CommunicationLog getParentCommunicationLog(CommunicationContext context) {
+    CommunicationContext ancestorContext = context.getParentContext();
+    while (ancestorContext != null && !ancestorContext.hasCurrentCommunicationLog()) {
+      ancestorContext = ancestorContext.getParentContext();
+    }
+    return ancestorContext != null ? ancestorContext.getCurrentCommunicationLog() : null;
+  }
+
+  /**
+   * Returns whether calls to a given method are to be logged. A method is logged if it matches any
+   * included method pattern (or there are none) and no excluded method pattern, where a pattern
+   * matches a method if it matches its name or "[class simple name].[method name]".
+   */
+  private boolean isToBeLogged(String className, String method) {
+    return methodToLoggedMap.computeIfAbsent(className + "#" + method, ignored -> {
+      String qualifiedMethod = ClassUtils.getShortName(className) + "." + method;
+      return (includedMethodPatterns.isEmpty()
+          || matchesAny(includedMethodPatterns, method, qualifiedMethod))
+          && !matchesAny(excludedMethodPatterns, method, qualifiedMethod);
+    });
+  }
+
+  private static boolean matchesAny(List<Pattern> patterns, String method,
+      String qualifiedMethod) {
+    return patterns.stream().anyMatch(
+        p -> p.matcher(method).matches() || p.matcher(qualifiedMethod).matches());
+  }
+
+  private static List<Pattern> compilePatterns(List<String> regexes) {
+    if (regexes == null) {
+      return List.of();
+    }
+    return regexes.stream().map(Pattern::compile).collect(Collectors.toList());
+  }
 }
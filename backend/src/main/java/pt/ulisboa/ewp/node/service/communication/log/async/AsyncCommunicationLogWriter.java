@@ -0,0 +1,256 @@
+package pt.ulisboa.ewp.node.service.communication.log.async;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pt.ulisboa.ewp.node.config.communication.CommunicationLogAsyncProperties;
+import pt.ulisboa.ewp.node.config.communication.CommunicationProperties;
+
+/**
+ * Writes communication logs on a background thread, grouping several logs per transaction.
+ *
+ * <p>When disabled (see {@link CommunicationLogAsyncProperties#isEnabled()}), submitted events
+ * are written immediately on the caller thread.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class AsyncCommunicationLogWriter implements InitializingBean, DisposableBean, MeterBinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncCommunicationLogWriter.class);
+
+  private static final long POLL_TIMEOUT_IN_MILLISECONDS = 500;
+
+  private final CommunicationLogAsyncProperties properties;
+  private final TransactionTemplate transactionTemplate;
+  private final BlockingQueue<CommunicationLogEvent> queue;
+
+  private final AtomicLong numberSubmittedEvents = new AtomicLong();
+  private final AtomicLong numberDroppedEvents = new AtomicLong();
+  private final AtomicLong numberEventsWithBodiesDropped = new AtomicLong();
+  private final AtomicLong numberFailedEvents = new AtomicLong();
+
+  private volatile Thread workerThread;
+  private volatile boolean running;
+  private volatile Timer lagTimer;
+
+  public AsyncCommunicationLogWriter(
+      CommunicationProperties communicationProperties,
+      PlatformTransactionManager transactionManager) {
+    this.properties = communicationProperties.getLog().getAsync();
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /**
+   * Submits an event to be written. If asynchronous writing is disabled, the event is written
+   * immediately on the caller thread (joining any transaction in progress).
+   *
+   * @return true if the event was accepted (or written); false if it was discarded due to the
+   *     configured backpressure strategy.
+   */
+  public boolean submit(CommunicationLogEvent event) {
+    if (!isEnabled() || !running) {
+      transactionTemplate.executeWithoutResult(status -> event.write());
+      return true;
+    }
+
+    long sequenceNumber = numberSubmittedEvents.incrementAndGet();
+    try {
+      switch (properties.getBackpressureStrategy()) {
+        case DROP_BODIES:
+          if (queue.size() >= properties.getDropBodiesThreshold() * properties.getQueueCapacity()) {
+            event.markBodiesAsDropped();
+            numberEventsWithBodiesDropped.incrementAndGet();
+          }
+          return offerWithTimeout(event);
+
+        case SAMPLE:
+          if (queue.offer(event)) {
+            return true;
+          }
+          if (sequenceNumber % Math.max(1, properties.getSampleRate()) == 0) {
+            return offerWithTimeout(event);
+          }
+          numberDroppedEvents.incrementAndGet();
+          return false;
+
+        case BLOCK:
+        default:
+          queue.put(event);
+          return true;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      numberDroppedEvents.incrementAndGet();
+      LOG.warn("Interrupted while queueing communication log event, it was discarded");
+      return false;
+    }
+  }
+
+  /**
+   * Queues an event, waiting at most the configured offer timeout for free space on the queue. The
+   * event is discarded if there is still no free space by then.
+   */
+  private boolean offerWithTimeout(CommunicationLogEvent event) throws InterruptedException {
+    if (queue.offer(event, Math.max(0, properties.getOfferTimeoutInMilliseconds()),
+        TimeUnit.MILLISECONDS)) {
+      return true;
+    }
+    numberDroppedEvents.incrementAndGet();
+    return false;
+  }
+
+  public int getQueueSize() {
+    return queue.size();
+  }
+
+  public long getNumberDroppedEvents() {
+    return numberDroppedEvents.get();
+  }
+
+  public long getNumberEventsWithBodiesDropped() {
+    return numberEventsWithBodiesDropped.get();
+  }
+
+  public long getNumberFailedEvents() {
+    return numberFailedEvents.get();
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!isEnabled()) {
+      return;
+    }
+    this.running = true;
+    this.workerThread = new Thread(this::run, "communication-log-writer");
+    this.workerThread.setDaemon(true);
+    this.workerThread.start();
+  }
+
+  /**
+   * Stops accepting events on the queue and waits, up to the configured shutdown timeout, for the
+   * queued events to be written. If the worker thread does not finish in time, the caller thread
+   * helps draining the queue, up to the same timeout, before discarding what remains.
+   */
+  @Override
+  public void destroy() throws InterruptedException {
+    this.running = false;
+    Thread thread = this.workerThread;
+    if (thread == null) {
+      return;
+    }
+
+    long timeoutInMilliseconds = Math.max(0, properties.getShutdownTimeoutInMilliseconds());
+    thread.join(Math.max(1, timeoutInMilliseconds));
+    if (!queue.isEmpty()) {
+      writeRemainingEvents(
+          System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMilliseconds));
+    }
+    if (!queue.isEmpty()) {
+      LOG.warn("Discarding " + queue.size() + " communication log events still pending");
+    }
+  }
+
+  private void writeRemainingEvents(long deadlineInNanoseconds) {
+    List<CommunicationLogEvent> batch = new ArrayList<>(properties.getBatchSize());
+    while (System.nanoTime() - deadlineInNanoseconds < 0
+        && queue.drainTo(batch, Math.max(1, properties.getBatchSize())) > 0) {
+      writeBatch(batch);
+      batch.clear();
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("ewp.communication.log.queue.size", queue, BlockingQueue::size)
+        .description("Number of communication logs waiting to be written")
+        .register(registry);
+    this.lagTimer = Timer.builder("ewp.communication.log.write.lag")
+        .description("Time between a communication log being submitted and written")
+        .register(registry);
+    registerCounter(registry, "ewp.communication.log.dropped", numberDroppedEvents);
+    registerCounter(registry, "ewp.communication.log.bodies.dropped",
+        numberEventsWithBodiesDropped);
+    registerCounter(registry, "ewp.communication.log.failures", numberFailedEvents);
+  }
+
+  private void registerCounter(MeterRegistry registry, String name, AtomicLong value) {
+    registry.more().counter(name, List.of(), value, AtomicLong::doubleValue);
+  }
+
+  private void run() {
+    List<CommunicationLogEvent> batch = new ArrayList<>(properties.getBatchSize());
+    while (running || !queue.isEmpty()) {
+      try {
+        CommunicationLogEvent firstEvent =
+            queue.poll(POLL_TIMEOUT_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+        if (firstEvent == null) {
+          continue;
+        }
+        batch.add(firstEvent);
+        queue.drainTo(batch, Math.max(0, properties.getBatchSize() - 1));
+        writeBatch(batch);
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+
+      } catch (RuntimeException e) {
+        LOG.error("Unexpected error on communication log writer", e);
+
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  void writeBatch(List<CommunicationLogEvent> batch) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> batch.forEach(CommunicationLogEvent::write));
+      batch.forEach(this::recordWritten);
+
+    } catch (RuntimeException batchException) {
+      // NOTE: Retry each event on its own transaction so that a single failing event does not
+      // discard the remaining logs of the batch.
+      LOG.warn("Failed to write batch of " + batch.size()
+          + " communication logs, retrying individually", batchException);
+      for (CommunicationLogEvent event : batch) {
+        try {
+          transactionTemplate.executeWithoutResult(status -> event.write());
+          recordWritten(event);
+        } catch (RuntimeException e) {
+          numberFailedEvents.incrementAndGet();
+          LOG.error("Failed to write communication log", e);
+        }
+      }
+    }
+  }
+
+  private void recordWritten(CommunicationLogEvent event) {
+    Timer timer = this.lagTimer;
+    if (timer != null) {
+      timer.record(System.nanoTime() - event.getSubmissionTimeInNanoseconds(),
+          TimeUnit.NANOSECONDS);
+    }
+  }
+}
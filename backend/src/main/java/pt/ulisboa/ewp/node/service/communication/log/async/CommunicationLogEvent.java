@@ -0,0 +1,38 @@
+package pt.ulisboa.ewp.node.service.communication.log.async;
+
+/**
+ * Pending write of a communication log, queued on {@link AsyncCommunicationLogWriter}.
+ *
+ * <p>Events must not hold managed entities, as they are written on a different thread (and
+ * transaction) than the one that created them. Instead, they should reference other entities by
+ * ID and resolve them on {@link #write()}.
+ */
+public abstract class CommunicationLogEvent {
+
+  private final long submissionTimeInNanoseconds = System.nanoTime();
+  private volatile boolean bodiesDropped;
+
+  /**
+   * Writes the communication log. It is called within a transaction.
+   */
+  protected abstract void write();
+
+  /**
+   * Discards the request/response bodies held by this event, in order to release memory when the
+   * queue is under pressure.
+   */
+  protected abstract void dropBodies();
+
+  void markBodiesAsDropped() {
+    dropBodies();
+    this.bodiesDropped = true;
+  }
+
+  public boolean isBodiesDropped() {
+    return bodiesDropped;
+  }
+
+  long getSubmissionTimeInNanoseconds() {
+    return submissionTimeInNanoseconds;
+  }
+}
@@ -9,6 +9,7 @@ import pt.ulisboa.ewp.node.domain.entity.communication.log.host.plugin.HostPlugi
 import pt.ulisboa.ewp.node.domain.repository.communication.log.host.plugin.HostPluginFunctionCallCommunicationLogRepository;
 import pt.ulisboa.ewp.node.exception.domain.DomainException;
 import pt.ulisboa.ewp.node.service.communication.log.CommunicationLogService;
+import pt.ulisboa.ewp.node.utils.serialization.TypeAndString;
 
 @Service
 @Transactional
@@ -40,6 +41,47 @@ public class HostPluginFunctionCallCommunicationLogService {
         arguments);
   }
 
+  /**
+   * Logs a call that has already finished, given its (already serialized) arguments and result.
+   *
+   * @param result The serialized result, or null if the call failed
+   * @param throwable The exception thrown by the call, or null if it succeeded
+   */
+  public HostPluginFunctionCallCommunicationLog logCommunicationAfterExecution(
+      ZonedDateTime startProcessingDateTime,
+      ZonedDateTime endProcessingDateTime,
+      CommunicationLog parentCommunication,
+      String hostPluginId,
+      String className,
+      String method,
+      List<TypeAndString> arguments,
+      TypeAndString result,
+      Throwable throwable)
+      throws DomainException {
+
+    HostPluginFunctionCallCommunicationLog communicationLog =
+        this.repository.create(
+            startProcessingDateTime,
+            endProcessingDateTime,
+            "",
+            parentCommunication,
+            hostPluginId,
+            className,
+            method,
+            List.of());
+    arguments.forEach(communicationLog::addSerializedArgument);
+    if (result != null) {
+      communicationLog.editResult(result.getType(), result.getString());
+    }
+
+    if (throwable != null) {
+      CommunicationLogService.registerException(repository, communicationLog, throwable);
+    } else {
+      this.repository.persist(communicationLog);
+    }
+    return communicationLog;
+  }
+
   public boolean updateCommunicationAfterExecution(
       HostPluginFunctionCallCommunicationLog communicationLog, String resultType, String result) {
     communicationLog.editResult(resultType, result);
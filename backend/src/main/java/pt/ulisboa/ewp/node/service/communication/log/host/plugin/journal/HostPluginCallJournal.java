@@ -0,0 +1,368 @@
+package pt.ulisboa.ewp.node.service.communication.log.host.plugin.journal;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.lang.reflect.Array;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.ulisboa.ewp.node.config.communication.CommunicationLogHostPluginCallJournalProperties;
+import pt.ulisboa.ewp.node.config.communication.CommunicationProperties;
+import pt.ulisboa.ewp.node.domain.entity.communication.log.CommunicationLog;
+import pt.ulisboa.ewp.node.domain.repository.communication.log.CommunicationLogRepository;
+import pt.ulisboa.ewp.node.exception.domain.DomainException;
+import pt.ulisboa.ewp.node.service.communication.log.async.AsyncCommunicationLogWriter;
+import pt.ulisboa.ewp.node.service.communication.log.async.CommunicationLogEvent;
+import pt.ulisboa.ewp.node.service.communication.log.host.plugin.HostPluginFunctionCallCommunicationLogService;
+import pt.ulisboa.ewp.node.utils.serialization.SerializationUtils;
+import pt.ulisboa.ewp.node.utils.serialization.TypeAndString;
+
+/**
+ * Journal of host plugin provider calls. Calls are recorded, without being serialized, on a
+ * bounded lock-free ring buffer; a background thread then serializes their arguments and results
+ * and submits them to {@link AsyncCommunicationLogWriter} to be logged. Hence, the time spent by
+ * the calling threads does not depend on how large the arguments and results are.
+ *
+ * <p>Arguments and results are serialized after the call returns, so they should not be modified
+ * by the caller meanwhile. The journal is bounded by a number of calls and by an estimate (taken
+ * when each call is recorded, see {@link #estimateSizeInBytes(Object)}) of the total size of
+ * their raw arguments and results. Calls recorded while the journal is full are not logged.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class HostPluginCallJournal implements InitializingBean, DisposableBean, MeterBinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HostPluginCallJournal.class);
+
+  private static final long IDLE_PARK_TIME_IN_NANOSECONDS = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SHUTDOWN_TIMEOUT_IN_MILLISECONDS = 30000;
+  private static final String TRUNCATED_VALUE_SUFFIX = "... [truncated]";
+  private static final long ESTIMATED_OBJECT_SIZE_IN_BYTES = 4096;
+
+  private final CommunicationLogHostPluginCallJournalProperties properties;
+  private final AsyncCommunicationLogWriter communicationLogWriter;
+  private final HostPluginFunctionCallCommunicationLogService communicationLogService;
+  private final CommunicationLogRepository communicationLogRepository;
+  private final RingBuffer<PendingCall> ringBuffer;
+  private final AtomicLong pendingSizeInBytes = new AtomicLong();
+
+  private final AtomicLong numberRecordedCalls = new AtomicLong();
+  private final AtomicLong numberSkippedCalls = new AtomicLong();
+  private final AtomicLong numberDroppedCalls = new AtomicLong();
+  private final AtomicLong numberFailedCalls = new AtomicLong();
+
+  private volatile Thread workerThread;
+  private volatile boolean running;
+  private volatile Timer serializationTimer;
+
+  public HostPluginCallJournal(
+      CommunicationProperties communicationProperties,
+      AsyncCommunicationLogWriter communicationLogWriter,
+      HostPluginFunctionCallCommunicationLogService communicationLogService,
+      CommunicationLogRepository communicationLogRepository) {
+    this.properties = communicationProperties.getLog().getHostPluginCalls().getJournal();
+    this.communicationLogWriter = communicationLogWriter;
+    this.communicationLogService = communicationLogService;
+    this.communicationLogRepository = communicationLogRepository;
+    this.ringBuffer = new RingBuffer<>(Math.max(1, properties.getCapacity()));
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /**
+   * Records a finished call, unless it is not sampled or the journal is full. If the journal is
+   * not running, the call is logged immediately on the caller thread.
+   *
+   * @return true if the call was recorded (or logged)
+   */
+  public boolean record(HostPluginCallRecord call) {
+    int sampleRate = Math.max(1, properties.getSampleRate());
+    if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+      numberSkippedCalls.incrementAndGet();
+      return false;
+    }
+
+    if (!running) {
+      process(call);
+      return true;
+    }
+
+    long estimatedSizeInBytes = estimateSizeInBytes(call);
+    if (!reservePendingSize(estimatedSizeInBytes)) {
+      numberDroppedCalls.incrementAndGet();
+      return false;
+    }
+    if (!ringBuffer.offer(new PendingCall(call, estimatedSizeInBytes))) {
+      pendingSizeInBytes.addAndGet(-estimatedSizeInBytes);
+      numberDroppedCalls.incrementAndGet();
+      return false;
+    }
+    numberRecordedCalls.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Reserves room for a call of a given estimated size, unless the calls already on the journal
+   * would exceed the maximum pending size (a single call is always accepted by an empty journal).
+   */
+  private boolean reservePendingSize(long sizeInBytes) {
+    long maxPendingSizeInBytes = properties.getMaxPendingSizeInBytes();
+    while (true) {
+      long currentSizeInBytes = pendingSizeInBytes.get();
+      if (currentSizeInBytes > 0 && currentSizeInBytes + sizeInBytes > maxPendingSizeInBytes) {
+        return false;
+      }
+      if (pendingSizeInBytes.compareAndSet(currentSizeInBytes,
+          currentSizeInBytes + sizeInBytes)) {
+        return true;
+      }
+    }
+  }
+
+  public int getSize() {
+    return ringBuffer.size();
+  }
+
+  /** Returns the estimated size of the raw arguments and results of the calls on the journal. */
+  public long getPendingSizeInBytes() {
+    return pendingSizeInBytes.get();
+  }
+
+  public long getNumberDroppedCalls() {
+    return numberDroppedCalls.get();
+  }
+
+  public long getNumberSkippedCalls() {
+    return numberSkippedCalls.get();
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!isEnabled()) {
+      return;
+    }
+    this.running = true;
+    this.workerThread = new Thread(this::run, "ewp-plugin-call-journal");
+    this.workerThread.setDaemon(true);
+    this.workerThread.start();
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    this.running = false;
+    Thread thread = this.workerThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+      thread.join(SHUTDOWN_TIMEOUT_IN_MILLISECONDS);
+      if (!ringBuffer.isEmpty()) {
+        LOG.warn("Discarding " + ringBuffer.size() + " host plugin calls still pending");
+      }
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("ewp.plugin.call.journal.size", ringBuffer, RingBuffer::size)
+        .description("Number of host plugin calls waiting to be serialized")
+        .register(registry);
+    Gauge.builder("ewp.plugin.call.journal.pending.bytes", pendingSizeInBytes,
+            AtomicLong::doubleValue)
+        .description("Estimated size of the host plugin calls waiting to be serialized")
+        .baseUnit("bytes")
+        .register(registry);
+    this.serializationTimer = Timer.builder("ewp.plugin.call.journal.serialization")
+        .description("Time spent serializing the arguments and result of a host plugin call")
+        .register(registry);
+    registerCounter(registry, "ewp.plugin.call.journal.recorded", numberRecordedCalls);
+    registerCounter(registry, "ewp.plugin.call.journal.skipped", numberSkippedCalls);
+    registerCounter(registry, "ewp.plugin.call.journal.dropped", numberDroppedCalls);
+    registerCounter(registry, "ewp.plugin.call.journal.failures", numberFailedCalls);
+  }
+
+  private void registerCounter(MeterRegistry registry, String name, AtomicLong value) {
+    registry.more().counter(name, List.of(), value, AtomicLong::doubleValue);
+  }
+
+  private void run() {
+    while (running || !ringBuffer.isEmpty()) {
+      PendingCall pendingCall = ringBuffer.poll();
+      if (pendingCall == null) {
+        LockSupport.parkNanos(IDLE_PARK_TIME_IN_NANOSECONDS);
+        continue;
+      }
+      pendingSizeInBytes.addAndGet(-pendingCall.estimatedSizeInBytes);
+      process(pendingCall.call);
+    }
+  }
+
+  private void process(HostPluginCallRecord call) {
+    try {
+      communicationLogWriter.submit(serialize(call));
+
+    } catch (RuntimeException e) {
+      numberFailedCalls.incrementAndGet();
+      LOG.error("Failed to log host plugin call: " + call.getClassName() + "." + call.getMethod(),
+          e);
+    }
+  }
+
+  LogHostPluginCallEvent serialize(HostPluginCallRecord call) {
+    long startTime = System.nanoTime();
+    Object[] arguments = call.getArguments() != null ? call.getArguments() : new Object[0];
+    List<TypeAndString> serializedArguments = new ArrayList<>(arguments.length);
+    for (Object argument : arguments) {
+      serializedArguments.add(serializeValue(argument));
+    }
+    TypeAndString serializedResult =
+        call.getThrowable() == null ? serializeValue(call.getResult()) : null;
+    Timer timer = this.serializationTimer;
+    if (timer != null) {
+      timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+    return new LogHostPluginCallEvent(call, serializedArguments, serializedResult);
+  }
+
+  private TypeAndString serializeValue(Object value) {
+    TypeAndString result;
+    try {
+      result = SerializationUtils.convertToTypeAndString(value);
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to serialize value of type " + value.getClass().getName(), e);
+      return new TypeAndString(value.getClass().getName(), "");
+    }
+
+    int maxValueLength = Math.max(0, properties.getMaxValueLength());
+    if (result.getString() != null && result.getString().length() > maxValueLength) {
+      return new TypeAndString(result.getType(),
+          result.getString().substring(0, maxValueLength) + TRUNCATED_VALUE_SUFFIX);
+    }
+    return result;
+  }
+
+  private static long estimateSizeInBytes(HostPluginCallRecord call) {
+    long result = estimateSizeInBytes(call.getResult());
+    if (call.getArguments() != null) {
+      for (Object argument : call.getArguments()) {
+        result += estimateSizeInBytes(argument);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Estimates, cheaply, the size of a raw value: strings and byte arrays by their length,
+   * collections, maps and arrays by their number of elements (each element being assumed to be an
+   * object of a fixed size), and any other object by that fixed size. Nested values are not
+   * inspected, so that the estimate does not depend on how large the value is.
+   */
+  static long estimateSizeInBytes(Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof CharSequence) {
+      return 2L * ((CharSequence) value).length();
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).length;
+    } else if (value instanceof Collection) {
+      return ESTIMATED_OBJECT_SIZE_IN_BYTES * (1 + ((Collection<?>) value).size());
+    } else if (value instanceof Map) {
+      return ESTIMATED_OBJECT_SIZE_IN_BYTES * (1 + ((Map<?, ?>) value).size());
+    } else if (value.getClass().isArray()) {
+      return ESTIMATED_OBJECT_SIZE_IN_BYTES * (1 + Array.getLength(value));
+    }
+    return ESTIMATED_OBJECT_SIZE_IN_BYTES;
+  }
+
+  private static class PendingCall {
+
+    private final HostPluginCallRecord call;
+    private final long estimatedSizeInBytes;
+
+    private PendingCall(HostPluginCallRecord call, long estimatedSizeInBytes) {
+      this.call = call;
+      this.estimatedSizeInBytes = estimatedSizeInBytes;
+    }
+  }
+
+  /**
+   * Logs a serialized host plugin call. The parent communication is referenced by ID and loaded on
+   * write (see {@link CommunicationLogEvent}). The raw arguments and result of the call are not
+   * retained.
+   */
+  class LogHostPluginCallEvent extends CommunicationLogEvent {
+
+    private final ZonedDateTime startProcessingDateTime;
+    private final ZonedDateTime endProcessingDateTime;
+    private final Long parentCommunicationId;
+    private final String hostPluginId;
+    private final String className;
+    private final String method;
+    private final Throwable throwable;
+    private final List<TypeAndString> arguments;
+    private final TypeAndString result;
+
+    private LogHostPluginCallEvent(HostPluginCallRecord call, List<TypeAndString> arguments,
+        TypeAndString result) {
+      this.startProcessingDateTime = call.getStartProcessingDateTime();
+      this.endProcessingDateTime = call.getEndProcessingDateTime();
+      this.parentCommunicationId = call.getParentCommunicationId();
+      this.hostPluginId = call.getHostPluginId();
+      this.className = call.getClassName();
+      this.method = call.getMethod();
+      this.throwable = call.getThrowable();
+      this.arguments = arguments;
+      this.result = result;
+    }
+
+    List<TypeAndString> getArguments() {
+      return arguments;
+    }
+
+    TypeAndString getResult() {
+      return result;
+    }
+
+    @Override
+    protected void write() {
+      CommunicationLog parentCommunication =
+          parentCommunicationId != null
+              ? communicationLogRepository.findById(parentCommunicationId).orElse(null)
+              : null;
+      try {
+        communicationLogService.logCommunicationAfterExecution(
+            startProcessingDateTime,
+            endProcessingDateTime,
+            parentCommunication,
+            hostPluginId,
+            className,
+            method,
+            arguments,
+            result,
+            throwable);
+      } catch (DomainException e) {
+        throw new IllegalStateException("Failed to log host plugin call", e);
+      }
+    }
+
+    @Override
+    protected void dropBodies() {
+      // NOTE: Arguments and results are already bounded by the maximum value length
+    }
+  }
+}
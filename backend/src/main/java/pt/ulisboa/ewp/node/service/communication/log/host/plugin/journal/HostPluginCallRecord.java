@@ -0,0 +1,77 @@
+package pt.ulisboa.ewp.node.service.communication.log.host.plugin.journal;
+
+import java.time.ZonedDateTime;
+
+/**
+ * A finished call to a host plugin provider, to be recorded on {@link HostPluginCallJournal}. The
+ * arguments and result are kept as they are, until the journal serializes them.
+ */
+public class HostPluginCallRecord {
+
+  private final ZonedDateTime startProcessingDateTime;
+  private final ZonedDateTime endProcessingDateTime;
+  private final Long parentCommunicationId;
+  private final String hostPluginId;
+  private final String className;
+  private final String method;
+  private final Object[] arguments;
+  private final Object result;
+  private final Throwable throwable;
+
+  public HostPluginCallRecord(
+      ZonedDateTime startProcessingDateTime,
+      ZonedDateTime endProcessingDateTime,
+      Long parentCommunicationId,
+      String hostPluginId,
+      String className,
+      String method,
+      Object[] arguments,
+      Object result,
+      Throwable throwable) {
+    this.startProcessingDateTime = startProcessingDateTime;
+    this.endProcessingDateTime = endProcessingDateTime;
+    this.parentCommunicationId = parentCommunicationId;
+    this.hostPluginId = hostPluginId;
+    this.className = className;
+    this.method = method;
+    this.arguments = arguments;
+    this.result = result;
+    this.throwable = throwable;
+  }
+
+  public ZonedDateTime getStartProcessingDateTime() {
+    return startProcessingDateTime;
+  }
+
+  public ZonedDateTime getEndProcessingDateTime() {
+    return endProcessingDateTime;
+  }
+
+  public Long getParentCommunicationId() {
+    return parentCommunicationId;
+  }
+
+  public String getHostPluginId() {
+    return hostPluginId;
+  }
+
+  public String getClassName() {
+    return className;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public Object[] getArguments() {
+    return arguments;
+  }
+
+  public Object getResult() {
+    return result;
+  }
+
+  public Throwable getThrowable() {
+    return throwable;
+  }
+}
@@ -0,0 +1,95 @@
+package pt.ulisboa.ewp.node.service.communication.log.host.plugin.journal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free ring buffer for many producers and a single consumer. Producers never wait:
+ * when the buffer is full, {@link #offer(Object)} returns false.
+ *
+ * <p>Each slot has a sequence number telling whether it is free for the producer of a given
+ * position (sequence equal to the position) or holds the element of a given position (sequence
+ * equal to the position plus one).
+ */
+class RingBuffer<E> {
+
+  private final int capacity;
+  private final int mask;
+  private final AtomicReferenceArray<E> elements;
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong head = new AtomicLong();
+
+  /**
+   * @param minCapacity Minimum capacity of the buffer (rounded up to a power of two)
+   */
+  RingBuffer(int minCapacity) {
+    int capacity = 1;
+    while (capacity < minCapacity && capacity < (1 << 30)) {
+      capacity <<= 1;
+    }
+    this.capacity = capacity;
+    this.mask = capacity - 1;
+    this.elements = new AtomicReferenceArray<>(capacity);
+    this.sequences = new AtomicLongArray(capacity);
+    for (int index = 0; index < capacity; index++) {
+      sequences.set(index, index);
+    }
+  }
+
+  /**
+   * Adds an element to the buffer, if it is not full. May be called concurrently by any number of
+   * threads.
+   *
+   * @return true if the element was added; false if the buffer is full
+   */
+  boolean offer(E element) {
+    while (true) {
+      long position = tail.get();
+      int index = (int) (position & mask);
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          elements.set(index, element);
+          sequences.set(index, position + 1);
+          return true;
+        }
+      } else if (difference < 0) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Removes the oldest element of the buffer. Must only be called by a single thread at a time.
+   *
+   * @return the oldest element, or null if the buffer is empty (or its oldest element is still
+   *     being added)
+   */
+  E poll() {
+    long position = head.get();
+    int index = (int) (position & mask);
+    if (sequences.get(index) != position + 1) {
+      return null;
+    }
+    E element = elements.get(index);
+    elements.set(index, null);
+    sequences.set(index, position + capacity);
+    head.set(position + 1);
+    return element;
+  }
+
+  int getCapacity() {
+    return capacity;
+  }
+
+  /** Returns the (approximate, if called concurrently) number of elements on the buffer. */
+  int size() {
+    return (int) Math.max(0, Math.min(capacity, tail.get() - head.get()));
+  }
+
+  boolean isEmpty() {
+    return size() == 0;
+  }
+}
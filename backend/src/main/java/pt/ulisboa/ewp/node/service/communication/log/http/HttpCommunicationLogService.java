@@ -1,11 +1,15 @@
 package pt.ulisboa.ewp.node.service.communication.log.http;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
 import javax.transaction.Transactional;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -16,6 +20,7 @@ import pt.ulisboa.ewp.node.domain.entity.communication.log.http.HttpHeaderLog;
 import pt.ulisboa.ewp.node.domain.entity.communication.log.http.HttpMethodLog;
 import pt.ulisboa.ewp.node.domain.entity.communication.log.http.HttpRequestLog;
 import pt.ulisboa.ewp.node.domain.entity.communication.log.http.HttpResponseLog;
+import pt.ulisboa.ewp.node.domain.utils.DomainConstants;
 import pt.ulisboa.ewp.node.utils.http.HttpConstants;
 
 @Service
@@ -40,6 +45,7 @@ public class HttpCommunicationLogService {
     return requestLog;
   }
 
+  @Transactional(Transactional.TxType.SUPPORTS)
   public HttpResponseLog toHttpResponseLog(ContentCachingResponseWrapper response) {
     if (response == null) {
       return null;
@@ -47,7 +53,7 @@ public class HttpCommunicationLogService {
 
     byte[] responseBodyAsBytes;
     if (isContentTypeOfBodyWhiteListedToLog(response.getContentType())) {
-      responseBodyAsBytes = response.getContentAsByteArray();
+      responseBodyAsBytes = toLoggableBody(response);
     } else {
       responseBodyAsBytes =
           ("Bodies of content type '"
@@ -63,6 +69,25 @@ public class HttpCommunicationLogService {
     return responseLog;
   }
 
+  /**
+   * Returns the part of the response body that fits on the log, without loading the rest of it
+   * (that may be on a temporary file) into memory.
+   */
+  private static byte[] toLoggableBody(ContentCachingResponseWrapper response) {
+    int maxSizeInBytes = DomainConstants.MAX_TEXT_COLUMN_TEXT_LENGTH;
+    byte[] body;
+    try (InputStream inputStream = response.getContentInputStream()) {
+      body = inputStream.readNBytes(maxSizeInBytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read response body", e);
+    }
+    if (response.getContentSize() > maxSizeInBytes) {
+      body = ArrayUtils.addAll(body,
+          HttpRequestLog.TRUNCATED_BODY_SUFFIX.getBytes(StandardCharsets.UTF_8));
+    }
+    return body;
+  }
+
   protected Collection<HttpHeaderLog> toHttpHeaderCollection(ContentCachingRequestWrapper request) {
     Collection<HttpHeaderLog> headers = new ArrayList<>();
     Enumeration<String> headerNames = request.getHeaderNames();
@@ -31,6 +31,7 @@ import pt.ulisboa.ewp.node.domain.entity.communication.log.http.ewp.HttpCommunic
 import pt.ulisboa.ewp.node.domain.entity.notification.EwpChangeNotification;
 import pt.ulisboa.ewp.node.domain.repository.communication.log.http.ewp.HttpCommunicationFromEwpNodeLogRepository;
 import pt.ulisboa.ewp.node.domain.repository.communication.log.http.ewp.HttpCommunicationToEwpNodeLogRepository;
+import pt.ulisboa.ewp.node.domain.utils.DomainConstants;
 import pt.ulisboa.ewp.node.exception.domain.DomainException;
 import pt.ulisboa.ewp.node.service.communication.log.http.HttpCommunicationLogService;
 
@@ -101,15 +102,25 @@ public class EwpHttpCommunicationLogService extends HttpCommunicationLogService
           ZonedDateTime endProcessingDateTime,
           String observations)
           throws IOException {
+    return updateCommunicationFromEwpNodeAfterExecution(
+        communicationLog, toHttpResponseLog(response), endProcessingDateTime, observations);
+  }
+
+  public boolean updateCommunicationFromEwpNodeAfterExecution(
+      HttpCommunicationFromEwpNodeLog communicationLog,
+      HttpResponseLog responseLog,
+      ZonedDateTime endProcessingDateTime,
+      String observations) {
 
     // NOTE: Requests for manifest are not logged to avoid using too much log space
     // Therefore, maintain only failure communications, deleting the success ones
-    if (isRequestForManifest(communicationLog.getRequest()) && response.getStatus() == HttpStatus.OK.value()) {
+    if (isRequestForManifest(communicationLog.getRequest())
+        && responseLog.getStatusCode() == HttpStatus.OK.value()) {
       httpCommunicationFromEwpNodeLogRepository.delete(communicationLog);
       return true;
     }
 
-    communicationLog.setResponse(toHttpResponseLog(response));
+    communicationLog.setResponse(responseLog);
     communicationLog.setEndProcessingDateTime(endProcessingDateTime);
     communicationLog.setObservations(observations);
     return httpCommunicationFromEwpNodeLogRepository.persist(communicationLog);
@@ -173,8 +184,31 @@ public class EwpHttpCommunicationLogService extends HttpCommunicationLogService
       Collection<EwpChangeNotification> ewpChangeNotifications,
       EwpClientErrorException ewpClientErrorException)
       throws IOException {
-    HttpRequestLog requestLog = toHttpRequestLog(request);
-    HttpResponseLog responseLog = toHttpResponseLog(response);
+    return logCommunicationToEwpNode(
+        request,
+        toHttpRequestLog(request),
+        toHttpResponseLog(response),
+        startProcessingDateTime,
+        endProcessingDateTime,
+        serverDeveloperMessage,
+        observations,
+        parentCommunication,
+        ewpChangeNotifications,
+        ewpClientErrorException);
+  }
+
+  public HttpCommunicationToEwpNodeLog logCommunicationToEwpNode(
+      EwpRequest request,
+      HttpRequestLog requestLog,
+      HttpResponseLog responseLog,
+      ZonedDateTime startProcessingDateTime,
+      ZonedDateTime endProcessingDateTime,
+      String serverDeveloperMessage,
+      String observations,
+      HttpCommunicationLog parentCommunication,
+      Collection<EwpChangeNotification> ewpChangeNotifications,
+      EwpClientErrorException ewpClientErrorException)
+      throws IOException {
     return httpCommunicationToEwpNodeLogRepository.create(
         request.getEndpointInformation().getHeiId(),
         request.getEndpointInformation().getApiName(),
@@ -224,12 +258,26 @@ public class EwpHttpCommunicationLogService extends HttpCommunicationLogService
             HttpMethodLog.fromString(request.getMethod()),
             url.toString(),
             toHttpHeaderCollection(request),
-            request.getBody());
+            toLoggableBody(request));
     requestLog.getHeaders().forEach(header -> header.setRequestLog(requestLog));
     return requestLog;
   }
 
-  private HttpRequestLog toHttpRequestLog(EwpRequest request) {
+  /**
+   * Returns the part of the request body that fits on the log, without loading the rest of it
+   * (that may be on a temporary file) into memory.
+   */
+  private static String toLoggableBody(EwpApiHttpRequestWrapper request) {
+    int maxSizeInBytes = DomainConstants.MAX_TEXT_COLUMN_TEXT_LENGTH;
+    String body = request.getBody(maxSizeInBytes);
+    if (request.getBodyBuffer().getSize() > maxSizeInBytes) {
+      body += HttpRequestLog.TRUNCATED_BODY_SUFFIX;
+    }
+    return body;
+  }
+
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public HttpRequestLog toHttpRequestLog(EwpRequest request) {
     HttpRequestLog requestLog =
         HttpRequestLog.create(
             HttpMethodLog.fromString(request.getMethod().name()),
@@ -240,7 +288,8 @@ public class EwpHttpCommunicationLogService extends HttpCommunicationLogService
     return requestLog;
   }
 
-  private HttpResponseLog toHttpResponseLog(EwpResponse response) {
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public HttpResponseLog toHttpResponseLog(EwpResponse response) {
     if (response == null) {
       return null;
     }
@@ -3,6 +3,8 @@ package pt.ulisboa.ewp.node.service.communication.log.http.validator;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.node.config.communication.CommunicationLogValidationProperties;
+import pt.ulisboa.ewp.node.config.communication.CommunicationProperties;
 import pt.ulisboa.ewp.node.domain.dto.communication.log.http.HttpResponseLogDto;
 import pt.ulisboa.ewp.node.domain.dto.validation.ValidationEntryDto;
 import pt.ulisboa.ewp.node.domain.dto.validation.ValidationEntryDto.Severity;
@@ -13,14 +15,20 @@ import pt.ulisboa.ewp.node.service.xml.XmlValidator;
 public class HttpResponseLogBodyValidator {
 
   private final XmlValidator xmlValidator;
+  private final CommunicationLogValidationProperties properties;
 
-  public HttpResponseLogBodyValidator(XmlValidator xmlValidator) {
+  public HttpResponseLogBodyValidator(XmlValidator xmlValidator,
+      CommunicationProperties communicationProperties) {
     this.xmlValidator = xmlValidator;
+    this.properties = communicationProperties.getLog().getValidation();
   }
 
   public ValidationResultDto validate(HttpResponseLogDto httpResponse) {
     byte[] responseBodyBytes = httpResponse.getBody().getBytes(StandardCharsets.UTF_8);
     try {
+      if (properties.isRootNamespaceSchemaOnly()) {
+        return this.xmlValidator.validateAgainstRootNamespaceSchema(responseBodyBytes);
+      }
       return this.xmlValidator.validate(responseBodyBytes);
     } catch (Exception e) {
       return new ValidationResultDto(
@@ -0,0 +1,128 @@
+package pt.ulisboa.ewp.node.service.ewp.discovery;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import eu.erasmuswithoutpaper.api.discovery.v6.ManifestV6;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.xml.transform.stream.StreamResult;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pt.ulisboa.ewp.node.config.manifest.ManifestCacheProperties;
+import pt.ulisboa.ewp.node.config.manifest.ManifestProperties;
+import pt.ulisboa.ewp.node.events.host.HostsUpdatedEvent;
+import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.service.ewp.discovery.EwpDiscoveryManifestSnapshot.SourceVersions;
+import pt.ulisboa.ewp.node.service.keystore.KeyStoreService;
+import pt.ulisboa.ewp.node.utils.http.converter.xml.Jaxb2HttpMessageConverter;
+
+/**
+ * Cache of marshalled discovery manifests, keyed by the host code and base URL they were built
+ * for.
+ *
+ * <p>A manifest is rebuilt when the hosts, the registered plugins or the keystore change since it
+ * was built (or when its time to live expires). Rebuilding a manifest identical to the cached one
+ * keeps its ETag and Last-Modified date, so clients keep receiving 304 responses.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class EwpDiscoveryManifestCache implements MeterBinder {
+
+  private static final String METRICS_CACHE_NAME = "ewp.discovery.manifest";
+
+  private final ManifestCacheProperties properties;
+  private final HostPluginManager hostPluginManager;
+  private final KeyStoreService keyStoreService;
+  private final Jaxb2HttpMessageConverter jaxb2HttpMessageConverter;
+  private final Cache<String, EwpDiscoveryManifestSnapshot> cache;
+  private final AtomicLong hostsVersion = new AtomicLong();
+
+  public EwpDiscoveryManifestCache(ManifestProperties manifestProperties,
+      HostPluginManager hostPluginManager, KeyStoreService keyStoreService,
+      Jaxb2HttpMessageConverter jaxb2HttpMessageConverter) {
+    this.properties = manifestProperties.getCache();
+    this.hostPluginManager = hostPluginManager;
+    this.keyStoreService = keyStoreService;
+    this.jaxb2HttpMessageConverter = jaxb2HttpMessageConverter;
+
+    CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+        .maximumSize(Math.max(0, properties.getMaxNumberSnapshots()))
+        .recordStats();
+    if (properties.getTimeToLiveInSeconds() > 0) {
+      cacheBuilder.expireAfterWrite(properties.getTimeToLiveInSeconds(), TimeUnit.SECONDS);
+    }
+    this.cache = cacheBuilder.build();
+  }
+
+  /**
+   * Returns the snapshot of the manifest for a given key, building (and caching) a new one if there
+   * is no snapshot built from the current hosts, plugins and keystore.
+   *
+   * @param key Identifies the manifest (e.g. host code and base URL)
+   * @param manifestFactory Builds the manifest
+   */
+  public EwpDiscoveryManifestSnapshot getSnapshot(String key, Supplier<ManifestV6> manifestFactory) {
+    // NOTE: versions are read before building the manifest, so that a change that happens while
+    // it is built makes the resulting snapshot stale
+    SourceVersions sourceVersions = getCurrentSourceVersions();
+    if (!properties.isEnabled()) {
+      return createSnapshot(manifestFactory.get(), sourceVersions, null);
+    }
+
+    EwpDiscoveryManifestSnapshot cachedSnapshot = cache.getIfPresent(key);
+    if (cachedSnapshot != null && cachedSnapshot.getSourceVersions().isSameAs(sourceVersions)) {
+      return cachedSnapshot;
+    }
+
+    EwpDiscoveryManifestSnapshot snapshot =
+        createSnapshot(manifestFactory.get(), sourceVersions, cachedSnapshot);
+    cache.put(key, snapshot);
+    return snapshot;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onHostsUpdatedEvent(HostsUpdatedEvent event) {
+    hostsVersion.incrementAndGet();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    GuavaCacheMetrics.monitor(registry, cache, METRICS_CACHE_NAME);
+  }
+
+  private SourceVersions getCurrentSourceVersions() {
+    return new SourceVersions(
+        hostsVersion.get(),
+        hostPluginManager.getPluginsVersion(),
+        keyStoreService.getSecurityBundle().getVersion());
+  }
+
+  private EwpDiscoveryManifestSnapshot createSnapshot(ManifestV6 manifest,
+      SourceVersions sourceVersions, EwpDiscoveryManifestSnapshot previousSnapshot) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    jaxb2HttpMessageConverter.marshal(manifest, new StreamResult(outputStream));
+    byte[] body = outputStream.toByteArray();
+
+    String eTag = "\"" + DigestUtils.sha256Hex(body) + "\"";
+    Instant lastModified;
+    if (previousSnapshot != null && previousSnapshot.getETag().equals(eTag)) {
+      lastModified = previousSnapshot.getLastModified();
+    } else {
+      // NOTE: HTTP dates have a precision of seconds
+      lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    String heiId = manifest.getHost().getInstitutionsCovered().getHei().getId();
+    return new EwpDiscoveryManifestSnapshot(heiId, body, eTag, lastModified, sourceVersions);
+  }
+}
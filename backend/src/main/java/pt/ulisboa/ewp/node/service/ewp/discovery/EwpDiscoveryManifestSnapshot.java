@@ -0,0 +1,67 @@
+package pt.ulisboa.ewp.node.service.ewp.discovery;
+
+import java.time.Instant;
+
+/**
+ * Discovery manifest built at a given moment, kept already marshalled so that it can be served as
+ * is, along with the versions of the data it was built from.
+ */
+public class EwpDiscoveryManifestSnapshot {
+
+  private final String heiId;
+  private final byte[] body;
+  private final String eTag;
+  private final Instant lastModified;
+  private final SourceVersions sourceVersions;
+
+  EwpDiscoveryManifestSnapshot(String heiId, byte[] body, String eTag, Instant lastModified,
+      SourceVersions sourceVersions) {
+    this.heiId = heiId;
+    this.body = body;
+    this.eTag = eTag;
+    this.lastModified = lastModified;
+    this.sourceVersions = sourceVersions;
+  }
+
+  /** Returns the ID of the HEI described by the manifest. */
+  public String getHeiId() {
+    return heiId;
+  }
+
+  /** Returns the marshalled manifest. The returned array must not be modified. */
+  public byte[] getBody() {
+    return body;
+  }
+
+  public String getETag() {
+    return eTag;
+  }
+
+  public Instant getLastModified() {
+    return lastModified;
+  }
+
+  SourceVersions getSourceVersions() {
+    return sourceVersions;
+  }
+
+  /** Versions of the hosts, plugins and keystore that a manifest is built from. */
+  static class SourceVersions {
+
+    private final long hostsVersion;
+    private final long pluginsVersion;
+    private final long keystoreVersion;
+
+    SourceVersions(long hostsVersion, long pluginsVersion, long keystoreVersion) {
+      this.hostsVersion = hostsVersion;
+      this.pluginsVersion = pluginsVersion;
+      this.keystoreVersion = keystoreVersion;
+    }
+
+    boolean isSameAs(SourceVersions other) {
+      return hostsVersion == other.hostsVersion
+          && pluginsVersion == other.pluginsVersion
+          && keystoreVersion == other.keystoreVersion;
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package pt.ulisboa.ewp.node.service.ewp.iia.hash;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.ulisboa.ewp.node.config.iia.IiaHashCacheProperties;
+import pt.ulisboa.ewp.node.config.iia.IiaHashProperties;
+import pt.ulisboa.ewp.node.domain.entity.iia.EwpIiaHashCacheEntry;
+import pt.ulisboa.ewp.node.domain.repository.iia.EwpIiaHashCacheEntryRepository;
+
+/**
+ * Cache of IIA hash calculations, keyed by a digest of the content that determines each hash.
+ *
+ * <p>Calculations are kept in memory, bounded by their approximate size, and optionally
+ * persisted, so that they survive restarts of the node. As keys are content addressed, entries
+ * never become stale and are only evicted to bound memory.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class IiaHashCache implements MeterBinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IiaHashCache.class);
+
+  private static final String METRICS_CACHE_NAME = "ewp.iia.hash";
+
+  private final IiaHashCacheProperties properties;
+  private final EwpIiaHashCacheEntryRepository repository;
+  private final Cache<String, HashCalculationResult> cache;
+  private final AtomicLong numberPersistentHits = new AtomicLong();
+  private final AtomicLong numberPersistentMisses = new AtomicLong();
+
+  public IiaHashCache(IiaHashProperties iiaHashProperties,
+      EwpIiaHashCacheEntryRepository repository) {
+    this.properties = iiaHashProperties.getCache();
+    this.repository = repository;
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(Math.max(0, properties.getMaxSizeInBytes()))
+        .weigher(IiaHashCache::getApproximateSizeInBytes)
+        .recordStats()
+        .build();
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /**
+   * Returns the cached hash calculations for the given keys. Keys without a cached calculation are
+   * not present on the returned map.
+   */
+  public Map<String, HashCalculationResult> getAll(Collection<String> keys) {
+    Set<String> uniqueKeys = new LinkedHashSet<>(keys);
+    Map<String, HashCalculationResult> result = new HashMap<>(cache.getAllPresent(uniqueKeys));
+    if (result.size() == uniqueKeys.size() || !properties.isPersistent()) {
+      return result;
+    }
+
+    List<String> missingKeys = new ArrayList<>(uniqueKeys);
+    missingKeys.removeAll(result.keySet());
+    try {
+      for (EwpIiaHashCacheEntry entry : repository.findAllByContentDigests(missingKeys)) {
+        HashCalculationResult hashCalculationResult =
+            new HashCalculationResult(entry.getHash(), entry.getHashedString());
+        cache.put(entry.getContentDigest(), hashCalculationResult);
+        result.put(entry.getContentDigest(), hashCalculationResult);
+      }
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to load persisted IIA hash calculations", e);
+    }
+    numberPersistentHits.addAndGet(result.size() - (uniqueKeys.size() - missingKeys.size()));
+    numberPersistentMisses.addAndGet(uniqueKeys.size() - result.size());
+    return result;
+  }
+
+  /** Caches the given hash calculations (and persists them, if the persistent tier is enabled). */
+  public void putAll(Map<String, HashCalculationResult> keyToHashCalculationResultMap) {
+    cache.putAll(keyToHashCalculationResultMap);
+    if (!properties.isPersistent() || keyToHashCalculationResultMap.isEmpty()) {
+      return;
+    }
+
+    List<EwpIiaHashCacheEntry> entries = new ArrayList<>(keyToHashCalculationResultMap.size());
+    keyToHashCalculationResultMap.forEach((key, hashCalculationResult) -> entries.add(
+        EwpIiaHashCacheEntry.create(key, hashCalculationResult.getHash(),
+            hashCalculationResult.getHashedString())));
+    try {
+      repository.persistAllIfAbsent(entries);
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to persist IIA hash calculations", e);
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    GuavaCacheMetrics.monitor(registry, cache, METRICS_CACHE_NAME);
+    registry.more().counter("ewp.iia.hash.cache.persistent.hits", List.of(),
+        numberPersistentHits, AtomicLong::doubleValue);
+    registry.more().counter("ewp.iia.hash.cache.persistent.misses", List.of(),
+        numberPersistentMisses, AtomicLong::doubleValue);
+  }
+
+  private static int getApproximateSizeInBytes(String key,
+      HashCalculationResult hashCalculationResult) {
+    // NOTE: Java strings take (at most) two bytes per character
+    long size = 2L * (key.length() + hashCalculationResult.getHash().length()
+        + hashCalculationResult.getHashedString().length());
+    return (int) Math.min(Integer.MAX_VALUE, size);
+  }
+}
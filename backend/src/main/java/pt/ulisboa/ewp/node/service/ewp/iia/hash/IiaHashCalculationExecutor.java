@@ -0,0 +1,181 @@
+package pt.ulisboa.ewp.node.service.ewp.iia.hash;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.ulisboa.ewp.node.config.iia.IiaHashProperties;
+import pt.ulisboa.ewp.node.exception.ewp.hash.HashCalculationException;
+
+/**
+ * Runs IIA hash calculations, spreading large batches of IIAs across a bounded pool of threads,
+ * and reports the number of IIAs hashed and the time taken to hash them.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class IiaHashCalculationExecutor implements DisposableBean, MeterBinder {
+
+  private final IiaHashProperties properties;
+  private final ExecutorService executorService;
+  private final Map<String, VersionMeters> versionToMetersMap = new ConcurrentHashMap<>();
+  private volatile MeterRegistry meterRegistry;
+
+  public IiaHashCalculationExecutor(IiaHashProperties properties) {
+    this.properties = properties;
+    this.executorService = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()),
+        createThreadFactory());
+  }
+
+  /**
+   * Calculates the hashes of the given IIAs, returning them in the same order as the IIAs. When
+   * there are enough IIAs, these are split into batches that are hashed concurrently.
+   *
+   * @param version Version of the IIAs hash calculation (used to tag the metrics)
+   * @param iias The IIAs to hash
+   * @param calculator Calculates the hashes of a batch of IIAs, in order
+   */
+  public <T> List<HashCalculationResult> calculate(String version, List<T> iias,
+      BatchHashCalculator<T> calculator) throws HashCalculationException {
+    List<List<T>> batches = partition(iias);
+    if (batches.size() <= 1) {
+      return time(version, () -> calculator.calculate(iias));
+    }
+
+    return time(version, () -> {
+      List<Future<List<HashCalculationResult>>> futures = new ArrayList<>(batches.size());
+      for (List<T> batch : batches) {
+        futures.add(executorService.submit(() -> calculator.calculate(batch)));
+      }
+      return collect(futures);
+    });
+  }
+
+  /**
+   * Runs a calculation of IIA hashes on the calling thread, recording its metrics.
+   *
+   * @param version Version of the IIAs hash calculation (used to tag the metrics)
+   * @param calculation The calculation to run
+   */
+  public List<HashCalculationResult> time(String version, HashCalculation calculation)
+      throws HashCalculationException {
+    long startTime = System.nanoTime();
+    List<HashCalculationResult> result = calculation.calculate();
+    VersionMeters meters = getMeters(version);
+    if (meters != null) {
+      meters.timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+      meters.numberIiasCounter.increment(result.size());
+    }
+    return result;
+  }
+
+  <T> List<List<T>> partition(List<T> iias) {
+    int minBatchSize = Math.max(1, properties.getMinBatchSizePerTask());
+    int numberBatches = Math.min(Math.max(1, properties.getParallelism()),
+        Math.max(1, iias.size() / minBatchSize));
+    if (numberBatches <= 1) {
+      return List.of(iias);
+    }
+
+    int batchSize = (iias.size() + numberBatches - 1) / numberBatches;
+    List<List<T>> result = new ArrayList<>(numberBatches);
+    for (int index = 0; index < iias.size(); index += batchSize) {
+      result.add(iias.subList(index, Math.min(iias.size(), index + batchSize)));
+    }
+    return result;
+  }
+
+  private List<HashCalculationResult> collect(
+      List<Future<List<HashCalculationResult>>> futures) throws HashCalculationException {
+    List<HashCalculationResult> result = new ArrayList<>();
+    try {
+      for (Future<List<HashCalculationResult>> future : futures) {
+        result.addAll(future.get());
+      }
+      return result;
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      futures.forEach(f -> f.cancel(true));
+      throw new HashCalculationException(e);
+
+    } catch (ExecutionException e) {
+      futures.forEach(f -> f.cancel(true));
+      if (e.getCause() instanceof HashCalculationException) {
+        throw (HashCalculationException) e.getCause();
+      }
+      throw new HashCalculationException(e.getCause());
+    }
+  }
+
+  private VersionMeters getMeters(String version) {
+    MeterRegistry registry = this.meterRegistry;
+    if (registry == null) {
+      return null;
+    }
+    return versionToMetersMap.computeIfAbsent(version, v -> new VersionMeters(registry, v));
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    this.meterRegistry = registry;
+  }
+
+  @Override
+  public void destroy() {
+    executorService.shutdownNow();
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    AtomicInteger threadCounter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "ewp-iia-hash-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /** Calculates the hashes of a batch of IIAs, returning them in the same order as the IIAs. */
+  @FunctionalInterface
+  public interface BatchHashCalculator<T> {
+
+    List<HashCalculationResult> calculate(List<T> iias) throws HashCalculationException;
+  }
+
+  @FunctionalInterface
+  public interface HashCalculation {
+
+    List<HashCalculationResult> calculate() throws HashCalculationException;
+  }
+
+  private static class VersionMeters {
+
+    private final Timer timer;
+    private final Counter numberIiasCounter;
+
+    VersionMeters(MeterRegistry registry, String version) {
+      this.timer = Timer.builder("ewp.iia.hash.calculation")
+          .description("Time taken to calculate the hashes of a request's IIAs")
+          .tag("version", version)
+          .register(registry);
+      this.numberIiasCounter = Counter.builder("ewp.iia.hash.iias")
+          .description("Number of IIAs hashed")
+          .tag("version", version)
+          .register(registry);
+    }
+  }
+}
@@ -6,8 +6,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -34,22 +36,39 @@ import pt.ulisboa.ewp.node.exception.ewp.hash.HashCalculationException;
 import pt.ulisboa.ewp.node.exception.ewp.hash.HashComparisonException;
 import pt.ulisboa.ewp.node.service.ewp.iia.hash.HashCalculationResult;
 import pt.ulisboa.ewp.node.service.ewp.iia.hash.HashComparisonResult;
+import pt.ulisboa.ewp.node.service.ewp.iia.hash.IiaHashCalculationExecutor;
 import pt.ulisboa.ewp.node.utils.EwpApiNamespaces;
 import pt.ulisboa.ewp.node.utils.http.converter.xml.Jaxb2HttpMessageConverter;
 
 @Service
 public class IiaHashServiceV6 {
 
+  private static final String METRICS_VERSION = "v6";
+
   private final Jaxb2HttpMessageConverter jaxb2HttpMessageConverter;
+  private final IiaHashCalculationExecutor hashCalculationExecutor;
   private final XPathFactory xpathFactory;
+  private final DocumentBuilderFactory documentBuilderFactory;
+
+  // NOTE: XPath expressions are not thread-safe, so they are compiled once per thread (and IIAs
+  // namespace)
+  private final ThreadLocal<Map<String, IiaXPathExpressions>> namespaceToXPathExpressionsMap =
+      ThreadLocal.withInitial(HashMap::new);
 
-  IiaHashServiceV6(Jaxb2HttpMessageConverter jaxb2HttpMessageConverter) {
+  IiaHashServiceV6(Jaxb2HttpMessageConverter jaxb2HttpMessageConverter,
+      IiaHashCalculationExecutor hashCalculationExecutor) {
     this.jaxb2HttpMessageConverter = jaxb2HttpMessageConverter;
+    this.hashCalculationExecutor = hashCalculationExecutor;
     this.xpathFactory = XPathFactory.newInstance();
+    this.documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    this.documentBuilderFactory.setNamespaceAware(true);
+
+    Init.init();
   }
 
   /**
    * Calculates the cooperation conditions hash for each interinstitutional agreement V6 provided.
+   * Large lists of agreements are split into batches that are hashed concurrently.
    *
    * @param iias The interinstitutional agreements to process
    * @return A list of hashes for all agreements provided.
@@ -57,19 +76,8 @@ public class IiaHashServiceV6 {
    */
   public List<HashCalculationResult> calculateCooperationConditionsHashes(
       List<IiasGetResponseV6.Iia> iias) throws HashCalculationException {
-    try {
-      IiasGetResponseV6 iiasGetResponse = new IiasGetResponseV6();
-      iiasGetResponse.getIia().addAll(iias);
-
-      ByteArrayOutputStream iiasGetResponseOutputStream = new ByteArrayOutputStream();
-      StreamResult iiasGetResponseStreamResult = new StreamResult(iiasGetResponseOutputStream);
-      this.jaxb2HttpMessageConverter.marshal(iiasGetResponse, iiasGetResponseStreamResult);
-
-      return calculateCooperationConditionsHashes(iiasGetResponseOutputStream.toByteArray());
-
-    } catch (HashCalculationException e) {
-      throw new HashCalculationException(e);
-    }
+    return hashCalculationExecutor.calculate(METRICS_VERSION, iias,
+        this::calculateBatchCooperationConditionsHashes);
   }
 
   /**
@@ -83,29 +91,45 @@ public class IiaHashServiceV6 {
   public List<HashCalculationResult> calculateCooperationConditionsHashes(byte[] xml)
       throws HashCalculationException {
     try {
-      return calculateCooperationConditionsHashes(
-          EwpApiNamespaces.IIAS_V6_GET_RESPONSE.getNamespaceUrl(), xml);
+      return hashCalculationExecutor.time(METRICS_VERSION,
+          () -> calculateCooperationConditionsHashes(
+              EwpApiNamespaces.IIAS_V6_GET_RESPONSE.getNamespaceUrl(), xml));
 
     } catch (HashCalculationException e) {
       throw new HashCalculationException(e);
     }
   }
 
+  private List<HashCalculationResult> calculateBatchCooperationConditionsHashes(
+      List<IiasGetResponseV6.Iia> iias) throws HashCalculationException {
+    IiasGetResponseV6 iiasGetResponse = new IiasGetResponseV6();
+    iiasGetResponse.getIia().addAll(iias);
+
+    ByteArrayOutputStream iiasGetResponseOutputStream = new ByteArrayOutputStream();
+    StreamResult iiasGetResponseStreamResult = new StreamResult(iiasGetResponseOutputStream);
+    this.jaxb2HttpMessageConverter.marshal(iiasGetResponse, iiasGetResponseStreamResult);
+
+    return calculateCooperationConditionsHashes(
+        EwpApiNamespaces.IIAS_V6_GET_RESPONSE.getNamespaceUrl(),
+        iiasGetResponseOutputStream.toByteArray());
+  }
+
   private List<HashCalculationResult> calculateCooperationConditionsHashes(String iiasNamespaceUrl,
       byte[] iiasGetResponseBytes)
       throws HashCalculationException {
     try {
-      XPath xPath = createXPath(iiasNamespaceUrl);
-      XPathExpression xpathIiasExpr = xPath.compile("/iia:iias-get-response/iia:iia");
+      IiaXPathExpressions xPathExpressions = getXPathExpressions(iiasNamespaceUrl);
 
       InputSource iiaXmlInputSource = new InputSource(
           new ByteArrayInputStream(iiasGetResponseBytes));
       Document document = getDocument(iiaXmlInputSource);
 
-      NodeList iiasNodes = (NodeList) xpathIiasExpr.evaluate(document, XPathConstants.NODESET);
+      NodeList iiasNodes = (NodeList) xPathExpressions.iias.evaluate(document,
+          XPathConstants.NODESET);
       List<HashCalculationResult> hashCalculationResults = new ArrayList<>(iiasNodes.getLength());
       for (int i = 0; i < iiasNodes.getLength(); i++) {
-        hashCalculationResults.add(calculateHash(iiasNodes.item(i), iiasNamespaceUrl, xPath));
+        hashCalculationResults.add(
+            calculateHash(iiasNodes.item(i), iiasNamespaceUrl, xPathExpressions));
       }
       return hashCalculationResults;
 
@@ -126,15 +150,15 @@ public class IiaHashServiceV6 {
       String iiasNamespaceUrl) throws HashComparisonException {
 
     try {
-      XPath xPath = createXPath(iiasNamespaceUrl);
-      XPathExpression xpathIiasExpr = xPath.compile("/iia:iias-get-response/iia:iia");
+      IiaXPathExpressions xPathExpressions = getXPathExpressions(iiasNamespaceUrl);
 
       Document document = getDocument(iiaXmlInputSource);
 
-      NodeList iias = (NodeList) xpathIiasExpr.evaluate(document, XPathConstants.NODESET);
+      NodeList iias = (NodeList) xPathExpressions.iias.evaluate(document, XPathConstants.NODESET);
       List<HashComparisonResult> hashComparisonResults = new ArrayList<>(iias.getLength());
       for (int i = 0; i < iias.getLength(); i++) {
-        hashComparisonResults.add(getHashComparisonResult(iias.item(i), iiasNamespaceUrl, xPath));
+        hashComparisonResults.add(
+            getHashComparisonResult(iias.item(i), iiasNamespaceUrl, xPathExpressions));
       }
       return hashComparisonResults;
 
@@ -145,24 +169,21 @@ public class IiaHashServiceV6 {
   }
 
   private HashComparisonResult getHashComparisonResult(Node iiaNode, String iiasNamespaceUrl,
-      XPath xPath)
+      IiaXPathExpressions xPathExpressions)
       throws XPathExpressionException, ElementHashException {
 
-    XPathExpression xpathCooperationConditionsHashExpr = xPath.compile(
-        "iia:conditions-hash/text()");
-
-    String hashExtracted = xpathCooperationConditionsHashExpr.evaluate(iiaNode);
-    HashCalculationResult hashCalculationResult = calculateHash(iiaNode, iiasNamespaceUrl, xPath);
+    String hashExtracted = xPathExpressions.cooperationConditionsHash.evaluate(iiaNode);
+    HashCalculationResult hashCalculationResult = calculateHash(iiaNode, iiasNamespaceUrl,
+        xPathExpressions);
 
     return new HashComparisonResult(hashExtracted, hashCalculationResult.getHash(),
         hashCalculationResult.getHashedString());
   }
 
-  private HashCalculationResult calculateHash(Node iiaNode, String iiasNamespaceUrl, XPath xPath)
+  private HashCalculationResult calculateHash(Node iiaNode, String iiasNamespaceUrl,
+      IiaXPathExpressions xPathExpressions)
       throws XPathExpressionException, ElementHashException {
-    XPathExpression xpathCooperationConditionsExpr = xPath.compile("iia:cooperation-conditions");
-
-    Node cooperationConditions = (Node) xpathCooperationConditionsExpr.evaluate(iiaNode,
+    Node cooperationConditions = (Node) xPathExpressions.cooperationConditions.evaluate(iiaNode,
         XPathConstants.NODE);
     removeContacts(cooperationConditions, iiasNamespaceUrl);
     byte[] dataToHash = getDataToHash(cooperationConditions);
@@ -200,15 +221,15 @@ public class IiaHashServiceV6 {
 
   private Document getDocument(InputSource iiaXmlInputSource)
       throws ParserConfigurationException, IOException, SAXException {
-    DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-    documentBuilderFactory.setNamespaceAware(true);
-    DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+    DocumentBuilder documentBuilder;
+    synchronized (documentBuilderFactory) {
+      documentBuilder = documentBuilderFactory.newDocumentBuilder();
+    }
     return documentBuilder.parse(iiaXmlInputSource);
   }
 
   private static byte[] getDataToHash(Node element) throws ElementHashException {
     try {
-      Init.init();
       Canonicalizer canonicalizer = Canonicalizer.getInstance(
           Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
       ByteArrayOutputStream canonicalWriter = new ByteArrayOutputStream();
@@ -220,12 +241,39 @@ public class IiaHashServiceV6 {
     }
   }
 
+  private IiaXPathExpressions getXPathExpressions(String iiasNamespaceUrl)
+      throws XPathExpressionException {
+    Map<String, IiaXPathExpressions> map = namespaceToXPathExpressionsMap.get();
+    IiaXPathExpressions result = map.get(iiasNamespaceUrl);
+    if (result == null) {
+      result = new IiaXPathExpressions(createXPath(iiasNamespaceUrl));
+      map.put(iiasNamespaceUrl, result);
+    }
+    return result;
+  }
+
   private XPath createXPath(String iiasNamespaceUrl) {
-    XPath xpath = xpathFactory.newXPath();
+    XPath xpath;
+    synchronized (xpathFactory) {
+      xpath = xpathFactory.newXPath();
+    }
     xpath.setNamespaceContext(new IiaNamespaceContext(iiasNamespaceUrl));
     return xpath;
   }
 
+  private static class IiaXPathExpressions {
+
+    private final XPathExpression iias;
+    private final XPathExpression cooperationConditions;
+    private final XPathExpression cooperationConditionsHash;
+
+    IiaXPathExpressions(XPath xPath) throws XPathExpressionException {
+      this.iias = xPath.compile("/iia:iias-get-response/iia:iia");
+      this.cooperationConditions = xPath.compile("iia:cooperation-conditions");
+      this.cooperationConditionsHash = xPath.compile("iia:conditions-hash/text()");
+    }
+  }
+
   static class IiaNamespaceContext implements NamespaceContext {
 
     private final String iiasNamespaceUrl;
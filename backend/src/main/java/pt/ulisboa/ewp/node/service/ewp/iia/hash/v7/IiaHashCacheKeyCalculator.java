@@ -0,0 +1,200 @@
+package pt.ulisboa.ewp.node.service.ewp.iia.hash.v7;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Calculates, in a single streaming pass over a IIAs get response, the cache key of the hash of
+ * each IIA. A key is a digest of a canonical form of the IIA (element names, sorted attributes and
+ * text content, ignoring namespace prefixes, comments and indentation), combined with everything
+ * else the XSLT of the source version takes into account (namely, whether any cooperation
+ * conditions of the response are terminated as a whole).
+ */
+class IiaHashCacheKeyCalculator {
+
+  private static final String IIA_ELEMENT_NAME = "iia";
+  private static final String COOPERATION_CONDITIONS_ELEMENT_NAME = "cooperation-conditions";
+  private static final String TERMINATED_AS_A_WHOLE_ATTRIBUTE_NAME = "terminated-as-a-whole";
+
+  private static final byte START_ELEMENT_TOKEN = 'S';
+  private static final byte ATTRIBUTE_TOKEN = 'A';
+  private static final byte TEXT_TOKEN = 'T';
+  private static final byte END_ELEMENT_TOKEN = 'E';
+
+  private static final Comparator<QName> ATTRIBUTE_NAME_COMPARATOR =
+      Comparator.comparing(QName::getNamespaceURI).thenComparing(QName::getLocalPart);
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+  private IiaHashCacheKeyCalculator() {
+  }
+
+  /**
+   * Returns the cache keys of the IIAs of a given IIAs get response, in document order, or null if
+   * the response cannot be split into IIAs (in which case its hashes must not be cached).
+   */
+  static List<String> calculateKeys(byte[] iiasGetResponseBytes, int sourceApiMajorVersion)
+      throws XMLStreamException {
+    XMLStreamReader reader =
+        XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(iiasGetResponseBytes));
+    try {
+      List<byte[]> iiaDigests = new ArrayList<>();
+      boolean anyTerminatedAsAWhole = false;
+
+      MessageDigest iiaDigest = null;
+      int iiaDepth = 0;
+      StringBuilder pendingText = new StringBuilder();
+      boolean lastEventWasStartElement = false;
+
+      while (reader.hasNext()) {
+        int event = reader.next();
+        switch (event) {
+          case XMLStreamConstants.START_ELEMENT:
+            if (COOPERATION_CONDITIONS_ELEMENT_NAME.equals(reader.getLocalName())
+                && isTerminatedAsAWhole(reader)) {
+              anyTerminatedAsAWhole = true;
+            }
+
+            if (iiaDigest != null) {
+              if (IIA_ELEMENT_NAME.equals(reader.getLocalName())) {
+                // NOTE: Nested IIAs would be hashed separately by the XSLT
+                return null;
+              }
+              flushText(iiaDigest, pendingText, false);
+              updateWithStartElement(iiaDigest, reader);
+              iiaDepth++;
+            } else if (IIA_ELEMENT_NAME.equals(reader.getLocalName())) {
+              iiaDigest = DigestUtils.getSha256Digest();
+              pendingText.setLength(0);
+              updateWithStartElement(iiaDigest, reader);
+              iiaDepth = 1;
+            }
+            lastEventWasStartElement = true;
+            break;
+
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            if (iiaDigest != null) {
+              pendingText.append(reader.getTextCharacters(), reader.getTextStart(),
+                  reader.getTextLength());
+            }
+            break;
+
+          case XMLStreamConstants.END_ELEMENT:
+            if (iiaDigest != null) {
+              flushText(iiaDigest, pendingText, lastEventWasStartElement);
+              iiaDigest.update(END_ELEMENT_TOKEN);
+              iiaDepth--;
+              if (iiaDepth == 0) {
+                iiaDigests.add(iiaDigest.digest());
+                iiaDigest = null;
+              }
+            }
+            lastEventWasStartElement = false;
+            break;
+
+          default:
+            break;
+        }
+      }
+
+      String keyPrefix = "7:" + sourceApiMajorVersion + ":" + (anyTerminatedAsAWhole ? "1" : "0")
+          + ":";
+      List<String> result = new ArrayList<>(iiaDigests.size());
+      for (byte[] digest : iiaDigests) {
+        result.add(keyPrefix + Hex.encodeHexString(digest));
+      }
+      return result;
+
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static boolean isTerminatedAsAWhole(XMLStreamReader reader) {
+    for (int index = 0; index < reader.getAttributeCount(); index++) {
+      if (TERMINATED_AS_A_WHOLE_ATTRIBUTE_NAME.equals(reader.getAttributeLocalName(index))) {
+        String value = reader.getAttributeValue(index);
+        if ("true".equals(value) || "1".equals(value)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static void updateWithStartElement(MessageDigest digest, XMLStreamReader reader) {
+    digest.update(START_ELEMENT_TOKEN);
+    update(digest, reader.getNamespaceURI());
+    update(digest, reader.getLocalName());
+
+    List<Integer> attributeIndexes = new ArrayList<>(reader.getAttributeCount());
+    for (int index = 0; index < reader.getAttributeCount(); index++) {
+      attributeIndexes.add(index);
+    }
+    attributeIndexes.sort(
+        (i1, i2) -> ATTRIBUTE_NAME_COMPARATOR.compare(
+            reader.getAttributeName(i1), reader.getAttributeName(i2)));
+    for (int index : attributeIndexes) {
+      QName attributeName = reader.getAttributeName(index);
+      digest.update(ATTRIBUTE_TOKEN);
+      update(digest, attributeName.getNamespaceURI());
+      update(digest, attributeName.getLocalPart());
+      update(digest, reader.getAttributeValue(index));
+    }
+  }
+
+  /**
+   * Adds the text read since the last element boundary to the digest. Whitespace-only text is only
+   * considered when it is the whole content of an element, as otherwise it is indentation, which
+   * the XSLT ignores.
+   */
+  private static void flushText(MessageDigest digest, StringBuilder pendingText,
+      boolean wholeElementContent) {
+    if (pendingText.length() == 0) {
+      return;
+    }
+    if (wholeElementContent || !isWhitespace(pendingText)) {
+      digest.update(TEXT_TOKEN);
+      update(digest, pendingText.toString());
+    }
+    pendingText.setLength(0);
+  }
+
+  private static boolean isWhitespace(CharSequence text) {
+    for (int index = 0; index < text.length(); index++) {
+      if (!Character.isWhitespace(text.charAt(index))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+    digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+    digest.update(bytes);
+  }
+
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory result = XMLInputFactory.newFactory();
+    result.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    result.setProperty(XMLInputFactory.IS_COALESCING, true);
+    result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return result;
+  }
+}
@@ -3,39 +3,36 @@ package pt.ulisboa.ewp.node.service.ewp.iia.hash.v7;
 import eu.erasmuswithoutpaper.api.iias.v7.endpoints.IiasGetResponseV7;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.net.URL;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import javax.xml.namespace.NamespaceContext;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-import org.apache.commons.codec.digest.DigestUtils;
+import net.sf.saxon.TransformerFactoryImpl;
 import org.springframework.stereotype.Service;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 import pt.ulisboa.ewp.node.exception.ewp.hash.HashCalculationException;
 import pt.ulisboa.ewp.node.exception.ewp.hash.HashComparisonException;
 import pt.ulisboa.ewp.node.service.ewp.iia.hash.HashCalculationResult;
 import pt.ulisboa.ewp.node.service.ewp.iia.hash.HashComparisonResult;
+import pt.ulisboa.ewp.node.service.ewp.iia.hash.IiaHashCache;
+import pt.ulisboa.ewp.node.service.ewp.iia.hash.IiaHashCalculationExecutor;
 import pt.ulisboa.ewp.node.utils.EwpApiNamespaces;
 import pt.ulisboa.ewp.node.utils.http.converter.xml.Jaxb2HttpMessageConverter;
-import pt.ulisboa.ewp.node.utils.xml.XmlUtils;
 
 /** Class that allows to calculate and validate IIA Hashes V7. */
 @Service
@@ -44,19 +41,37 @@ public class IiaHashServiceV7 {
   private static final String XSLT_TRANSFORM_VERSION_6_PATH = "iias/v7/transform_version_6.xsl";
   private static final String XSLT_TRANSFORM_VERSION_7_PATH = "iias/v7/transform_version_7.xsl";
 
+  private static final String METRICS_VERSION = "v7";
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
   private final Jaxb2HttpMessageConverter jaxb2HttpMessageConverter;
-  private final XPathFactory xpathFactory;
+  private final IiaHashCalculationExecutor hashCalculationExecutor;
+  private final IiaHashCache hashCache;
+  private final Templates transformVersion6Templates;
+  private final Templates transformVersion7Templates;
 
-  IiaHashServiceV7(Jaxb2HttpMessageConverter jaxb2HttpMessageConverter) {
+  IiaHashServiceV7(Jaxb2HttpMessageConverter jaxb2HttpMessageConverter,
+      IiaHashCalculationExecutor hashCalculationExecutor, IiaHashCache hashCache) {
     this.jaxb2HttpMessageConverter = jaxb2HttpMessageConverter;
-    this.xpathFactory = XPathFactory.newInstance();
+    this.hashCalculationExecutor = hashCalculationExecutor;
+    this.hashCache = hashCache;
 
     System.setProperty(
         "javax.xml.transform.TransformerFactory", "net.sf.saxon.TransformerFactoryImpl");
+
+    // NOTE: Templates are thread-safe, so each XSLT is compiled only once
+    TransformerFactory transformerFactory = new TransformerFactoryImpl();
+    this.transformVersion6Templates = compileXslt(transformerFactory,
+        XSLT_TRANSFORM_VERSION_6_PATH);
+    this.transformVersion7Templates = compileXslt(transformerFactory,
+        XSLT_TRANSFORM_VERSION_7_PATH);
   }
 
   /**
-   * Calculates the cooperation conditions hash for each interinstitutional agreement V7 provided.
+   * Calculates the cooperation conditions hash for each interinstitutional agreement V7 provided,
+   * as if all agreements were part of the same IIAs get response. Large lists of agreements are
+   * split into batches that are hashed concurrently, whenever that does not change the hashes.
    *
    * @param iias The interinstitutional agreements to process
    * @return A list of hashes for all agreements provided.
@@ -64,19 +79,42 @@ public class IiaHashServiceV7 {
    */
   public List<HashCalculationResult> calculateIiaHashes(List<IiasGetResponseV7.Iia> iias)
       throws HashCalculationException {
-    try {
-      IiasGetResponseV7 iiasGetResponse = new IiasGetResponseV7();
-      iiasGetResponse.getIia().addAll(iias);
-
-      ByteArrayOutputStream iiasGetResponseOutputStream = new ByteArrayOutputStream();
-      StreamResult iiasGetResponseStreamResult = new StreamResult(iiasGetResponseOutputStream);
-      this.jaxb2HttpMessageConverter.marshal(iiasGetResponse, iiasGetResponseStreamResult);
+    // NOTE: The XSLT marks every text to hash as terminated if any agreement of the IIAs get
+    // response is terminated as a whole, so agreements can only be split into batches when all of
+    // them agree on that
+    if (iias.stream().map(IiaHashServiceV7::isTerminatedAsAWhole).distinct().count() > 1) {
+      return hashCalculationExecutor.time(METRICS_VERSION, () -> calculateBatchIiaHashes(iias));
+    }
+    return hashCalculationExecutor.calculate(METRICS_VERSION, iias, this::calculateBatchIiaHashes);
+  }
 
-      return calculateIiaHashes(iiasGetResponseOutputStream.toByteArray(), 7);
+  /**
+   * Calculates the cooperation conditions hash for each interinstitutional agreement V7 provided,
+   * as if each agreement was the only one of a IIAs get response.
+   *
+   * @param iias The interinstitutional agreements to process
+   * @return A list of hashes for all agreements provided.
+   * @throws HashCalculationException when hash failed to be calculated for some reason.
+   */
+  public List<HashCalculationResult> calculateIiaHashesSeparately(
+      List<IiasGetResponseV7.Iia> iias) throws HashCalculationException {
+    // NOTE: Agreements that agree on being terminated as a whole have the same hashes whether
+    // hashed together or separately
+    Map<Boolean, List<Integer>> terminatedToIndexesMap = new HashMap<>();
+    for (int index = 0; index < iias.size(); index++) {
+      terminatedToIndexesMap.computeIfAbsent(isTerminatedAsAWhole(iias.get(index)),
+          t -> new ArrayList<>()).add(index);
+    }
 
-    } catch (HashCalculationException e) {
-      throw new HashCalculationException(e);
+    HashCalculationResult[] result = new HashCalculationResult[iias.size()];
+    for (List<Integer> indexes : terminatedToIndexesMap.values()) {
+      List<HashCalculationResult> hashCalculationResults = calculateIiaHashes(
+          indexes.stream().map(iias::get).collect(Collectors.toList()));
+      for (int index = 0; index < indexes.size(); index++) {
+        result[indexes.get(index)] = hashCalculationResults.get(index);
+      }
     }
+    return Arrays.asList(result);
   }
 
   /**
@@ -89,40 +127,8 @@ public class IiaHashServiceV7 {
    */
   public List<HashCalculationResult> calculateIiaHashes(
       byte[] iiasGetResponseBytes, int sourceApiMajorVersion) throws HashCalculationException {
-    try {
-      byte[] xslt = getXsltForSourceMajorVersion(sourceApiMajorVersion);
-
-      byte[] xmlTransformed = getXmlTransformed(iiasGetResponseBytes, xslt);
-      if (XmlUtils.isEmptyXml(xmlTransformed)) {
-        return List.of();
-      }
-
-      XPath xPath = xpathFactory.newXPath();
-      XPathExpression xPathExpression = xPath.compile("/iia/text-to-hash");
-      DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-      documentBuilderFactory.setNamespaceAware(true);
-      DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-      Document document =
-          documentBuilder.parse(new InputSource(new ByteArrayInputStream(xmlTransformed)));
-      NodeList textToHashNodeList =
-          (NodeList) xPathExpression.evaluate(document, XPathConstants.NODESET);
-      if (textToHashNodeList == null) {
-        throw new IllegalStateException("Failed to extract IIA hash from calculation");
-      }
-
-      List<HashCalculationResult> hashCalculationResults =
-          new ArrayList<>(textToHashNodeList.getLength());
-      for (int i = 0; i < textToHashNodeList.getLength(); i++) {
-        Node textToHashNode = textToHashNodeList.item(i);
-        String textToHash = textToHashNode.getTextContent();
-        String hash = DigestUtils.sha256Hex(textToHash);
-        hashCalculationResults.add(new HashCalculationResult(hash, textToHash));
-      }
-      return hashCalculationResults;
-
-    } catch (Exception e) {
-      throw new HashCalculationException(e);
-    }
+    return hashCalculationExecutor.time(METRICS_VERSION,
+        () -> transformAndHash(iiasGetResponseBytes, sourceApiMajorVersion));
   }
 
   /**
@@ -139,27 +145,19 @@ public class IiaHashServiceV7 {
       List<HashCalculationResult> hashCalculationResults =
           calculateIiaHashes(iiasGetResponseBytes, 7);
 
-      XPath xPath = createXPath(EwpApiNamespaces.IIAS_V7_GET_RESPONSE.getNamespaceUrl());
-      XPathExpression xpathIiaHashesExpr =
-          xPath.compile("/iia:iias-get-response/iia:iia/iia:iia-hash");
-
-      Document document = getDocument(iiasGetResponseBytes);
-
-      NodeList iiaHashesNodeList =
-          (NodeList) xpathIiaHashesExpr.evaluate(document, XPathConstants.NODESET);
-      if (hashCalculationResults.size() != iiaHashesNodeList.getLength()) {
+      List<String> iiaHashes = extractIiaHashes(iiasGetResponseBytes);
+      if (hashCalculationResults.size() != iiaHashes.size()) {
         throw new IllegalStateException(
             "Expected to have "
-                + iiaHashesNodeList.getLength()
+                + iiaHashes.size()
                 + " hashes to check, but got for comparison "
                 + hashCalculationResults.size()
                 + " actual hashes");
       }
 
-      List<HashComparisonResult> hashComparisonResults =
-          new ArrayList<>(iiaHashesNodeList.getLength());
-      for (int i = 0; i < iiaHashesNodeList.getLength(); i++) {
-        String hashExtracted = iiaHashesNodeList.item(i).getTextContent();
+      List<HashComparisonResult> hashComparisonResults = new ArrayList<>(iiaHashes.size());
+      for (int i = 0; i < iiaHashes.size(); i++) {
+        String hashExtracted = iiaHashes.get(i);
         HashCalculationResult hashCalculationResult = hashCalculationResults.get(i);
         HashComparisonResult hashComparisonResult =
             new HashComparisonResult(
@@ -170,100 +168,169 @@ public class IiaHashServiceV7 {
       }
       return hashComparisonResults;
 
-    } catch (IOException
-        | XPathExpressionException
-        | ParserConfigurationException
-        | SAXException
-        | HashCalculationException e) {
+    } catch (XMLStreamException | HashCalculationException e) {
       throw new HashComparisonException(e);
     }
   }
 
-  private Document getDocument(byte[] iiasGetResponseBytes)
-      throws ParserConfigurationException, IOException, SAXException {
-    DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-    documentBuilderFactory.setNamespaceAware(true);
-    DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-    return documentBuilder.parse(new InputSource(new ByteArrayInputStream(iiasGetResponseBytes)));
-  }
+  private List<HashCalculationResult> calculateBatchIiaHashes(List<IiasGetResponseV7.Iia> iias)
+      throws HashCalculationException {
+    IiasGetResponseV7 iiasGetResponse = new IiasGetResponseV7();
+    iiasGetResponse.getIia().addAll(iias);
 
-  private XPath createXPath(String iiasNamespaceUrl) {
-    XPath xpath = xpathFactory.newXPath();
-    xpath.setNamespaceContext(new IiaNamespaceContext(iiasNamespaceUrl));
-    return xpath;
+    ByteArrayOutputStream iiasGetResponseOutputStream = new ByteArrayOutputStream();
+    StreamResult iiasGetResponseStreamResult = new StreamResult(iiasGetResponseOutputStream);
+    this.jaxb2HttpMessageConverter.marshal(iiasGetResponse, iiasGetResponseStreamResult);
+
+    return transformAndHash(iiasGetResponseOutputStream.toByteArray(), 7);
   }
 
   /**
-   * Transform an xml file by means of an xslt file
-   *
-   * @param xmlBytes The content of the xml file
-   * @param xsltBytes The content of the xslt file
-   * @return An xml useful to compute the hash code
-   * @throws Exception
+   * Returns the hashes of the IIAs of a IIAs get response. If the hashes of all its IIAs are cached
+   * then no transformation takes place. Otherwise, the IIAs get response is transformed with the
+   * XSLT for its version, and the resulting hashes are cached.
    */
-  public byte[] getXmlTransformed(byte[] xmlBytes, byte[] xsltBytes) throws Exception {
-    DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-    dbf.setNamespaceAware(true);
-
-    DocumentBuilder db = dbf.newDocumentBuilder();
-    Document document = db.parse(new ByteArrayInputStream(xmlBytes));
-
-    TransformerFactory transformerFactory = TransformerFactory.newInstance();
-    Transformer transformer =
-        transformerFactory.newTransformer(new StreamSource(new ByteArrayInputStream(xsltBytes)));
-    ByteArrayOutputStream output = new ByteArrayOutputStream();
-
-    transformer.transform(new DOMSource(document), new StreamResult(output));
-
-    return output.toByteArray();
-  }
+  private List<HashCalculationResult> transformAndHash(byte[] iiasGetResponseBytes,
+      int sourceApiMajorVersion) throws HashCalculationException {
+    if (!hashCache.isEnabled()) {
+      return transform(iiasGetResponseBytes, sourceApiMajorVersion);
+    }
 
-  private byte[] getXsltForSourceMajorVersion(int sourceMajorVersion) throws IOException {
-    InputStream xsltInputStream;
-    if (sourceMajorVersion == 6) {
-      xsltInputStream =
-          getClass().getClassLoader().getResourceAsStream(XSLT_TRANSFORM_VERSION_6_PATH);
-    } else if (sourceMajorVersion == 7) {
-      xsltInputStream =
-          getClass().getClassLoader().getResourceAsStream(XSLT_TRANSFORM_VERSION_7_PATH);
-    } else {
-      throw new IllegalArgumentException("Unsupported source major version: " + sourceMajorVersion);
+    List<String> cacheKeys = calculateCacheKeys(iiasGetResponseBytes, sourceApiMajorVersion);
+    if (cacheKeys == null) {
+      return transform(iiasGetResponseBytes, sourceApiMajorVersion);
     }
 
-    if (xsltInputStream == null) {
-      throw new IllegalStateException(
-          "XSLT transformation file was not found for major version: " + sourceMajorVersion);
+    Map<String, HashCalculationResult> cachedHashCalculationResults =
+        hashCache.getAll(cacheKeys);
+    if (cacheKeys.stream().allMatch(cachedHashCalculationResults::containsKey)) {
+      return cacheKeys.stream().map(cachedHashCalculationResults::get)
+          .collect(Collectors.toList());
     }
 
-    byte[] result = xsltInputStream.readAllBytes();
-    xsltInputStream.close();
+    List<HashCalculationResult> result = transform(iiasGetResponseBytes, sourceApiMajorVersion);
+    if (result.size() == cacheKeys.size()) {
+      Map<String, HashCalculationResult> keyToHashCalculationResultMap = new HashMap<>();
+      for (int index = 0; index < cacheKeys.size(); index++) {
+        keyToHashCalculationResultMap.put(cacheKeys.get(index), result.get(index));
+      }
+      hashCache.putAll(keyToHashCalculationResultMap);
+    }
     return result;
   }
 
-  static class IiaNamespaceContext implements NamespaceContext {
+  private List<String> calculateCacheKeys(byte[] iiasGetResponseBytes,
+      int sourceApiMajorVersion) throws HashCalculationException {
+    try {
+      // NOTE: Validates the source version before any cache lookup
+      getTemplatesForSourceMajorVersion(sourceApiMajorVersion);
+      return IiaHashCacheKeyCalculator.calculateKeys(iiasGetResponseBytes, sourceApiMajorVersion);
+
+    } catch (IllegalArgumentException e) {
+      throw new HashCalculationException(e);
 
-    private final String iiasNamespaceUrl;
+    } catch (XMLStreamException e) {
+      // NOTE: The transformation reports why the XML cannot be processed
+      return null;
+    }
+  }
 
-    IiaNamespaceContext(String iiasNamespaceUrl) {
-      this.iiasNamespaceUrl = iiasNamespaceUrl;
+  /**
+   * Transforms a IIAs get response with the compiled XSLT for its version, hashing the text to hash
+   * of each IIA as the transformation output is produced.
+   */
+  private List<HashCalculationResult> transform(byte[] iiasGetResponseBytes,
+      int sourceApiMajorVersion) throws HashCalculationException {
+    try {
+      Templates templates = getTemplatesForSourceMajorVersion(sourceApiMajorVersion);
+      TextToHashCollector textToHashCollector = new TextToHashCollector();
+      Transformer transformer = templates.newTransformer();
+      // NOTE: the output is consumed as SAX events, so it does not need to be indented
+      transformer.setOutputProperty(OutputKeys.INDENT, "no");
+      transformer.transform(new StreamSource(new ByteArrayInputStream(iiasGetResponseBytes)),
+          new SAXResult(textToHashCollector));
+      return textToHashCollector.getHashCalculationResults();
+
+    } catch (TransformerException | IllegalArgumentException e) {
+      throw new HashCalculationException(e);
     }
+  }
 
-    @Override
-    public String getNamespaceURI(String prefix) {
-      if ("iia".equals(prefix)) {
-        return this.iiasNamespaceUrl;
+  /**
+   * Extracts, in a single streaming pass, the IIA hashes (iias-get-response/iia/iia-hash) of a IIAs
+   * get response.
+   */
+  private List<String> extractIiaHashes(byte[] iiasGetResponseBytes) throws XMLStreamException {
+    String iiasNamespaceUrl = EwpApiNamespaces.IIAS_V7_GET_RESPONSE.getNamespaceUrl();
+    XMLStreamReader reader =
+        XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(iiasGetResponseBytes));
+    try {
+      List<String> result = new ArrayList<>();
+      int depth = 0;
+      boolean insideIiasGetResponse = false;
+      boolean insideIia = false;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          boolean isIiaElement = iiasNamespaceUrl.equals(reader.getNamespaceURI());
+          if (depth == 1) {
+            insideIiasGetResponse =
+                isIiaElement && "iias-get-response".equals(reader.getLocalName());
+          } else if (depth == 2) {
+            insideIia = insideIiasGetResponse && isIiaElement && "iia".equals(
+                reader.getLocalName());
+          } else if (depth == 3 && insideIia && isIiaElement && "iia-hash".equals(
+              reader.getLocalName())) {
+            // NOTE: reading the element text consumes its end element
+            result.add(reader.getElementText());
+            depth--;
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        }
       }
-      throw new IllegalArgumentException(prefix);
+      return result;
+
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static boolean isTerminatedAsAWhole(IiasGetResponseV7.Iia iia) {
+    return iia.getCooperationConditions() != null
+        && Boolean.TRUE.equals(iia.getCooperationConditions().isTerminatedAsAWhole());
+  }
+
+  private Templates getTemplatesForSourceMajorVersion(int sourceMajorVersion) {
+    if (sourceMajorVersion == 6) {
+      return transformVersion6Templates;
+    } else if (sourceMajorVersion == 7) {
+      return transformVersion7Templates;
+    } else {
+      throw new IllegalArgumentException("Unsupported source major version: " + sourceMajorVersion);
     }
+  }
 
-    @Override
-    public String getPrefix(String namespaceUri) {
-      throw new UnsupportedOperationException();
+  private static Templates compileXslt(TransformerFactory transformerFactory, String xsltPath) {
+    URL xsltUrl = IiaHashServiceV7.class.getClassLoader().getResource(xsltPath);
+    if (xsltUrl == null) {
+      throw new IllegalStateException("XSLT transformation file was not found: " + xsltPath);
     }
 
-    @Override
-    public Iterator<String> getPrefixes(String namespaceUri) {
-      throw new UnsupportedOperationException();
+    try {
+      return transformerFactory.newTemplates(new StreamSource(xsltUrl.toExternalForm()));
+    } catch (TransformerConfigurationException e) {
+      throw new IllegalStateException("Failed to compile XSLT transformation file: " + xsltPath,
+          e);
     }
   }
+
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory result = XMLInputFactory.newFactory();
+    result.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return result;
+  }
 }
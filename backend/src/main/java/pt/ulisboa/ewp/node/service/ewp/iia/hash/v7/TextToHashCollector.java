@@ -0,0 +1,60 @@
+package pt.ulisboa.ewp.node.service.ewp.iia.hash.v7;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+import pt.ulisboa.ewp.node.service.ewp.iia.hash.HashCalculationResult;
+
+/**
+ * Receives, as SAX events, the output of the IIA hash XSLT transformation and hashes the content
+ * of each {@code text-to-hash} element as soon as it ends, so the output is never serialized nor
+ * parsed again.
+ */
+class TextToHashCollector extends DefaultHandler {
+
+  private static final String TEXT_TO_HASH_ELEMENT_NAME = "text-to-hash";
+
+  private final List<HashCalculationResult> hashCalculationResults = new ArrayList<>();
+  private final StringBuilder textToHash = new StringBuilder();
+  private int textToHashDepth = 0;
+
+  @Override
+  public void startElement(String uri, String localName, String qName, Attributes attributes) {
+    if (textToHashDepth > 0) {
+      textToHashDepth++;
+    } else if (TEXT_TO_HASH_ELEMENT_NAME.equals(getName(localName, qName))) {
+      textToHashDepth = 1;
+      textToHash.setLength(0);
+    }
+  }
+
+  @Override
+  public void characters(char[] ch, int start, int length) {
+    if (textToHashDepth > 0) {
+      textToHash.append(ch, start, length);
+    }
+  }
+
+  @Override
+  public void endElement(String uri, String localName, String qName) {
+    if (textToHashDepth == 0) {
+      return;
+    }
+
+    textToHashDepth--;
+    if (textToHashDepth == 0) {
+      String text = textToHash.toString();
+      hashCalculationResults.add(new HashCalculationResult(DigestUtils.sha256Hex(text), text));
+    }
+  }
+
+  public List<HashCalculationResult> getHashCalculationResults() {
+    return hashCalculationResults;
+  }
+
+  private static String getName(String localName, String qName) {
+    return localName != null && !localName.isEmpty() ? localName : qName;
+  }
+}
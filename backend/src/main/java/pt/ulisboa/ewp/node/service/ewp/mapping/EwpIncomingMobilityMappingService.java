@@ -6,45 +6,52 @@ import javax.transaction.Transactional;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.node.domain.entity.mapping.EwpIncomingMobilityMapping;
 import pt.ulisboa.ewp.node.domain.repository.mapping.EwpIncomingMobilityMappingRepository;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.AbstractEwpMappingNearCache;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpIncomingMobilityMappingNearCache;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpOunitMapping;
 
 @Service
-@Transactional
 public class EwpIncomingMobilityMappingService {
 
   private final EwpIncomingMobilityMappingRepository repository;
+  private final EwpIncomingMobilityMappingNearCache nearCache;
 
   public EwpIncomingMobilityMappingService(
-      EwpIncomingMobilityMappingRepository repository) {
+      EwpIncomingMobilityMappingRepository repository,
+      EwpIncomingMobilityMappingNearCache nearCache) {
     this.repository = repository;
+    this.nearCache = nearCache;
   }
 
+  @Transactional
   public Collection<EwpIncomingMobilityMapping> getAllMappings() {
     return repository.findAll();
   }
 
+  /**
+   * Returns the mapping of an outgoing mobility, read through the near cache (so that mappings
+   * registered but not yet written to the database are also considered). The returned mapping is
+   * not attached to the persistence context.
+   */
   public Optional<EwpIncomingMobilityMapping> getMapping(String receivingHeiId,
       String outgoingMobilityId) {
-    return repository.findByReceivingHeiIdAndOmobilityId(receivingHeiId, outgoingMobilityId);
+    return nearCache.getMapping(receivingHeiId, outgoingMobilityId)
+        .map(EwpIncomingMobilityMappingService::toMapping);
   }
 
-  @Transactional
+  /**
+   * Registers the mapping of an outgoing mobility to an organizational unit of the receiving HEI.
+   * Note that, when the near cache writes mappings behind (see {@link
+   * AbstractEwpMappingNearCache#registerMapping(String, String, String)}), the mapping is not
+   * written on the caller's transaction, hence it is not rolled back with it.
+   */
   public void registerMapping(String receivingHeiId, String receivingOunitId,
       String outgoingMobilityId) {
-    Optional<EwpIncomingMobilityMapping> mappingOptional = repository.findByReceivingHeiIdAndOmobilityId(
-        receivingHeiId, outgoingMobilityId);
-
-    EwpIncomingMobilityMapping mapping;
-    if (mappingOptional.isEmpty()) {
-      mapping = EwpIncomingMobilityMapping.create(
-          receivingHeiId, receivingOunitId, outgoingMobilityId);
-
-    } else {
-      mapping = mappingOptional.get();
-      mapping.setReceivingOunitId(receivingOunitId);
-    }
-
-    if (!repository.persist(mapping)) {
-      throw new IllegalStateException();
-    }
+    nearCache.registerMapping(receivingHeiId, receivingOunitId, outgoingMobilityId);
+  }
+
+  private static EwpIncomingMobilityMapping toMapping(EwpOunitMapping mapping) {
+    return EwpIncomingMobilityMapping.create(mapping.getHeiId(), mapping.getOunitId(),
+        mapping.getElementId());
   }
 }
@@ -1,42 +1,57 @@
 package pt.ulisboa.ewp.node.service.ewp.mapping;
 
+import java.util.Collection;
 import java.util.Optional;
-import javax.transaction.Transactional;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.node.domain.entity.mapping.EwpInterInstitutionalAgreementMapping;
-import pt.ulisboa.ewp.node.domain.repository.mapping.EwpInterInstitutionalAgreementMappingRepository;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.AbstractEwpMappingNearCache;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpInterInstitutionalAgreementMappingNearCache;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpOunitMapping;
 
 @Service
-@Transactional
 public class EwpInterInstitutionalAgreementMappingService {
 
-  private final EwpInterInstitutionalAgreementMappingRepository repository;
+  private final EwpInterInstitutionalAgreementMappingNearCache nearCache;
 
   public EwpInterInstitutionalAgreementMappingService(
-      EwpInterInstitutionalAgreementMappingRepository repository) {
-    this.repository = repository;
+      EwpInterInstitutionalAgreementMappingNearCache nearCache) {
+    this.nearCache = nearCache;
   }
 
+  /**
+   * Returns the mapping of an IIA, read through the near cache (so that mappings registered but
+   * not yet written to the database are also considered). The returned mapping is not attached
+   * to the persistence context.
+   */
   public Optional<EwpInterInstitutionalAgreementMapping> getMapping(String heiId, String iiaId) {
-    return repository.findByHeiIdAndIiaId(heiId, iiaId);
+    return nearCache.getMapping(heiId, iiaId)
+        .map(EwpInterInstitutionalAgreementMappingService::toMapping);
   }
 
-  @Transactional
-  public void registerMapping(String heiId, String ounitId, String iiaId) {
-    Optional<EwpInterInstitutionalAgreementMapping> mappingOptional = repository.findByHeiIdAndIiaId(
-        heiId, iiaId);
-
-    EwpInterInstitutionalAgreementMapping mapping;
-    if (mappingOptional.isEmpty()) {
-      mapping = EwpInterInstitutionalAgreementMapping.create(heiId, ounitId, iiaId);
+  /**
+   * Returns the mappings of the given IIAs, read through the near cache (see {@link
+   * #getMapping(String, String)}). IIAs without mapping are not present on the result.
+   */
+  public Collection<EwpInterInstitutionalAgreementMapping> getMappings(String heiId,
+      Collection<String> iiaIds) {
+    return nearCache.getMappings(heiId, iiaIds).values().stream()
+        .map(EwpInterInstitutionalAgreementMappingService::toMapping)
+        .collect(Collectors.toList());
+  }
 
-    } else {
-      mapping = mappingOptional.get();
-      mapping.setOunitId(ounitId);
-    }
+  /**
+   * Registers the mapping of an IIA to an organizational unit. Note that, when the near cache
+   * writes mappings behind (see {@link AbstractEwpMappingNearCache#registerMapping(String, String,
+   * String)}), the mapping is not written on the caller's transaction, hence it is not rolled back
+   * with it.
+   */
+  public void registerMapping(String heiId, String ounitId, String iiaId) {
+    nearCache.registerMapping(heiId, ounitId, iiaId);
+  }
 
-    if (!repository.persist(mapping)) {
-      throw new IllegalStateException();
-    }
+  private static EwpInterInstitutionalAgreementMapping toMapping(EwpOunitMapping mapping) {
+    return EwpInterInstitutionalAgreementMapping.create(mapping.getHeiId(), mapping.getOunitId(),
+        mapping.getElementId());
   }
 }
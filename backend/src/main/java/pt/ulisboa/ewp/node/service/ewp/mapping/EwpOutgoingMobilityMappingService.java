@@ -1,44 +1,59 @@
 package pt.ulisboa.ewp.node.service.ewp.mapping;
 
+import java.util.Collection;
 import java.util.Optional;
-import javax.transaction.Transactional;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.node.domain.entity.mapping.EwpOutgoingMobilityMapping;
-import pt.ulisboa.ewp.node.domain.repository.mapping.EwpOutgoingMobilityMappingRepository;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.AbstractEwpMappingNearCache;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpOunitMapping;
+import pt.ulisboa.ewp.node.service.ewp.mapping.cache.EwpOutgoingMobilityMappingNearCache;
 
 @Service
-@Transactional
 public class EwpOutgoingMobilityMappingService {
 
-  private final EwpOutgoingMobilityMappingRepository repository;
+  private final EwpOutgoingMobilityMappingNearCache nearCache;
 
   public EwpOutgoingMobilityMappingService(
-      EwpOutgoingMobilityMappingRepository repository) {
-    this.repository = repository;
+      EwpOutgoingMobilityMappingNearCache nearCache) {
+    this.nearCache = nearCache;
   }
 
+  /**
+   * Returns the mapping of an outgoing mobility, read through the near cache (so that mappings
+   * registered but not yet written to the database are also considered). The returned mapping is
+   * not attached to the persistence context.
+   */
   public Optional<EwpOutgoingMobilityMapping> getMapping(String heiId, String outgoingMobilityId) {
-    return repository.findByHeiIdAndOmobilityId(heiId, outgoingMobilityId);
+    return nearCache.getMapping(heiId, outgoingMobilityId)
+        .map(EwpOutgoingMobilityMappingService::toMapping);
   }
 
-  @Transactional
+  /**
+   * Returns the mappings of the given outgoing mobilities, read through the near cache (see {@link
+   * #getMapping(String, String)}). Outgoing mobilities without mapping are not present on the
+   * result.
+   */
+  public Collection<EwpOutgoingMobilityMapping> getMappings(String heiId,
+      Collection<String> outgoingMobilityIds) {
+    return nearCache.getMappings(heiId, outgoingMobilityIds).values().stream()
+        .map(EwpOutgoingMobilityMappingService::toMapping)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Registers the mapping of an outgoing mobility to an organizational unit. Note that, when the
+   * near cache writes mappings behind (see {@link
+   * AbstractEwpMappingNearCache#registerMapping(String, String, String)}), the mapping is not
+   * written on the caller's transaction, hence it is not rolled back with it.
+   */
   public void registerMapping(String heiId, String organizationalUnitId,
       String outgoingMobilityId) {
-    Optional<EwpOutgoingMobilityMapping> mappingOptional = repository.findByHeiIdAndOmobilityId(
-        heiId, outgoingMobilityId);
-
-    EwpOutgoingMobilityMapping mapping;
-    if (mappingOptional.isEmpty()) {
-      mapping = EwpOutgoingMobilityMapping.create(
-          heiId, organizationalUnitId, outgoingMobilityId);
-
-    } else {
-      mapping = mappingOptional.get();
-      mapping.setOunitId(organizationalUnitId);
-    }
-
-    if (!repository.persist(mapping)) {
-      throw new IllegalStateException();
-    }
+    nearCache.registerMapping(heiId, organizationalUnitId, outgoingMobilityId);
+  }
+
+  private static EwpOutgoingMobilityMapping toMapping(EwpOunitMapping mapping) {
+    return EwpOutgoingMobilityMapping.create(mapping.getHeiId(), mapping.getOunitId(),
+        mapping.getElementId());
   }
 }
@@ -0,0 +1,416 @@
+package pt.ulisboa.ewp.node.service.ewp.mapping.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pt.ulisboa.ewp.node.config.mapping.MappingCacheProperties;
+
+/**
+ * Node-local cache of the mappings of elements (e.g. IIAs or mobilities) of HEIs to organizational
+ * units.
+ *
+ * <p>Mappings are read through the cache, loading all the mappings missing from a lookup at once.
+ * Registered mappings are cached immediately and written to the database in batches, on a
+ * background thread (with upsert semantics); registering a mapping that is already cached with the
+ * same organizational unit does not write anything. When a batch fails, each of its mappings is
+ * written on its own transaction, and mappings that still fail are retried on the next flushes, up
+ * to {@link MappingCacheProperties#getMaxWriteAttempts()} times.
+ *
+ * <p>The cache is local to each node, and nodes do not notify each other of registered mappings.
+ * Hence, a mapping registered (or changed) by another node is only seen by this node once that
+ * node writes it (after its flush interval) and the mapping cached here expires (see {@link
+ * MappingCacheProperties#getTimeToLiveInSeconds()} and {@link
+ * MappingCacheProperties#getMissingTimeToLiveInSeconds()}).
+ *
+ * <p>When disabled (see {@link MappingCacheProperties#isEnabled()}), every lookup and registration
+ * goes directly to the database.
+ */
+public abstract class AbstractEwpMappingNearCache
+    implements MeterBinder, InitializingBean, DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AbstractEwpMappingNearCache.class);
+
+  private static final long SHUTDOWN_TIMEOUT_IN_MILLISECONDS = 30000;
+
+  private final String name;
+  private final MappingCacheProperties properties;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate readOnlyTransactionTemplate;
+  private final Cache<Key, CachedMapping> cache;
+  private final ConcurrentMap<Key, EwpOunitMapping> pendingMappings = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Key, Integer> failedWriteAttempts = new ConcurrentHashMap<>();
+  private final Object flushLock = new Object();
+
+  private final AtomicLong numberSkippedWrites = new AtomicLong();
+  private final AtomicLong numberWrittenMappings = new AtomicLong();
+  private final AtomicLong numberFailedWrites = new AtomicLong();
+  private final AtomicLong numberDiscardedWrites = new AtomicLong();
+
+  private volatile ScheduledExecutorService flushExecutor;
+
+  protected AbstractEwpMappingNearCache(String name, MappingCacheProperties properties,
+      PlatformTransactionManager transactionManager) {
+    this.name = name;
+    this.properties = properties;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTransactionTemplate.setReadOnly(true);
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(Math.max(0, properties.getMaxSize()))
+        .expireAfterWrite(Math.max(0, properties.getTimeToLiveInSeconds()), TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Loads the mapping of a given element from the database. It is called inside a (read-only)
+   * transaction.
+   */
+  protected abstract Optional<EwpOunitMapping> loadMapping(String heiId, String elementId);
+
+  /**
+   * Loads the mappings of the given elements from the database. Elements without mapping are not
+   * present on the result. It is called inside a (read-only) transaction.
+   */
+  protected abstract Collection<EwpOunitMapping> loadMappings(String heiId,
+      Collection<String> elementIds);
+
+  /**
+   * Creates or updates, on the database, the mappings of the given elements (keys of the map) to
+   * organizational units (values of the map, possibly null). It is called inside a transaction.
+   */
+  protected abstract void upsertMappings(String heiId, Map<String, String> elementIdToOunitIdMap);
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  public Optional<EwpOunitMapping> getMapping(String heiId, String elementId) {
+    if (!isEnabled()) {
+      return readMapping(heiId, elementId);
+    }
+
+    Key key = new Key(heiId, elementId);
+    CachedMapping cachedMapping = getCachedMapping(key);
+    if (cachedMapping != null) {
+      return Optional.ofNullable(cachedMapping.mapping);
+    }
+
+    Optional<EwpOunitMapping> mappingOptional = readMapping(heiId, elementId);
+    cacheLoadedMapping(key, mappingOptional.orElse(null));
+    return mappingOptional;
+  }
+
+  /**
+   * Returns the mappings of the given elements, indexed by element ID. Elements without mapping
+   * are not present on the returned map.
+   */
+  public Map<String, EwpOunitMapping> getMappings(String heiId, Collection<String> elementIds) {
+    Map<String, EwpOunitMapping> result = new LinkedHashMap<>();
+    if (!isEnabled()) {
+      for (EwpOunitMapping mapping : readMappings(heiId, elementIds)) {
+        result.put(mapping.getElementId(), mapping);
+      }
+      return result;
+    }
+
+    List<String> missingElementIds = new ArrayList<>();
+    for (String elementId : new LinkedHashSet<>(elementIds)) {
+      CachedMapping cachedMapping = getCachedMapping(new Key(heiId, elementId));
+      if (cachedMapping == null) {
+        missingElementIds.add(elementId);
+      } else if (cachedMapping.mapping != null) {
+        result.put(elementId, cachedMapping.mapping);
+      }
+    }
+
+    if (!missingElementIds.isEmpty()) {
+      Map<String, EwpOunitMapping> loadedMappings = new LinkedHashMap<>();
+      for (EwpOunitMapping mapping : readMappings(heiId, missingElementIds)) {
+        loadedMappings.put(mapping.getElementId(), mapping);
+      }
+      for (String elementId : missingElementIds) {
+        EwpOunitMapping mapping = loadedMappings.get(elementId);
+        cacheLoadedMapping(new Key(heiId, elementId), mapping);
+        if (mapping != null) {
+          result.put(elementId, mapping);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Registers the mapping of an element to an organizational unit. When the cache is enabled and
+   * has a positive flush interval, the mapping is written to the database on the next flush, on
+   * its own transaction (so it is neither written nor rolled back with the caller's transaction).
+   * Otherwise, it is written immediately, joining the caller's transaction, if any.
+   */
+  public void registerMapping(String heiId, String ounitId, String elementId) {
+    EwpOunitMapping mapping = new EwpOunitMapping(heiId, elementId, ounitId);
+    if (!isEnabled()) {
+      writeMapping(mapping);
+      return;
+    }
+
+    Key key = new Key(heiId, elementId);
+    CachedMapping cachedMapping = getCachedMapping(key);
+    if (cachedMapping != null && mapping.equals(cachedMapping.mapping)) {
+      numberSkippedWrites.incrementAndGet();
+      return;
+    }
+
+    cache.put(key, new CachedMapping(mapping, System.currentTimeMillis()));
+    if (flushExecutor == null) {
+      writeMapping(mapping);
+    } else {
+      pendingMappings.put(key, mapping);
+      failedWriteAttempts.remove(key);
+    }
+  }
+
+  /** Writes the pending registered mappings to the database, in batches. */
+  void flush() {
+    synchronized (flushLock) {
+      if (pendingMappings.isEmpty()) {
+        return;
+      }
+
+      Map<String, Map<String, String>> heiIdToPendingMappingsMap = new LinkedHashMap<>();
+      for (Key key : new ArrayList<>(pendingMappings.keySet())) {
+        EwpOunitMapping mapping = pendingMappings.remove(key);
+        if (mapping != null) {
+          heiIdToPendingMappingsMap
+              .computeIfAbsent(mapping.getHeiId(), ignored -> new LinkedHashMap<>())
+              .put(mapping.getElementId(), mapping.getOunitId());
+        }
+      }
+
+      heiIdToPendingMappingsMap.forEach((heiId, elementIdToOunitIdMap) -> {
+        for (List<String> elementIds : Iterables.partition(elementIdToOunitIdMap.keySet(),
+            Math.max(1, properties.getFlushBatchSize()))) {
+          Map<String, String> batch = new LinkedHashMap<>();
+          elementIds.forEach(elementId -> batch.put(elementId,
+              elementIdToOunitIdMap.get(elementId)));
+          writeBatch(heiId, batch);
+        }
+      });
+    }
+  }
+
+  int getNumberPendingMappings() {
+    return pendingMappings.size();
+  }
+
+  long getNumberDiscardedWrites() {
+    return numberDiscardedWrites.get();
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!isEnabled() || properties.getFlushIntervalInMilliseconds() <= 0) {
+      return;
+    }
+    this.flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "ewp-mapping-" + name + "-flusher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.flushExecutor.scheduleWithFixedDelay(this::flushSafely,
+        properties.getFlushIntervalInMilliseconds(), properties.getFlushIntervalInMilliseconds(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    ScheduledExecutorService executor = this.flushExecutor;
+    if (executor == null) {
+      return;
+    }
+    executor.shutdown();
+    executor.awaitTermination(SHUTDOWN_TIMEOUT_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+    flush();
+    if (!pendingMappings.isEmpty()) {
+      LOG.warn("Discarding " + pendingMappings.size() + " " + name + " mappings still pending");
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    String metricsPrefix = "ewp.mapping." + name;
+    GuavaCacheMetrics.monitor(registry, cache, metricsPrefix);
+    Gauge.builder(metricsPrefix + ".writes.pending", pendingMappings, Map::size)
+        .description("Number of registered mappings waiting to be written")
+        .register(registry);
+    registerCounter(registry, metricsPrefix + ".writes.skipped", numberSkippedWrites);
+    registerCounter(registry, metricsPrefix + ".writes", numberWrittenMappings);
+    registerCounter(registry, metricsPrefix + ".writes.failures", numberFailedWrites);
+    registerCounter(registry, metricsPrefix + ".writes.discarded", numberDiscardedWrites);
+  }
+
+  private void registerCounter(MeterRegistry registry, String name, AtomicLong value) {
+    registry.more().counter(name, List.of(), value, AtomicLong::doubleValue);
+  }
+
+  /**
+   * Returns the cached mapping (or absence of mapping) of a given key, or null if it must be
+   * loaded.
+   */
+  private CachedMapping getCachedMapping(Key key) {
+    EwpOunitMapping pendingMapping = pendingMappings.get(key);
+    if (pendingMapping != null) {
+      return new CachedMapping(pendingMapping, System.currentTimeMillis());
+    }
+
+    CachedMapping cachedMapping = cache.getIfPresent(key);
+    if (cachedMapping != null && cachedMapping.mapping == null
+        && System.currentTimeMillis() - cachedMapping.cachedAtInMilliseconds
+        > TimeUnit.SECONDS.toMillis(properties.getMissingTimeToLiveInSeconds())) {
+      cache.asMap().remove(key, cachedMapping);
+      return null;
+    }
+    return cachedMapping;
+  }
+
+  private void cacheLoadedMapping(Key key, EwpOunitMapping mapping) {
+    // NOTE: a mapping registered meanwhile is more recent than the loaded one
+    cache.asMap().putIfAbsent(key, new CachedMapping(mapping, System.currentTimeMillis()));
+  }
+
+  private Optional<EwpOunitMapping> readMapping(String heiId, String elementId) {
+    return readOnlyTransactionTemplate.execute(status -> loadMapping(heiId, elementId));
+  }
+
+  private Collection<EwpOunitMapping> readMappings(String heiId, Collection<String> elementIds) {
+    return readOnlyTransactionTemplate.execute(status -> loadMappings(heiId, elementIds));
+  }
+
+  private void writeMapping(EwpOunitMapping mapping) {
+    transactionTemplate.executeWithoutResult(status -> upsertMappings(mapping.getHeiId(),
+        Collections.singletonMap(mapping.getElementId(), mapping.getOunitId())));
+    numberWrittenMappings.incrementAndGet();
+  }
+
+  private void writeBatch(String heiId, Map<String, String> elementIdToOunitIdMap) {
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> upsertMappings(heiId, elementIdToOunitIdMap));
+      numberWrittenMappings.addAndGet(elementIdToOunitIdMap.size());
+      elementIdToOunitIdMap.keySet()
+          .forEach(elementId -> failedWriteAttempts.remove(new Key(heiId, elementId)));
+
+    } catch (RuntimeException batchException) {
+      // NOTE: Retry each mapping on its own transaction so that a single failing mapping does not
+      // keep the remaining mappings of the batch from being written.
+      LOG.warn("Failed to write batch of " + elementIdToOunitIdMap.size() + " " + name
+          + " mappings of HEI " + heiId + ", retrying individually", batchException);
+      elementIdToOunitIdMap.forEach((elementId, ounitId) -> {
+        EwpOunitMapping mapping = new EwpOunitMapping(heiId, elementId, ounitId);
+        try {
+          writeMapping(mapping);
+          failedWriteAttempts.remove(new Key(heiId, elementId));
+        } catch (RuntimeException e) {
+          numberFailedWrites.incrementAndGet();
+          retryOrDiscard(mapping, e);
+        }
+      });
+    }
+  }
+
+  /**
+   * Keeps a mapping that failed to be written pending until the next flush, unless it already
+   * failed the maximum number of attempts.
+   */
+  private void retryOrDiscard(EwpOunitMapping mapping, RuntimeException exception) {
+    Key key = new Key(mapping.getHeiId(), mapping.getElementId());
+    int attempts = failedWriteAttempts.merge(key, 1, Integer::sum);
+    if (attempts >= Math.max(1, properties.getMaxWriteAttempts())) {
+      failedWriteAttempts.remove(key);
+      numberDiscardedWrites.incrementAndGet();
+      LOG.error("Discarding " + name + " mapping of element " + mapping.getElementId()
+          + " of HEI " + mapping.getHeiId() + " after " + attempts + " failed writes", exception);
+      if (!pendingMappings.containsKey(key)) {
+        // NOTE: the discarded mapping must not be read from the cache as if it was written
+        cache.invalidate(key);
+      }
+      return;
+    }
+
+    // NOTE: a mapping registered meanwhile is more recent than the failed one
+    if (pendingMappings.putIfAbsent(key, mapping) != null) {
+      failedWriteAttempts.remove(key);
+    }
+  }
+
+  private void flushSafely() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      LOG.error("Unexpected error flushing " + name + " mappings", e);
+    }
+  }
+
+  private static class Key {
+
+    private final String heiId;
+    private final String elementId;
+
+    Key(String heiId, String elementId) {
+      this.heiId = heiId;
+      this.elementId = elementId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return Objects.equals(heiId, key.heiId) && Objects.equals(elementId, key.elementId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(heiId, elementId);
+    }
+  }
+
+  private static class CachedMapping {
+
+    private final EwpOunitMapping mapping;
+    private final long cachedAtInMilliseconds;
+
+    CachedMapping(EwpOunitMapping mapping, long cachedAtInMilliseconds) {
+      this.mapping = mapping;
+      this.cachedAtInMilliseconds = cachedAtInMilliseconds;
+    }
+  }
+}
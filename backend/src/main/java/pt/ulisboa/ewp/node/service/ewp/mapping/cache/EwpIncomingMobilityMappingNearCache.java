@@ -0,0 +1,75 @@
+package pt.ulisboa.ewp.node.service.ewp.mapping.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import pt.ulisboa.ewp.node.config.mapping.MappingProperties;
+import pt.ulisboa.ewp.node.domain.entity.mapping.EwpIncomingMobilityMapping;
+import pt.ulisboa.ewp.node.domain.repository.mapping.EwpIncomingMobilityMappingRepository;
+
+/**
+ * Near cache of the mappings of incoming mobilities to organizational units of the receiving HEI.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class EwpIncomingMobilityMappingNearCache extends AbstractEwpMappingNearCache {
+
+  private final EwpIncomingMobilityMappingRepository repository;
+
+  public EwpIncomingMobilityMappingNearCache(MappingProperties mappingProperties,
+      PlatformTransactionManager transactionManager,
+      EwpIncomingMobilityMappingRepository repository) {
+    super("imobility", mappingProperties.getCache(), transactionManager);
+    this.repository = repository;
+  }
+
+  @Override
+  protected Optional<EwpOunitMapping> loadMapping(String heiId, String elementId) {
+    return repository.findByReceivingHeiIdAndOmobilityId(heiId, elementId)
+        .map(EwpIncomingMobilityMappingNearCache::toOunitMapping);
+  }
+
+  @Override
+  protected Collection<EwpOunitMapping> loadMappings(String heiId,
+      Collection<String> elementIds) {
+    return repository.findByReceivingHeiIdAndOmobilityIds(heiId, elementIds).stream()
+        .map(EwpIncomingMobilityMappingNearCache::toOunitMapping)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  protected void upsertMappings(String heiId, Map<String, String> elementIdToOunitIdMap) {
+    Map<String, EwpIncomingMobilityMapping> existingMappings = new HashMap<>();
+    for (EwpIncomingMobilityMapping mapping : repository.findByReceivingHeiIdAndOmobilityIds(heiId,
+        elementIdToOunitIdMap.keySet())) {
+      existingMappings.put(mapping.getOmobilityId(), mapping);
+    }
+
+    elementIdToOunitIdMap.forEach((elementId, ounitId) -> {
+      EwpIncomingMobilityMapping mapping = existingMappings.get(elementId);
+      if (mapping == null) {
+        mapping = EwpIncomingMobilityMapping.create(heiId, ounitId, elementId);
+      } else if (Objects.equals(mapping.getReceivingOunitId(), ounitId)) {
+        return;
+      } else {
+        mapping.setReceivingOunitId(ounitId);
+      }
+
+      if (!repository.persist(mapping)) {
+        throw new IllegalStateException("Failed to persist mapping: " + mapping);
+      }
+    });
+  }
+
+  private static EwpOunitMapping toOunitMapping(EwpIncomingMobilityMapping mapping) {
+    return new EwpOunitMapping(mapping.getReceivingHeiId(), mapping.getOmobilityId(),
+        mapping.getReceivingOunitId());
+  }
+}
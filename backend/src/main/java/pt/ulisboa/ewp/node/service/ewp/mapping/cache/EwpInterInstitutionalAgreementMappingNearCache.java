@@ -0,0 +1,72 @@
+package pt.ulisboa.ewp.node.service.ewp.mapping.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import pt.ulisboa.ewp.node.config.mapping.MappingProperties;
+import pt.ulisboa.ewp.node.domain.entity.mapping.EwpInterInstitutionalAgreementMapping;
+import pt.ulisboa.ewp.node.domain.repository.mapping.EwpInterInstitutionalAgreementMappingRepository;
+
+/** Near cache of the mappings of IIAs to organizational units. */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class EwpInterInstitutionalAgreementMappingNearCache extends AbstractEwpMappingNearCache {
+
+  private final EwpInterInstitutionalAgreementMappingRepository repository;
+
+  public EwpInterInstitutionalAgreementMappingNearCache(MappingProperties mappingProperties,
+      PlatformTransactionManager transactionManager,
+      EwpInterInstitutionalAgreementMappingRepository repository) {
+    super("iia", mappingProperties.getCache(), transactionManager);
+    this.repository = repository;
+  }
+
+  @Override
+  protected Optional<EwpOunitMapping> loadMapping(String heiId, String elementId) {
+    return repository.findByHeiIdAndIiaId(heiId, elementId)
+        .map(EwpInterInstitutionalAgreementMappingNearCache::toOunitMapping);
+  }
+
+  @Override
+  protected Collection<EwpOunitMapping> loadMappings(String heiId,
+      Collection<String> elementIds) {
+    return repository.findByHeiIdAndIiaIds(heiId, elementIds).stream()
+        .map(EwpInterInstitutionalAgreementMappingNearCache::toOunitMapping)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  protected void upsertMappings(String heiId, Map<String, String> elementIdToOunitIdMap) {
+    Map<String, EwpInterInstitutionalAgreementMapping> existingMappings = new HashMap<>();
+    for (EwpInterInstitutionalAgreementMapping mapping : repository.findByHeiIdAndIiaIds(heiId,
+        elementIdToOunitIdMap.keySet())) {
+      existingMappings.put(mapping.getIiaId(), mapping);
+    }
+
+    elementIdToOunitIdMap.forEach((elementId, ounitId) -> {
+      EwpInterInstitutionalAgreementMapping mapping = existingMappings.get(elementId);
+      if (mapping == null) {
+        mapping = EwpInterInstitutionalAgreementMapping.create(heiId, ounitId, elementId);
+      } else if (Objects.equals(mapping.getOunitId(), ounitId)) {
+        return;
+      } else {
+        mapping.setOunitId(ounitId);
+      }
+
+      if (!repository.persist(mapping)) {
+        throw new IllegalStateException("Failed to persist mapping: " + mapping);
+      }
+    });
+  }
+
+  private static EwpOunitMapping toOunitMapping(EwpInterInstitutionalAgreementMapping mapping) {
+    return new EwpOunitMapping(mapping.getHeiId(), mapping.getIiaId(), mapping.getOunitId());
+  }
+}
@@ -7,7 +7,6 @@ import eu.erasmuswithoutpaper.api.omobilities.v1.endpoints.StudentMobilityForStu
 import eu.erasmuswithoutpaper.api.omobilities.v2.endpoints.OmobilitiesGetResponseV2;
 import eu.erasmuswithoutpaper.api.omobilities.v2.endpoints.StudentMobilityV2;
 import org.springframework.stereotype.Service;
-import pt.ulisboa.ewp.node.service.ewp.mapping.EwpIncomingMobilityMappingService;
 
 /**
  * Service that caches mobility mappings from actual EWP responses.
@@ -15,17 +14,17 @@ import pt.ulisboa.ewp.node.service.ewp.mapping.EwpIncomingMobilityMappingService
 @Service
 public class EwpMobilityMappingCacheService {
 
-  private final EwpIncomingMobilityMappingService incomingMobilityMappingService;
+  private final EwpIncomingMobilityMappingNearCache incomingMobilityMappingNearCache;
 
   public EwpMobilityMappingCacheService(
-      EwpIncomingMobilityMappingService incomingMobilityMappingService) {
-    this.incomingMobilityMappingService = incomingMobilityMappingService;
+      EwpIncomingMobilityMappingNearCache incomingMobilityMappingNearCache) {
+    this.incomingMobilityMappingNearCache = incomingMobilityMappingNearCache;
   }
 
   public void cacheMappingsFrom(OmobilitiesGetResponseV1 omobilitiesGetResponseV1) {
     for (StudentMobilityForStudiesV1 mobility : omobilitiesGetResponseV1.getSingleMobilityObject()) {
       if (mobility.getReceivingHei() != null) {
-        this.incomingMobilityMappingService.registerMapping(mobility.getReceivingHei().getHeiId(),
+        this.incomingMobilityMappingNearCache.registerMapping(mobility.getReceivingHei().getHeiId(),
                 mobility.getReceivingHei().getOunitId(), mobility.getOmobilityId());
       }
     }
@@ -34,7 +33,7 @@ public class EwpMobilityMappingCacheService {
   public void cacheMappingsFrom(OmobilitiesGetResponseV2 omobilitiesGetResponseV2) {
     for (StudentMobilityV2 mobility : omobilitiesGetResponseV2.getSingleMobilityObject()) {
       if (mobility.getReceivingHei() != null) {
-        this.incomingMobilityMappingService.registerMapping(mobility.getReceivingHei().getHeiId(),
+        this.incomingMobilityMappingNearCache.registerMapping(mobility.getReceivingHei().getHeiId(),
                 mobility.getReceivingHei().getOunitId(), mobility.getOmobilityId());
       }
     }
@@ -43,7 +42,7 @@ public class EwpMobilityMappingCacheService {
   public void cacheMappingsFrom(OmobilityLasGetResponseV1 response) {
     for (LearningAgreementV1 learningAgreement : response.getLa()) {
       if (learningAgreement.getReceivingHei() != null) {
-        this.incomingMobilityMappingService.registerMapping(learningAgreement.getReceivingHei().getHeiId(),
+        this.incomingMobilityMappingNearCache.registerMapping(learningAgreement.getReceivingHei().getHeiId(),
                 learningAgreement.getReceivingHei().getOunitId(), learningAgreement.getOmobilityId());
       }
     }
@@ -0,0 +1,60 @@
+package pt.ulisboa.ewp.node.service.ewp.mapping.cache;
+
+import java.util.Objects;
+
+/**
+ * Mapping of an element (e.g. an IIA or a mobility) of a HEI to the organizational unit that owns
+ * it. The organizational unit ID may be null.
+ */
+public class EwpOunitMapping {
+
+  private final String heiId;
+  private final String elementId;
+  private final String ounitId;
+
+  public EwpOunitMapping(String heiId, String elementId, String ounitId) {
+    this.heiId = heiId;
+    this.elementId = elementId;
+    this.ounitId = ounitId;
+  }
+
+  public String getHeiId() {
+    return heiId;
+  }
+
+  public String getElementId() {
+    return elementId;
+  }
+
+  public String getOunitId() {
+    return ounitId;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    EwpOunitMapping that = (EwpOunitMapping) o;
+    return Objects.equals(heiId, that.heiId)
+        && Objects.equals(elementId, that.elementId)
+        && Objects.equals(ounitId, that.ounitId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(heiId, elementId, ounitId);
+  }
+
+  @Override
+  public String toString() {
+    return "EwpOunitMapping{" +
+        "heiId='" + heiId + '\'' +
+        ", elementId='" + elementId + '\'' +
+        ", ounitId='" + ounitId + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,74 @@
+package pt.ulisboa.ewp.node.service.ewp.mapping.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import pt.ulisboa.ewp.node.config.mapping.MappingProperties;
+import pt.ulisboa.ewp.node.domain.entity.mapping.EwpOutgoingMobilityMapping;
+import pt.ulisboa.ewp.node.domain.repository.mapping.EwpOutgoingMobilityMappingRepository;
+
+/**
+ * Near cache of the mappings of outgoing mobilities to organizational units of the sending HEI.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class EwpOutgoingMobilityMappingNearCache extends AbstractEwpMappingNearCache {
+
+  private final EwpOutgoingMobilityMappingRepository repository;
+
+  public EwpOutgoingMobilityMappingNearCache(MappingProperties mappingProperties,
+      PlatformTransactionManager transactionManager,
+      EwpOutgoingMobilityMappingRepository repository) {
+    super("omobility", mappingProperties.getCache(), transactionManager);
+    this.repository = repository;
+  }
+
+  @Override
+  protected Optional<EwpOunitMapping> loadMapping(String heiId, String elementId) {
+    return repository.findByHeiIdAndOmobilityId(heiId, elementId)
+        .map(EwpOutgoingMobilityMappingNearCache::toOunitMapping);
+  }
+
+  @Override
+  protected Collection<EwpOunitMapping> loadMappings(String heiId,
+      Collection<String> elementIds) {
+    return repository.findByHeiIdAndOmobilityIds(heiId, elementIds).stream()
+        .map(EwpOutgoingMobilityMappingNearCache::toOunitMapping)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  protected void upsertMappings(String heiId, Map<String, String> elementIdToOunitIdMap) {
+    Map<String, EwpOutgoingMobilityMapping> existingMappings = new HashMap<>();
+    for (EwpOutgoingMobilityMapping mapping : repository.findByHeiIdAndOmobilityIds(heiId,
+        elementIdToOunitIdMap.keySet())) {
+      existingMappings.put(mapping.getOmobilityId(), mapping);
+    }
+
+    elementIdToOunitIdMap.forEach((elementId, ounitId) -> {
+      EwpOutgoingMobilityMapping mapping = existingMappings.get(elementId);
+      if (mapping == null) {
+        mapping = EwpOutgoingMobilityMapping.create(heiId, ounitId, elementId);
+      } else if (Objects.equals(mapping.getOunitId(), ounitId)) {
+        return;
+      } else {
+        mapping.setOunitId(ounitId);
+      }
+
+      if (!repository.persist(mapping)) {
+        throw new IllegalStateException("Failed to persist mapping: " + mapping);
+      }
+    });
+  }
+
+  private static EwpOunitMapping toOunitMapping(EwpOutgoingMobilityMapping mapping) {
+    return new EwpOunitMapping(mapping.getHeiId(), mapping.getOmobilityId(), mapping.getOunitId());
+  }
+}
@@ -0,0 +1,141 @@
+package pt.ulisboa.ewp.node.service.ewp.mapping.sync;
+
+import com.google.common.collect.Lists;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TriggerContext;
+import pt.ulisboa.ewp.host.plugin.skeleton.HostPlugin;
+import pt.ulisboa.ewp.host.plugin.skeleton.provider.HostProvider;
+import pt.ulisboa.ewp.node.config.sync.SyncProperties;
+import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+
+/**
+ * Base of the mapping sync services. Each (HEI ID, provider) pair is synchronized by its own
+ * worker, with up to a configured number of workers running concurrently.
+ *
+ * <p>For each pair it is kept a watermark (the moment when its last successful sync started), so
+ * that following syncs only ask the provider for what was modified since then. Watermarks are keyed
+ * by HEI ID and by the ID of the plugin of the provider, as different plugins may share the same
+ * provider class.
+ */
+public abstract class AbstractEwpMappingSyncService implements EwpMappingSyncService {
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  protected final SyncProperties syncProperties;
+  protected final HostPluginManager hostPluginManager;
+  private final EwpMappingSyncWatermarkService watermarkService;
+
+  protected AbstractEwpMappingSyncService(SyncProperties syncProperties,
+      HostPluginManager hostPluginManager, EwpMappingSyncWatermarkService watermarkService) {
+    this.syncProperties = syncProperties;
+    this.hostPluginManager = hostPluginManager;
+    this.watermarkService = watermarkService;
+  }
+
+  protected <P extends HostProvider> void syncProviders(String syncType,
+      Map<String, ? extends Collection<? extends P>> providersPerHeiId,
+      ProviderSynchronizer<P> synchronizer) {
+    ExecutorService executorService = Executors.newFixedThreadPool(
+        Math.max(1, syncProperties.getMappings().getParallelism()));
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Map.Entry<String, ? extends Collection<? extends P>> entry : providersPerHeiId.entrySet()) {
+        String heiId = entry.getKey();
+        for (P provider : entry.getValue()) {
+          futures.add(executorService.submit(
+              () -> syncProvider(syncType, heiId, provider, synchronizer)));
+        }
+      }
+
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private <P extends HostProvider> void syncProvider(String syncType, String heiId, P provider,
+      ProviderSynchronizer<P> synchronizer) {
+    String pluginId = getPluginId(provider);
+    ZonedDateTime syncStartDateTime = ZonedDateTime.now();
+    try {
+      Optional<ZonedDateTime> lastSyncDateTimeOptional =
+          watermarkService.getLastSyncDateTime(syncType, heiId, pluginId);
+      LocalDateTime modifiedSince = lastSyncDateTimeOptional
+          .map(d -> d.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime())
+          .orElse(null);
+
+      synchronizer.sync(heiId, provider, modifiedSince);
+
+      watermarkService.registerLastSyncDateTime(syncType, heiId, pluginId, syncStartDateTime);
+
+    } catch (RuntimeException e) {
+      // NOTE: A failing provider does not prevent the remaining ones from being synchronized.
+      // As its watermark is not updated, the next sync retries everything since its last success.
+      log.error("Failed to sync " + syncType + " mappings of HEI ID " + heiId + " from plugin "
+          + pluginId, e);
+    }
+  }
+
+  private String getPluginId(HostProvider provider) {
+    Optional<HostPlugin> pluginOptional = hostPluginManager.getHostPluginOfProvider(provider);
+    if (pluginOptional.isPresent() && pluginOptional.get().getWrapper() != null
+        && pluginOptional.get().getWrapper().getDescriptor() != null) {
+      return pluginOptional.get().getWrapper().getPluginId();
+    }
+    // NOTE: providers not registered through a plugin (e.g. on tests) are identified by class
+    return provider.getClass().getName();
+  }
+
+  protected static <T> List<List<T>> partition(Collection<T> elements, int maxChunkSize) {
+    if (elements == null) {
+      return new ArrayList<>();
+    }
+    return Lists.partition(new ArrayList<>(elements), Math.max(1, maxChunkSize));
+  }
+
+  public Date getNextExecutionTime(TriggerContext context) {
+    Optional<Date> lastCompletionTime = Optional.ofNullable(context.lastCompletionTime());
+    Instant nextExecutionTime =
+        lastCompletionTime
+            .orElseGet(Date::new)
+            .toInstant()
+            .plusMillis(syncProperties.getMappings().getIntervalInMilliseconds());
+    return Date.from(nextExecutionTime);
+  }
+
+  @FunctionalInterface
+  protected interface ProviderSynchronizer<P extends HostProvider> {
+
+    /**
+     * Synchronizes the mappings of a given HEI ID from a provider.
+     *
+     * @param modifiedSince If not null, only elements modified since this moment need to be
+     *     synchronized.
+     */
+    void sync(String heiId, P provider, LocalDateTime modifiedSince);
+  }
+}
@@ -1,11 +1,11 @@
 package pt.ulisboa.ewp.node.service.ewp.mapping.sync;
 
-import eu.erasmuswithoutpaper.api.iias.v6.endpoints.IiasGetResponseV6.Iia;
-import eu.erasmuswithoutpaper.api.iias.v6.endpoints.IiasGetResponseV6.Iia.Partner;
 import eu.erasmuswithoutpaper.api.iias.v7.endpoints.IiasGetResponseV7;
-import java.time.Instant;
-import java.util.*;
-import org.springframework.scheduling.TriggerContext;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.host.plugin.skeleton.provider.iias.InterInstitutionalAgreementsV7HostProvider;
 import pt.ulisboa.ewp.node.config.sync.SyncProperties;
@@ -18,17 +18,18 @@ import pt.ulisboa.ewp.node.service.ewp.mapping.EwpInterInstitutionalAgreementMap
  * stored on those external systems.
  */
 @Service
-public class EwpInterInstitutionalAgreementMappingSyncService implements EwpMappingSyncService {
+public class EwpInterInstitutionalAgreementMappingSyncService extends
+    AbstractEwpMappingSyncService {
+
+  private static final String SYNC_TYPE_IIAS_V7 = "iias-v7";
 
-  private final SyncProperties syncProperties;
-  private final HostPluginManager hostPluginManager;
   private final EwpInterInstitutionalAgreementMappingService mappingService;
 
   public EwpInterInstitutionalAgreementMappingSyncService(
       SyncProperties syncProperties, HostPluginManager hostPluginManager,
-      EwpInterInstitutionalAgreementMappingService mappingService) {
-    this.syncProperties = syncProperties;
-    this.hostPluginManager = hostPluginManager;
+      EwpInterInstitutionalAgreementMappingService mappingService,
+      EwpMappingSyncWatermarkService watermarkService) {
+    super(syncProperties, hostPluginManager, watermarkService);
     this.mappingService = mappingService;
   }
 
@@ -38,44 +39,40 @@ public class EwpInterInstitutionalAgreementMappingSyncService implements EwpMapp
   }
 
   private void syncInterInstitutionalAgreementsV7() {
-    Map<String, Collection<InterInstitutionalAgreementsV7HostProvider>> providersPerHeiId = hostPluginManager.getAllProvidersOfTypePerHeiId(
-        InterInstitutionalAgreementsV7HostProvider.class);
-    for (Map.Entry<String, Collection<InterInstitutionalAgreementsV7HostProvider>> entry : providersPerHeiId.entrySet()) {
-      String heiId = entry.getKey();
-      for (InterInstitutionalAgreementsV7HostProvider provider : entry.getValue()) {
-        syncInterInstitutionalAgreementsOfHeiIdV7(heiId, provider);
-      }
-    }
+    syncProviders(
+        SYNC_TYPE_IIAS_V7,
+        hostPluginManager.getAllProvidersOfTypePerHeiId(
+            InterInstitutionalAgreementsV7HostProvider.class),
+        this::syncInterInstitutionalAgreementsOfHeiIdV7);
   }
 
   private void syncInterInstitutionalAgreementsOfHeiIdV7(String heiId,
-      InterInstitutionalAgreementsV7HostProvider provider) {
+      InterInstitutionalAgreementsV7HostProvider provider, LocalDateTime modifiedSince) {
     Collection<String> iiaIds = provider.findAllIiaIdsByHeiId(heiId,
-        heiId, null, null);
-    for (String iiaId : iiaIds) {
-      syncInterInstitutionalAgreementV7(heiId, provider, iiaId);
+        heiId, null, modifiedSince);
+    for (List<String> iiaIdsChunk : partition(iiaIds, provider.getMaxIiaIdsPerRequest())) {
+      syncInterInstitutionalAgreementsV7(heiId, provider, iiaIdsChunk);
     }
   }
 
-  private void syncInterInstitutionalAgreementV7(String heiId,
+  private void syncInterInstitutionalAgreementsV7(String heiId,
       InterInstitutionalAgreementsV7HostProvider provider,
-      String iiaId) {
-    Optional<EwpInterInstitutionalAgreementMapping> mappingOptional = this.mappingService.getMapping(
-        heiId, iiaId);
-    if (mappingOptional.isEmpty()) {
-      Collection<IiasGetResponseV7.Iia> iias = provider.findByHeiIdAndIiaIds(heiId, heiId,
-          Collections.singletonList(iiaId));
-      registerMappingV7(heiId, iias.iterator().next());
+      List<String> iiaIds) {
+    Set<String> knownIiaIds = this.mappingService.getMappings(heiId, iiaIds).stream()
+        .map(EwpInterInstitutionalAgreementMapping::getIiaId)
+        .collect(Collectors.toSet());
+    List<String> unknownIiaIds = iiaIds.stream()
+        .filter(iiaId -> !knownIiaIds.contains(iiaId))
+        .collect(Collectors.toList());
+    if (unknownIiaIds.isEmpty()) {
+      return;
     }
-  }
 
-  private void registerMappingV6(String heiId, Iia iia) {
-    Partner partner = iia.getPartner().stream()
-        .filter(p -> heiId.equals(p.getHeiId()))
-        .findFirst()
-        .orElse(null);
-    assert partner != null;
-    this.mappingService.registerMapping(heiId, partner.getOunitId(), partner.getIiaId());
+    Collection<IiasGetResponseV7.Iia> iias = provider.findByHeiIdAndIiaIds(heiId, heiId,
+        unknownIiaIds);
+    for (IiasGetResponseV7.Iia iia : iias) {
+      registerMappingV7(heiId, iia);
+    }
   }
 
   private void registerMappingV7(String heiId, IiasGetResponseV7.Iia iia) {
@@ -86,14 +83,4 @@ public class EwpInterInstitutionalAgreementMappingSyncService implements EwpMapp
     assert partner != null;
     this.mappingService.registerMapping(heiId, partner.getOunitId(), partner.getIiaId());
   }
-
-  public Date getNextExecutionTime(TriggerContext context) {
-    Optional<Date> lastCompletionTime = Optional.ofNullable(context.lastCompletionTime());
-    Instant nextExecutionTime =
-        lastCompletionTime
-            .orElseGet(Date::new)
-            .toInstant()
-            .plusMillis(syncProperties.getMappings().getIntervalInMilliseconds());
-    return Date.from(nextExecutionTime);
-  }
 }
@@ -0,0 +1,44 @@
+package pt.ulisboa.ewp.node.service.ewp.mapping.sync;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import javax.transaction.Transactional;
+import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.node.domain.entity.mapping.EwpMappingSyncWatermark;
+import pt.ulisboa.ewp.node.domain.repository.mapping.EwpMappingSyncWatermarkRepository;
+
+@Service
+@Transactional
+public class EwpMappingSyncWatermarkService {
+
+  private final EwpMappingSyncWatermarkRepository repository;
+
+  public EwpMappingSyncWatermarkService(EwpMappingSyncWatermarkRepository repository) {
+    this.repository = repository;
+  }
+
+  public Optional<ZonedDateTime> getLastSyncDateTime(String syncType, String heiId,
+      String pluginId) {
+    return repository.findBySyncTypeAndHeiIdAndPluginId(syncType, heiId, pluginId)
+        .map(EwpMappingSyncWatermark::getLastSyncDateTime);
+  }
+
+  public void registerLastSyncDateTime(String syncType, String heiId, String pluginId,
+      ZonedDateTime lastSyncDateTime) {
+    Optional<EwpMappingSyncWatermark> watermarkOptional =
+        repository.findBySyncTypeAndHeiIdAndPluginId(syncType, heiId, pluginId);
+
+    EwpMappingSyncWatermark watermark;
+    if (watermarkOptional.isEmpty()) {
+      watermark = EwpMappingSyncWatermark.create(syncType, heiId, pluginId, lastSyncDateTime);
+
+    } else {
+      watermark = watermarkOptional.get();
+      watermark.setLastSyncDateTime(lastSyncDateTime);
+    }
+
+    if (!repository.persist(watermark)) {
+      throw new IllegalStateException();
+    }
+  }
+}
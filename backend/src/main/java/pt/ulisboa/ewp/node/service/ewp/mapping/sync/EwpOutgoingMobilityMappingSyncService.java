@@ -2,9 +2,12 @@ package pt.ulisboa.ewp.node.service.ewp.mapping.sync;
 
 import eu.erasmuswithoutpaper.api.omobilities.v1.endpoints.StudentMobilityForStudiesV1;
 import eu.erasmuswithoutpaper.api.omobilities.v2.endpoints.StudentMobilityV2;
-import java.time.Instant;
-import java.util.*;
-import org.springframework.scheduling.TriggerContext;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.host.plugin.skeleton.provider.omobilities.OutgoingMobilitiesV1HostProvider;
 import pt.ulisboa.ewp.host.plugin.skeleton.provider.omobilities.OutgoingMobilitiesV2HostProvider;
@@ -18,17 +21,18 @@ import pt.ulisboa.ewp.node.service.ewp.mapping.EwpOutgoingMobilityMappingService
  * Mobilities stored on those external systems.
  */
 @Service
-public class EwpOutgoingMobilityMappingSyncService implements EwpMappingSyncService {
+public class EwpOutgoingMobilityMappingSyncService extends AbstractEwpMappingSyncService {
+
+  private static final String SYNC_TYPE_OMOBILITIES_V1 = "omobilities-v1";
+  private static final String SYNC_TYPE_OMOBILITIES_V2 = "omobilities-v2";
 
-  private final SyncProperties syncProperties;
-  private final HostPluginManager hostPluginManager;
   private final EwpOutgoingMobilityMappingService mappingService;
 
   public EwpOutgoingMobilityMappingSyncService(
       SyncProperties syncProperties, HostPluginManager hostPluginManager,
-      EwpOutgoingMobilityMappingService mappingService) {
-    this.syncProperties = syncProperties;
-    this.hostPluginManager = hostPluginManager;
+      EwpOutgoingMobilityMappingService mappingService,
+      EwpMappingSyncWatermarkService watermarkService) {
+    super(syncProperties, hostPluginManager, watermarkService);
     this.mappingService = mappingService;
   }
 
@@ -39,69 +43,62 @@ public class EwpOutgoingMobilityMappingSyncService implements EwpMappingSyncServ
   }
 
   private void syncOutgoingMobilitiesFromProvidersV1() {
-    Map<String, Collection<OutgoingMobilitiesV1HostProvider>> providersPerHeiId = hostPluginManager.getAllProvidersOfTypePerHeiId(
-        OutgoingMobilitiesV1HostProvider.class);
-    for (Map.Entry<String, Collection<OutgoingMobilitiesV1HostProvider>> entry : providersPerHeiId.entrySet()) {
-      String heiId = entry.getKey();
-      for (OutgoingMobilitiesV1HostProvider provider : entry.getValue()) {
-        syncOutgoingMobilitiesOfHeiIdFromProviderV1(heiId, provider);
-      }
-    }
+    syncProviders(
+        SYNC_TYPE_OMOBILITIES_V1,
+        hostPluginManager.getAllProvidersOfTypePerHeiId(OutgoingMobilitiesV1HostProvider.class),
+        this::syncOutgoingMobilitiesOfHeiIdFromProviderV1);
   }
 
   private void syncOutgoingMobilitiesFromProvidersV2() {
-    Map<String, Collection<OutgoingMobilitiesV2HostProvider>> providersPerHeiId = hostPluginManager.getAllProvidersOfTypePerHeiId(
-        OutgoingMobilitiesV2HostProvider.class);
-    for (Map.Entry<String, Collection<OutgoingMobilitiesV2HostProvider>> entry : providersPerHeiId.entrySet()) {
-      String heiId = entry.getKey();
-      for (OutgoingMobilitiesV2HostProvider provider : entry.getValue()) {
-        syncOutgoingMobilitiesOfHeiIdFromProviderV2(heiId, provider);
-      }
-    }
+    syncProviders(
+        SYNC_TYPE_OMOBILITIES_V2,
+        hostPluginManager.getAllProvidersOfTypePerHeiId(OutgoingMobilitiesV2HostProvider.class),
+        this::syncOutgoingMobilitiesOfHeiIdFromProviderV2);
   }
 
   private void syncOutgoingMobilitiesOfHeiIdFromProviderV1(String heiId,
-      OutgoingMobilitiesV1HostProvider provider) {
+      OutgoingMobilitiesV1HostProvider provider, LocalDateTime modifiedSince) {
     Collection<String> outgoingMobilityIds = provider.findOutgoingMobilityIds(
         Collections.singletonList(heiId), heiId, null, null,
-        null);
-    for (String outgoingMobilityId : outgoingMobilityIds) {
-      syncOutgoingMobilityFromProviderV1(heiId, provider, outgoingMobilityId);
+        modifiedSince);
+    for (List<String> outgoingMobilityIdsChunk : partition(outgoingMobilityIds,
+        provider.getMaxOutgoingMobilityIdsPerRequest())) {
+      List<String> unknownOutgoingMobilityIds = getUnknownOutgoingMobilityIds(heiId,
+          outgoingMobilityIdsChunk);
+      if (!unknownOutgoingMobilityIds.isEmpty()) {
+        Collection<StudentMobilityForStudiesV1> outgoingMobilities = provider.findBySendingHeiIdAndOutgoingMobilityIds(
+            Collections.singletonList(heiId), heiId, unknownOutgoingMobilityIds);
+        outgoingMobilities.forEach(outgoingMobility -> registerMapping(heiId, outgoingMobility));
+      }
     }
   }
 
   private void syncOutgoingMobilitiesOfHeiIdFromProviderV2(String heiId,
-      OutgoingMobilitiesV2HostProvider provider) {
+      OutgoingMobilitiesV2HostProvider provider, LocalDateTime modifiedSince) {
     Collection<String> outgoingMobilityIds = provider.findOutgoingMobilityIds(
         Collections.singletonList(heiId), heiId, null, null,
-        null);
-    for (String outgoingMobilityId : outgoingMobilityIds) {
-      syncOutgoingMobilityFromProviderV2(heiId, provider, outgoingMobilityId);
-    }
-  }
-
-  private void syncOutgoingMobilityFromProviderV1(String heiId,
-      OutgoingMobilitiesV1HostProvider provider,
-      String outgoingMobilityId) {
-    Optional<EwpOutgoingMobilityMapping> mappingOptional = this.mappingService.getMapping(
-        heiId, outgoingMobilityId);
-    if (mappingOptional.isEmpty()) {
-      Collection<StudentMobilityForStudiesV1> outgoingMobilities = provider.findBySendingHeiIdAndOutgoingMobilityIds(
-          Collections.singletonList(heiId), heiId, Collections.singletonList(outgoingMobilityId));
-      registerMapping(heiId, outgoingMobilities.iterator().next());
+        modifiedSince);
+    for (List<String> outgoingMobilityIdsChunk : partition(outgoingMobilityIds,
+        provider.getMaxOutgoingMobilityIdsPerRequest())) {
+      List<String> unknownOutgoingMobilityIds = getUnknownOutgoingMobilityIds(heiId,
+          outgoingMobilityIdsChunk);
+      if (!unknownOutgoingMobilityIds.isEmpty()) {
+        Collection<StudentMobilityV2> outgoingMobilities = provider.findBySendingHeiIdAndOutgoingMobilityIds(
+            Collections.singletonList(heiId), heiId, unknownOutgoingMobilityIds);
+        outgoingMobilities.forEach(outgoingMobility -> registerMapping(heiId, outgoingMobility));
+      }
     }
   }
 
-  private void syncOutgoingMobilityFromProviderV2(String heiId,
-      OutgoingMobilitiesV2HostProvider provider,
-      String outgoingMobilityId) {
-    Optional<EwpOutgoingMobilityMapping> mappingOptional = this.mappingService.getMapping(
-        heiId, outgoingMobilityId);
-    if (mappingOptional.isEmpty()) {
-      Collection<StudentMobilityV2> outgoingMobilities = provider.findBySendingHeiIdAndOutgoingMobilityIds(
-          Collections.singletonList(heiId), heiId, Collections.singletonList(outgoingMobilityId));
-      registerMapping(heiId, outgoingMobilities.iterator().next());
-    }
+  private List<String> getUnknownOutgoingMobilityIds(String heiId,
+      List<String> outgoingMobilityIds) {
+    Set<String> knownOutgoingMobilityIds = this.mappingService.getMappings(heiId,
+            outgoingMobilityIds).stream()
+        .map(EwpOutgoingMobilityMapping::getOmobilityId)
+        .collect(Collectors.toSet());
+    return outgoingMobilityIds.stream()
+        .filter(outgoingMobilityId -> !knownOutgoingMobilityIds.contains(outgoingMobilityId))
+        .collect(Collectors.toList());
   }
 
   private void registerMapping(String heiId, StudentMobilityForStudiesV1 outgoingMobility) {
@@ -113,12 +110,4 @@ public class EwpOutgoingMobilityMappingSyncService implements EwpMappingSyncServ
     this.mappingService.registerMapping(heiId, outgoingMobility.getSendingHei().getOunitId(),
         outgoingMobility.getOmobilityId());
   }
-
-  public Date getNextExecutionTime(TriggerContext context) {
-    Optional<Date> lastCompletionTime =
-            Optional.ofNullable(context.lastCompletionTime());
-    Instant nextExecutionTime = lastCompletionTime.orElseGet(Date::new).toInstant()
-            .plusMillis(syncProperties.getMappings().getIntervalInMilliseconds());
-    return Date.from(nextExecutionTime);
-  }
 }
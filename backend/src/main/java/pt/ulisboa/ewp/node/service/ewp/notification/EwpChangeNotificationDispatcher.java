@@ -0,0 +1,214 @@
+package pt.ulisboa.ewp.node.service.ewp.notification;
+
+import com.google.common.util.concurrent.RateLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pt.ulisboa.ewp.node.config.cnr.CnrDispatcherProperties;
+import pt.ulisboa.ewp.node.config.cnr.CnrProperties;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpChangeNotification;
+
+/**
+ * Sends change notifications concurrently, on a bounded pool of threads.
+ *
+ * <p>Notifications are grouped by target HEI. Each target HEI has a limit of requests being
+ * sent at the same time and a rate limit (token bucket), so that a slow or unavailable partner
+ * only holds up the notifications targeting it.
+ *
+ * <p>Metrics are aggregated over all target HEIs, so that their number of series does not grow
+ * with the number of partners.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class EwpChangeNotificationDispatcher implements DisposableBean, MeterBinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EwpChangeNotificationDispatcher.class);
+
+  private final CnrDispatcherProperties properties;
+  private final ExecutorService executorService;
+  private final Map<String, TargetHeiState> heiIdToStateMap = new ConcurrentHashMap<>();
+  private final AtomicInteger numberInFlight = new AtomicInteger();
+  private final AtomicLong numberProcessed = new AtomicLong();
+  private volatile Timer lagTimer;
+
+  public EwpChangeNotificationDispatcher(CnrProperties cnrProperties) {
+    this.properties = cnrProperties.getDispatcher();
+    this.executorService = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()),
+        createThreadFactory());
+  }
+
+  /**
+   * Processes all given batches of change notifications, returning once all of them were
+   * processed. Each batch is sent on a single request to the target HEI of its change
+   * notifications. A failure to process a batch is logged and does not affect the remaining ones.
+   */
+  public void dispatch(Collection<List<EwpChangeNotification>> changeNotificationBatches,
+      Consumer<List<EwpChangeNotification>> processor) {
+    Map<String, Queue<List<EwpChangeNotification>>> heiIdToBatchesMap = new LinkedHashMap<>();
+    for (List<EwpChangeNotification> changeNotificationBatch : changeNotificationBatches) {
+      if (changeNotificationBatch.isEmpty()) {
+        continue;
+      }
+      heiIdToBatchesMap.computeIfAbsent(
+              String.valueOf(changeNotificationBatch.get(0).getTargetHeiId()),
+              h -> new ConcurrentLinkedQueue<>())
+          .add(changeNotificationBatch);
+    }
+
+    List<Future<?>> futures = new ArrayList<>();
+    for (Map.Entry<String, Queue<List<EwpChangeNotification>>> entry :
+        heiIdToBatchesMap.entrySet()) {
+      TargetHeiState state = getState(entry.getKey());
+      Queue<List<EwpChangeNotification>> queue = entry.getValue();
+      int numberWorkers = Math.min(Math.max(1, properties.getMaxConcurrentRequestsPerHei()),
+          queue.size());
+      for (int index = 0; index < numberWorkers; index++) {
+        futures.add(executorService.submit(() -> processAll(state, queue, processor)));
+      }
+    }
+
+    waitForAll(futures);
+  }
+
+  private void processAll(TargetHeiState state, Queue<List<EwpChangeNotification>> queue,
+      Consumer<List<EwpChangeNotification>> processor) {
+    List<EwpChangeNotification> changeNotificationBatch;
+    while ((changeNotificationBatch = queue.poll()) != null) {
+      if (state.rateLimiter != null) {
+        state.rateLimiter.acquire();
+      }
+
+      state.numberInFlight.incrementAndGet();
+      numberInFlight.incrementAndGet();
+      try {
+        changeNotificationBatch.forEach(this::recordLag);
+        processor.accept(changeNotificationBatch);
+
+      } catch (RuntimeException e) {
+        LOG.error(
+            String.format("Failed to process change notifications: %s", changeNotificationBatch),
+            e);
+
+      } finally {
+        numberInFlight.decrementAndGet();
+        state.numberInFlight.decrementAndGet();
+        numberProcessed.addAndGet(changeNotificationBatch.size());
+      }
+    }
+  }
+
+  private void recordLag(EwpChangeNotification changeNotification) {
+    Timer lagTimer = this.lagTimer;
+    ZonedDateTime scheduledDateTime = changeNotification.getScheduledDateTime();
+    if (lagTimer != null && scheduledDateTime != null) {
+      lagTimer.record(Duration.between(scheduledDateTime, ZonedDateTime.now()));
+    }
+  }
+
+  private void waitForAll(List<Future<?>> futures) {
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      futures.forEach(f -> f.cancel(true));
+
+    } catch (ExecutionException e) {
+      LOG.error("Unexpected failure while dispatching change notifications", e.getCause());
+    }
+  }
+
+  private TargetHeiState getState(String heiId) {
+    return heiIdToStateMap.computeIfAbsent(heiId, h -> new TargetHeiState(createRateLimiter()));
+  }
+
+  private RateLimiter createRateLimiter() {
+    if (properties.getMaxRequestsPerSecondPerHei() <= 0) {
+      return null;
+    }
+    return RateLimiter.create(properties.getMaxRequestsPerSecondPerHei());
+  }
+
+  /**
+   * Returns the highest number of requests being sent at the same time to a single target HEI.
+   */
+  public int getMaxInFlightPerHei() {
+    int result = 0;
+    for (TargetHeiState state : heiIdToStateMap.values()) {
+      result = Math.max(result, state.numberInFlight.get());
+    }
+    return result;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("ewp.cnr.dispatch.in.flight", numberInFlight, AtomicInteger::get)
+        .description("Number of change notification requests being sent")
+        .register(registry);
+    Gauge.builder("ewp.cnr.dispatch.hei.in.flight.max", this,
+            EwpChangeNotificationDispatcher::getMaxInFlightPerHei)
+        .description("Highest number of change notification requests being sent to a single "
+            + "target HEI")
+        .register(registry);
+    Gauge.builder("ewp.cnr.dispatch.heis", heiIdToStateMap, Map::size)
+        .description("Number of target HEIs to which change notifications were dispatched")
+        .register(registry);
+    registry.more().counter("ewp.cnr.dispatch.processed", List.of(), numberProcessed,
+        AtomicLong::doubleValue);
+    this.lagTimer = Timer.builder("ewp.cnr.dispatch.lag")
+        .description("Time between a change notification being due and starting to be sent")
+        .register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    executorService.shutdownNow();
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    AtomicInteger threadCounter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable,
+          "ewp-cnr-dispatcher-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static class TargetHeiState {
+
+    private final RateLimiter rateLimiter;
+    private final AtomicInteger numberInFlight = new AtomicInteger();
+
+    TargetHeiState(RateLimiter rateLimiter) {
+      this.rateLimiter = rateLimiter;
+    }
+  }
+}
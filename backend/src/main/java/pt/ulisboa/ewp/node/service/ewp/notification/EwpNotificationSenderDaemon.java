@@ -22,6 +22,7 @@ public class EwpNotificationSenderDaemon implements Runnable {
 
   private final CnrProperties cnrProperties;
   private final EwpChangeNotificationRepository changeNotificationRepository;
+  private final EwpChangeNotificationDispatcher changeNotificationDispatcher;
 
   private final Map<Class<?>, EwpChangeNotificationHandler> classTypeToSenderHandlerMap =
       new HashMap<>();
@@ -29,9 +30,11 @@ public class EwpNotificationSenderDaemon implements Runnable {
   public EwpNotificationSenderDaemon(
       CnrProperties cnrProperties,
       EwpChangeNotificationRepository changeNotificationRepository,
+      EwpChangeNotificationDispatcher changeNotificationDispatcher,
       Collection<EwpChangeNotificationHandler> changeNotificationHandlers) {
     this.cnrProperties = cnrProperties;
     this.changeNotificationRepository = changeNotificationRepository;
+    this.changeNotificationDispatcher = changeNotificationDispatcher;
 
     this.setChangeNotificationHandlers(changeNotificationHandlers);
   }
@@ -54,62 +57,143 @@ public class EwpNotificationSenderDaemon implements Runnable {
 
   @Override
   public void run() {
-    Collection<EwpChangeNotification> changeNotifications =
-        this.changeNotificationRepository.findAllPending();
+    ZonedDateTime now = ZonedDateTime.now();
+    List<EwpChangeNotification> dueChangeNotifications =
+        this.changeNotificationRepository.claimDuePending(
+            now,
+            Math.max(1, cnrProperties.getDispatcher().getPageSize()),
+            now.plusSeconds(cnrProperties.getDispatcher().getClaimTimeoutInSeconds()));
+    List<EwpChangeNotification> changeNotificationsToSend =
+        mergeChangeNotifications(dueChangeNotifications);
+    this.changeNotificationDispatcher.dispatch(batchChangeNotifications(changeNotificationsToSend),
+        this::tryProcessChangeNotifications);
+  }
+
+  /**
+   * Merges change notifications into more recent equivalent ones (e.g. enqueued concurrently),
+   * returning the change notifications that remain to be sent. Equivalent change notifications are
+   * found by type and merge key attributes (see {@link
+   * EwpChangeNotification#getMergeKeyAttributes()}).
+   */
+  private List<EwpChangeNotification> mergeChangeNotifications(
+      List<EwpChangeNotification> changeNotifications) {
+    List<EwpChangeNotification> mostRecentFirstChangeNotifications = new ArrayList<>(
+        changeNotifications);
+    mostRecentFirstChangeNotifications.sort(
+        Comparator.comparing(EwpChangeNotification::getCreationDateTime).reversed());
+
+    Map<List<Object>, EwpChangeNotification> mergeKeyToChangeNotificationMap = new HashMap<>();
+    List<EwpChangeNotification> result = new ArrayList<>();
+    for (EwpChangeNotification changeNotification : mostRecentFirstChangeNotifications) {
+      List<Object> mergeKey =
+          List.of(changeNotification.getClass(), changeNotification.getMergeKeyAttributes());
+      EwpChangeNotification mergeTarget = mergeKeyToChangeNotificationMap.get(mergeKey);
+      if (mergeTarget != null && changeNotification.canBeMergedInto(mergeTarget)) {
+        changeNotification.markAsMerged(mergeTarget);
+        changeNotificationRepository.persist(changeNotification);
+      } else {
+        mergeKeyToChangeNotificationMap.putIfAbsent(mergeKey, changeNotification);
+        result.add(changeNotification);
+      }
+    }
+
+    result.sort(Comparator.comparing(EwpChangeNotification::getScheduledDateTime));
+    return result;
+  }
+
+  /**
+   * Groups change notifications that may be sent on a single request to the target HEI. Only
+   * change notifications of the same type and target HEI are considered for a same batch.
+   */
+  private List<List<EwpChangeNotification>> batchChangeNotifications(
+      List<EwpChangeNotification> changeNotifications) {
+    List<List<EwpChangeNotification>> result = new ArrayList<>();
+    Map<List<Object>, List<List<EwpChangeNotification>>> batchKeyToBatchesMap = new HashMap<>();
     for (EwpChangeNotification changeNotification : changeNotifications) {
-      if (ZonedDateTime.now().isAfter(changeNotification.getScheduledDateTime())) {
-        try {
-          processChangeNotification(changeNotification);
-        } catch (Exception e) {
-          LOG.error(
-              String.format("Failed to process change notification: %s", changeNotification), e);
-          throw new RuntimeException(e);
-        }
+      // NOTE: change notifications that cannot be batched at all (e.g. IIAs) are sent alone
+      if (!changeNotification.canBeBatchedWith(changeNotification)) {
+        result.add(new ArrayList<>(List.of(changeNotification)));
+        continue;
+      }
+
+      List<Object> batchKey =
+          Arrays.asList(changeNotification.getClass(), changeNotification.getTargetHeiId());
+      List<List<EwpChangeNotification>> batches =
+          batchKeyToBatchesMap.computeIfAbsent(batchKey, k -> new ArrayList<>());
+      Optional<List<EwpChangeNotification>> batchOptional = batches.stream()
+          .filter(b -> b.get(0).canBeBatchedWith(changeNotification))
+          .findFirst();
+      if (batchOptional.isPresent()) {
+        batchOptional.get().add(changeNotification);
+      } else {
+        List<EwpChangeNotification> batch = new ArrayList<>();
+        batch.add(changeNotification);
+        batches.add(batch);
+        result.add(batch);
       }
     }
+    return result;
+  }
+
+  private void tryProcessChangeNotifications(List<EwpChangeNotification> changeNotifications) {
+    try {
+      processChangeNotifications(changeNotifications);
+    } catch (Exception e) {
+      LOG.error(
+          String.format("Failed to process change notifications: %s", changeNotifications), e);
+    }
   }
 
-  private void processChangeNotification(EwpChangeNotification ewpChangeNotification)
+  private void processChangeNotifications(List<EwpChangeNotification> changeNotifications)
       throws Exception {
     CommunicationContextHolder.runInNestedContext(
         context -> {
-          context.setCurrentEwpChangeNotifications(List.of(ewpChangeNotification));
+          context.setCurrentEwpChangeNotifications(changeNotifications);
 
           try {
-            sendChangeNotification(ewpChangeNotification);
+            sendChangeNotifications(changeNotifications);
 
-            ewpChangeNotification.markAsSuccess();
-            changeNotificationRepository.persist(ewpChangeNotification);
+            for (EwpChangeNotification changeNotification : changeNotifications) {
+              changeNotification.markAsSuccess();
+              changeNotificationRepository.persist(changeNotification);
+            }
 
           } catch (NoEwpCnrAPIException e) {
             LOG.error(
                 String.format(
-                    "Discarding change notification due to no CNR API available: %s",
-                    ewpChangeNotification),
+                    "Discarding change notifications due to no CNR API available: %s",
+                    changeNotifications),
                 e);
-            ewpChangeNotification.markAsFailedDueToNoCnrApiAvailable();
-            changeNotificationRepository.persist(ewpChangeNotification);
+            for (EwpChangeNotification changeNotification : changeNotifications) {
+              changeNotification.markAsFailedDueToNoCnrApiAvailable();
+              changeNotificationRepository.persist(changeNotification);
+            }
 
           } catch (Exception e) {
             LOG.error(
-                String.format("Failed to send change notification: %s", ewpChangeNotification), e);
-            scheduleNewAttempt(ewpChangeNotification);
+                String.format("Failed to send change notifications: %s", changeNotifications), e);
+            changeNotifications.forEach(this::scheduleNewAttempt);
           }
 
           return null;
         });
   }
 
-  private void sendChangeNotification(EwpChangeNotification changeNotification)
+  private void sendChangeNotifications(List<EwpChangeNotification> changeNotifications)
       throws EwpClientErrorException, NoEwpCnrAPIException {
 
+    EwpChangeNotification firstChangeNotification = changeNotifications.get(0);
     Optional<EwpChangeNotificationHandler> senderHandlerOptional =
-        this.getSenderHandlerForClassType(changeNotification.getClass());
-    if (senderHandlerOptional.isPresent()) {
-      senderHandlerOptional.get().sendChangeNotification(changeNotification);
-    } else {
+        this.getSenderHandlerForClassType(firstChangeNotification.getClass());
+    if (senderHandlerOptional.isEmpty()) {
       throw new IllegalStateException(
-          "Unsupported change notification type: " + changeNotification);
+          "Unsupported change notification type: " + firstChangeNotification);
+    }
+
+    if (changeNotifications.size() == 1) {
+      senderHandlerOptional.get().sendChangeNotification(firstChangeNotification);
+    } else {
+      senderHandlerOptional.get().sendChangeNotifications(changeNotifications);
     }
   }
 
@@ -1,5 +1,9 @@
 package pt.ulisboa.ewp.node.service.ewp.notification.handler;
 
+import com.google.common.collect.Lists;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientErrorException;
 import pt.ulisboa.ewp.node.client.ewp.registry.RegistryClient;
@@ -20,8 +24,45 @@ public abstract class EwpChangeNotificationHandler {
   public abstract void sendChangeNotification(EwpChangeNotification changeNotification)
       throws EwpClientErrorException, NoEwpCnrAPIException;
 
+  /**
+   * Sends change notifications that can be batched with each other (see {@link
+   * EwpChangeNotification#canBeBatchedWith(EwpChangeNotification)}). By default, each change
+   * notification is sent on its own request.
+   */
+  public void sendChangeNotifications(List<EwpChangeNotification> changeNotifications)
+      throws EwpClientErrorException, NoEwpCnrAPIException {
+    for (EwpChangeNotification changeNotification : changeNotifications) {
+      sendChangeNotification(changeNotification);
+    }
+  }
+
   protected RegistryClient getRegistryClient() {
     return registryClient;
   }
 
+  protected <T extends EwpChangeNotification> List<T> castChangeNotifications(
+      List<EwpChangeNotification> changeNotifications, Class<T> classType) {
+    List<T> result = new ArrayList<>();
+    for (EwpChangeNotification changeNotification : changeNotifications) {
+      if (!classType.isInstance(changeNotification)) {
+        throw new IllegalArgumentException(
+            "Invalid change notification type: " + changeNotification);
+      }
+      result.add(classType.cast(changeNotification));
+    }
+    return result;
+  }
+
+  /**
+   * Splits elements in chunks of at most a given size, as advertised by the target HEI (if it is
+   * null then all elements are kept in a single chunk).
+   */
+  protected static <T> List<List<T>> partition(List<T> elements, BigInteger maxChunkSize) {
+    int chunkSize = Integer.MAX_VALUE;
+    if (maxChunkSize != null && maxChunkSize.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) < 0) {
+      chunkSize = Math.max(1, maxChunkSize.intValueExact());
+    }
+    return Lists.partition(elements, chunkSize);
+  }
+
 }
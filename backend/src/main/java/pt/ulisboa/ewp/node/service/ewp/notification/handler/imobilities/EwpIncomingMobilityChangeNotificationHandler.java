@@ -1,7 +1,9 @@
 package pt.ulisboa.ewp.node.service.ewp.notification.handler.imobilities;
 
+import java.math.BigInteger;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiUtils;
 import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientErrorException;
@@ -12,6 +14,7 @@ import pt.ulisboa.ewp.node.domain.entity.notification.EwpIncomingMobilityChangeN
 import pt.ulisboa.ewp.node.service.ewp.notification.exception.NoEwpCnrAPIException;
 import pt.ulisboa.ewp.node.service.ewp.notification.handler.EwpChangeNotificationHandler;
 import pt.ulisboa.ewp.node.utils.EwpApi;
+import pt.ulisboa.ewp.node.utils.EwpApiSpecification.IncomingMobilityCnr;
 
 @Service
 public class EwpIncomingMobilityChangeNotificationHandler extends
@@ -35,31 +38,42 @@ public class EwpIncomingMobilityChangeNotificationHandler extends
   public void sendChangeNotification(
       EwpChangeNotification changeNotification)
       throws EwpClientErrorException, NoEwpCnrAPIException {
+    sendChangeNotifications(Collections.singletonList(changeNotification));
+  }
 
-    if (!(changeNotification instanceof EwpIncomingMobilityChangeNotification)) {
-      throw new IllegalArgumentException("Invalid change notification type: " + changeNotification);
-    }
+  @Override
+  public void sendChangeNotifications(
+      List<EwpChangeNotification> changeNotifications)
+      throws EwpClientErrorException, NoEwpCnrAPIException {
 
-    EwpIncomingMobilityChangeNotification incomingMobilityChangeNotification = (EwpIncomingMobilityChangeNotification) changeNotification;
+    List<EwpIncomingMobilityChangeNotification> incomingMobilityChangeNotifications = castChangeNotifications(
+        changeNotifications, EwpIncomingMobilityChangeNotification.class);
 
-    String targetHeiId = incomingMobilityChangeNotification.getSendingHeiId();
+    String targetHeiId = incomingMobilityChangeNotifications.get(0).getSendingHeiId();
     List<Integer> supportedMajorVersions = EwpApiUtils.getSupportedMajorVersions(
         getRegistryClient(), targetHeiId, EwpApi.INCOMING_MOBILITY_CNR);
 
     if (supportedMajorVersions.contains(1)) {
-      sendChangeNotificationVersion1(incomingMobilityChangeNotification);
+      sendChangeNotificationsVersion1(targetHeiId, incomingMobilityChangeNotifications);
     } else {
-      throw new NoEwpCnrAPIException(changeNotification);
+      throw new NoEwpCnrAPIException(changeNotifications.get(0));
     }
   }
 
-  private void sendChangeNotificationVersion1(
-      EwpIncomingMobilityChangeNotification changeNotification)
+  private void sendChangeNotificationsVersion1(String targetHeiId,
+      List<EwpIncomingMobilityChangeNotification> changeNotifications)
       throws EwpClientErrorException {
 
-    incomingMobilityCnrV1Client.sendChangeNotification(
-        changeNotification.getSendingHeiId(),
-        changeNotification.getReceivingHeiId(),
-        Collections.singletonList(changeNotification.getOutgoingMobilityId()));
+    BigInteger maxOmobilityIds = IncomingMobilityCnr.V1.getConfigurationForHeiId(
+        getRegistryClient(), targetHeiId).getMaxOmobilityIds();
+    for (List<EwpIncomingMobilityChangeNotification> changeNotificationsChunk : partition(changeNotifications,
+        maxOmobilityIds)) {
+      incomingMobilityCnrV1Client.sendChangeNotification(
+          changeNotificationsChunk.get(0).getSendingHeiId(),
+          changeNotificationsChunk.get(0).getReceivingHeiId(),
+          changeNotificationsChunk.stream()
+              .map(EwpIncomingMobilityChangeNotification::getOutgoingMobilityId)
+              .collect(Collectors.toList()));
+    }
   }
 }
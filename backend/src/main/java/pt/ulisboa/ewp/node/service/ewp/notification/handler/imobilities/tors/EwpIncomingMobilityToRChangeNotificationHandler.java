@@ -1,7 +1,9 @@
 package pt.ulisboa.ewp.node.service.ewp.notification.handler.imobilities.tors;
 
+import java.math.BigInteger;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiUtils;
 import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientErrorException;
@@ -12,6 +14,7 @@ import pt.ulisboa.ewp.node.domain.entity.notification.EwpIncomingMobilityToRChan
 import pt.ulisboa.ewp.node.service.ewp.notification.exception.NoEwpCnrAPIException;
 import pt.ulisboa.ewp.node.service.ewp.notification.handler.EwpChangeNotificationHandler;
 import pt.ulisboa.ewp.node.utils.EwpApi;
+import pt.ulisboa.ewp.node.utils.EwpApiSpecification.IncomingMobilityToRCnr;
 
 @Service
 public class EwpIncomingMobilityToRChangeNotificationHandler extends
@@ -35,31 +38,42 @@ public class EwpIncomingMobilityToRChangeNotificationHandler extends
   public void sendChangeNotification(
       EwpChangeNotification changeNotification)
       throws EwpClientErrorException, NoEwpCnrAPIException {
+    sendChangeNotifications(Collections.singletonList(changeNotification));
+  }
 
-    if (!(changeNotification instanceof EwpIncomingMobilityToRChangeNotification)) {
-      throw new IllegalArgumentException("Invalid change notification type: " + changeNotification);
-    }
+  @Override
+  public void sendChangeNotifications(
+      List<EwpChangeNotification> changeNotifications)
+      throws EwpClientErrorException, NoEwpCnrAPIException {
 
-    EwpIncomingMobilityToRChangeNotification incomingMobilityToRChangeNotification = (EwpIncomingMobilityToRChangeNotification) changeNotification;
+    List<EwpIncomingMobilityToRChangeNotification> incomingMobilityToRChangeNotifications = castChangeNotifications(
+        changeNotifications, EwpIncomingMobilityToRChangeNotification.class);
 
-    String targetHeiId = incomingMobilityToRChangeNotification.getSendingHeiId();
+    String targetHeiId = incomingMobilityToRChangeNotifications.get(0).getSendingHeiId();
     List<Integer> supportedMajorVersions = EwpApiUtils.getSupportedMajorVersions(
         getRegistryClient(), targetHeiId, EwpApi.INCOMING_MOBILITY_TOR_CNR);
 
     if (supportedMajorVersions.contains(1)) {
-      sendChangeNotificationVersion1(incomingMobilityToRChangeNotification);
+      sendChangeNotificationsVersion1(targetHeiId, incomingMobilityToRChangeNotifications);
     } else {
-      throw new NoEwpCnrAPIException(changeNotification);
+      throw new NoEwpCnrAPIException(changeNotifications.get(0));
     }
   }
 
-  private void sendChangeNotificationVersion1(
-      EwpIncomingMobilityToRChangeNotification changeNotification)
+  private void sendChangeNotificationsVersion1(String targetHeiId,
+      List<EwpIncomingMobilityToRChangeNotification> changeNotifications)
       throws EwpClientErrorException {
 
-    incomingMobilityToRCnrV1Client.sendChangeNotification(
-        changeNotification.getSendingHeiId(),
-        changeNotification.getReceivingHeiId(),
-        Collections.singletonList(changeNotification.getOutgoingMobilityId()));
+    BigInteger maxOmobilityIds = IncomingMobilityToRCnr.V1.getConfigurationForHeiId(
+        getRegistryClient(), targetHeiId).getMaxOmobilityIds();
+    for (List<EwpIncomingMobilityToRChangeNotification> changeNotificationsChunk : partition(changeNotifications,
+        maxOmobilityIds)) {
+      incomingMobilityToRCnrV1Client.sendChangeNotification(
+          changeNotificationsChunk.get(0).getSendingHeiId(),
+          changeNotificationsChunk.get(0).getReceivingHeiId(),
+          changeNotificationsChunk.stream()
+              .map(EwpIncomingMobilityToRChangeNotification::getOutgoingMobilityId)
+              .collect(Collectors.toList()));
+    }
   }
 }
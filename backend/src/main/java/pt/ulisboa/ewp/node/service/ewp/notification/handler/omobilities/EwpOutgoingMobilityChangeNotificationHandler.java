@@ -1,7 +1,9 @@
 package pt.ulisboa.ewp.node.service.ewp.notification.handler.omobilities;
 
+import java.math.BigInteger;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiUtils;
 import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientErrorException;
@@ -12,6 +14,7 @@ import pt.ulisboa.ewp.node.domain.entity.notification.EwpOutgoingMobilityChangeN
 import pt.ulisboa.ewp.node.service.ewp.notification.exception.NoEwpCnrAPIException;
 import pt.ulisboa.ewp.node.service.ewp.notification.handler.EwpChangeNotificationHandler;
 import pt.ulisboa.ewp.node.utils.EwpApi;
+import pt.ulisboa.ewp.node.utils.EwpApiSpecification.OutgoingMobilityCnr;
 
 @Service
 public class EwpOutgoingMobilityChangeNotificationHandler extends
@@ -35,31 +38,42 @@ public class EwpOutgoingMobilityChangeNotificationHandler extends
   public void sendChangeNotification(
       EwpChangeNotification changeNotification)
       throws EwpClientErrorException, NoEwpCnrAPIException {
+    sendChangeNotifications(Collections.singletonList(changeNotification));
+  }
 
-    if (!(changeNotification instanceof EwpOutgoingMobilityChangeNotification)) {
-      throw new IllegalArgumentException("Invalid change notification type: " + changeNotification);
-    }
+  @Override
+  public void sendChangeNotifications(
+      List<EwpChangeNotification> changeNotifications)
+      throws EwpClientErrorException, NoEwpCnrAPIException {
 
-    EwpOutgoingMobilityChangeNotification outgoingMobilityChangeNotification = (EwpOutgoingMobilityChangeNotification) changeNotification;
+    List<EwpOutgoingMobilityChangeNotification> outgoingMobilityChangeNotifications = castChangeNotifications(
+        changeNotifications, EwpOutgoingMobilityChangeNotification.class);
 
-    String targetHeiId = outgoingMobilityChangeNotification.getReceivingHeiId();
+    String targetHeiId = outgoingMobilityChangeNotifications.get(0).getReceivingHeiId();
     List<Integer> supportedMajorVersions = EwpApiUtils.getSupportedMajorVersions(
         getRegistryClient(), targetHeiId, EwpApi.OUTGOING_MOBILITY_CNR);
 
     if (supportedMajorVersions.contains(1)) {
-      sendChangeNotificationVersion1(outgoingMobilityChangeNotification);
+      sendChangeNotificationsVersion1(targetHeiId, outgoingMobilityChangeNotifications);
     } else {
-      throw new NoEwpCnrAPIException(changeNotification);
+      throw new NoEwpCnrAPIException(changeNotifications.get(0));
     }
   }
 
-  private void sendChangeNotificationVersion1(
-      EwpOutgoingMobilityChangeNotification changeNotification)
+  private void sendChangeNotificationsVersion1(String targetHeiId,
+      List<EwpOutgoingMobilityChangeNotification> changeNotifications)
       throws EwpClientErrorException {
 
-    outgoingMobilityCnrV1Client.sendChangeNotification(
-        changeNotification.getSendingHeiId(),
-        changeNotification.getReceivingHeiId(),
-        Collections.singletonList(changeNotification.getOutgoingMobilityId()));
+    BigInteger maxOmobilityIds = OutgoingMobilityCnr.V1.getConfigurationForHeiId(
+        getRegistryClient(), targetHeiId).getMaxOmobilityIds();
+    for (List<EwpOutgoingMobilityChangeNotification> changeNotificationsChunk : partition(changeNotifications,
+        maxOmobilityIds)) {
+      outgoingMobilityCnrV1Client.sendChangeNotification(
+          changeNotificationsChunk.get(0).getSendingHeiId(),
+          changeNotificationsChunk.get(0).getReceivingHeiId(),
+          changeNotificationsChunk.stream()
+              .map(EwpOutgoingMobilityChangeNotification::getOutgoingMobilityId)
+              .collect(Collectors.toList()));
+    }
   }
 }
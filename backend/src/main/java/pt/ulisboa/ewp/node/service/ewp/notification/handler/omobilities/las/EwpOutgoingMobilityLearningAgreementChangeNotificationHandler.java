@@ -1,7 +1,9 @@
 package pt.ulisboa.ewp.node.service.ewp.notification.handler.omobilities.las;
 
+import java.math.BigInteger;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import pt.ulisboa.ewp.node.api.ewp.utils.EwpApiUtils;
 import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientErrorException;
@@ -12,6 +14,7 @@ import pt.ulisboa.ewp.node.domain.entity.notification.EwpOutgoingMobilityLearnin
 import pt.ulisboa.ewp.node.service.ewp.notification.exception.NoEwpCnrAPIException;
 import pt.ulisboa.ewp.node.service.ewp.notification.handler.EwpChangeNotificationHandler;
 import pt.ulisboa.ewp.node.utils.EwpApi;
+import pt.ulisboa.ewp.node.utils.EwpApiSpecification.OutgoingMobilityLearningAgreementCnr;
 
 @Service
 public class EwpOutgoingMobilityLearningAgreementChangeNotificationHandler extends
@@ -35,32 +38,42 @@ public class EwpOutgoingMobilityLearningAgreementChangeNotificationHandler exten
   public void sendChangeNotification(
       EwpChangeNotification changeNotification)
       throws EwpClientErrorException, NoEwpCnrAPIException {
+    sendChangeNotifications(Collections.singletonList(changeNotification));
+  }
 
-    if (!(changeNotification instanceof EwpOutgoingMobilityLearningAgreementChangeNotification)) {
-      throw new IllegalArgumentException("Invalid change notification type: " + changeNotification);
-    }
+  @Override
+  public void sendChangeNotifications(
+      List<EwpChangeNotification> changeNotifications)
+      throws EwpClientErrorException, NoEwpCnrAPIException {
 
-    EwpOutgoingMobilityLearningAgreementChangeNotification outgoingMobilityLearningAgreementChangeNotification = (EwpOutgoingMobilityLearningAgreementChangeNotification) changeNotification;
+    List<EwpOutgoingMobilityLearningAgreementChangeNotification> outgoingMobilityLearningAgreementChangeNotifications = castChangeNotifications(
+        changeNotifications, EwpOutgoingMobilityLearningAgreementChangeNotification.class);
 
-    String targetHeiId = outgoingMobilityLearningAgreementChangeNotification.getReceivingHeiId();
+    String targetHeiId = outgoingMobilityLearningAgreementChangeNotifications.get(0).getReceivingHeiId();
     List<Integer> supportedMajorVersions = EwpApiUtils.getSupportedMajorVersions(
         getRegistryClient(), targetHeiId, EwpApi.OUTGOING_MOBILITY_LEARNING_AGREEMENT_CNR);
 
     if (supportedMajorVersions.contains(1)) {
-      sendChangeNotificationVersion1(outgoingMobilityLearningAgreementChangeNotification);
+      sendChangeNotificationsVersion1(targetHeiId, outgoingMobilityLearningAgreementChangeNotifications);
     } else {
-      throw new NoEwpCnrAPIException(changeNotification);
+      throw new NoEwpCnrAPIException(changeNotifications.get(0));
     }
   }
 
-  private void sendChangeNotificationVersion1(
-      EwpOutgoingMobilityLearningAgreementChangeNotification changeNotification)
+  private void sendChangeNotificationsVersion1(String targetHeiId,
+      List<EwpOutgoingMobilityLearningAgreementChangeNotification> changeNotifications)
       throws EwpClientErrorException {
 
-    outgoingMobilityLearningAgreementCnrV1Client.sendChangeNotification(
-        changeNotification.getSendingHeiId(),
-        changeNotification.getReceivingHeiId(),
-        Collections.singletonList(
-            changeNotification.getOutgoingMobilityId()));
+    BigInteger maxOmobilityIds = OutgoingMobilityLearningAgreementCnr.V1.getConfigurationForHeiId(
+        getRegistryClient(), targetHeiId).getMaxOmobilityIds();
+    for (List<EwpOutgoingMobilityLearningAgreementChangeNotification> changeNotificationsChunk : partition(changeNotifications,
+        maxOmobilityIds)) {
+      outgoingMobilityLearningAgreementCnrV1Client.sendChangeNotification(
+          changeNotificationsChunk.get(0).getSendingHeiId(),
+          changeNotificationsChunk.get(0).getReceivingHeiId(),
+          changeNotificationsChunk.stream()
+              .map(EwpOutgoingMobilityLearningAgreementChangeNotification::getOutgoingMobilityId)
+              .collect(Collectors.toList()));
+    }
   }
 }
@@ -0,0 +1,327 @@
+package pt.ulisboa.ewp.node.service.ewp.notification.received;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.node.config.cnr.CnrInboxProperties;
+import pt.ulisboa.ewp.node.config.cnr.CnrProperties;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.domain.repository.notification.EwpReceivedChangeNotificationRepository;
+import pt.ulisboa.ewp.node.exception.ewp.EwpBadRequestException;
+import pt.ulisboa.ewp.node.service.communication.context.CommunicationContextHolder;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.handler.EwpReceivedChangeNotificationHandler;
+
+/**
+ * Forwards change notifications received from other EWP nodes to the host plugins.
+ *
+ * <p>If the inbox is enabled (see {@link CnrInboxProperties#isEnabled()}), received change
+ * notifications are stored and acknowledged immediately, being forwarded later on by {@link
+ * #processDue()}, on a bounded pool of threads. A change notification of an element that is still
+ * waiting to be processed is discarded, as the host plugins will obtain the latest state of that
+ * element anyway. Otherwise, received change notifications are forwarded while the notifier waits
+ * for the response.
+ */
+@Service
+public class EwpReceivedChangeNotificationInbox implements MeterBinder, DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(
+      EwpReceivedChangeNotificationInbox.class);
+
+  private final CnrInboxProperties properties;
+  private final EwpReceivedChangeNotificationRepository repository;
+  private final Map<EwpReceivedChangeNotification.Type, EwpReceivedChangeNotificationHandler>
+      typeToHandlerMap = new EnumMap<>(EwpReceivedChangeNotification.Type.class);
+  private final ExecutorService executorService;
+
+  private final AtomicLong numberPending = new AtomicLong();
+  private final AtomicLong numberReceived = new AtomicLong();
+  private final AtomicLong numberDeduplicated = new AtomicLong();
+  private final AtomicLong numberProcessed = new AtomicLong();
+  private final AtomicLong numberFailures = new AtomicLong();
+  private volatile Timer latencyTimer;
+
+  public EwpReceivedChangeNotificationInbox(
+      CnrProperties cnrProperties,
+      EwpReceivedChangeNotificationRepository repository,
+      Collection<EwpReceivedChangeNotificationHandler> handlers) {
+    this.properties = cnrProperties.getInbox();
+    this.repository = repository;
+    for (EwpReceivedChangeNotificationHandler handler : handlers) {
+      this.typeToHandlerMap.put(handler.getSupportedType(), handler);
+    }
+    this.executorService = properties.isEnabled()
+        ? Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()),
+        createThreadFactory())
+        : null;
+  }
+
+  /**
+   * Receives a change notification of some elements.
+   *
+   * @throws EwpBadRequestException if the inbox is disabled and the change notification is invalid
+   */
+  public void receive(EwpReceivedChangeNotification.Type type, String notifierHeiId,
+      String localHeiId, List<String> elementIds) {
+    numberReceived.addAndGet(elementIds.size());
+    if (!properties.isEnabled()) {
+      getHandler(type).onChangeNotification(notifierHeiId, localHeiId, elementIds);
+      numberProcessed.addAndGet(elementIds.size());
+      return;
+    }
+
+    Set<String> distinctElementIds = new LinkedHashSet<>(elementIds);
+    Set<String> alreadyPendingElementIds = repository.findElementIdsWithUnclaimedPending(type,
+        notifierHeiId, localHeiId, distinctElementIds);
+    numberDeduplicated.addAndGet(elementIds.size() - distinctElementIds.size()
+        + alreadyPendingElementIds.size());
+
+    for (String elementId : distinctElementIds) {
+      if (!alreadyPendingElementIds.contains(elementId)) {
+        repository.persist(
+            new EwpReceivedChangeNotification(type, notifierHeiId, localHeiId, elementId));
+        numberPending.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Processes the received change notifications that are due, returning once all of them were
+   * processed. Change notifications with the same type, notifier and local HEI are forwarded
+   * together to the host plugins, unless their handler forwards each element on its own (see
+   * {@link EwpReceivedChangeNotificationHandler#isForwardedPerElement()}), in which case each one
+   * is forwarded (and its outcome recorded) separately.
+   */
+  public void processDue() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+
+    ZonedDateTime now = ZonedDateTime.now();
+    List<EwpReceivedChangeNotification> changeNotifications = repository.claimDuePending(now,
+        Math.max(1, properties.getPageSize()),
+        now.plusSeconds(properties.getClaimTimeoutInSeconds()));
+
+    Map<GroupKey, List<EwpReceivedChangeNotification>> groups = new LinkedHashMap<>();
+    for (EwpReceivedChangeNotification changeNotification : changeNotifications) {
+      EwpReceivedChangeNotificationHandler handler =
+          typeToHandlerMap.get(changeNotification.getType());
+      boolean forwardedPerElement = handler != null && handler.isForwardedPerElement();
+      groups.computeIfAbsent(new GroupKey(changeNotification, forwardedPerElement),
+              k -> new ArrayList<>())
+          .add(changeNotification);
+    }
+
+    List<Future<?>> futures = new ArrayList<>();
+    for (List<EwpReceivedChangeNotification> group : groups.values()) {
+      futures.add(executorService.submit(() -> tryProcess(group)));
+    }
+    waitForAll(futures);
+
+    numberPending.set(repository.countPending());
+  }
+
+  private void tryProcess(List<EwpReceivedChangeNotification> changeNotifications) {
+    try {
+      CommunicationContextHolder.runInNestedContext(
+          context -> {
+            process(changeNotifications);
+            return null;
+          });
+    } catch (Exception e) {
+      LOG.error(String.format("Failed to process received change notifications: %s",
+          changeNotifications), e);
+    }
+  }
+
+  private void process(List<EwpReceivedChangeNotification> changeNotifications) {
+    EwpReceivedChangeNotification firstChangeNotification = changeNotifications.get(0);
+    List<String> elementIds = changeNotifications.stream()
+        .map(EwpReceivedChangeNotification::getElementId)
+        .distinct()
+        .collect(Collectors.toList());
+
+    try {
+      getHandler(firstChangeNotification.getType()).onChangeNotification(
+          firstChangeNotification.getNotifierHeiId(), firstChangeNotification.getLocalHeiId(),
+          elementIds);
+
+      for (EwpReceivedChangeNotification changeNotification : changeNotifications) {
+        changeNotification.markAsSuccess();
+        repository.persist(changeNotification);
+        recordLatency(changeNotification);
+      }
+      numberProcessed.addAndGet(changeNotifications.size());
+
+    } catch (EwpBadRequestException e) {
+      LOG.error(String.format("Rejecting invalid received change notifications: %s",
+          changeNotifications), e);
+      for (EwpReceivedChangeNotification changeNotification : changeNotifications) {
+        changeNotification.markAsRejected();
+        repository.persist(changeNotification);
+      }
+      numberFailures.addAndGet(changeNotifications.size());
+
+    } catch (RuntimeException e) {
+      LOG.error(String.format("Failed to forward received change notifications: %s",
+          changeNotifications), e);
+      changeNotifications.forEach(this::scheduleNewAttempt);
+      numberFailures.addAndGet(changeNotifications.size());
+    }
+  }
+
+  private void scheduleNewAttempt(EwpReceivedChangeNotification changeNotification) {
+    if (changeNotification.getAttemptNumber() >= properties.getMaxNumberAttempts()) {
+      changeNotification.markAsFailedDueToMaxAttempts();
+
+    } else {
+      changeNotification.scheduleNewAttempt(
+          getRetryDelay(changeNotification.getAttemptNumber()));
+    }
+
+    repository.persist(changeNotification);
+  }
+
+  /**
+   * Returns the delay before a new attempt, given the number of the failed attempt. The delay
+   * doubles on each attempt, up to the configured maximum.
+   */
+  Duration getRetryDelay(int attemptNumber) {
+    long maxDelayInSeconds = Math.max(0, properties.getMaxRetryDelayInSeconds());
+    long delayInSeconds = Math.max(0, properties.getInitialRetryDelayInSeconds());
+    for (int attempt = 1; attempt < attemptNumber && delayInSeconds < maxDelayInSeconds;
+        attempt++) {
+      delayInSeconds *= 2;
+    }
+    return Duration.ofSeconds(Math.min(delayInSeconds, maxDelayInSeconds));
+  }
+
+  private void recordLatency(EwpReceivedChangeNotification changeNotification) {
+    Timer timer = this.latencyTimer;
+    if (timer != null) {
+      timer.record(Duration.between(changeNotification.getCreationDateTime(),
+          changeNotification.getProcessingDateTime()));
+    }
+  }
+
+  private EwpReceivedChangeNotificationHandler getHandler(
+      EwpReceivedChangeNotification.Type type) {
+    EwpReceivedChangeNotificationHandler handler = typeToHandlerMap.get(type);
+    if (handler == null) {
+      throw new IllegalStateException("Unsupported received change notification type: " + type);
+    }
+    return handler;
+  }
+
+  private void waitForAll(List<Future<?>> futures) {
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      futures.forEach(f -> f.cancel(true));
+
+    } catch (ExecutionException e) {
+      LOG.error("Unexpected failure while processing received change notifications",
+          e.getCause());
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("ewp.cnr.inbox.pending", numberPending, AtomicLong::doubleValue)
+        .description("Number of received change notifications waiting to be processed")
+        .register(registry);
+    registry.more().counter("ewp.cnr.inbox.received", List.of(), numberReceived,
+        AtomicLong::doubleValue);
+    registry.more().counter("ewp.cnr.inbox.deduplicated", List.of(), numberDeduplicated,
+        AtomicLong::doubleValue);
+    registry.more().counter("ewp.cnr.inbox.processed", List.of(), numberProcessed,
+        AtomicLong::doubleValue);
+    registry.more().counter("ewp.cnr.inbox.failures", List.of(), numberFailures,
+        AtomicLong::doubleValue);
+    this.latencyTimer = Timer.builder("ewp.cnr.inbox.latency")
+        .description("Time between a change notification being received and being processed")
+        .register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    if (executorService != null) {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    AtomicInteger threadCounter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable,
+          "ewp-cnr-inbox-worker-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static class GroupKey {
+
+    private final EwpReceivedChangeNotification.Type type;
+    private final String notifierHeiId;
+    private final String localHeiId;
+    private final String elementId;
+
+    /**
+     * @param perElement whether the key also identifies the element of the change notification
+     */
+    GroupKey(EwpReceivedChangeNotification changeNotification, boolean perElement) {
+      this.type = changeNotification.getType();
+      this.notifierHeiId = changeNotification.getNotifierHeiId();
+      this.localHeiId = changeNotification.getLocalHeiId();
+      this.elementId = perElement ? changeNotification.getElementId() : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      GroupKey groupKey = (GroupKey) o;
+      return type == groupKey.type
+          && Objects.equals(notifierHeiId, groupKey.notifierHeiId)
+          && Objects.equals(localHeiId, groupKey.localHeiId)
+          && Objects.equals(elementId, groupKey.elementId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, notifierHeiId, localHeiId, elementId);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package pt.ulisboa.ewp.node.service.ewp.notification.received;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import org.springframework.scheduling.TriggerContext;
+import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.node.config.cnr.CnrProperties;
+
+@Service
+public class EwpReceivedChangeNotificationInboxDaemon implements Runnable {
+
+  private final CnrProperties cnrProperties;
+  private final EwpReceivedChangeNotificationInbox inbox;
+
+  public EwpReceivedChangeNotificationInboxDaemon(CnrProperties cnrProperties,
+      EwpReceivedChangeNotificationInbox inbox) {
+    this.cnrProperties = cnrProperties;
+    this.inbox = inbox;
+  }
+
+  @Override
+  public void run() {
+    this.inbox.processDue();
+  }
+
+  public Date getNextExecutionTime(TriggerContext context) {
+    Optional<Date> lastCompletionTime = Optional.ofNullable(context.lastCompletionTime());
+    Instant nextExecutionTime =
+        lastCompletionTime
+            .orElseGet(Date::new)
+            .toInstant()
+            .plusMillis(this.cnrProperties.getInbox().getIntervalInMilliseconds());
+    return Date.from(nextExecutionTime);
+  }
+}
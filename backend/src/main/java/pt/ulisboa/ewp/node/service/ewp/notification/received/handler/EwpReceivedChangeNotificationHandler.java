@@ -0,0 +1,48 @@
+package pt.ulisboa.ewp.node.service.ewp.notification.received.handler;
+
+import java.util.List;
+import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+
+/**
+ * Forwards change notifications received from other EWP nodes to the host plugins.
+ */
+@Service
+public abstract class EwpReceivedChangeNotificationHandler {
+
+  private final HostPluginManager hostPluginManager;
+
+  protected EwpReceivedChangeNotificationHandler(HostPluginManager hostPluginManager) {
+    this.hostPluginManager = hostPluginManager;
+  }
+
+  public abstract EwpReceivedChangeNotification.Type getSupportedType();
+
+  /**
+   * Returns whether the handler forwards each element to the host plugins on its own (e.g. because
+   * the host providers take a single element ID). If so, the change notifications of several
+   * elements are not forwarded together, so that the outcome of each element is recorded on its
+   * own.
+   */
+  public boolean isForwardedPerElement() {
+    return false;
+  }
+
+  /**
+   * Forwards a change notification to the host plugins.
+   *
+   * @param notifierHeiId HEI ID of the notifier of the change
+   * @param localHeiId HEI ID, covered by this node, to which the changed elements refer (or null if
+   *     the change notification does not identify it)
+   * @param elementIds IDs of the changed elements
+   * @throws pt.ulisboa.ewp.node.exception.ewp.EwpBadRequestException if the change notification
+   *     is invalid, therefore not worth retrying
+   */
+  public abstract void onChangeNotification(String notifierHeiId, String localHeiId,
+      List<String> elementIds);
+
+  protected HostPluginManager getHostPluginManager() {
+    return hostPluginManager;
+  }
+}
@@ -0,0 +1,134 @@
+package pt.ulisboa.ewp.node.service.ewp.notification.received.handler.iias;
+
+import eu.erasmuswithoutpaper.api.iias.v7.endpoints.IiasGetResponseV7;
+import eu.erasmuswithoutpaper.api.iias.v7.endpoints.IiasGetResponseV7.Iia;
+import eu.erasmuswithoutpaper.api.iias.v7.endpoints.IiasGetResponseV7.Iia.Partner;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.host.plugin.skeleton.provider.iias.cnr.InterInstitutionalAgreementCnrV3HostProvider;
+import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientErrorException;
+import pt.ulisboa.ewp.node.client.ewp.iias.EwpInterInstitutionalAgreementsV7Client;
+import pt.ulisboa.ewp.node.client.ewp.operation.result.EwpSuccessOperationResult;
+import pt.ulisboa.ewp.node.domain.entity.Host;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.domain.repository.HostRepository;
+import pt.ulisboa.ewp.node.exception.ewp.EwpBadRequestException;
+import pt.ulisboa.ewp.node.exception.ewp.EwpUnknownHeiIdException;
+import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.handler.EwpReceivedChangeNotificationHandler;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsSnapshotService;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsType;
+
+/**
+ * Handles IIA change notifications. The notified IIA is obtained from the notifier, in order to
+ * determine the local partner of the IIA, and then forwarded to the host plugins of that partner.
+ */
+@Service
+public class EwpReceivedInterInstitutionalAgreementChangeNotificationHandler
+    extends EwpReceivedChangeNotificationHandler {
+
+  private final EwpInterInstitutionalAgreementsV7Client iiaClient;
+  private final HostRepository hostRepository;
+  private final EwpStatsSnapshotService statsSnapshotService;
+
+  public EwpReceivedInterInstitutionalAgreementChangeNotificationHandler(
+      HostPluginManager hostPluginManager,
+      EwpInterInstitutionalAgreementsV7Client iiaClient,
+      HostRepository hostRepository,
+      EwpStatsSnapshotService statsSnapshotService) {
+    super(hostPluginManager);
+    this.iiaClient = iiaClient;
+    this.hostRepository = hostRepository;
+    this.statsSnapshotService = statsSnapshotService;
+  }
+
+  @Override
+  public EwpReceivedChangeNotification.Type getSupportedType() {
+    return EwpReceivedChangeNotification.Type.IIA;
+  }
+
+  @Override
+  public boolean isForwardedPerElement() {
+    return true;
+  }
+
+  @Override
+  public void onChangeNotification(String notifierHeiId, String localHeiId,
+      List<String> elementIds) {
+    for (String iiaId : elementIds) {
+      Iia iia = null;
+      try {
+        EwpSuccessOperationResult<IiasGetResponseV7> iiaGetResponse =
+            iiaClient.findByHeiIdAndIiaIds(notifierHeiId, List.of(iiaId));
+        if (!iiaGetResponse.getResponseBody().getIia().isEmpty()) {
+          iia = iiaGetResponse.getResponseBody().getIia().iterator().next();
+        }
+      } catch (EwpClientErrorException e) {
+        throw new RuntimeException(e);
+      }
+
+      if (iia == null) {
+        propagateIiaDeletion(localHeiId, iiaId, notifierHeiId);
+      } else {
+        propagateIiaCreationOrModification(notifierHeiId, iia);
+      }
+    }
+    statsSnapshotService.requestRefresh(EwpStatsType.IIAS, localHeiId);
+  }
+
+  private void propagateIiaCreationOrModification(String requesterCoveredHeiId, Iia iia)
+      throws EwpBadRequestException {
+    if (iia.getPartner().size() < 2) {
+      throw new EwpBadRequestException("IIA must have at least two partners");
+    }
+
+    // NOTE: The specification specifies that the first partner is the HEI that is answering our
+    // GET request (the notifier of the CNR call.
+    // Hence, the second partner must be a local HEI covered by the node.
+    Partner notifierPartner = iia.getPartner().get(0);
+    if (!requesterCoveredHeiId.equals(notifierPartner.getHeiId())) {
+      throw new EwpBadRequestException(
+          "Expected first partner of IIA to be of HEI ID "
+              + requesterCoveredHeiId
+              + " but it is of "
+              + notifierPartner.getHeiId()
+              + " instead");
+    }
+
+    Partner localPartner = iia.getPartner().get(1);
+    String localHeiId = localPartner.getHeiId();
+    Optional<Host> hostOptional = hostRepository.findByCoveredHeiId(localHeiId);
+    if (hostOptional.isEmpty()) {
+      throw new EwpBadRequestException("HEI ID " + localHeiId + " is not covered by this node");
+    }
+    Host host = hostOptional.get();
+
+    String localOunitId = localPartner.getOunitId();
+    if (host.isOunitIdInObjectsRequired() && localOunitId == null) {
+      throw new EwpBadRequestException(
+          host.getOunitIdInObjectsRequiredErrorMessage(),
+          host.getOunitIdInObjectsRequiredErrorMessage());
+    }
+
+    Optional<InterInstitutionalAgreementCnrV3HostProvider> providerOptional =
+        getHostPluginManager().getSingleProvider(
+            localHeiId, localOunitId, InterInstitutionalAgreementCnrV3HostProvider.class);
+    if (providerOptional.isEmpty()) {
+      throw new EwpUnknownHeiIdException(localHeiId);
+    }
+
+    InterInstitutionalAgreementCnrV3HostProvider provider = providerOptional.get();
+    provider.onChangeNotification(notifierPartner.getHeiId(), notifierPartner.getIiaId());
+  }
+
+  private void propagateIiaDeletion(String heiId, String iiaId, String requesterCoveredHeiId) {
+    Collection<InterInstitutionalAgreementCnrV3HostProvider> providers =
+        getHostPluginManager().getAllProvidersOfType(
+            heiId, InterInstitutionalAgreementCnrV3HostProvider.class);
+    for (InterInstitutionalAgreementCnrV3HostProvider provider : providers) {
+      provider.onChangeNotification(requesterCoveredHeiId, iiaId);
+    }
+  }
+}
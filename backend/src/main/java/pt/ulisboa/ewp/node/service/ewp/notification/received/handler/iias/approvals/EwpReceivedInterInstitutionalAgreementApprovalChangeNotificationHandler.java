@@ -0,0 +1,53 @@
+package pt.ulisboa.ewp.node.service.ewp.notification.received.handler.iias.approvals;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.host.plugin.skeleton.provider.iias.approval.cnr.InterInstitutionalAgreementApprovalCnrV2HostProvider;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.handler.EwpReceivedChangeNotificationHandler;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsSnapshotService;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsType;
+
+/**
+ * Handles IIA approval change notifications, whose notifier is the approving HEI and whose local
+ * HEI is the owner of the approved IIAs.
+ */
+@Service
+public class EwpReceivedInterInstitutionalAgreementApprovalChangeNotificationHandler
+    extends EwpReceivedChangeNotificationHandler {
+
+  private final EwpStatsSnapshotService statsSnapshotService;
+
+  public EwpReceivedInterInstitutionalAgreementApprovalChangeNotificationHandler(
+      HostPluginManager hostPluginManager,
+      EwpStatsSnapshotService statsSnapshotService) {
+    super(hostPluginManager);
+    this.statsSnapshotService = statsSnapshotService;
+  }
+
+  @Override
+  public EwpReceivedChangeNotification.Type getSupportedType() {
+    return EwpReceivedChangeNotification.Type.IIA_APPROVAL;
+  }
+
+  @Override
+  public boolean isForwardedPerElement() {
+    return true;
+  }
+
+  @Override
+  public void onChangeNotification(String notifierHeiId, String localHeiId,
+      List<String> elementIds) {
+    Collection<InterInstitutionalAgreementApprovalCnrV2HostProvider> providers =
+        getHostPluginManager().getAllProvidersOfType(
+            InterInstitutionalAgreementApprovalCnrV2HostProvider.class);
+    for (String iiaId : elementIds) {
+      for (InterInstitutionalAgreementApprovalCnrV2HostProvider provider : providers) {
+        provider.onChangeNotification(notifierHeiId, localHeiId, iiaId);
+      }
+    }
+    statsSnapshotService.requestRefresh(EwpStatsType.IIAS, localHeiId);
+  }
+}
@@ -0,0 +1,33 @@
+package pt.ulisboa.ewp.node.service.ewp.notification.received.handler.imobilities;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.host.plugin.skeleton.provider.imobilities.cnr.IncomingMobilityCnrV1HostProvider;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.handler.EwpReceivedChangeNotificationHandler;
+
+@Service
+public class EwpReceivedIncomingMobilityChangeNotificationHandler
+    extends EwpReceivedChangeNotificationHandler {
+
+  public EwpReceivedIncomingMobilityChangeNotificationHandler(HostPluginManager hostPluginManager) {
+    super(hostPluginManager);
+  }
+
+  @Override
+  public EwpReceivedChangeNotification.Type getSupportedType() {
+    return EwpReceivedChangeNotification.Type.INCOMING_MOBILITY;
+  }
+
+  @Override
+  public void onChangeNotification(String notifierHeiId, String localHeiId,
+      List<String> elementIds) {
+    Collection<IncomingMobilityCnrV1HostProvider> providers = getHostPluginManager().getAllProvidersOfType(
+        IncomingMobilityCnrV1HostProvider.class);
+    for (IncomingMobilityCnrV1HostProvider provider : providers) {
+      provider.onChangeNotification(notifierHeiId, elementIds);
+    }
+  }
+}
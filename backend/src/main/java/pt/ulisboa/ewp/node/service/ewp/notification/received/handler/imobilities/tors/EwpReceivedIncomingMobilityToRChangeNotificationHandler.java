@@ -0,0 +1,34 @@
+package pt.ulisboa.ewp.node.service.ewp.notification.received.handler.imobilities.tors;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.host.plugin.skeleton.provider.imobilities.tors.cnr.IncomingMobilityToRCnrV1HostProvider;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.handler.EwpReceivedChangeNotificationHandler;
+
+@Service
+public class EwpReceivedIncomingMobilityToRChangeNotificationHandler
+    extends EwpReceivedChangeNotificationHandler {
+
+  public EwpReceivedIncomingMobilityToRChangeNotificationHandler(
+      HostPluginManager hostPluginManager) {
+    super(hostPluginManager);
+  }
+
+  @Override
+  public EwpReceivedChangeNotification.Type getSupportedType() {
+    return EwpReceivedChangeNotification.Type.INCOMING_MOBILITY_TOR;
+  }
+
+  @Override
+  public void onChangeNotification(String notifierHeiId, String localHeiId,
+      List<String> elementIds) {
+    Collection<IncomingMobilityToRCnrV1HostProvider> providers = getHostPluginManager().getAllProvidersOfType(
+        IncomingMobilityToRCnrV1HostProvider.class);
+    for (IncomingMobilityToRCnrV1HostProvider provider : providers) {
+      provider.onChangeNotification(notifierHeiId, elementIds);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package pt.ulisboa.ewp.node.service.ewp.notification.received.handler.omobilities;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.host.plugin.skeleton.provider.omobilities.cnr.OutgoingMobilityCnrV1HostProvider;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.handler.EwpReceivedChangeNotificationHandler;
+
+@Service
+public class EwpReceivedOutgoingMobilityChangeNotificationHandler
+    extends EwpReceivedChangeNotificationHandler {
+
+  public EwpReceivedOutgoingMobilityChangeNotificationHandler(HostPluginManager hostPluginManager) {
+    super(hostPluginManager);
+  }
+
+  @Override
+  public EwpReceivedChangeNotification.Type getSupportedType() {
+    return EwpReceivedChangeNotification.Type.OUTGOING_MOBILITY;
+  }
+
+  @Override
+  public void onChangeNotification(String notifierHeiId, String localHeiId,
+      List<String> elementIds) {
+    Collection<OutgoingMobilityCnrV1HostProvider> providers = getHostPluginManager().getAllProvidersOfType(
+        OutgoingMobilityCnrV1HostProvider.class);
+    for (OutgoingMobilityCnrV1HostProvider provider : providers) {
+      provider.onChangeNotification(notifierHeiId, elementIds);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package pt.ulisboa.ewp.node.service.ewp.notification.received.handler.omobilities.las;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.host.plugin.skeleton.provider.omobilities.las.cnr.OutgoingMobilityLearningAgreementCnrV1HostProvider;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.handler.EwpReceivedChangeNotificationHandler;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsSnapshotService;
+import pt.ulisboa.ewp.node.service.ewp.stats.EwpStatsType;
+
+@Service
+public class EwpReceivedOutgoingMobilityLearningAgreementChangeNotificationHandler
+    extends EwpReceivedChangeNotificationHandler {
+
+  private final EwpStatsSnapshotService statsSnapshotService;
+
+  public EwpReceivedOutgoingMobilityLearningAgreementChangeNotificationHandler(
+      HostPluginManager hostPluginManager,
+      EwpStatsSnapshotService statsSnapshotService) {
+    super(hostPluginManager);
+    this.statsSnapshotService = statsSnapshotService;
+  }
+
+  @Override
+  public EwpReceivedChangeNotification.Type getSupportedType() {
+    return EwpReceivedChangeNotification.Type.OUTGOING_MOBILITY_LEARNING_AGREEMENT;
+  }
+
+  @Override
+  public void onChangeNotification(String notifierHeiId, String localHeiId,
+      List<String> elementIds) {
+    Collection<OutgoingMobilityLearningAgreementCnrV1HostProvider> providers =
+        getHostPluginManager().getAllProvidersOfType(
+            OutgoingMobilityLearningAgreementCnrV1HostProvider.class);
+    for (OutgoingMobilityLearningAgreementCnrV1HostProvider provider : providers) {
+      provider.onChangeNotification(notifierHeiId, elementIds);
+    }
+    // NOTE: the notified learning agreements may be of any HEI covered by the node
+    statsSnapshotService.requestRefresh(EwpStatsType.OMOBILITY_LA_CNR);
+  }
+}
@@ -21,6 +21,7 @@ import org.tomitribe.auth.signatures.Algorithm;
 import org.tomitribe.auth.signatures.Base64;
 import org.tomitribe.auth.signatures.Signature;
 import org.tomitribe.auth.signatures.Signer;
+import pt.ulisboa.ewp.node.api.ewp.wrapper.EwpApiHttpResponseWrapper;
 import pt.ulisboa.ewp.node.service.keystore.KeyStoreService;
 import pt.ulisboa.ewp.node.utils.DateUtils;
 import pt.ulisboa.ewp.node.utils.http.HttpConstants;
@@ -62,8 +63,7 @@ public class HttpSignatureResponseAuthenticationMethodSigner
       String stringToday = DateUtils
           .toStringAsGMT(new Date(), HttpSignatureUtils.DATETIME_WITH_TIMEZONE_FORMAT);
 
-      byte[] bodyBytes = getResponseData(response);
-      byte[] digest = MessageDigest.getInstance(HttpSignatureUtils.SHA_256).digest(bodyBytes);
+      byte[] digest = getResponseDataSha256Digest(response);
       String digestHeader =
           HttpSignatureUtils.SHA_256 + "=" + new String(Base64.encodeBase64(digest));
 
@@ -108,6 +108,17 @@ public class HttpSignatureResponseAuthenticationMethodSigner
     }
   }
 
+  private static byte[] getResponseDataSha256Digest(HttpServletResponse response)
+      throws NoSuchAlgorithmException, IOException {
+    EwpApiHttpResponseWrapper ewpWrapper =
+        WebUtils.getNativeResponse(response, EwpApiHttpResponseWrapper.class);
+    if (ewpWrapper != null) {
+      // NOTE: the digest is calculated while the body is written, so it is not read again
+      return ewpWrapper.getSha256Digest();
+    }
+    return MessageDigest.getInstance(HttpSignatureUtils.SHA_256).digest(getResponseData(response));
+  }
+
   private static byte[] getResponseData(HttpServletResponse response) {
     ContentCachingResponseWrapper wrapper =
         WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
@@ -121,7 +121,7 @@ public class HttpSignatureRequestAuthenticationMethodVerifier
     }
 
     VerificationResult digestVerificationResult =
-        HttpSignatureUtils.verifyDigest(headers, HttpSignatureUtils.getByteArray(request));
+        HttpSignatureUtils.verifyDigest(headers, request.getBodyBuffer());
     if (digestVerificationResult.isFailure()) {
       return EwpApiAuthenticateMethodResponse.failureBuilder(
           EwpAuthenticationMethod.HTTP_SIGNATURE, digestVerificationResult.getMessage())
@@ -0,0 +1,29 @@
+package pt.ulisboa.ewp.node.service.ewp.stats;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/** Statistics of a HEI, as computed at a given instant. */
+public class EwpStatsSnapshot<T> {
+
+  private final T stats;
+  private final Instant computedAt;
+
+  public EwpStatsSnapshot(T stats, Instant computedAt) {
+    this.stats = stats;
+    this.computedAt = computedAt;
+  }
+
+  public T getStats() {
+    return stats;
+  }
+
+  public Instant getComputedAt() {
+    return computedAt;
+  }
+
+  /** Returns the time (in seconds) elapsed since the statistics were computed. */
+  public long getAgeInSeconds() {
+    return Math.max(0, Duration.between(computedAt, Instant.now()).getSeconds());
+  }
+}
@@ -0,0 +1,260 @@
+package pt.ulisboa.ewp.node.service.ewp.stats;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Service;
+import pt.ulisboa.ewp.node.config.stats.StatsProperties;
+import pt.ulisboa.ewp.node.config.stats.StatsSnapshotsProperties;
+import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+
+/**
+ * Node-local snapshots of the statistics served by the stats endpoints, per type of statistics and
+ * HEI.
+ *
+ * <p>The statistics of a HEI are computed (by the given computation, usually merging the results
+ * of several host providers) on the first request, and then served from the snapshot. Snapshots
+ * are refreshed in the background, on a fixed interval or once a refresh is requested (e.g. when a
+ * change notification arrives); a snapshot that fails to be refreshed keeps being served.
+ *
+ * <p>Only the statistics of HEIs covered by this node (i.e., that have host providers) are kept
+ * on snapshots; the statistics of any other HEI are computed on every request, so that the
+ * snapshots are bounded by the HEIs covered by this node.
+ *
+ * <p>When disabled (see {@link StatsSnapshotsProperties#isEnabled()}), statistics are computed on
+ * every request.
+ */
+@Service
+public class EwpStatsSnapshotService implements MeterBinder, InitializingBean, DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EwpStatsSnapshotService.class);
+
+  private static final long SHUTDOWN_TIMEOUT_IN_MILLISECONDS = 30000;
+
+  private final StatsSnapshotsProperties properties;
+  private final HostPluginManager hostPluginManager;
+  private final ConcurrentMap<Key, Entry<?>> entries = new ConcurrentHashMap<>();
+  private final Set<Key> pendingRefreshes = ConcurrentHashMap.newKeySet();
+
+  private final AtomicLong numberHits = new AtomicLong();
+  private final AtomicLong numberMisses = new AtomicLong();
+  private final AtomicLong numberRefreshes = new AtomicLong();
+  private final AtomicLong numberFailedRefreshes = new AtomicLong();
+
+  private volatile ScheduledExecutorService refreshExecutor;
+
+  public EwpStatsSnapshotService(StatsProperties statsProperties,
+      HostPluginManager hostPluginManager) {
+    this.properties = statsProperties.getSnapshots();
+    this.hostPluginManager = hostPluginManager;
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /**
+   * Returns the snapshot of the statistics of a given type of a HEI. If there is no snapshot yet
+   * then the statistics are computed on the caller thread. If the HEI is not covered by this node
+   * then the statistics are computed on every request, without being kept.
+   *
+   * @param statsComputation Computes the statistics of the HEI; it is kept to refresh the snapshot
+   */
+  @SuppressWarnings("unchecked")
+  public <T> EwpStatsSnapshot<T> getSnapshot(EwpStatsType type, String heiId,
+      Supplier<T> statsComputation) {
+    Key key = new Key(type, heiId);
+    if (!isEnabled()
+        || (!entries.containsKey(key) && hostPluginManager.getAllProviders(heiId).isEmpty())) {
+      return new EwpStatsSnapshot<>(statsComputation.get(), Instant.now());
+    }
+
+    Entry<T> entry = (Entry<T>) entries.computeIfAbsent(key, k -> new Entry<>(statsComputation));
+    EwpStatsSnapshot<T> snapshot = entry.snapshot;
+    if (snapshot != null) {
+      numberHits.incrementAndGet();
+      return snapshot;
+    }
+
+    synchronized (entry) {
+      if (entry.snapshot == null) {
+        numberMisses.incrementAndGet();
+        entry.snapshot = new EwpStatsSnapshot<>(statsComputation.get(), Instant.now());
+      } else {
+        numberHits.incrementAndGet();
+      }
+      return entry.snapshot;
+    }
+  }
+
+  /** Requests the refresh, in the background, of the statistics of a given type of a HEI. */
+  public void requestRefresh(EwpStatsType type, String heiId) {
+    Key key = new Key(type, heiId);
+    if (entries.containsKey(key)) {
+      scheduleRefresh(key);
+    }
+  }
+
+  /** Requests the refresh, in the background, of the statistics of a given type of every HEI. */
+  public void requestRefresh(EwpStatsType type) {
+    for (Key key : entries.keySet()) {
+      if (key.type == type) {
+        scheduleRefresh(key);
+      }
+    }
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!isEnabled()) {
+      return;
+    }
+    this.refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "ewp-stats-refresher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (properties.getRefreshIntervalInSeconds() > 0) {
+      this.refreshExecutor.scheduleWithFixedDelay(this::refreshAll,
+          properties.getRefreshIntervalInSeconds(), properties.getRefreshIntervalInSeconds(),
+          TimeUnit.SECONDS);
+    }
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    ScheduledExecutorService executor = this.refreshExecutor;
+    if (executor == null) {
+      return;
+    }
+    executor.shutdownNow();
+    executor.awaitTermination(SHUTDOWN_TIMEOUT_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    String metricsPrefix = "ewp.stats.snapshots";
+    Gauge.builder(metricsPrefix, entries, Map::size)
+        .description("Number of snapshots of statistics")
+        .register(registry);
+    Gauge.builder(metricsPrefix + ".age.max", this, EwpStatsSnapshotService::getMaxAgeInSeconds)
+        .description("Age (in seconds) of the oldest snapshot of statistics")
+        .register(registry);
+    Gauge.builder(metricsPrefix + ".refreshes.pending", pendingRefreshes, Set::size)
+        .description("Number of snapshots of statistics waiting to be refreshed")
+        .register(registry);
+    registerCounter(registry, metricsPrefix + ".hits", numberHits);
+    registerCounter(registry, metricsPrefix + ".misses", numberMisses);
+    registerCounter(registry, metricsPrefix + ".refreshes", numberRefreshes);
+    registerCounter(registry, metricsPrefix + ".refreshes.failures", numberFailedRefreshes);
+  }
+
+  private void registerCounter(MeterRegistry registry, String name, AtomicLong value) {
+    registry.more().counter(name, List.of(), value, AtomicLong::doubleValue);
+  }
+
+  private double getMaxAgeInSeconds() {
+    long result = 0;
+    for (Entry<?> entry : entries.values()) {
+      EwpStatsSnapshot<?> snapshot = entry.snapshot;
+      if (snapshot != null) {
+        result = Math.max(result, snapshot.getAgeInSeconds());
+      }
+    }
+    return result;
+  }
+
+  private void scheduleRefresh(Key key) {
+    ScheduledExecutorService executor = this.refreshExecutor;
+    if (executor == null) {
+      refresh(key);
+      return;
+    }
+    // NOTE: a refresh already pending covers the changes notified meanwhile
+    if (pendingRefreshes.add(key)) {
+      executor.execute(() -> refresh(key));
+    }
+  }
+
+  private void refresh(Key key) {
+    pendingRefreshes.remove(key);
+    Entry<?> entry = entries.get(key);
+    if (entry != null) {
+      refresh(key, entry);
+    }
+  }
+
+  private void refreshAll() {
+    for (Key key : new ArrayList<>(entries.keySet())) {
+      refresh(key);
+    }
+  }
+
+  private <T> void refresh(Key key, Entry<T> entry) {
+    try {
+      T stats = entry.statsComputation.get();
+      entry.snapshot = new EwpStatsSnapshot<>(stats, Instant.now());
+      numberRefreshes.incrementAndGet();
+
+    } catch (RuntimeException e) {
+      numberFailedRefreshes.incrementAndGet();
+      LOG.warn("Failed to refresh " + key.type.getName() + " stats of HEI " + key.heiId
+          + ", keeping previous snapshot", e);
+    }
+  }
+
+  private static class Key {
+
+    private final EwpStatsType type;
+    private final String heiId;
+
+    Key(EwpStatsType type, String heiId) {
+      this.type = type;
+      this.heiId = heiId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return type == key.type && Objects.equals(heiId, key.heiId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, heiId);
+    }
+  }
+
+  private static class Entry<T> {
+
+    private final Supplier<T> statsComputation;
+    private volatile EwpStatsSnapshot<T> snapshot;
+
+    Entry(Supplier<T> statsComputation) {
+      this.statsComputation = statsComputation;
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package pt.ulisboa.ewp.node.service.ewp.stats;
+
+/** Types of statistics served by the stats endpoints of the EWP APIs. */
+public enum EwpStatsType {
+  IIAS("iias"),
+  OMOBILITY_LAS("omobility-las"),
+  OMOBILITY_LA_CNR("omobility-la-cnr");
+
+  private final String name;
+
+  EwpStatsType(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+}
@@ -5,6 +5,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.security.InvalidKeyException;
+import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -15,7 +16,10 @@ import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.slf4j.Logger;
@@ -25,6 +29,8 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import pt.ulisboa.ewp.node.config.security.SecurityProperties;
 import pt.ulisboa.ewp.node.domain.entity.KeyStoreConfiguration;
 import pt.ulisboa.ewp.node.domain.repository.KeyStoreConfigurationRepository;
@@ -37,6 +43,7 @@ import pt.ulisboa.ewp.node.utils.keystore.DecodedCertificateAndKey;
 import pt.ulisboa.ewp.node.utils.keystore.DecodedKeystore;
 import pt.ulisboa.ewp.node.utils.keystore.KeyStoreConstants;
 import pt.ulisboa.ewp.node.utils.keystore.KeyStoreGenerator;
+import pt.ulisboa.ewp.node.utils.keystore.KeyStoreSecurityBundle;
 import pt.ulisboa.ewp.node.utils.keystore.KeyStoreUtil;
 import pt.ulisboa.ewp.node.utils.messaging.Severity;
 
@@ -52,8 +59,13 @@ public class KeyStoreService {
   @Autowired private KeyStoreConfigurationRepository keyStoreConfigurationRepository;
 
   private SecurityProperties securityProperties;
-  private Supplier<DecodedKeystore> decodedKeyStoreSupplier;
-  private Supplier<DecodedCertificateAndKey> decodedCertificateAndKeySupplier;
+  private volatile Supplier<DecodedKeystore> decodedKeyStoreSupplier;
+
+  private byte[] lastLoadedKeystoreBytes;
+  private DecodedKeystore lastLoadedDecodedKeystore;
+
+  private final AtomicReference<KeyStoreSecurityBundle> securityBundle = new AtomicReference<>();
+  private final AtomicLong securityBundleVersion = new AtomicLong();
 
   public KeyStoreService(SecurityProperties securityProperties) {
     this.securityProperties = securityProperties;
@@ -70,11 +82,6 @@ public class KeyStoreService {
             this::loadDecodedKeyStoreFromStorage,
             securityProperties.getKeyStore().getCacheValidityInSeconds(),
             TimeUnit.SECONDS);
-    this.decodedCertificateAndKeySupplier =
-        Suppliers.memoizeWithExpiration(
-            this::loadDecodedCertificateAndKeyFromStorage,
-            securityProperties.getKeyStore().getCacheValidityInSeconds(),
-            TimeUnit.SECONDS);
   }
 
   public DecodedKeystore generateKeystore()
@@ -123,9 +130,28 @@ public class KeyStoreService {
   }
 
   public DecodedCertificateAndKey getDecodedCertificateAndKeyFromStorage() {
-    return decodedCertificateAndKeySupplier.get();
+    return getSecurityBundle().getDecodedCertificateAndKey();
+  }
+
+  /**
+   * Returns the security resources (SSL context, key managers, certificate and private key) of the
+   * keystore currently stored. The same instance is returned for as long as the stored keystore
+   * does not change.
+   */
+  public KeyStoreSecurityBundle getSecurityBundle() {
+    DecodedKeystore decodedKeystore = getDecodedKeyStoreFromStorage();
+    KeyStoreSecurityBundle bundle = this.securityBundle.get();
+    if (bundle != null && bundle.getDecodedKeystore() == decodedKeystore) {
+      return bundle;
+    }
+    return createSecurityBundle(decodedKeystore);
   }
 
+  /**
+   * Returns the keystore currently stored. The same instance is returned for as long as the stored
+   * keystore does not change, so callers may use the instance to detect when a new keystore is in
+   * use (e.g. to rebuild resources derived from it).
+   */
   public DecodedKeystore getDecodedKeyStoreFromStorage() {
     return decodedKeyStoreSupplier.get();
   }
@@ -149,15 +175,48 @@ public class KeyStoreService {
       keystoreConfiguration.setCertificateAlias(certificateAlias);
     }
 
-    return keyStoreConfigurationRepository.persist(keystoreConfiguration);
+    if (!keyStoreConfigurationRepository.persist(keystoreConfiguration)) {
+      return false;
+    }
+
+    // NOTE: the new keystore is only visible to other threads once the transaction is committed
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              invalidateCachedKeystore();
+            }
+          });
+    } else {
+      invalidateCachedKeystore();
+    }
+    return true;
   }
 
-  private DecodedKeystore loadDecodedKeyStoreFromStorage() {
+  private synchronized void invalidateCachedKeystore() {
+    log.info("Invalidating cached keystore");
+    this.lastLoadedKeystoreBytes = null;
+    this.lastLoadedDecodedKeystore = null;
+    this.securityBundle.set(null);
+    initKeyStoreSuppliers();
+  }
+
+  private synchronized DecodedKeystore loadDecodedKeyStoreFromStorage() {
     try {
       log.info("Loading keystore from storage");
       KeyStoreConfiguration keystoreConfiguration = keyStoreConfigurationRepository.getInstance();
+      if (lastLoadedDecodedKeystore != null
+          && Arrays.equals(lastLoadedKeystoreBytes, keystoreConfiguration.getKeystore())) {
+        return lastLoadedDecodedKeystore;
+      }
+
       KeyStore keyStore = getKeystore(keystoreConfiguration);
-      return new DecodedKeystore(keyStore, securityProperties.getKeyStore().getPassword());
+      DecodedKeystore decodedKeystore =
+          new DecodedKeystore(keyStore, securityProperties.getKeyStore().getPassword());
+      this.lastLoadedKeystoreBytes = keystoreConfiguration.getKeystore();
+      this.lastLoadedDecodedKeystore = decodedKeystore;
+      return decodedKeystore;
     } catch (KeyStoreException
         | CertificateException
         | NoSuchAlgorithmException
@@ -167,12 +226,30 @@ public class KeyStoreService {
     }
   }
 
-  private DecodedCertificateAndKey loadDecodedCertificateAndKeyFromStorage() {
-    log.info("Loading certificate and key from storage");
-    KeyStoreConfiguration keystoreConfiguration = keyStoreConfigurationRepository.getInstance();
-    DecodedKeystore decodedKeyStoreFromStorage = getDecodedKeyStoreFromStorage();
-    return decodedKeyStoreFromStorage.getDecodedCertificateAndKey(
-        keystoreConfiguration.getCertificateAlias());
+  private synchronized KeyStoreSecurityBundle createSecurityBundle(
+      DecodedKeystore decodedKeystore) {
+    KeyStoreSecurityBundle bundle = this.securityBundle.get();
+    if (bundle != null && bundle.getDecodedKeystore() == decodedKeystore) {
+      return bundle;
+    }
+
+    try {
+      log.info("Creating security bundle for stored keystore");
+      KeyStoreConfiguration keystoreConfiguration = keyStoreConfigurationRepository.getInstance();
+      bundle =
+          KeyStoreSecurityBundle.create(
+              securityBundleVersion.incrementAndGet(),
+              decodedKeystore,
+              keystoreConfiguration.getCertificateAlias());
+      this.securityBundle.set(bundle);
+      return bundle;
+    } catch (NoSuchProviderException
+        | NoSuchAlgorithmException
+        | UnrecoverableKeyException
+        | KeyStoreException
+        | KeyManagementException e) {
+      throw new IllegalStateException("Failed to create security bundle for stored keystore", e);
+    }
   }
 
   private KeyStore getKeystore(KeyStoreConfiguration keystoreConfiguration)
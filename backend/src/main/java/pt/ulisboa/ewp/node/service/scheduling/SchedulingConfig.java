@@ -11,6 +11,7 @@ import org.springframework.scheduling.annotation.SchedulingConfigurer;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import pt.ulisboa.ewp.node.service.ewp.mapping.sync.EwpMappingSyncService;
 import pt.ulisboa.ewp.node.service.ewp.notification.EwpNotificationSenderDaemon;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.EwpReceivedChangeNotificationInboxDaemon;
 
 @Configuration
 @EnableScheduling()
@@ -22,18 +23,21 @@ import pt.ulisboa.ewp.node.service.ewp.notification.EwpNotificationSenderDaemon;
 public class SchedulingConfig implements SchedulingConfigurer {
 
   private final EwpNotificationSenderDaemon ewpNotificationSenderDaemon;
+  private final EwpReceivedChangeNotificationInboxDaemon receivedChangeNotificationInboxDaemon;
   private final Collection<EwpMappingSyncService> mappingSyncServices;
 
   public SchedulingConfig(
       EwpNotificationSenderDaemon ewpNotificationSenderDaemon,
+      EwpReceivedChangeNotificationInboxDaemon receivedChangeNotificationInboxDaemon,
       Collection<EwpMappingSyncService> mappingSyncServices) {
     this.ewpNotificationSenderDaemon = ewpNotificationSenderDaemon;
+    this.receivedChangeNotificationInboxDaemon = receivedChangeNotificationInboxDaemon;
     this.mappingSyncServices = mappingSyncServices;
   }
 
   @Bean
   public Executor taskExecutor() {
-    return Executors.newScheduledThreadPool(2);
+    return Executors.newScheduledThreadPool(3);
   }
 
   @Override
@@ -42,6 +46,9 @@ public class SchedulingConfig implements SchedulingConfigurer {
 
     taskRegistrar.addTriggerTask(
         this.ewpNotificationSenderDaemon, this.ewpNotificationSenderDaemon::getNextExecutionTime);
+    taskRegistrar.addTriggerTask(
+        this.receivedChangeNotificationInboxDaemon,
+        this.receivedChangeNotificationInboxDaemon::getNextExecutionTime);
 
     for (EwpMappingSyncService mappingSyncService : mappingSyncServices) {
       taskRegistrar.addTriggerTask(mappingSyncService, mappingSyncService::getNextExecutionTime);
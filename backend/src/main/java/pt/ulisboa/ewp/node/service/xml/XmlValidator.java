@@ -8,25 +8,39 @@ import static org.joox.JOOX.$;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import org.apache.xerces.util.XMLCatalogResolver;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -35,87 +49,112 @@ import org.w3c.dom.NodeList;
 import org.w3c.dom.ls.LSInput;
 import org.w3c.dom.ls.LSResourceResolver;
 import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
 import pt.ulisboa.ewp.node.domain.dto.validation.ValidationEntryDto;
 import pt.ulisboa.ewp.node.domain.dto.validation.ValidationEntryDto.Severity;
 import pt.ulisboa.ewp.node.domain.dto.validation.ValidationResultDto;
-import pt.ulisboa.ewp.node.utils.xml.XmlUtils;
 
 @Service
 public class XmlValidator {
 
-  private static final Logger LOG = LoggerFactory.getLogger(XmlValidator.class);
+  /**
+   * Maximum number of validation entries collected per document. Once reached, the validation of
+   * the document stops.
+   */
+  static final int MAX_VALIDATION_ENTRIES_PER_DOCUMENT = 100;
 
-  private final Schema compoundSchema;
+  private static final int MAX_NUMBER_POOLED_INSTANCES =
+      2 * Runtime.getRuntime().availableProcessors();
 
-  XmlValidator() {
-    this.compoundSchema = createCompoundSchema();
-  }
+  private static final XMLInputFactory XML_INPUT_FACTORY = createSecureXmlInputFactory();
 
-  private Schema createCompoundSchema() {
+  private final SAXParserFactory saxParserFactory = createSecureSaxParserFactory();
+  private final Queue<SAXParser> saxParserPool = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger numberPooledSaxParsers = new AtomicInteger();
+
+  private final SchemaFactory schemaFactory;
+  private final Map<String, String> namespaceToSchemaPathMap = new HashMap<>();
+  private final PooledSchema compoundSchema;
+  private final Map<String, PooledSchema> namespaceToSchemaMap = new ConcurrentHashMap<>();
+
+  XmlValidator() {
     URL catalogUrl = getClass().getResource("/schemas/__index__.xml");
     if (catalogUrl == null) {
       throw new IllegalStateException("Failed to find schemas index file");
     }
 
-    try (InputStream xmlCatalogInputStream = catalogUrl.openStream()) {
-      XMLCatalogResolver baseResolver =
-          new XMLCatalogResolver(new String[] {catalogUrl.toString()});
+    this.schemaFactory = createSchemaFactory(catalogUrl);
+    this.compoundSchema = new PooledSchema(createCompoundSchema(catalogUrl));
+  }
 
-      /*
-       * Wrap it in a custom LSResourceResolver.
-       *
-       * XMLCatalogResolver implements the LSResourceResolver interface, but we need it to behave
-       * differently. We want to make sure that we have all necessary XSD files in our resources, so
-       * that the compiler doesn't depend on the external XSDs dynamically fetched from the Internet.
-       *
-       * In order to assure that, we will use our custom resource resolver which will throw
-       * RuntimeException whenever the compiler attempts to resolve resources which are NOT present in
-       * our catalog (thus preventing it from trying to resolve them online).
-       */
-      LSResourceResolver customResolver =
-          new LSResourceResolver() {
-            @Override
-            public LSInput resolveResource(
-                String type,
-                String namespaceUri,
-                String publicId,
-                String systemId,
-                String baseUri) {
-
-              // First, try to resolve the entity from our built-in schema catalog.
-              LSInput result =
-                  baseResolver.resolveResource(type, namespaceUri, publicId, systemId, baseUri);
-              if (result != null) {
-                return result;
-              }
-
-              /*
-               * Should not happen. It is does, then it means that some of our schemas reference other
-               * schemas which are not present in our schema catalog. The catalog needs to be updated.
-               */
-              throw new IllegalStateException(
-                  "Missing schema in registry's resources:\nnamespaceUri: "
-                      + namespaceUri
-                      + "\ntype: "
-                      + type
-                      + "\npublicId: "
-                      + publicId
-                      + "\nsystemId: "
-                      + systemId
-                      + "\nbaseUri: "
-                      + baseUri);
+  private SchemaFactory createSchemaFactory(URL catalogUrl) {
+    XMLCatalogResolver baseResolver =
+        new XMLCatalogResolver(new String[] {catalogUrl.toString()});
+
+    /*
+     * Wrap it in a custom LSResourceResolver.
+     *
+     * XMLCatalogResolver implements the LSResourceResolver interface, but we need it to behave
+     * differently. We want to make sure that we have all necessary XSD files in our resources, so
+     * that the compiler doesn't depend on the external XSDs dynamically fetched from the Internet.
+     *
+     * In order to assure that, we will use our custom resource resolver which will throw
+     * RuntimeException whenever the compiler attempts to resolve resources which are NOT present in
+     * our catalog (thus preventing it from trying to resolve them online).
+     */
+    LSResourceResolver customResolver =
+        new LSResourceResolver() {
+          @Override
+          public LSInput resolveResource(
+              String type,
+              String namespaceUri,
+              String publicId,
+              String systemId,
+              String baseUri) {
+
+            // First, try to resolve the entity from our built-in schema catalog.
+            LSInput result =
+                baseResolver.resolveResource(type, namespaceUri, publicId, systemId, baseUri);
+            if (result != null) {
+              return result;
             }
-          };
 
-      SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-      schemaFactory.setResourceResolver(customResolver);
+            /*
+             * Should not happen. It is does, then it means that some of our schemas reference other
+             * schemas which are not present in our schema catalog. The catalog needs to be updated.
+             */
+            throw new IllegalStateException(
+                "Missing schema in registry's resources:\nnamespaceUri: "
+                    + namespaceUri
+                    + "\ntype: "
+                    + type
+                    + "\npublicId: "
+                    + publicId
+                    + "\nsystemId: "
+                    + systemId
+                    + "\nbaseUri: "
+                    + baseUri);
+          }
+        };
 
+    SchemaFactory result = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+    result.setResourceResolver(customResolver);
+    return result;
+  }
+
+  private Schema createCompoundSchema(URL catalogUrl) {
+    try (InputStream xmlCatalogInputStream = catalogUrl.openStream()) {
       List<StreamSource> xsdSources = new ArrayList<>();
       try {
         for (Element element : $(xmlCatalogInputStream).find("uri")) {
           String relativePath = $(element).attr("uri");
+          String namespace = $(element).attr("name");
+          if (namespace != null) {
+            namespaceToSchemaPathMap.putIfAbsent(namespace, relativePath);
+          }
           InputStream xsdInputStream = getClass().getResourceAsStream("/schemas/" + relativePath);
           StreamSource xsdSource = new StreamSource(xsdInputStream);
           xsdSources.add(xsdSource);
@@ -134,9 +173,14 @@ public class XmlValidator {
     }
   }
 
+  /**
+   * Validates the first node of a given XML that matches a given XPath. The node is validated
+   * directly on the parsed document (that is, without serializing and parsing it again).
+   */
   public ValidationResultDto validateXpath(String xml, String xpath)
       throws IOException, SAXException, ParserConfigurationException, XPathExpressionException {
-    Document document = XmlUtils.deserialize(xml);
+    Document document =
+        newSecureDocumentBuilder().parse(new InputSource(new StringReader(xml)));
     Node node =
         ((NodeList)
                 XPathFactory.newInstance()
@@ -144,57 +188,141 @@ public class XmlValidator {
                     .compile(xpath)
                     .evaluate(document, XPathConstants.NODESET))
             .item(0);
-    try {
-      return validate(XmlUtils.serialize(node).getBytes(StandardCharsets.UTF_8));
-    } catch (TransformerException e) {
-      LOG.error("Failed to validate XPath", e);
+    if (node == null) {
       return new ValidationResultDto(
-          List.of(new ValidationEntryDto(Severity.ERROR, "Failed to validate XPath")));
+          List.of(new ValidationEntryDto(Severity.ERROR, "No node matches XPath: " + xpath)));
     }
+
+    Validator validator = compoundSchema.schema.newValidator();
+    ValidationEntriesCollector validationEntriesCollector = new ValidationEntriesCollector();
+    validator.setErrorHandler(validationEntriesCollector);
+    try {
+      validator.validate(new DOMSource(node));
+    } catch (ValidationEntriesLimitReachedException e) {
+      // NOTE: the entries collected so far are reported
+    }
+    return validationEntriesCollector.toValidationResult();
   }
 
+  /**
+   * Validates a given XML against all known schemas. Well-formedness and validity are checked on
+   * a single streaming pass over the XML.
+   */
   public ValidationResultDto validate(byte[] xml) {
-    DocumentBuilder documentBuilder = newSecureDocumentBuilder();
+    return validate(xml, compoundSchema);
+  }
+
+  /**
+   * Validates a given XML only against the schema of its root element's namespace (and the schemas
+   * it imports), which is faster to validate against than all known schemas. If there is no schema
+   * for that namespace then the XML is validated against all known schemas.
+   */
+  public ValidationResultDto validateAgainstRootNamespaceSchema(byte[] xml) {
+    String rootNamespace;
     try {
-      documentBuilder.parse(new ByteArrayInputStream(xml));
-    } catch (SAXException e) {
-      List<ValidationEntryDto> parseErrors = new ArrayList<>();
-      parseErrors.add(new ValidationEntryDto(ValidationEntryDto.Severity.ERROR, e.getMessage()));
-      return new ValidationResultDto(parseErrors);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+      rootNamespace = getRootNamespace(xml);
+    } catch (XMLStreamException e) {
+      return new ValidationResultDto(
+          List.of(new ValidationEntryDto(ValidationEntryDto.Severity.ERROR, e.getMessage())));
     }
 
-    // Validators are not thread-safe (hence, separate instance).
-    Validator validator = this.compoundSchema.newValidator();
-
-    List<ValidationEntryDto> validationEntries = new ArrayList<>();
-    validator.setErrorHandler(
-        new ErrorHandler() {
+    String schemaPath = rootNamespace != null ? namespaceToSchemaPathMap.get(rootNamespace) : null;
+    if (schemaPath == null) {
+      return validate(xml, compoundSchema);
+    }
+    return validate(xml, namespaceToSchemaMap.computeIfAbsent(rootNamespace,
+        n -> new PooledSchema(createSchema(schemaPath))));
+  }
 
-          @Override
-          public void error(SAXParseException exception) {
-            validationEntries.add(new ValidationEntryDto(ValidationEntryDto.Severity.ERROR, exception));
-          }
+  private ValidationResultDto validate(byte[] xml, PooledSchema pooledSchema) {
+    SAXParser saxParser = borrowSaxParser();
+    ValidatorHandler validatorHandler = pooledSchema.borrowValidatorHandler();
+    ValidationEntriesCollector validationEntriesCollector = new ValidationEntriesCollector();
+    try {
+      validatorHandler.setErrorHandler(validationEntriesCollector);
+      XMLReader xmlReader = saxParser.getXMLReader();
+      xmlReader.setContentHandler(validatorHandler);
+      xmlReader.parse(new InputSource(new ByteArrayInputStream(xml)));
 
-          @Override
-          public void fatalError(SAXParseException exception) {
-            validationEntries.add(new ValidationEntryDto(ValidationEntryDto.Severity.ERROR, exception));
-          }
+    } catch (ValidationEntriesLimitReachedException e) {
+      // NOTE: the entries collected so far are reported
 
-          @Override
-          public void warning(SAXParseException exception) {
-            validationEntries.add(new ValidationEntryDto(ValidationEntryDto.Severity.WARNING, exception));
-          }
-        });
+    } catch (SAXParseException e) {
+      if (!validationEntriesCollector.isCollected(e)) {
+        // NOTE: the XML is not well-formed, so only that is reported
+        List<ValidationEntryDto> parseErrors = new ArrayList<>();
+        parseErrors.add(
+            new ValidationEntryDto(ValidationEntryDto.Severity.ERROR, e.getMessage()));
+        return new ValidationResultDto(parseErrors);
+      }
 
-    try {
-      validator.validate(new StreamSource(new ByteArrayInputStream(xml)));
     } catch (IOException | SAXException e) {
       throw new RuntimeException(e);
+
+    } finally {
+      validatorHandler.setErrorHandler(null);
+      pooledSchema.returnValidatorHandler(validatorHandler);
+      returnSaxParser(saxParser);
+    }
+
+    return validationEntriesCollector.toValidationResult();
+  }
+
+  private Schema createSchema(String schemaPath) {
+    InputStream xsdInputStream = getClass().getResourceAsStream("/schemas/" + schemaPath);
+    if (xsdInputStream == null) {
+      throw new IllegalStateException("Failed to find schema: " + schemaPath);
+    }
+
+    // NOTE: Schema factories are not thread-safe
+    synchronized (schemaFactory) {
+      try (xsdInputStream) {
+        return schemaFactory.newSchema(new StreamSource(xsdInputStream));
+      } catch (IOException | SAXException e) {
+        throw new IllegalStateException("Failed to compile schema: " + schemaPath, e);
+      }
+    }
+  }
+
+  private static String getRootNamespace(byte[] xml) throws XMLStreamException {
+    XMLStreamReader reader =
+        XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(xml));
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+          return reader.getNamespaceURI();
+        }
+      }
+      return null;
+    } finally {
+      reader.close();
+    }
+  }
+
+  private SAXParser borrowSaxParser() {
+    SAXParser result = saxParserPool.poll();
+    if (result != null) {
+      numberPooledSaxParsers.decrementAndGet();
+      return result;
     }
 
-    return new ValidationResultDto(validationEntries);
+    // NOTE: SAX parser factories are not thread-safe
+    synchronized (saxParserFactory) {
+      try {
+        return saxParserFactory.newSAXParser();
+      } catch (ParserConfigurationException | SAXException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  private void returnSaxParser(SAXParser saxParser) {
+    saxParser.reset();
+    if (numberPooledSaxParsers.incrementAndGet() <= MAX_NUMBER_POOLED_INSTANCES) {
+      saxParserPool.offer(saxParser);
+    } else {
+      numberPooledSaxParsers.decrementAndGet();
+    }
   }
 
   /**
@@ -224,4 +352,119 @@ public class XmlValidator {
       throw new RuntimeException(e);
     }
   }
+
+  /**
+   * Get a new, safely configured instance of {@link SAXParserFactory} (with the same XXE
+   * protections as {@link #newSecureDocumentBuilder()}).
+   */
+  private static SAXParserFactory createSecureSaxParserFactory() {
+    try {
+      SAXParserFactory result = SAXParserFactory.newInstance();
+      result.setNamespaceAware(true);
+      result.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+      result.setFeature("http://xml.org/sax/features/external-general-entities", false);
+      result.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+      result.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+      result.setXIncludeAware(false);
+      return result;
+    } catch (ParserConfigurationException | SAXException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static XMLInputFactory createSecureXmlInputFactory() {
+    XMLInputFactory result = XMLInputFactory.newFactory();
+    result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return result;
+  }
+
+  /**
+   * Compiled schema along with a pool of validator handlers for it (as validator handlers are not
+   * thread-safe, but are expensive to create).
+   */
+  private static class PooledSchema {
+
+    private final Schema schema;
+    private final Queue<ValidatorHandler> validatorHandlerPool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numberPooledValidatorHandlers = new AtomicInteger();
+
+    PooledSchema(Schema schema) {
+      this.schema = schema;
+    }
+
+    ValidatorHandler borrowValidatorHandler() {
+      ValidatorHandler result = validatorHandlerPool.poll();
+      if (result != null) {
+        numberPooledValidatorHandlers.decrementAndGet();
+        return result;
+      }
+      return schema.newValidatorHandler();
+    }
+
+    void returnValidatorHandler(ValidatorHandler validatorHandler) {
+      if (numberPooledValidatorHandlers.incrementAndGet() <= MAX_NUMBER_POOLED_INSTANCES) {
+        validatorHandlerPool.offer(validatorHandler);
+      } else {
+        numberPooledValidatorHandlers.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Collects validation entries, up to {@link #MAX_VALIDATION_ENTRIES_PER_DOCUMENT}, stopping the
+   * validation once that limit is reached.
+   */
+  private static class ValidationEntriesCollector implements ErrorHandler {
+
+    private final List<ValidationEntryDto> validationEntries = new ArrayList<>();
+    private final Set<SAXParseException> collectedExceptions =
+        Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean limitReached = false;
+
+    @Override
+    public void error(SAXParseException exception) throws SAXException {
+      collect(new ValidationEntryDto(ValidationEntryDto.Severity.ERROR, exception), exception);
+    }
+
+    @Override
+    public void fatalError(SAXParseException exception) throws SAXException {
+      collect(new ValidationEntryDto(ValidationEntryDto.Severity.ERROR, exception), exception);
+    }
+
+    @Override
+    public void warning(SAXParseException exception) throws SAXException {
+      collect(new ValidationEntryDto(ValidationEntryDto.Severity.WARNING, exception), exception);
+    }
+
+    boolean isCollected(SAXParseException exception) {
+      return collectedExceptions.contains(exception);
+    }
+
+    ValidationResultDto toValidationResult() {
+      List<ValidationEntryDto> result = new ArrayList<>(validationEntries);
+      if (limitReached) {
+        result.add(new ValidationEntryDto(ValidationEntryDto.Severity.WARNING,
+            "Validation stopped after " + MAX_VALIDATION_ENTRIES_PER_DOCUMENT + " entries"));
+      }
+      return new ValidationResultDto(result);
+    }
+
+    private void collect(ValidationEntryDto validationEntry, SAXParseException exception)
+        throws ValidationEntriesLimitReachedException {
+      collectedExceptions.add(exception);
+      validationEntries.add(validationEntry);
+      if (validationEntries.size() >= MAX_VALIDATION_ENTRIES_PER_DOCUMENT) {
+        limitReached = true;
+        throw new ValidationEntriesLimitReachedException();
+      }
+    }
+  }
+
+  private static class ValidationEntriesLimitReachedException extends SAXException {
+
+    ValidationEntriesLimitReachedException() {
+      super("Maximum number of validation entries reached");
+    }
+  }
 }
@@ -5,6 +5,9 @@ public class ByteArrayUtils {
   private ByteArrayUtils() {}
 
   public static byte[] truncateWithSuffix(byte[] bytes, int maxLengthWithSuffix, byte[] suffix) {
+    if (bytes == null) {
+      return null;
+    }
     if (bytes.length + suffix.length > maxLengthWithSuffix) {
       byte[] result = new byte[maxLengthWithSuffix];
       System.arraycopy(bytes, 0, result, 0, maxLengthWithSuffix - suffix.length);
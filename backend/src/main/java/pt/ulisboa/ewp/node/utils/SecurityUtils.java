@@ -22,14 +22,12 @@ public class SecurityUtils {
       KeyStore keyStore, KeyStore trustStore, String password)
       throws NoSuchProviderException, NoSuchAlgorithmException, UnrecoverableKeyException,
       KeyStoreException, KeyManagementException {
-    KeyManager[] keyManagers = null;
-    if (!KeyStoreUtil.isSelfIssued(
-        keyStore, (X509Certificate) keyStore.getCertificate(keyStore.aliases().nextElement()))) {
-      KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance("SunX509", "SunJSSE");
-      keyManagerFactory.init(keyStore, password.toCharArray());
-      keyManagers = keyManagerFactory.getKeyManagers();
-    }
+    return createSecurityContext(createKeyManagers(keyStore, password), trustStore);
+  }
 
+  public static SSLContext createSecurityContext(KeyManager[] keyManagers, KeyStore trustStore)
+      throws NoSuchProviderException, NoSuchAlgorithmException, KeyStoreException,
+      KeyManagementException {
     TrustManagerFactory trustManagerFactory =
         TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
     trustManagerFactory.init(trustStore);
@@ -40,4 +38,21 @@ public class SecurityUtils {
     return context;
   }
 
+  /**
+   * Returns the key managers for a given keystore, or null if the keystore's certificate is
+   * self-issued.
+   */
+  public static KeyManager[] createKeyManagers(KeyStore keyStore, String password)
+      throws NoSuchProviderException, NoSuchAlgorithmException, UnrecoverableKeyException,
+      KeyStoreException {
+    if (KeyStoreUtil.isSelfIssued(
+        keyStore, (X509Certificate) keyStore.getCertificate(keyStore.aliases().nextElement()))) {
+      return null;
+    }
+
+    KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance("SunX509", "SunJSSE");
+    keyManagerFactory.init(keyStore, password.toCharArray());
+    return keyManagerFactory.getKeyManagers();
+  }
+
 }
@@ -0,0 +1,226 @@
+package pt.ulisboa.ewp.node.utils.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Raw bytes of the body of a request, read once (in bulk) from the request's input stream and then
+ * available to be read as many times as needed. The SHA-256 digest of the body is calculated while
+ * the body is read.
+ *
+ * <p>Bodies up to a given size are kept in memory; larger bodies are kept on a temporary file,
+ * deleted once the buffer is closed.
+ */
+public class HttpRequestBodyBuffer implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HttpRequestBodyBuffer.class);
+
+  private static final int READ_CHUNK_SIZE = 8192;
+  private static final byte[] EMPTY_BYTES = new byte[0];
+
+  private final byte[] bytes;
+  private final Path file;
+  private final long size;
+  private final byte[] sha256Digest;
+
+  private HttpRequestBodyBuffer(byte[] bytes, Path file, long size, byte[] sha256Digest) {
+    this.bytes = bytes;
+    this.file = file;
+    this.size = size;
+    this.sha256Digest = sha256Digest;
+  }
+
+  /** Returns a buffer of an empty body. */
+  public static HttpRequestBodyBuffer empty() {
+    return new HttpRequestBodyBuffer(EMPTY_BYTES, null, 0, DigestUtils.sha256(EMPTY_BYTES));
+  }
+
+  /**
+   * Reads a body until the end of the given input stream.
+   *
+   * @param inputStream The stream of the body
+   * @param expectedSize The expected size of the body (e.g. its Content-Length), or -1 if unknown
+   * @param maxInMemorySizeInBytes Maximum size of a body kept in memory
+   * @param temporaryDirectory Directory where to create the temporary file of a body larger than
+   *     the maximum in memory size (if null, the default temporary directory is used)
+   */
+  public static HttpRequestBodyBuffer read(InputStream inputStream, long expectedSize,
+      long maxInMemorySizeInBytes, Path temporaryDirectory) throws IOException {
+    MessageDigest digest = DigestUtils.getSha256Digest();
+    long maxInMemorySize = Math.max(0, Math.min(maxInMemorySizeInBytes, Integer.MAX_VALUE - 8));
+    byte[] buffer = new byte[(int) Math.min(maxInMemorySize,
+        expectedSize > 0 ? expectedSize : READ_CHUNK_SIZE)];
+    int bufferSize = 0;
+    Path file = null;
+    OutputStream fileOutputStream = null;
+    long size = 0;
+
+    try {
+      byte[] chunk = new byte[READ_CHUNK_SIZE];
+      int numberBytesRead;
+      while ((numberBytesRead = inputStream.read(chunk)) != -1) {
+        digest.update(chunk, 0, numberBytesRead);
+        size += numberBytesRead;
+
+        if (fileOutputStream == null && size > maxInMemorySize) {
+          file = createTemporaryFile(temporaryDirectory);
+          fileOutputStream = Files.newOutputStream(file, StandardOpenOption.WRITE);
+          fileOutputStream.write(buffer, 0, bufferSize);
+          buffer = null;
+        }
+
+        if (fileOutputStream != null) {
+          fileOutputStream.write(chunk, 0, numberBytesRead);
+        } else {
+          if (bufferSize + numberBytesRead > buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.min(maxInMemorySize,
+                Math.max(2L * buffer.length, bufferSize + numberBytesRead)));
+          }
+          System.arraycopy(chunk, 0, buffer, bufferSize, numberBytesRead);
+          bufferSize += numberBytesRead;
+        }
+      }
+
+      if (fileOutputStream != null) {
+        fileOutputStream.close();
+      }
+      return new HttpRequestBodyBuffer(buffer, file, size, digest.digest());
+
+    } catch (IOException | RuntimeException e) {
+      if (fileOutputStream != null) {
+        closeQuietly(fileOutputStream);
+      }
+      if (file != null) {
+        Files.deleteIfExists(file);
+      }
+      throw e;
+    }
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public boolean isInMemory() {
+    return file == null;
+  }
+
+  /** Returns the SHA-256 digest of the body, calculated when it was read. */
+  public byte[] getSha256Digest() {
+    return sha256Digest.clone();
+  }
+
+  /**
+   * Returns the digest of the body for a given algorithm. The SHA-256 digest is not calculated
+   * again.
+   */
+  public byte[] getDigest(String algorithm) throws NoSuchAlgorithmException, IOException {
+    if (HttpSignatureUtils.SHA_256.equalsIgnoreCase(algorithm)) {
+      return getSha256Digest();
+    }
+    MessageDigest digest = MessageDigest.getInstance(algorithm);
+    try (InputStream inputStream = openInputStream()) {
+      return DigestUtils.digest(digest, inputStream);
+    }
+  }
+
+  /** Opens a new stream over the body, from its beginning. */
+  public InputStream openInputStream() throws IOException {
+    if (isInMemory()) {
+      return new ByteArrayInputStream(bytes, 0, (int) size);
+    }
+    return Files.newInputStream(file, StandardOpenOption.READ);
+  }
+
+  /** Opens a new channel over the body, from its beginning, for reads into byte buffers. */
+  public ReadableByteChannel openChannel() throws IOException {
+    if (isInMemory()) {
+      return Channels.newChannel(openInputStream());
+    }
+    return FileChannel.open(file, StandardOpenOption.READ);
+  }
+
+  /** Returns a copy of the body. */
+  public byte[] toByteArray() throws IOException {
+    if (isInMemory()) {
+      return Arrays.copyOf(bytes, (int) size);
+    }
+    return Files.readAllBytes(file);
+  }
+
+  /**
+   * Decodes the whole body using the given charset. Note that a body kept on a temporary file is
+   * loaded whole into memory; see {@link #toString(Charset, int)} for a bounded alternative.
+   */
+  public String toString(Charset charset) {
+    if (isInMemory()) {
+      return new String(bytes, 0, (int) size, charset);
+    }
+    try {
+      return new String(Files.readAllBytes(file), charset);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read request body from " + file, e);
+    }
+  }
+
+  /**
+   * Decodes at most a given number of bytes of the body (from its beginning) using the given
+   * charset. Only those bytes are read, so a body kept on a temporary file is never loaded whole.
+   */
+  public String toString(Charset charset, int maxSizeInBytes) {
+    int length = (int) Math.min(size, Math.max(0, maxSizeInBytes));
+    if (isInMemory()) {
+      return new String(bytes, 0, length, charset);
+    }
+    try (InputStream inputStream = openInputStream()) {
+      return new String(inputStream.readNBytes(length), charset);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read request body from " + file, e);
+    }
+  }
+
+  /** Deletes the temporary file of the body, if any. */
+  @Override
+  public void close() {
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        LOG.warn("Failed to delete temporary file of request body: {}", file, e);
+      }
+    }
+  }
+
+  private static Path createTemporaryFile(Path temporaryDirectory) throws IOException {
+    if (temporaryDirectory == null) {
+      return Files.createTempFile("ewp-request-body-", ".tmp");
+    }
+    Files.createDirectories(temporaryDirectory);
+    return Files.createTempFile(temporaryDirectory, "ewp-request-body-", ".tmp");
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      LOG.debug("Failed to close stream", e);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package pt.ulisboa.ewp.node.utils.http;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Raw bytes of the body of a response, written incrementally while the response is produced. The
+ * SHA-256 digest of the body is updated as the body is written, so it does not need to be read
+ * again to be signed.
+ *
+ * <p>Bodies up to a given size are kept in memory; once a body grows larger it is moved to a
+ * temporary file, deleted once the buffer is reset or closed.
+ */
+public class HttpResponseBodyBuffer implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HttpResponseBodyBuffer.class);
+
+  private static final int INITIAL_IN_MEMORY_SIZE = 1024;
+  private static final int FILE_WRITE_BUFFER_SIZE = 8192;
+  private static final int COPY_CHUNK_SIZE = 8192;
+
+  private final long maxInMemorySize;
+  private final Path temporaryDirectory;
+
+  private byte[] bytes;
+  private Path file;
+  private OutputStream fileOutputStream;
+  private long size;
+  private MessageDigest digest;
+
+  /**
+   * @param maxInMemorySizeInBytes Maximum size of a body kept in memory
+   * @param temporaryDirectory Directory where to create the temporary file of a body larger than
+   *     the maximum in memory size (if null, the default temporary directory is used)
+   */
+  public HttpResponseBodyBuffer(long maxInMemorySizeInBytes, Path temporaryDirectory) {
+    this.maxInMemorySize = Math.max(0, Math.min(maxInMemorySizeInBytes, Integer.MAX_VALUE - 8));
+    this.temporaryDirectory = temporaryDirectory;
+    this.bytes = new byte[(int) Math.min(this.maxInMemorySize, INITIAL_IN_MEMORY_SIZE)];
+    this.digest = DigestUtils.getSha256Digest();
+  }
+
+  public synchronized void write(int b) throws IOException {
+    if (fileOutputStream == null && size < bytes.length) {
+      digest.update((byte) b);
+      bytes[(int) size++] = (byte) b;
+      return;
+    }
+    write(new byte[]{(byte) b}, 0, 1);
+  }
+
+  public synchronized void write(byte[] source, int offset, int length) throws IOException {
+    if (length <= 0) {
+      return;
+    }
+    digest.update(source, offset, length);
+
+    if (fileOutputStream == null && size + length > maxInMemorySize) {
+      file = createTemporaryFile(temporaryDirectory);
+      fileOutputStream = new BufferedOutputStream(
+          Files.newOutputStream(file, StandardOpenOption.WRITE), FILE_WRITE_BUFFER_SIZE);
+      fileOutputStream.write(bytes, 0, (int) size);
+      bytes = null;
+    }
+
+    if (fileOutputStream != null) {
+      fileOutputStream.write(source, offset, length);
+    } else {
+      if (size + length > bytes.length) {
+        bytes = Arrays.copyOf(bytes, (int) Math.min(maxInMemorySize,
+            Math.max(2L * bytes.length, size + length)));
+      }
+      System.arraycopy(source, offset, bytes, (int) size, length);
+    }
+    size += length;
+  }
+
+  public synchronized long getSize() {
+    return size;
+  }
+
+  public synchronized boolean isInMemory() {
+    return file == null;
+  }
+
+  /** Returns the SHA-256 digest of the body written so far. */
+  public synchronized byte[] getSha256Digest() throws IOException {
+    try {
+      return ((MessageDigest) digest.clone()).digest();
+    } catch (CloneNotSupportedException e) {
+      try (InputStream inputStream = openInputStream()) {
+        return DigestUtils.sha256(inputStream);
+      }
+    }
+  }
+
+  /** Opens a new stream over the body written so far, from its beginning. */
+  public synchronized InputStream openInputStream() throws IOException {
+    if (isInMemory()) {
+      return new ByteArrayInputStream(bytes, 0, (int) size);
+    }
+    fileOutputStream.flush();
+    return Files.newInputStream(file, StandardOpenOption.READ);
+  }
+
+  /** Returns a copy of the body written so far. */
+  public synchronized byte[] toByteArray() throws IOException {
+    if (isInMemory()) {
+      return Arrays.copyOf(bytes, (int) size);
+    }
+    fileOutputStream.flush();
+    return Files.readAllBytes(file);
+  }
+
+  /** Copies the body written so far to a given stream, in chunks. */
+  public synchronized void writeTo(OutputStream outputStream) throws IOException {
+    if (isInMemory()) {
+      outputStream.write(bytes, 0, (int) size);
+      return;
+    }
+    try (InputStream inputStream = openInputStream()) {
+      byte[] chunk = new byte[COPY_CHUNK_SIZE];
+      int numberBytesRead;
+      while ((numberBytesRead = inputStream.read(chunk)) != -1) {
+        outputStream.write(chunk, 0, numberBytesRead);
+      }
+    }
+  }
+
+  /** Discards the body written so far. */
+  public synchronized void reset() {
+    close();
+    this.bytes = new byte[(int) Math.min(maxInMemorySize, INITIAL_IN_MEMORY_SIZE)];
+    this.size = 0;
+    this.digest = DigestUtils.getSha256Digest();
+  }
+
+  /** Deletes the temporary file of the body, if any. */
+  @Override
+  public synchronized void close() {
+    if (fileOutputStream != null) {
+      try {
+        fileOutputStream.close();
+      } catch (IOException e) {
+        LOG.debug("Failed to close stream", e);
+      }
+      fileOutputStream = null;
+    }
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        LOG.warn("Failed to delete temporary file of response body: {}", file, e);
+      }
+      file = null;
+      bytes = new byte[0];
+      size = 0;
+    }
+  }
+
+  private static Path createTemporaryFile(Path temporaryDirectory) throws IOException {
+    if (temporaryDirectory == null) {
+      return Files.createTempFile("ewp-response-body-", ".tmp");
+    }
+    Files.createDirectories(temporaryDirectory);
+    return Files.createTempFile(temporaryDirectory, "ewp-response-body-", ".tmp");
+  }
+}
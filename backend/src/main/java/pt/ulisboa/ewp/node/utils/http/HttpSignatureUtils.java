@@ -71,7 +71,23 @@ public class HttpSignatureUtils {
   public static VerificationResult verifyDigest(
       ExtendedHttpHeaders headers, byte[] bodyBytes) {
     if (headers.containsKey(HttpConstants.HEADER_DIGEST)) {
-      return verifyDigestValues(headers.getDigestValues(), bodyBytes);
+      LOGGER.debug("Attempting to verify digest of body '" + new String(bodyBytes)
+          + "' (in bytes: " + Arrays.toString(bodyBytes) + ")");
+      return verifyDigestValues(headers.getDigestValues(),
+          algorithm -> MessageDigest.getInstance(algorithm).digest(bodyBytes), bodyBytes.length);
+    } else {
+      return VerificationResult.createFailure("Digest header missing");
+    }
+  }
+
+  /**
+   * Verifies the digest of a request body. The SHA-256 digest of the body, calculated while it
+   * was read, is not calculated again.
+   */
+  public static VerificationResult verifyDigest(
+      ExtendedHttpHeaders headers, HttpRequestBodyBuffer body) {
+    if (headers.containsKey(HttpConstants.HEADER_DIGEST)) {
+      return verifyDigestValues(headers.getDigestValues(), body::getDigest, body.getSize());
     } else {
       return VerificationResult.createFailure("Digest header missing");
     }
@@ -123,10 +139,6 @@ public class HttpSignatureUtils {
         + (queryParams == null || queryParams.isEmpty() ? "" : "?" + queryParams);
   }
 
-  public static byte[] getByteArray(EwpApiHttpRequestWrapper request) {
-    return request.getBody().getBytes();
-  }
-
   private static boolean isDateWithinTimeThreshold(String dateString) {
     Date today = new Date();
     try {
@@ -141,10 +153,11 @@ public class HttpSignatureUtils {
   }
 
   private static VerificationResult verifyDigestValues(
-      Map<String, String> digestValues, byte[] bodyBytes) {
+      Map<String, String> digestValues, BodyDigestCalculator digestCalculator, long bodyLength) {
 
     if (digestValues.containsKey(SHA_256)) {
-      return verifyDigestAgainstAlgorithm(SHA_256, digestValues.get(SHA_256), bodyBytes);
+      return verifyDigestAgainstAlgorithm(SHA_256, digestValues.get(SHA_256), digestCalculator,
+          bodyLength);
     }
 
     for (Map.Entry<String, String> entry : digestValues.entrySet()) {
@@ -152,7 +165,7 @@ public class HttpSignatureUtils {
       if (WHITELIST_DIGEST_ALGORITHMS.contains(algorithm.toLowerCase())) {
         String requestDigestValue = entry.getValue();
         VerificationResult digestVerificationResult = verifyDigestAgainstAlgorithm(algorithm,
-            requestDigestValue, bodyBytes);
+            requestDigestValue, digestCalculator, bodyLength);
         if (digestVerificationResult.isSuccess()) {
           return digestVerificationResult;
         }
@@ -163,31 +176,30 @@ public class HttpSignatureUtils {
   }
 
   private static VerificationResult verifyDigestAgainstAlgorithm(
-      String algorithm, String digestValue, byte[] bodyBytes) {
-
-    LOGGER.debug(
-        "Attempting to verify digest of body '" + new String(bodyBytes) + "'" + "' (in bytes: "
-            + Arrays.toString(bodyBytes)
-            + ")");
+      String algorithm, String digestValue, BodyDigestCalculator digestCalculator,
+      long bodyLength) {
 
     byte[] digest;
     try {
-      digest = MessageDigest.getInstance(algorithm).digest(bodyBytes);
+      digest = digestCalculator.calculate(algorithm);
     } catch (NoSuchAlgorithmException e) {
       LOGGER.error("No such algorithm", e);
       return VerificationResult.createFailure("No such algorithm: " + algorithm);
+    } catch (IOException e) {
+      LOGGER.error("Failed to read body", e);
+      return VerificationResult.createFailure("Failed to read body: " + e.getMessage());
     }
     String digestValueCalculated = new String(Base64.encodeBase64(digest));
 
     if (!digestValueCalculated.equals(digestValue)) {
-      LOGGER.debug("Failed digest verification: request body = '" + new String(bodyBytes)
-          + "'; provided digest = '" + digestValue + "'; calculated digest = '"
+      LOGGER.debug("Failed digest verification: body length = " + bodyLength
+          + "; provided digest = '" + digestValue + "'; calculated digest = '"
           + digestValueCalculated);
       return VerificationResult.createFailure(
           "Digest mismatch! calculated for algorithm "
               + algorithm
               + " (body length: "
-              + bodyBytes.length
+              + bodyLength
               + "): "
               + digestValueCalculated
               + ", provided: "
@@ -224,6 +236,12 @@ public class HttpSignatureUtils {
     return signed.toString();
   }
 
+  @FunctionalInterface
+  private interface BodyDigestCalculator {
+
+    byte[] calculate(String algorithm) throws NoSuchAlgorithmException, IOException;
+  }
+
   public static class VerificationResult {
 
     private final boolean success;
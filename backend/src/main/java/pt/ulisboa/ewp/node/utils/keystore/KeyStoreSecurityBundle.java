@@ -0,0 +1,81 @@
+package pt.ulisboa.ewp.node.utils.keystore;
+
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.UnrecoverableKeyException;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import pt.ulisboa.ewp.node.utils.SecurityUtils;
+
+/**
+ * Security resources derived from a keystore (key managers, SSL context and the certificate and
+ * private key in use). Creating these resources is expensive, so a bundle is created once per
+ * keystore and shared by every request while that keystore is in use.
+ */
+public class KeyStoreSecurityBundle {
+
+  private final long version;
+  private final DecodedKeystore decodedKeystore;
+  private final DecodedCertificateAndKey decodedCertificateAndKey;
+  private final KeyManager[] keyManagers;
+  private final SSLContext sslContext;
+
+  private KeyStoreSecurityBundle(
+      long version,
+      DecodedKeystore decodedKeystore,
+      DecodedCertificateAndKey decodedCertificateAndKey,
+      KeyManager[] keyManagers,
+      SSLContext sslContext) {
+    this.version = version;
+    this.decodedKeystore = decodedKeystore;
+    this.decodedCertificateAndKey = decodedCertificateAndKey;
+    this.keyManagers = keyManagers;
+    this.sslContext = sslContext;
+  }
+
+  public static KeyStoreSecurityBundle create(
+      long version, DecodedKeystore decodedKeystore, String certificateAlias)
+      throws NoSuchProviderException, NoSuchAlgorithmException, UnrecoverableKeyException,
+      KeyStoreException, KeyManagementException {
+    KeyManager[] keyManagers =
+        SecurityUtils.createKeyManagers(
+            decodedKeystore.getKeyStore(), decodedKeystore.getKeyStorePassword());
+    SSLContext sslContext = SecurityUtils.createSecurityContext(keyManagers, null);
+    return new KeyStoreSecurityBundle(
+        version,
+        decodedKeystore,
+        decodedKeystore.getDecodedCertificateAndKey(certificateAlias),
+        keyManagers,
+        sslContext);
+  }
+
+  /**
+   * Returns the version of the bundle, which increases every time a new bundle is created for a
+   * different keystore.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  public DecodedKeystore getDecodedKeystore() {
+    return decodedKeystore;
+  }
+
+  public DecodedCertificateAndKey getDecodedCertificateAndKey() {
+    return decodedCertificateAndKey;
+  }
+
+  /**
+   * Returns the key managers of the keystore, or null if the keystore's certificate is self-issued
+   * (as such certificate is not sent on TLS handshakes).
+   */
+  public KeyManager[] getKeyManagers() {
+    return keyManagers;
+  }
+
+  public SSLContext getSslContext() {
+    return sslContext;
+  }
+}
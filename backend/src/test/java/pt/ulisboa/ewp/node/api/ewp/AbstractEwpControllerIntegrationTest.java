@@ -47,6 +47,8 @@ import pt.ulisboa.ewp.node.api.AbstractResourceIntegrationTest;
 import pt.ulisboa.ewp.node.api.ewp.filter.EwpApiCommunicationLoggerFilter;
 import pt.ulisboa.ewp.node.api.ewp.filter.EwpApiRequestAndResponseWrapperFilter;
 import pt.ulisboa.ewp.node.client.ewp.registry.RegistryClient;
+import pt.ulisboa.ewp.node.config.api.ApiProperties;
+import pt.ulisboa.ewp.node.service.communication.log.async.AsyncCommunicationLogWriter;
 import pt.ulisboa.ewp.node.service.communication.log.http.ewp.EwpHttpCommunicationLogService;
 import pt.ulisboa.ewp.node.service.xml.XmlValidator;
 import pt.ulisboa.ewp.node.utils.http.HttpConstants;
@@ -68,6 +70,12 @@ public abstract class AbstractEwpControllerIntegrationTest extends AbstractResou
   @Autowired
   private EwpHttpCommunicationLogService ewpHttpCommunicationLogService;
 
+  @Autowired
+  private AsyncCommunicationLogWriter asyncCommunicationLogWriter;
+
+  @Autowired
+  private ApiProperties apiProperties;
+
   protected MockMvc mockMvc;
 
   @BeforeEach
@@ -75,9 +83,11 @@ public abstract class AbstractEwpControllerIntegrationTest extends AbstractResou
     this.mockMvc =
         MockMvcBuilders.webAppContextSetup(this.wac)
             .addFilters(
-                new EwpApiRequestAndResponseWrapperFilter(),
+                new EwpApiRequestAndResponseWrapperFilter(apiProperties),
                 new EwpApiCommunicationLoggerFilter(
-                    requestMappingHandlerMapping, ewpHttpCommunicationLogService))
+                    requestMappingHandlerMapping,
+                    ewpHttpCommunicationLogService,
+                    asyncCommunicationLogWriter))
             .apply(springSecurity())
             .build();
   }
@@ -1,11 +1,13 @@
 package pt.ulisboa.ewp.node.api.ewp.controller.discovery;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.xpath;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
@@ -88,4 +90,37 @@ public class EwpApiDiscoveryManifestControllerIntegrationTest extends
         xml,
         "/*[local-name()='manifest']/*[local-name()='host']/*[local-name()='apis-implemented']/*[local-name()='echo']");
   }
+
+  @Test
+  public void testManifest_RequestWithSameETag_ReturnNotModified() throws Exception {
+    MvcResult mvcResult =
+        this.mockMvc
+            .perform(
+                get(EwpApiConstants.API_BASE_URI + "manifest").accept(MediaType.APPLICATION_XML))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+            .andReturn();
+    String eTag = mvcResult.getResponse().getHeader(HttpHeaders.ETAG);
+
+    this.mockMvc
+        .perform(
+            get(EwpApiConstants.API_BASE_URI + "manifest")
+                .accept(MediaType.APPLICATION_XML)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, eTag));
+  }
+
+  @Test
+  public void testManifest_RequestWithDifferentETag_ReturnManifest() throws Exception {
+    this.mockMvc
+        .perform(
+            get(EwpApiConstants.API_BASE_URI + "manifest")
+                .accept(MediaType.APPLICATION_XML)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+        .andExpect(status().isOk())
+        .andExpect(
+            xpath("count(/*[local-name()='manifest']/*[local-name()='host'])").number(1D));
+  }
 }
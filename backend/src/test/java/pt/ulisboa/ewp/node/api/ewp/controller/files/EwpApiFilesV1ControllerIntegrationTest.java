@@ -14,6 +14,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import pt.ulisboa.ewp.host.plugin.skeleton.provider.files.FileResponse;
 import pt.ulisboa.ewp.host.plugin.skeleton.provider.files.FilesV1HostProvider;
 import pt.ulisboa.ewp.host.plugin.skeleton.provider.files.MockFilesV1HostProvider;
@@ -90,4 +91,77 @@ public class EwpApiFilesV1ControllerIntegrationTest extends AbstractEwpControlle
     assertThat(resultFileContents).isEqualTo(fileResponse.getData());
   }
 
+  @Test
+  public void testFileRetrieval_RangeRequested_PartialContentReturned() throws Exception {
+    String heiId = UUID.randomUUID().toString();
+    String fileId = UUID.randomUUID().toString();
+
+    MockFilesV1HostProvider provider1 = new MockFilesV1HostProvider();
+    provider1.registerFile(fileId, new FileResponse(MediaType.APPLICATION_PDF_VALUE,
+        "PDF_TEST_CONTENT".getBytes(StandardCharsets.UTF_8)));
+
+    Mockito
+        .when(hostPluginManager.getAllProvidersOfType(heiId,
+            FilesV1HostProvider.class))
+        .thenReturn(List.of(provider1));
+
+    HttpParams queryParams = new HttpParams();
+    queryParams.param(EwpApiParamConstants.FILE_ID, fileId);
+
+    MockHttpServletResponse response =
+        executeRequest(
+                registryClient,
+                MockMvcRequestBuilders.request(HttpMethod.GET,
+                        EwpApiConstants.API_BASE_URI + EwpApiFilesV1Controller.BASE_PATH + "/"
+                            + heiId)
+                    .with(httpParamsProcessor(queryParams))
+                    .header(HttpHeaders.RANGE, "bytes=0-2"),
+                UUID.randomUUID().toString())
+            .andExpect(status().isPartialContent())
+            .andReturn()
+            .getResponse();
+
+    assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-2/16");
+    assertThat(response.getContentAsString()).isEqualTo("PDF");
+  }
+
+  @Test
+  public void testFileRetrieval_IfNoneMatchWithSameETag_NotModifiedReturned() throws Exception {
+    String heiId = UUID.randomUUID().toString();
+    String fileId = UUID.randomUUID().toString();
+
+    MockFilesV1HostProvider provider1 = new MockFilesV1HostProvider();
+    provider1.registerFile(fileId, new FileResponse(MediaType.APPLICATION_PDF_VALUE,
+        "PDF_TEST_CONTENT".getBytes(StandardCharsets.UTF_8)));
+
+    Mockito
+        .when(hostPluginManager.getAllProvidersOfType(heiId,
+            FilesV1HostProvider.class))
+        .thenReturn(List.of(provider1));
+
+    HttpParams queryParams = new HttpParams();
+    queryParams.param(EwpApiParamConstants.FILE_ID, fileId);
+    String uri = EwpApiConstants.API_BASE_URI + EwpApiFilesV1Controller.BASE_PATH + "/" + heiId;
+
+    String eTag =
+        executeRequest(registryClient, HttpMethod.GET, uri, queryParams)
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    assertThat(eTag).isNotBlank();
+
+    MockHttpServletResponse response =
+        executeRequest(
+                registryClient,
+                MockMvcRequestBuilders.request(HttpMethod.GET, uri)
+                    .with(httpParamsProcessor(queryParams))
+                    .header(HttpHeaders.IF_NONE_MATCH, eTag),
+                UUID.randomUUID().toString())
+            .andExpect(status().isNotModified())
+            .andReturn()
+            .getResponse();
+
+    assertThat(response.getContentAsByteArray()).isEmpty();
+  }
 }
@@ -177,14 +177,13 @@ class EwpApiInterInstitutionalAgreementsV7ControllerTest extends
 
     Mockito.reset(hostPluginManager);
 
+    List<EwpInterInstitutionalAgreementMapping> mappings = new ArrayList<>();
     for (int index = 0; index < iiaIds.size(); index++) {
-      doReturn(
-              Optional.of(
-                  EwpInterInstitutionalAgreementMapping.create(
-                      heiId, ounitIds.get(index), iiaIds.get(index))))
-          .when(mappingRepository)
-          .findByHeiIdAndIiaId(heiId, iiaIds.get(index));
+      mappings.add(
+          EwpInterInstitutionalAgreementMapping.create(
+              heiId, ounitIds.get(index), iiaIds.get(index)));
     }
+    doReturn(mappings).when(mappingRepository).findByHeiIdAndIiaIds(heiId, iiaIds);
 
     doReturn(true).when(hostPluginManager)
         .hasHostProvider(heiId, InterInstitutionalAgreementsV7HostProvider.class);
@@ -254,14 +253,13 @@ class EwpApiInterInstitutionalAgreementsV7ControllerTest extends
 
     Mockito.reset(hostPluginManager);
 
+    List<EwpInterInstitutionalAgreementMapping> mappings = new ArrayList<>();
     for (int index = 0; index < knownIiaIds.size(); index++) {
-      doReturn(
-              Optional.of(
-                  EwpInterInstitutionalAgreementMapping.create(
-                      heiId, ounitIds.get(index), knownIiaIds.get(index))))
-          .when(mappingRepository)
-          .findByHeiIdAndIiaId(heiId, knownIiaIds.get(index));
+      mappings.add(
+          EwpInterInstitutionalAgreementMapping.create(
+              heiId, ounitIds.get(index), knownIiaIds.get(index)));
     }
+    doReturn(mappings).when(mappingRepository).findByHeiIdAndIiaIds(heiId, iiaIds);
 
     doReturn(true).when(hostPluginManager)
         .hasHostProvider(heiId, InterInstitutionalAgreementsV7HostProvider.class);
@@ -556,4 +554,124 @@ class EwpApiInterInstitutionalAgreementsV7ControllerTest extends
         BigInteger.valueOf(18L));
   }
 
-}
\ No newline at end of file
+  @ParameterizedTest
+  @EnumSource(
+      value = HttpMethod.class,
+      names = {"GET", "POST"})
+  public void
+      testInterInstitutionalAgreementsGetRetrievalByIiaIds_ValidHeiIdDividedIntoTwoHostsWithNoExistingMappings_OneBatchedCallPerProvider(
+          HttpMethod method) throws Exception {
+    String heiId = "test";
+    List<String> iiaIds = List.of("a1", "b2", "c3");
+
+    MockInterInstitutionalAgreementsV7HostProvider mockProvider1 =
+        Mockito.spy(new MockInterInstitutionalAgreementsV7HostProvider(3, 0));
+    MockInterInstitutionalAgreementsV7HostProvider mockProvider2 =
+        Mockito.spy(new MockInterInstitutionalAgreementsV7HostProvider(3, 0));
+
+    mockProvider1.registerIia(heiId, "a1", UUID.randomUUID().toString(), createIia(heiId, "a1"));
+    mockProvider2.registerIia(heiId, "b2", UUID.randomUUID().toString(), createIia(heiId, "b2"));
+    mockProvider1.registerIia(heiId, "c3", UUID.randomUUID().toString(), createIia(heiId, "c3"));
+
+    Mockito.reset(hostPluginManager);
+
+    doReturn(List.of(mockProvider1, mockProvider2))
+        .when(hostPluginManager)
+        .getAllProvidersOfType(heiId, InterInstitutionalAgreementsV7HostProvider.class);
+
+    doReturn(Optional.of(mockProvider1))
+        .when(hostPluginManager)
+        .getPrimaryProvider(heiId, InterInstitutionalAgreementsV7HostProvider.class);
+
+    HttpParams queryParams = new HttpParams();
+    queryParams.param(EwpApiParamConstants.IIA_ID, iiaIds);
+
+    String responseXml =
+        executeRequest(
+                registryClient,
+                method,
+                EwpApiConstants.API_BASE_URI
+                    + EwpApiInterInstitutionalAgreementsV7Controller.BASE_PATH
+                    + "/"
+                    + heiId
+                    + "/get",
+                queryParams)
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    IiasGetResponseV7 response = XmlUtils.unmarshall(responseXml, IiasGetResponseV7.class);
+
+    assertThat(response).isNotNull();
+    assertThat(response.getIia())
+        .extracting(iia -> iia.getPartner().get(0).getIiaId())
+        .containsExactly("a1", "b2", "c3");
+    Mockito.verify(mockProvider1, Mockito.times(1))
+        .findByHeiIdAndIiaIds(Mockito.any(), Mockito.eq(heiId), Mockito.eq(iiaIds));
+    Mockito.verify(mockProvider2, Mockito.times(1))
+        .findByHeiIdAndIiaIds(Mockito.any(), Mockito.eq(heiId), Mockito.eq(List.of("b2")));
+  }
+
+  @ParameterizedTest
+  @EnumSource(
+      value = HttpMethod.class,
+      names = {"GET", "POST"})
+  public void
+      testInterInstitutionalAgreementsGetRetrievalByIiaIds_PrimaryProviderReturnsNotRequestedIia_NotRequestedIiaDroppedAndRequestedIiaFoundOnNextProvider(
+          HttpMethod method) throws Exception {
+    String heiId = "test";
+    List<String> iiaIds = List.of("a1", "b2");
+
+    MockInterInstitutionalAgreementsV7HostProvider mockProvider1 =
+        new MockInterInstitutionalAgreementsV7HostProvider(3, 0);
+    MockInterInstitutionalAgreementsV7HostProvider mockProvider2 =
+        new MockInterInstitutionalAgreementsV7HostProvider(3, 0);
+
+    mockProvider1.registerIia(heiId, "a1", UUID.randomUUID().toString(), createIia(heiId, "z9"));
+    mockProvider1.registerIia(heiId, "b2", UUID.randomUUID().toString(), createIia(heiId, "b2"));
+    mockProvider2.registerIia(heiId, "a1", UUID.randomUUID().toString(), createIia(heiId, "a1"));
+
+    Mockito.reset(hostPluginManager);
+
+    doReturn(List.of(mockProvider1, mockProvider2))
+        .when(hostPluginManager)
+        .getAllProvidersOfType(heiId, InterInstitutionalAgreementsV7HostProvider.class);
+
+    doReturn(Optional.of(mockProvider1))
+        .when(hostPluginManager)
+        .getPrimaryProvider(heiId, InterInstitutionalAgreementsV7HostProvider.class);
+
+    HttpParams queryParams = new HttpParams();
+    queryParams.param(EwpApiParamConstants.IIA_ID, iiaIds);
+
+    String responseXml =
+        executeRequest(
+                registryClient,
+                method,
+                EwpApiConstants.API_BASE_URI
+                    + EwpApiInterInstitutionalAgreementsV7Controller.BASE_PATH
+                    + "/"
+                    + heiId
+                    + "/get",
+                queryParams)
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    IiasGetResponseV7 response = XmlUtils.unmarshall(responseXml, IiasGetResponseV7.class);
+
+    assertThat(response).isNotNull();
+    assertThat(response.getIia())
+        .extracting(iia -> iia.getPartner().get(0).getIiaId())
+        .containsExactly("a1", "b2");
+  }
+
+  private static Iia createIia(String heiId, String iiaId) {
+    Iia iia = new Iia();
+    Partner partner = new Partner();
+    partner.setHeiId(heiId);
+    partner.setIiaId(iiaId);
+    iia.getPartner().add(partner);
+    return iia;
+  }
+}
@@ -1,6 +1,8 @@
 package pt.ulisboa.ewp.node.api.ewp.controller.iias.approvals;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -14,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -70,14 +73,15 @@ class EwpApiInterInstitutionalAgreementsApprovalV2ControllerTest
         new MockInterInstitutionalAgreementsApprovalV2HostProvider(3);
     mockProvider2.registerApprovals(approvingHeiId, approvals.get(1), approvals.get(2));
 
+    List<EwpInterInstitutionalAgreementMapping> mappings = new ArrayList<>();
     for (int index = 0; index < iiaIds.size(); index++) {
-      EwpInterInstitutionalAgreementMapping mapping =
+      mappings.add(
           EwpInterInstitutionalAgreementMapping.create(
-              approvingHeiId, ounitIds.get(index), iiaIds.get(index));
-      doReturn(Optional.of(mapping))
-          .when(mappingRepository)
-          .findByHeiIdAndIiaId(approvingHeiId, iiaIds.get(index));
+              approvingHeiId, ounitIds.get(index), iiaIds.get(index)));
     }
+    doReturn(mappings)
+        .when(mappingRepository)
+        .findByHeiIdAndIiaIds(eq(approvingHeiId), argThat(ids -> ids.containsAll(iiaIds)));
 
     doReturn(true)
         .when(hostPluginManager)
@@ -139,6 +143,10 @@ class EwpApiInterInstitutionalAgreementsApprovalV2ControllerTest
       assertThat(approvalOptional).isPresent();
       assertThat(approvalOptional.get().getIiaHash()).isEqualTo(approval.getIiaHash());
     }
+
+    // NOTE: IIA IDs of the same provider are requested in a single call
+    assertThat(mockProvider1.numberCalls).hasValue(1);
+    assertThat(mockProvider2.numberCalls).hasValue(1);
   }
 
   @ParameterizedTest
@@ -222,6 +230,8 @@ class EwpApiInterInstitutionalAgreementsApprovalV2ControllerTest
     private final Map<String, Collection<Pair<String, Approval>>> heiIdToApprovalsMap =
         new HashMap<>();
 
+    private final AtomicInteger numberCalls = new AtomicInteger();
+
     MockInterInstitutionalAgreementsApprovalV2HostProvider(int maxIiaIdsPerRequest) {
       this.maxIiaIdsPerRequest = maxIiaIdsPerRequest;
     }
@@ -243,6 +253,7 @@ class EwpApiInterInstitutionalAgreementsApprovalV2ControllerTest
     @Override
     public Collection<Approval> findByIiaIds(
         String approvingHeiId, String requesterCoveredHeiId, Collection<String> iiaIds) {
+      numberCalls.incrementAndGet();
       this.heiIdToApprovalsMap.computeIfAbsent(approvingHeiId, h -> new ArrayList<>());
       return heiIdToApprovalsMap.get(approvingHeiId).stream()
           .filter(e -> iiaIds.contains(e.getLeft()))
@@ -0,0 +1,176 @@
+package pt.ulisboa.ewp.node.api.host.forward.ewp.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import pt.ulisboa.ewp.node.api.host.forward.ewp.security.ForwardEwpApiClientAuthenticationToken;
+import pt.ulisboa.ewp.node.api.host.forward.ewp.security.ForwardEwpApiHostClientPrincipal;
+import pt.ulisboa.ewp.node.api.host.forward.ewp.security.jwt.ForwardEwpApiJwtVerificationCache.ClientVerifier;
+import pt.ulisboa.ewp.node.config.security.SecurityForwardApiJwtProperties;
+import pt.ulisboa.ewp.node.domain.entity.api.host.forward.ewp.client.HostForwardEwpApiClient;
+import pt.ulisboa.ewp.node.domain.repository.host.forward.ewp.client.HostForwardEwpApiClientRepository;
+import pt.ulisboa.ewp.node.events.host.HostsUpdatedEvent;
+
+class ForwardEwpApiJwtVerificationCacheTest {
+
+  private static final String CLIENT_ID = "client-1";
+
+  private HostForwardEwpApiClient client;
+  private HostForwardEwpApiClientRepository clientRepository;
+  private MutableClock clock;
+  private ForwardEwpApiJwtVerificationCache verificationCache;
+
+  @BeforeEach
+  public void setup() {
+    client = HostForwardEwpApiClient.create(null, CLIENT_ID, "secret-1", true);
+    clientRepository = mock(HostForwardEwpApiClientRepository.class);
+    when(clientRepository.findByIdAndActive(anyString(), eq(true))).thenReturn(Optional.empty());
+    when(clientRepository.findByIdAndActive(CLIENT_ID, true)).thenReturn(Optional.of(client));
+    clock = new MutableClock(Instant.now());
+    verificationCache = new ForwardEwpApiJwtVerificationCache(
+        new SecurityForwardApiJwtProperties(), clientRepository, clock);
+  }
+
+  @Test
+  public void testGetClientVerifier_CalledTwice_ClientLoadedOnce() {
+    ClientVerifier clientVerifier = verificationCache.getClientVerifier(CLIENT_ID).get();
+
+    assertThat(verificationCache.getClientVerifier(CLIENT_ID)).containsSame(clientVerifier);
+    assertThat(clientVerifier.getClient()).isSameAs(client);
+    verify(clientRepository, times(1)).findByIdAndActive(CLIENT_ID, true);
+  }
+
+  @Test
+  public void testGetClientVerifier_UnknownClient_ReturnEmpty() {
+    assertThat(verificationCache.getClientVerifier("unknown-client")).isEmpty();
+    assertThat(verificationCache.getClientVerifier(null)).isEmpty();
+  }
+
+  @Test
+  public void testGetClientVerifier_SecretChangedAndHostsUpdated_UseNewSecret() {
+    String oldToken = createToken("secret-1", null);
+    verificationCache.getClientVerifier(CLIENT_ID).get().getVerifier().verify(oldToken);
+
+    client.setSecret("secret-2");
+    verificationCache.onHostsUpdatedEvent(new HostsUpdatedEvent(this));
+
+    ClientVerifier clientVerifier = verificationCache.getClientVerifier(CLIENT_ID).get();
+    assertThatThrownBy(() -> clientVerifier.getVerifier().verify(oldToken))
+        .isInstanceOf(SignatureVerificationException.class);
+    clientVerifier.getVerifier().verify(createToken("secret-2", null));
+  }
+
+  @Test
+  public void testGetVerifiedAuthentication_TokenVerified_ReturnCachedAuthentication() {
+    String token = createToken("secret-1", null);
+    DecodedJWT decodedToken = verifyToken(token);
+    Authentication authentication = createAuthentication(decodedToken);
+
+    assertThat(verificationCache.getVerifiedAuthentication(token)).isNull();
+    verificationCache.putVerifiedAuthentication(token, decodedToken, authentication);
+
+    assertThat(verificationCache.getVerifiedAuthentication(token)).isSameAs(authentication);
+  }
+
+  @Test
+  public void testGetVerifiedAuthentication_TokenExpiredMeanwhile_ReturnNull() {
+    String token = createToken("secret-1", clock.instant().plus(1, ChronoUnit.HOURS));
+    DecodedJWT decodedToken = verifyToken(token);
+    verificationCache.putVerifiedAuthentication(token, decodedToken,
+        createAuthentication(decodedToken));
+
+    clock.setInstant(clock.instant().plus(2, ChronoUnit.HOURS));
+
+    assertThat(verificationCache.getVerifiedAuthentication(token)).isNull();
+  }
+
+  @Test
+  public void testGetVerifiedAuthentication_HostsUpdated_ReturnNull() {
+    String token = createToken("secret-1", null);
+    DecodedJWT decodedToken = verifyToken(token);
+    verificationCache.putVerifiedAuthentication(token, decodedToken,
+        createAuthentication(decodedToken));
+
+    verificationCache.onHostsUpdatedEvent(new HostsUpdatedEvent(this));
+
+    assertThat(verificationCache.getVerifiedAuthentication(token)).isNull();
+  }
+
+  @Test
+  public void testGetVerifiedAuthentication_CacheDisabled_ReturnNull() {
+    SecurityForwardApiJwtProperties properties = new SecurityForwardApiJwtProperties();
+    properties.setVerifiedTokenCacheTimeToLiveInSeconds(0);
+    verificationCache = new ForwardEwpApiJwtVerificationCache(properties, clientRepository, clock);
+    String token = createToken("secret-1", null);
+    DecodedJWT decodedToken = verifyToken(token);
+    verificationCache.putVerifiedAuthentication(token, decodedToken,
+        createAuthentication(decodedToken));
+
+    assertThat(verificationCache.getVerifiedAuthentication(token)).isNull();
+  }
+
+  private DecodedJWT verifyToken(String token) {
+    return verificationCache.getClientVerifier(CLIENT_ID).get().getVerifier().verify(token);
+  }
+
+  private Authentication createAuthentication(DecodedJWT decodedToken) {
+    return new ForwardEwpApiClientAuthenticationToken(
+        new JwtAuthenticationUserDetails(decodedToken),
+        new ForwardEwpApiHostClientPrincipal(client));
+  }
+
+  private static String createToken(String secret, Instant expiresAt) {
+    return JWT.create()
+        .withIssuer(CLIENT_ID)
+        .withExpiresAt(expiresAt != null ? Date.from(expiresAt) : null)
+        .sign(Algorithm.HMAC256(secret));
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant instant;
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    public void setInstant(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package pt.ulisboa.ewp.node.client.ewp;
+
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import javax.ws.rs.client.Client;
+import org.junit.jupiter.api.Test;
+import pt.ulisboa.ewp.node.AbstractTest;
+import pt.ulisboa.ewp.node.client.ewp.http.EwpHttpClientEngine;
+import pt.ulisboa.ewp.node.client.ewp.http.EwpHttpClientEngine.ClientLease;
+import pt.ulisboa.ewp.node.config.client.ClientProperties;
+import pt.ulisboa.ewp.node.service.keystore.KeyStoreService;
+import pt.ulisboa.ewp.node.utils.keystore.KeyStoreGenerator;
+import pt.ulisboa.ewp.node.utils.keystore.KeyStoreSecurityBundle;
+
+class EwpHttpClientEngineTest extends AbstractTest {
+
+  @Test
+  void testAcquireClient_SameKeystore_ClientIsReused() throws Exception {
+    KeyStoreService keyStoreService = mock(KeyStoreService.class);
+    doReturn(KeyStoreSecurityBundle.create(1, KeyStoreGenerator.generate("", "1"), "1"))
+        .when(keyStoreService).getSecurityBundle();
+    EwpHttpClientEngine engine = new EwpHttpClientEngine(keyStoreService, new ClientProperties());
+
+    try (ClientLease firstLease = engine.acquireClient("https://example.com/a");
+        ClientLease secondLease = engine.acquireClient("https://example.org/b")) {
+      assertThat(secondLease.getClient(), sameInstance(firstLease.getClient()));
+    }
+    engine.destroy();
+  }
+
+  @Test
+  void testAcquireClient_NewKeystore_ClientIsRebuilt() throws Exception {
+    KeyStoreService keyStoreService = mock(KeyStoreService.class);
+    KeyStoreSecurityBundle firstSecurityBundle =
+        KeyStoreSecurityBundle.create(1, KeyStoreGenerator.generate("", "1"), "1");
+    KeyStoreSecurityBundle secondSecurityBundle =
+        KeyStoreSecurityBundle.create(2, KeyStoreGenerator.generate("", "1"), "1");
+    EwpHttpClientEngine engine = new EwpHttpClientEngine(keyStoreService, new ClientProperties());
+
+    doReturn(firstSecurityBundle).when(keyStoreService).getSecurityBundle();
+    Client firstClient;
+    try (ClientLease lease = engine.acquireClient("https://example.com/a")) {
+      firstClient = lease.getClient();
+    }
+
+    doReturn(secondSecurityBundle).when(keyStoreService).getSecurityBundle();
+    try (ClientLease lease = engine.acquireClient("https://example.com/a")) {
+      assertThat(lease.getClient(), not(sameInstance(firstClient)));
+    }
+    engine.destroy();
+  }
+
+  @Test
+  void testAcquireClient_NewKeystoreWhileClientIsLeased_PreviousClientIsClosedOnlyOnRelease()
+      throws Exception {
+    KeyStoreService keyStoreService = mock(KeyStoreService.class);
+    KeyStoreSecurityBundle firstSecurityBundle =
+        KeyStoreSecurityBundle.create(1, KeyStoreGenerator.generate("", "1"), "1");
+    KeyStoreSecurityBundle secondSecurityBundle =
+        KeyStoreSecurityBundle.create(2, KeyStoreGenerator.generate("", "1"), "1");
+    EwpHttpClientEngine engine = new EwpHttpClientEngine(keyStoreService, new ClientProperties());
+
+    doReturn(firstSecurityBundle).when(keyStoreService).getSecurityBundle();
+    ClientLease firstLease = engine.acquireClient("https://example.com/a");
+
+    doReturn(secondSecurityBundle).when(keyStoreService).getSecurityBundle();
+    engine.acquireClient("https://example.com/a").close();
+
+    // NOTE: a closed client refuses to create new targets
+    firstLease.getClient().target("https://example.com/a");
+
+    firstLease.close();
+    assertThrows(IllegalStateException.class,
+        () -> firstLease.getClient().target("https://example.com/a"));
+    engine.destroy();
+  }
+}
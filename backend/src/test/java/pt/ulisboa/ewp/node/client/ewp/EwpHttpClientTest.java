@@ -14,6 +14,7 @@ import eu.erasmuswithoutpaper.api.architecture.v1.MultilineStringV1;
 import eu.erasmuswithoutpaper.api.architecture.v1.MultilineStringWithOptionalLangV1;
 import eu.erasmuswithoutpaper.api.echo.v2.ResponseV2;
 import java.io.IOException;
+import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
@@ -41,9 +42,11 @@ import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientInvalidResponseExceptio
 import pt.ulisboa.ewp.node.client.ewp.exception.EwpClientProcessorException;
 import pt.ulisboa.ewp.node.client.ewp.http.EwpHttpClient;
 import pt.ulisboa.ewp.node.client.ewp.http.EwpHttpClient.ResponseBodySpecification;
+import pt.ulisboa.ewp.node.client.ewp.http.EwpHttpClientEngine;
 import pt.ulisboa.ewp.node.client.ewp.operation.request.EwpRequest;
 import pt.ulisboa.ewp.node.client.ewp.operation.request.body.EwpRequestFormDataUrlEncodedBody;
 import pt.ulisboa.ewp.node.client.ewp.operation.result.EwpSuccessOperationResult;
+import pt.ulisboa.ewp.node.config.client.ClientProperties;
 import pt.ulisboa.ewp.node.domain.entity.api.ewp.auth.EwpAuthenticationMethod;
 import pt.ulisboa.ewp.node.service.ewp.security.signer.request.RequestAuthenticationSigner;
 import pt.ulisboa.ewp.node.service.ewp.security.verifier.EwpAuthenticationResult;
@@ -51,6 +54,7 @@ import pt.ulisboa.ewp.node.service.ewp.security.verifier.response.ResponseAuthen
 import pt.ulisboa.ewp.node.service.keystore.KeyStoreService;
 import pt.ulisboa.ewp.node.utils.http.HttpParams;
 import pt.ulisboa.ewp.node.utils.keystore.KeyStoreGenerator;
+import pt.ulisboa.ewp.node.utils.keystore.KeyStoreSecurityBundle;
 import pt.ulisboa.ewp.node.utils.xml.XmlUtils;
 
 @ExtendWith(MockServerExtension.class)
@@ -72,17 +76,18 @@ class EwpHttpClientTest extends AbstractTest {
     this.keyStoreService = mock(KeyStoreService.class);
     this.requestSigner = mock(RequestAuthenticationSigner.class);
     this.responseVerifier = mock(ResponseAuthenticationVerifier.class);
-    this.client = new EwpHttpClient(List.of(), keyStoreService, requestSigner, responseVerifier,
-        createJaxb2Marshaller());
+    this.client = new EwpHttpClient(List.of(),
+        new EwpHttpClientEngine(keyStoreService, new ClientProperties()), requestSigner,
+        responseVerifier, createJaxb2Marshaller());
   }
 
   @Test
   void testExecute_ValidGetRequestAndSuccessResponse_ReturnSuccessOptionResult()
-      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException {
+      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException, KeyManagementException {
 
     // Mock dependencies
-    doReturn(KeyStoreGenerator.generate("", "1")).when(keyStoreService)
-        .getDecodedKeyStoreFromStorage();
+    doReturn(KeyStoreSecurityBundle.create(1, KeyStoreGenerator.generate("", "1"), "1"))
+        .when(keyStoreService).getSecurityBundle();
 
     EwpAuthenticationResult authenticationResult = EwpAuthenticationResult
         .createValid(EwpAuthenticationMethod.HTTP_SIGNATURE);
@@ -115,11 +120,11 @@ class EwpHttpClientTest extends AbstractTest {
 
   @Test
   void testExecute_ValidPostRequestAndSuccessResponse_ReturnSuccessOptionResult()
-      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException {
+      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException, KeyManagementException {
 
     // Mock dependencies
-    doReturn(KeyStoreGenerator.generate("", "1")).when(keyStoreService)
-        .getDecodedKeyStoreFromStorage();
+    doReturn(KeyStoreSecurityBundle.create(1, KeyStoreGenerator.generate("", "1"), "1"))
+        .when(keyStoreService).getSecurityBundle();
 
     EwpAuthenticationResult authenticationResult = EwpAuthenticationResult
         .createValid(EwpAuthenticationMethod.HTTP_SIGNATURE);
@@ -152,11 +157,11 @@ class EwpHttpClientTest extends AbstractTest {
 
   @Test
   void testExecute_ValidRequestAndResponseNotSatisfyingSecurityRequirements_ThrowException()
-      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException {
+      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException, KeyManagementException {
 
     // Mock dependencies
-    doReturn(KeyStoreGenerator.generate("", "1")).when(keyStoreService)
-        .getDecodedKeyStoreFromStorage();
+    doReturn(KeyStoreSecurityBundle.create(1, KeyStoreGenerator.generate("", "1"), "1"))
+        .when(keyStoreService).getSecurityBundle();
 
     EwpAuthenticationResult authenticationResult = EwpAuthenticationResult
         .createInvalid(EwpAuthenticationMethod.HTTP_SIGNATURE, "test");
@@ -188,11 +193,11 @@ class EwpHttpClientTest extends AbstractTest {
 
   @Test
   void testExecute_BadRequestAndErrorResponse_ThrowException()
-      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException {
+      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException, KeyManagementException {
 
     // Mock dependencies
-    doReturn(KeyStoreGenerator.generate("", "1")).when(keyStoreService)
-        .getDecodedKeyStoreFromStorage();
+    doReturn(KeyStoreSecurityBundle.create(1, KeyStoreGenerator.generate("", "1"), "1"))
+        .when(keyStoreService).getSecurityBundle();
 
     EwpAuthenticationResult authenticationResult = EwpAuthenticationResult
         .createValid(EwpAuthenticationMethod.HTTP_SIGNATURE);
@@ -225,11 +230,11 @@ class EwpHttpClientTest extends AbstractTest {
 
   @Test
   void testExecute_UnauthorizedRequestAndErrorResponse_ThrowException()
-      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException {
+      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException, KeyManagementException {
 
     // Mock dependencies
-    doReturn(KeyStoreGenerator.generate("", "1")).when(keyStoreService)
-        .getDecodedKeyStoreFromStorage();
+    doReturn(KeyStoreSecurityBundle.create(1, KeyStoreGenerator.generate("", "1"), "1"))
+        .when(keyStoreService).getSecurityBundle();
 
     EwpAuthenticationResult authenticationResult = EwpAuthenticationResult
         .createValid(EwpAuthenticationMethod.HTTP_SIGNATURE);
@@ -262,11 +267,11 @@ class EwpHttpClientTest extends AbstractTest {
 
   @Test
   void testExecute_ValidRequestAndServerInternalError_ThrowException()
-      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException {
+      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException, KeyManagementException {
 
     // Mock dependencies
-    doReturn(KeyStoreGenerator.generate("", "1")).when(keyStoreService)
-        .getDecodedKeyStoreFromStorage();
+    doReturn(KeyStoreSecurityBundle.create(1, KeyStoreGenerator.generate("", "1"), "1"))
+        .when(keyStoreService).getSecurityBundle();
 
     EwpAuthenticationResult authenticationResult = EwpAuthenticationResult
         .createValid(EwpAuthenticationMethod.HTTP_SIGNATURE);
@@ -290,11 +295,11 @@ class EwpHttpClientTest extends AbstractTest {
 
   @Test
   void testExecute_ValidRequestAndServerUnknownStatusCode_ThrowException()
-      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException {
+      throws EwpClientErrorException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException, OperatorCreationException, NoSuchProviderException, KeyManagementException {
 
     // Mock dependencies
-    doReturn(KeyStoreGenerator.generate("", "1")).when(keyStoreService)
-        .getDecodedKeyStoreFromStorage();
+    doReturn(KeyStoreSecurityBundle.create(1, KeyStoreGenerator.generate("", "1"), "1"))
+        .when(keyStoreService).getSecurityBundle();
 
     EwpAuthenticationResult authenticationResult = EwpAuthenticationResult
         .createValid(EwpAuthenticationMethod.HTTP_SIGNATURE);
@@ -0,0 +1,56 @@
+package pt.ulisboa.ewp.node.client.ewp.registry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pt.ulisboa.ewp.node.AbstractTest;
+
+class FileSystemCatalogueCacheMapTest extends AbstractTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testPut_MapReopenedOnSameDirectory_EntriesAreLoaded() {
+    FileSystemCatalogueCacheMap map = new FileSystemCatalogueCacheMap(directory);
+    assertThat(map).isEmpty();
+    assertThat(map.getLastModifiedTimeInMillis()).isEqualTo(-1);
+
+    map.put("latest-catalogue.xml", "<catalogue/>".getBytes(StandardCharsets.UTF_8));
+    map.put("latest-catalogue-headers", "ETag: \"1\"".getBytes(StandardCharsets.UTF_8));
+    map.put("latest-catalogue.xml", "<catalogue>2</catalogue>".getBytes(StandardCharsets.UTF_8));
+
+    FileSystemCatalogueCacheMap reopenedMap = new FileSystemCatalogueCacheMap(directory);
+    assertThat(reopenedMap).hasSize(2);
+    assertThat(new String(reopenedMap.get("latest-catalogue.xml"), StandardCharsets.UTF_8))
+        .isEqualTo("<catalogue>2</catalogue>");
+    assertThat(new String(reopenedMap.get("latest-catalogue-headers"), StandardCharsets.UTF_8))
+        .isEqualTo("ETag: \"1\"");
+    assertThat(reopenedMap.getLastModifiedTimeInMillis()).isPositive();
+  }
+
+  @Test
+  void testLoad_LeftoverTemporaryFile_FileIsIgnored() throws Exception {
+    Files.write(directory.resolve("entry-123.tmp"), new byte[]{1, 2, 3});
+
+    FileSystemCatalogueCacheMap map = new FileSystemCatalogueCacheMap(directory);
+
+    assertThat(map).isEmpty();
+    assertThat(Files.exists(directory.resolve("entry-123.tmp"))).isFalse();
+  }
+
+  @Test
+  void testRemove_MapReopenedOnSameDirectory_EntryIsNotLoaded() {
+    FileSystemCatalogueCacheMap map = new FileSystemCatalogueCacheMap(directory);
+    map.put("a", new byte[]{1});
+    map.put("b", new byte[]{2});
+    map.remove("a");
+
+    FileSystemCatalogueCacheMap reopenedMap = new FileSystemCatalogueCacheMap(directory);
+    assertThat(reopenedMap.keySet()).containsExactly("b");
+  }
+}
@@ -0,0 +1,103 @@
+package pt.ulisboa.ewp.node.client.ewp.registry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import eu.erasmuswithoutpaper.api.institutions.v2.InstitutionsV2;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.transform.dom.DOMResult;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import pt.ulisboa.ewp.node.AbstractTest;
+import pt.ulisboa.ewp.node.domain.entity.api.ewp.EwpInstitutionApiConfiguration;
+import pt.ulisboa.ewp.node.utils.EwpApi;
+
+class RegistryApiIndexTest extends AbstractTest {
+
+  private static final String API_LOCAL_NAME = EwpApi.INSTITUTIONS.getLocalName();
+
+  @Test
+  public void testFindApiConfiguration_ApiImplemented_ReturnSameConfigurationOnEveryLookup()
+      throws JAXBException {
+    RegistryApiIndex index = buildIndex(
+        Map.of("hei1",
+            List.of(createInstitutionsApiElement("2.1.0", "https://hei1/institutions"))));
+
+    Optional<EwpInstitutionApiConfiguration> configuration = findConfiguration(index, "hei1", 2);
+
+    assertThat(configuration).isPresent();
+    assertThat(configuration.get().getUrl()).isEqualTo("https://hei1/institutions");
+    assertThat(configuration.get().getMaxHeiIds()).isEqualTo(BigInteger.ONE);
+    assertThat(findConfiguration(index, "hei1", 2).get()).isSameAs(configuration.get());
+  }
+
+  @Test
+  public void testFindApiConfiguration_SameMajorVersionTwice_ReturnFirstApi()
+      throws JAXBException {
+    RegistryApiIndex index = buildIndex(
+        Map.of("hei1", List.of(
+            createInstitutionsApiElement("2.1.0", "https://first/institutions"),
+            createInstitutionsApiElement("2.0.0", "https://second/institutions"))));
+
+    assertThat(findConfiguration(index, "hei1", 2).get().getUrl())
+        .isEqualTo("https://first/institutions");
+    assertThat(index.getSupportedMajorVersions("hei1", API_LOCAL_NAME)).containsExactly(2, 2);
+  }
+
+  @Test
+  public void testFindApiConfiguration_UnknownHeiOrMajorVersion_ReturnEmpty()
+      throws JAXBException {
+    RegistryApiIndex index = buildIndex(
+        Map.of("hei1",
+            List.of(createInstitutionsApiElement("2.1.0", "https://hei1/institutions"))));
+
+    assertThat(findConfiguration(index, "hei1", 1)).isEmpty();
+    assertThat(findConfiguration(index, "hei2", 2)).isEmpty();
+    assertThat(index.getSupportedMajorVersions("hei2", API_LOCAL_NAME)).isEmpty();
+  }
+
+  @Test
+  public void testBuild_ApiWithInvalidVersion_ApiIsIgnored() throws JAXBException {
+    RegistryApiIndex index = buildIndex(
+        Map.of("hei1",
+            List.of(createInstitutionsApiElement("invalid", "https://hei1/institutions"))));
+
+    assertThat(index.size()).isZero();
+    assertThat(index.getSupportedMajorVersions("hei1", API_LOCAL_NAME)).isEmpty();
+  }
+
+  private static RegistryApiIndex buildIndex(
+      Map<String, ? extends Collection<Element>> heiIdToApiElementsMap) {
+    return RegistryApiIndex.build(
+        new Date(), heiIdToApiElementsMap.keySet(), heiIdToApiElementsMap::get);
+  }
+
+  private static Optional<EwpInstitutionApiConfiguration> findConfiguration(
+      RegistryApiIndex index, String heiId, int majorVersion) {
+    return index.findApiConfiguration(
+        heiId,
+        API_LOCAL_NAME,
+        majorVersion,
+        InstitutionsV2.class,
+        EwpInstitutionApiConfiguration::create);
+  }
+
+  private static Element createInstitutionsApiElement(String version, String url)
+      throws JAXBException {
+    InstitutionsV2 institutions = new InstitutionsV2();
+    institutions.setVersion(version);
+    institutions.setUrl(url);
+    institutions.setMaxHeiIds(BigInteger.ONE);
+
+    DOMResult result = new DOMResult();
+    JAXBContext.newInstance(InstitutionsV2.class).createMarshaller().marshal(institutions, result);
+    return ((Document) result.getNode()).getDocumentElement();
+  }
+}
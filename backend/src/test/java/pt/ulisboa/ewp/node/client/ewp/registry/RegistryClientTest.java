@@ -0,0 +1,80 @@
+package pt.ulisboa.ewp.node.client.ewp.registry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import eu.erasmuswithoutpaper.registryclient.CatalogueFetcher;
+import eu.erasmuswithoutpaper.registryclient.ClientImplOptions;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pt.ulisboa.ewp.node.AbstractTest;
+
+class RegistryClientTest extends AbstractTest {
+
+  private static final String HEI_ID = "test.hei";
+
+  private static final String CATALOGUE =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+          + "<catalogue xmlns=\"https://github.com/erasmus-without-paper/ewp-specs-api-registry/tree/stable-v1\">"
+          + "<institutions>"
+          + "<hei id=\"" + HEI_ID + "\"><name xml:lang=\"en\">Test HEI</name></hei>"
+          + "</institutions>"
+          + "</catalogue>";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testCreate_CatalogueSnapshotOfPreviousClient_CatalogueIsAvailableWithoutFetching()
+      throws Exception {
+    StandInRegistry registry = new StandInRegistry();
+    RegistryClient client = new RegistryClient(createOptions(registry),
+        new FileSystemCatalogueCacheMap(directory));
+    client.refresh();
+    assertThat(client.findHei(HEI_ID)).isNotNull();
+    assertThat(registry.numberFetches.get()).isEqualTo(1);
+    client.shutdownRefreshScheduler();
+    client.close();
+
+    StandInRegistry unavailableRegistry = new StandInRegistry();
+    unavailableRegistry.available = false;
+    RegistryClient restartedClient = new RegistryClient(createOptions(unavailableRegistry),
+        new FileSystemCatalogueCacheMap(directory));
+
+    assertThat(restartedClient.findHei(HEI_ID)).isNotNull();
+    assertThat(unavailableRegistry.numberFetches.get()).isZero();
+    restartedClient.shutdownRefreshScheduler();
+    restartedClient.close();
+  }
+
+  private static ClientImplOptions createOptions(StandInRegistry registry) {
+    ClientImplOptions options = new ClientImplOptions();
+    options.setCatalogueFetcher(registry);
+    options.setAutoRefreshing(false);
+    return options;
+  }
+
+  /**
+   * Local stand-in of the registry, serving a fixed catalogue.
+   */
+  private static class StandInRegistry implements CatalogueFetcher {
+
+    private final AtomicInteger numberFetches = new AtomicInteger();
+    private volatile boolean available = true;
+
+    @Override
+    public RegistryResponse fetchCatalogue(String ifNoneMatch) throws IOException {
+      numberFetches.incrementAndGet();
+      if (!available) {
+        throw new IOException("Registry is unavailable");
+      }
+      return new Http200RegistryResponse(CATALOGUE.getBytes(StandardCharsets.UTF_8), "1",
+          new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package pt.ulisboa.ewp.node.client.ewp.registry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import pt.ulisboa.ewp.node.AbstractTest;
+
+class RegistryRefreshSchedulerTest extends AbstractTest {
+
+  @Test
+  void testRequestRefresh_BurstOfRequests_SingleRefreshIsRun() {
+    AtomicInteger numberRefreshes = new AtomicInteger();
+    ScheduledExecutorService executorService = mock(ScheduledExecutorService.class);
+    RegistryRefreshScheduler scheduler = new RegistryRefreshScheduler(
+        numberRefreshes::incrementAndGet, 200, executorService);
+
+    int numberScheduledRefreshes = 0;
+    for (int index = 0; index < 50; index++) {
+      if (scheduler.requestRefresh()) {
+        numberScheduledRefreshes++;
+      }
+    }
+    runScheduledTasks(executorService, 1, 200);
+
+    assertThat(numberScheduledRefreshes).isEqualTo(1);
+    assertThat(numberRefreshes.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testRequestRefresh_RequestAfterRefreshRan_NewRefreshIsRun() {
+    AtomicInteger numberRefreshes = new AtomicInteger();
+    ScheduledExecutorService executorService = mock(ScheduledExecutorService.class);
+    RegistryRefreshScheduler scheduler = new RegistryRefreshScheduler(
+        numberRefreshes::incrementAndGet, 0, executorService);
+
+    assertThat(scheduler.requestRefresh()).isTrue();
+    runScheduledTasks(executorService, 1, 0);
+    assertThat(scheduler.requestRefresh()).isTrue();
+    runScheduledTasks(executorService, 2, 0);
+
+    assertThat(numberRefreshes.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testRequestRefresh_RequestWhileRefreshIsRunning_NewRefreshIsScheduled() {
+    ScheduledExecutorService executorService = mock(ScheduledExecutorService.class);
+    AtomicInteger numberRefreshes = new AtomicInteger();
+    RegistryRefreshScheduler[] schedulerHolder = new RegistryRefreshScheduler[1];
+    RegistryRefreshScheduler scheduler = new RegistryRefreshScheduler(() -> {
+      if (numberRefreshes.incrementAndGet() == 1) {
+        assertThat(schedulerHolder[0].requestRefresh()).isTrue();
+      }
+    }, 0, executorService);
+    schedulerHolder[0] = scheduler;
+
+    scheduler.requestRefresh();
+    runScheduledTasks(executorService, 1, 0);
+
+    verify(executorService, times(2)).schedule(any(Runnable.class), anyLong(), any());
+  }
+
+  @Test
+  void testRequestRefresh_RefreshFails_LaterRequestsAreStillScheduled() {
+    AtomicInteger numberRefreshes = new AtomicInteger();
+    ScheduledExecutorService executorService = mock(ScheduledExecutorService.class);
+    RegistryRefreshScheduler scheduler = new RegistryRefreshScheduler(() -> {
+      numberRefreshes.incrementAndGet();
+      throw new IllegalStateException("TEST");
+    }, 0, executorService);
+
+    scheduler.requestRefresh();
+    runScheduledTasks(executorService, 1, 0);
+    assertThat(scheduler.requestRefresh()).isTrue();
+    runScheduledTasks(executorService, 2, 0);
+
+    assertThat(numberRefreshes.get()).isEqualTo(2);
+  }
+
+  /**
+   * Runs the last task scheduled on a mocked executor, checking the number of tasks scheduled so
+   * far and the delay of the task.
+   */
+  private static void runScheduledTasks(ScheduledExecutorService executorService,
+      int expectedNumberScheduledTasks, long expectedDelayInMilliseconds) {
+    ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService, times(expectedNumberScheduledTasks))
+        .schedule(taskCaptor.capture(), eq(expectedDelayInMilliseconds),
+            eq(TimeUnit.MILLISECONDS));
+    List<Runnable> tasks = taskCaptor.getAllValues();
+    tasks.get(tasks.size() - 1).run();
+  }
+}
@@ -1,8 +1,9 @@
 package pt.ulisboa.ewp.node.domain.repository.notification;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
@@ -80,6 +81,8 @@ class EwpChangeNotificationRepositoryTest extends AbstractIntegrationTest {
         oldChangeNotification.getId());
     assertThat(updatedOldChangeNotificationOptional).isNotEmpty();
     assertThat(updatedOldChangeNotificationOptional.get().wasMerged()).isTrue();
+    assertThat(updatedOldChangeNotificationOptional.get().getMergedInto().getId()).isEqualTo(
+        newChangeNotification.getId());
 
     Optional<EwpChangeNotification> updatedNewChangeNotificationOptional = changeNotificationRepository.findById(
         newChangeNotification.getId());
@@ -87,4 +90,108 @@ class EwpChangeNotificationRepositoryTest extends AbstractIntegrationTest {
     assertThat(updatedNewChangeNotificationOptional.get().isPending()).isTrue();
   }
 
-}
\ No newline at end of file
+  @Test
+  public void testPersist_OldMergeableNotificationIsClaimed_OldNotificationIsNotMerged() {
+    ZonedDateTime now = ZonedDateTime.now();
+    EwpOutgoingMobilityChangeNotification oldChangeNotification =
+        new EwpOutgoingMobilityChangeNotification(
+            null,
+            1,
+            now.minusMinutes(1),
+            Status.PENDING,
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString());
+    changeNotificationRepository.persist(oldChangeNotification);
+    changeNotificationRepository.claimDuePending(now, Integer.MAX_VALUE, now.plusMinutes(5));
+
+    EwpOutgoingMobilityChangeNotification newChangeNotification =
+        new EwpOutgoingMobilityChangeNotification(
+            null,
+            1,
+            ZonedDateTime.now(),
+            Status.PENDING,
+            oldChangeNotification.getSendingHeiId(),
+            oldChangeNotification.getReceivingHeiId(),
+            oldChangeNotification.getOutgoingMobilityId());
+    changeNotificationRepository.persist(newChangeNotification);
+
+    Optional<EwpChangeNotification> updatedOldChangeNotificationOptional = changeNotificationRepository.findById(
+        oldChangeNotification.getId());
+    assertThat(updatedOldChangeNotificationOptional).isNotEmpty();
+    assertThat(updatedOldChangeNotificationOptional.get().isPending()).isTrue();
+  }
+
+  @Test
+  public void testPersist_ExistingNotificationIsUpdated_OlderMergeableNotificationIsNotMerged() {
+    EwpOutgoingMobilityChangeNotification changeNotification =
+        new EwpOutgoingMobilityChangeNotification(
+            null,
+            1,
+            ZonedDateTime.now(),
+            Status.PENDING,
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString());
+    changeNotificationRepository.persist(changeNotification);
+
+    // NOTE: an older equivalent change notification created meanwhile (e.g. by another instance)
+    EwpOutgoingMobilityChangeNotification olderChangeNotification =
+        new EwpOutgoingMobilityChangeNotification(
+            null,
+            1,
+            ZonedDateTime.now(),
+            Status.PENDING,
+            changeNotification.getSendingHeiId(),
+            changeNotification.getReceivingHeiId(),
+            changeNotification.getOutgoingMobilityId());
+    olderChangeNotification.setCreationDateTime(
+        changeNotification.getCreationDateTime().minusMinutes(1));
+    changeNotificationRepository.persist(olderChangeNotification);
+
+    changeNotification.scheduleNewAttempt();
+    changeNotificationRepository.persist(changeNotification);
+
+    Optional<EwpChangeNotification> updatedOlderChangeNotificationOptional = changeNotificationRepository.findById(
+        olderChangeNotification.getId());
+    assertThat(updatedOlderChangeNotificationOptional).isNotEmpty();
+    assertThat(updatedOlderChangeNotificationOptional.get().isPending()).isTrue();
+  }
+
+  @Test
+  public void testClaimDuePending_DueAndNotDueNotifications_OnlyDueNotificationIsClaimedOnce() {
+    ZonedDateTime now = ZonedDateTime.now();
+    EwpOutgoingMobilityChangeNotification dueChangeNotification =
+        new EwpOutgoingMobilityChangeNotification(
+            null,
+            1,
+            now.minusMinutes(1),
+            Status.PENDING,
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString());
+    changeNotificationRepository.persist(dueChangeNotification);
+
+    EwpOutgoingMobilityChangeNotification notDueChangeNotification =
+        new EwpOutgoingMobilityChangeNotification(
+            null,
+            1,
+            now.plusHours(1),
+            Status.PENDING,
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString());
+    changeNotificationRepository.persist(notDueChangeNotification);
+
+    List<EwpChangeNotification> claimedChangeNotifications =
+        changeNotificationRepository.claimDuePending(now, Integer.MAX_VALUE, now.plusMinutes(5));
+    assertThat(claimedChangeNotifications.stream().map(EwpChangeNotification::getId))
+        .contains(dueChangeNotification.getId())
+        .doesNotContain(notDueChangeNotification.getId());
+
+    List<EwpChangeNotification> claimedAgainChangeNotifications =
+        changeNotificationRepository.claimDuePending(now, Integer.MAX_VALUE, now.plusMinutes(5));
+    assertThat(claimedAgainChangeNotifications.stream().map(EwpChangeNotification::getId))
+        .doesNotContain(dueChangeNotification.getId());
+  }
+}
@@ -0,0 +1,94 @@
+package pt.ulisboa.ewp.node.plugin.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import pt.ulisboa.ewp.node.AbstractTest;
+import pt.ulisboa.ewp.node.config.plugins.PluginsProperties;
+import pt.ulisboa.ewp.node.exception.ApplicationException;
+
+class HostProviderExecutorTest extends AbstractTest {
+
+  @Test
+  void testInvokeAll_SeveralSlowCalls_CallsRunConcurrentlyAndKeepOrder() {
+    HostProviderExecutor executor = createExecutor(4, 5000);
+    CountDownLatch latch = new CountDownLatch(3);
+    Supplier<String> slowCall = () -> {
+      latch.countDown();
+      try {
+        // Only completes if all calls are running at the same time
+        latch.await(2, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return String.valueOf(latch.getCount());
+    };
+
+    List<String> result = executor.invokeAll(List.of(slowCall, () -> "b", slowCall, slowCall));
+
+    assertThat(result).containsExactly("0", "b", "0", "0");
+    executor.destroy();
+  }
+
+  @Test
+  void testInvokeAll_CallExceedsTimeout_ExceptionIsThrown() {
+    HostProviderExecutor executor = createExecutor(2, 100);
+
+    assertThrows(
+        ApplicationException.class,
+        () ->
+            executor.invokeAll(
+                List.of(
+                    () -> {
+                      try {
+                        Thread.sleep(5000);
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                      }
+                      return "a";
+                    })));
+    executor.destroy();
+  }
+
+  @Test
+  void testInvokeAll_LateCallsWithinTheirOwnTimeout_AllResultsAreReturned() {
+    HostProviderExecutor executor = createExecutor(2, 500);
+    Supplier<String> slowCall = () -> {
+      try {
+        Thread.sleep(350);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "a";
+    };
+
+    // NOTE: the third call only starts once one of the first two finishes, so all calls together
+    // take longer than the timeout of a single call
+    List<String> result = executor.invokeAll(List.of(slowCall, slowCall, slowCall));
+
+    assertThat(result).containsExactly("a", "a", "a");
+    executor.destroy();
+  }
+
+  @Test
+  void testInvokeAll_SequentialExecution_CallsRunOnCallerThread() {
+    HostProviderExecutor executor = createExecutor(1, 5000);
+
+    List<Thread> result = executor.invokeAll(List.of(Thread::currentThread));
+
+    assertThat(result).containsExactly(Thread.currentThread());
+    executor.destroy();
+  }
+
+  private static HostProviderExecutor createExecutor(int parallelism, long timeoutInMilliseconds) {
+    PluginsProperties pluginsProperties = new PluginsProperties();
+    pluginsProperties.getExecution().setParallelism(parallelism);
+    pluginsProperties.getExecution().setTimeoutInMilliseconds(timeoutInMilliseconds);
+    return new HostProviderExecutor(pluginsProperties);
+  }
+}
@@ -308,7 +308,53 @@ public class AbstractHostPluginManagerTest {
         .containsExactlyInAnyOrder(wantedOunitIds.toArray(new String[0]));
   }
 
+  @Test
+  public void testGetAllProvidersOfType_SuperTypeAndInterface_ReturnsAssignableHostProviders() {
+    String heiId = "test.com";
+    HostPlugin plugin = new MockHostPlugin.Builder().coveredHeiId(heiId).build();
+    DummySubHostProvider subHostProvider = new DummySubHostProvider();
+    DummyHostProvider2 hostProvider2 = new DummyHostProvider2();
+    this.hostPluginManager.registerPlugin(plugin, List.of(subHostProvider, hostProvider2));
+
+    assertThat(this.hostPluginManager.getAllProvidersOfType(heiId, DummyHostProvider.class))
+        .containsExactly(subHostProvider);
+    assertThat(this.hostPluginManager.getAllProviders(heiId))
+        .containsExactly(subHostProvider, hostProvider2);
+    assertThat(
+        this.hostPluginManager.getSingleHostPluginByProvider(DummyHostProviderInterface.class))
+        .contains(plugin);
+    assertThat(this.hostPluginManager.getAllProvidersOfType("wrong", DummyHostProvider.class))
+        .isEmpty();
+  }
+
+  @Test
+  public void testGetAllProvidersOfType_PrimaryPluginRegisteredLast_ReturnsPrimaryProvidersFirst() {
+    String heiId = "test.com";
+
+    HostPlugin nonPrimaryPlugin = new MockHostPlugin.Builder().coveredHeiId(heiId).build();
+    DummyHostProvider nonPrimaryHostProvider = new DummyHostProvider();
+    this.hostPluginManager.registerPlugin(nonPrimaryPlugin, List.of(nonPrimaryHostProvider));
+
+    assertThat(this.hostPluginManager.getPrimaryProvider(heiId, DummyHostProvider.class))
+        .isEmpty();
+
+    HostPlugin primaryPlugin =
+        new MockHostPlugin.Builder().coveredHeiId(heiId).heiIdOnWhichIsPrimary(heiId).build();
+    DummyHostProvider primaryHostProvider = new DummyHostProvider();
+    this.hostPluginManager.registerPlugin(primaryPlugin, List.of(primaryHostProvider));
+
+    assertThat(this.hostPluginManager.getAllProvidersOfType(heiId, DummyHostProvider.class))
+        .containsExactly(primaryHostProvider, nonPrimaryHostProvider);
+    assertThat(this.hostPluginManager.getPrimaryProvider(heiId, DummyHostProvider.class))
+        .contains(primaryHostProvider);
+  }
+
+  private interface DummyHostProviderInterface {}
+
   private static class DummyHostProvider extends HostProvider {}
 
+  private static class DummySubHostProvider extends DummyHostProvider
+      implements DummyHostProviderInterface {}
+
   private static class DummyHostProvider2 extends HostProvider {}
 }
@@ -0,0 +1,155 @@
+package pt.ulisboa.ewp.node.service.communication.log.async;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import pt.ulisboa.ewp.node.AbstractTest;
+import pt.ulisboa.ewp.node.config.communication.CommunicationLogAsyncProperties;
+import pt.ulisboa.ewp.node.config.communication.CommunicationLogBackpressureStrategy;
+import pt.ulisboa.ewp.node.config.communication.CommunicationProperties;
+
+class AsyncCommunicationLogWriterTest extends AbstractTest {
+
+  @Test
+  void testSubmit_AsyncDisabled_EventIsWrittenOnCallerThread() {
+    AsyncCommunicationLogWriter writer = createWriter(false);
+    List<Thread> writerThreads = new CopyOnWriteArrayList<>();
+
+    writer.submit(new TestEvent(() -> writerThreads.add(Thread.currentThread())));
+
+    assertThat(writerThreads).containsExactly(Thread.currentThread());
+  }
+
+  @Test
+  void testSubmit_AsyncEnabled_EventsAreWrittenInBackground() throws Exception {
+    AsyncCommunicationLogWriter writer = createWriter(true);
+    writer.afterPropertiesSet();
+    List<Integer> writtenEvents = new CopyOnWriteArrayList<>();
+
+    for (int i = 0; i < 10; i++) {
+      int eventIndex = i;
+      writer.submit(new TestEvent(() -> writtenEvents.add(eventIndex)));
+    }
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> writtenEvents.size() == 10);
+    assertThat(writtenEvents).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    writer.destroy();
+  }
+
+  @Test
+  void testDestroy_WorkerIsStuck_QueuedEventsAreWrittenBeforeReturning() throws Exception {
+    AsyncCommunicationLogWriter writer = createWriter(true);
+    writer.afterPropertiesSet();
+    List<Integer> writtenEvents = new CopyOnWriteArrayList<>();
+    CountDownLatch firstEventStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstEvent = new CountDownLatch(1);
+
+    writer.submit(new TestEvent(() -> {
+      firstEventStarted.countDown();
+      try {
+        releaseFirstEvent.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }));
+    firstEventStarted.await(5, TimeUnit.SECONDS);
+    for (int i = 1; i < 10; i++) {
+      int eventIndex = i;
+      writer.submit(new TestEvent(() -> writtenEvents.add(eventIndex)));
+    }
+
+    writer.destroy();
+
+    assertThat(writtenEvents).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9);
+    assertThat(writer.getQueueSize()).isZero();
+    releaseFirstEvent.countDown();
+  }
+
+  @Test
+  void testSubmit_DropBodiesAndQueueFull_EventIsDiscardedAfterTimeout() throws Exception {
+    CommunicationProperties communicationProperties = new CommunicationProperties();
+    CommunicationLogAsyncProperties asyncProperties =
+        communicationProperties.getLog().getAsync();
+    asyncProperties.setEnabled(true);
+    asyncProperties.setQueueCapacity(1);
+    asyncProperties.setBackpressureStrategy(CommunicationLogBackpressureStrategy.DROP_BODIES);
+    asyncProperties.setOfferTimeoutInMilliseconds(50);
+    asyncProperties.setShutdownTimeoutInMilliseconds(200);
+    AsyncCommunicationLogWriter writer = new AsyncCommunicationLogWriter(
+        communicationProperties, mock(PlatformTransactionManager.class));
+    writer.afterPropertiesSet();
+    CountDownLatch firstEventStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstEvent = new CountDownLatch(1);
+
+    writer.submit(new TestEvent(() -> {
+      firstEventStarted.countDown();
+      try {
+        releaseFirstEvent.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }));
+    assertThat(firstEventStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(writer.submit(new TestEvent(() -> {}))).isTrue();
+
+    assertThat(writer.submit(new TestEvent(() -> {}))).isFalse();
+    assertThat(writer.getNumberDroppedEvents()).isEqualTo(1);
+
+    releaseFirstEvent.countDown();
+    writer.destroy();
+  }
+
+  @Test
+  void testWriteBatch_OneEventFails_RemainingEventsAreWritten() {
+    AsyncCommunicationLogWriter writer = createWriter(true);
+    List<String> writtenEvents = new CopyOnWriteArrayList<>();
+
+    writer.writeBatch(
+        List.of(
+            new TestEvent(() -> writtenEvents.add("a")),
+            new TestEvent(
+                () -> {
+                  throw new IllegalStateException("failure");
+                }),
+            new TestEvent(() -> writtenEvents.add("c"))));
+
+    assertThat(writtenEvents).contains("a", "c");
+    assertThat(writer.getNumberFailedEvents()).isEqualTo(1);
+  }
+
+  private static AsyncCommunicationLogWriter createWriter(boolean enabled) {
+    CommunicationProperties communicationProperties = new CommunicationProperties();
+    CommunicationLogAsyncProperties asyncProperties =
+        communicationProperties.getLog().getAsync();
+    asyncProperties.setEnabled(enabled);
+    asyncProperties.setBatchSize(3);
+    asyncProperties.setShutdownTimeoutInMilliseconds(200);
+    return new AsyncCommunicationLogWriter(
+        communicationProperties, mock(PlatformTransactionManager.class));
+  }
+
+  private static class TestEvent extends CommunicationLogEvent {
+
+    private final Runnable action;
+
+    private TestEvent(Runnable action) {
+      this.action = action;
+    }
+
+    @Override
+    protected void write() {
+      action.run();
+    }
+
+    @Override
+    protected void dropBodies() {
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package pt.ulisboa.ewp.node.service.communication.log.host.plugin.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import pt.ulisboa.ewp.node.AbstractTest;
+import pt.ulisboa.ewp.node.config.communication.CommunicationLogHostPluginCallJournalProperties;
+import pt.ulisboa.ewp.node.config.communication.CommunicationProperties;
+import pt.ulisboa.ewp.node.domain.repository.communication.log.CommunicationLogRepository;
+import pt.ulisboa.ewp.node.service.communication.log.async.AsyncCommunicationLogWriter;
+import pt.ulisboa.ewp.node.service.communication.log.async.CommunicationLogEvent;
+import pt.ulisboa.ewp.node.service.communication.log.host.plugin.HostPluginFunctionCallCommunicationLogService;
+import pt.ulisboa.ewp.node.service.communication.log.host.plugin.journal.HostPluginCallJournal.LogHostPluginCallEvent;
+import pt.ulisboa.ewp.node.utils.serialization.TypeAndString;
+
+class HostPluginCallJournalTest extends AbstractTest {
+
+  private final AsyncCommunicationLogWriter communicationLogWriter =
+      mock(AsyncCommunicationLogWriter.class);
+
+  @Test
+  void testSerialize_ValueLongerThanMaxValueLength_ValueIsTruncated() {
+    HostPluginCallJournal journal = createJournal(false, 1, 5);
+
+    LogHostPluginCallEvent event =
+        journal.serialize(createCall(new Object[]{"a", "abcdefgh"}, 42));
+
+    assertThat(event.getArguments())
+        .containsExactly(
+            new TypeAndString("String", "\"a\""),
+            new TypeAndString("String", "\"abcd... [truncated]"));
+    assertThat(event.getResult()).isEqualTo(new TypeAndString("Number", "42"));
+  }
+
+  @Test
+  void testRecord_JournalNotRunning_CallIsLoggedOnCallerThread() {
+    HostPluginCallJournal journal = createJournal(false, 1, 1000);
+
+    assertThat(journal.record(createCall(new Object[0], "result"))).isTrue();
+
+    verify(communicationLogWriter, times(1)).submit(any(CommunicationLogEvent.class));
+  }
+
+  @Test
+  void testRecord_JournalRunning_CallsAreLoggedInBackground() throws Exception {
+    HostPluginCallJournal journal = createJournal(true, 1, 1000);
+    journal.afterPropertiesSet();
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(journal.record(createCall(new Object[]{i}, List.of(i)))).isTrue();
+    }
+
+    await().atMost(5, TimeUnit.SECONDS).untilAsserted(
+        () -> verify(communicationLogWriter, times(10)).submit(any(CommunicationLogEvent.class)));
+    journal.destroy();
+  }
+
+  @Test
+  void testRecord_JournalRunning_CallIsSerializedOnJournalThread() throws Exception {
+    HostPluginCallJournal journal = spy(createJournal(true, 1, 1000));
+    AtomicReference<String> serializationThreadName = new AtomicReference<>();
+    doAnswer(invocation -> {
+      serializationThreadName.set(Thread.currentThread().getName());
+      return invocation.callRealMethod();
+    }).when(journal).serialize(any(HostPluginCallRecord.class));
+    journal.afterPropertiesSet();
+
+    assertThat(journal.record(createCall(new Object[]{"a"}, "result"))).isTrue();
+
+    await().atMost(5, TimeUnit.SECONDS).untilAsserted(
+        () -> verify(communicationLogWriter, times(1)).submit(any(CommunicationLogEvent.class)));
+    assertThat(serializationThreadName.get()).isEqualTo("ewp-plugin-call-journal");
+    journal.destroy();
+  }
+
+  @Test
+  void testEstimateSizeInBytes_RawValues_SizeDependsOnlyOnLengthOrNumberOfElements() {
+    assertThat(HostPluginCallJournal.estimateSizeInBytes(null)).isZero();
+    assertThat(HostPluginCallJournal.estimateSizeInBytes("abc")).isEqualTo(6);
+    assertThat(HostPluginCallJournal.estimateSizeInBytes(new byte[10])).isEqualTo(10);
+    assertThat(HostPluginCallJournal.estimateSizeInBytes(List.of(1, 2)))
+        .isEqualTo(HostPluginCallJournal.estimateSizeInBytes(new Object[]{"a", "b"}))
+        .isGreaterThan(HostPluginCallJournal.estimateSizeInBytes(List.of(1)));
+  }
+
+  @Test
+  void testRecord_MaxPendingSizeReached_CallIsDropped() throws Exception {
+    CountDownLatch submitStarted = new CountDownLatch(1);
+    CountDownLatch submitReleased = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      submitStarted.countDown();
+      submitReleased.await();
+      return true;
+    }).when(communicationLogWriter).submit(any(CommunicationLogEvent.class));
+    HostPluginCallJournal journal = createJournal(true, 1, 1000, 300);
+    journal.afterPropertiesSet();
+    Object[] arguments = new Object[]{"x".repeat(100)};
+
+    assertThat(journal.record(createCall(arguments, ""))).isTrue();
+    assertThat(submitStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(journal.record(createCall(arguments, ""))).isTrue();
+    assertThat(journal.getPendingSizeInBytes()).isPositive();
+    assertThat(journal.record(createCall(arguments, ""))).isFalse();
+
+    assertThat(journal.getNumberDroppedCalls()).isEqualTo(1);
+    submitReleased.countDown();
+    journal.destroy();
+    assertThat(journal.getPendingSizeInBytes()).isZero();
+  }
+
+  @Test
+  void testRecord_CallNotSampled_CallIsNotLogged() {
+    HostPluginCallJournal journal = createJournal(false, Integer.MAX_VALUE, 1000);
+
+    for (int i = 0; i < 10; i++) {
+      journal.record(createCall(new Object[0], "result"));
+    }
+
+    assertThat(journal.getNumberSkippedCalls()).isEqualTo(10);
+    verify(communicationLogWriter, never()).submit(any(CommunicationLogEvent.class));
+  }
+
+  private HostPluginCallJournal createJournal(boolean enabled, int sampleRate,
+      int maxValueLength) {
+    return createJournal(enabled, sampleRate, maxValueLength, 16 * 1024 * 1024);
+  }
+
+  private HostPluginCallJournal createJournal(boolean enabled, int sampleRate,
+      int maxValueLength, long maxPendingSizeInBytes) {
+    CommunicationProperties communicationProperties = new CommunicationProperties();
+    CommunicationLogHostPluginCallJournalProperties journalProperties =
+        communicationProperties.getLog().getHostPluginCalls().getJournal();
+    journalProperties.setEnabled(enabled);
+    journalProperties.setSampleRate(sampleRate);
+    journalProperties.setMaxValueLength(maxValueLength);
+    journalProperties.setMaxPendingSizeInBytes(maxPendingSizeInBytes);
+    return new HostPluginCallJournal(
+        communicationProperties,
+        communicationLogWriter,
+        mock(HostPluginFunctionCallCommunicationLogService.class),
+        mock(CommunicationLogRepository.class));
+  }
+
+  private static HostPluginCallRecord createCall(Object[] arguments, Object result) {
+    return new HostPluginCallRecord(
+        ZonedDateTime.now(),
+        ZonedDateTime.now(),
+        null,
+        "plugin-id",
+        "pt.ulisboa.ewp.host.plugin.skeleton.provider.SampleHostProvider",
+        "findAll",
+        arguments,
+        result,
+        null);
+  }
+}
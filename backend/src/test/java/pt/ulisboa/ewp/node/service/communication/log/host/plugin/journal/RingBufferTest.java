@@ -0,0 +1,87 @@
+package pt.ulisboa.ewp.node.service.communication.log.host.plugin.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class RingBufferTest {
+
+  @Test
+  void testConstructor_CapacityNotPowerOfTwo_CapacityIsRoundedUp() {
+    assertThat(new RingBuffer<Integer>(5).getCapacity()).isEqualTo(8);
+    assertThat(new RingBuffer<Integer>(8).getCapacity()).isEqualTo(8);
+  }
+
+  @Test
+  void testOfferAndPoll_SeveralElements_ElementsArePolledInOrder() {
+    RingBuffer<Integer> ringBuffer = new RingBuffer<>(4);
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(ringBuffer.offer(i)).isTrue();
+      assertThat(ringBuffer.size()).isEqualTo(1);
+      assertThat(ringBuffer.poll()).isEqualTo(i);
+    }
+
+    assertThat(ringBuffer.poll()).isNull();
+    assertThat(ringBuffer.isEmpty()).isTrue();
+  }
+
+  @Test
+  void testOffer_BufferIsFull_ReturnFalse() {
+    RingBuffer<Integer> ringBuffer = new RingBuffer<>(4);
+    for (int i = 0; i < 4; i++) {
+      assertThat(ringBuffer.offer(i)).isTrue();
+    }
+
+    assertThat(ringBuffer.offer(4)).isFalse();
+
+    assertThat(ringBuffer.poll()).isEqualTo(0);
+    assertThat(ringBuffer.offer(4)).isTrue();
+    assertThat(ringBuffer.size()).isEqualTo(4);
+  }
+
+  @Test
+  void testOffer_ConcurrentProducers_AllElementsArePolledOnce() throws Exception {
+    int numberProducers = 4;
+    int numberElementsPerProducer = 10000;
+    RingBuffer<Integer> ringBuffer = new RingBuffer<>(1024);
+    ExecutorService executorService = Executors.newFixedThreadPool(numberProducers);
+    CountDownLatch startLatch = new CountDownLatch(1);
+
+    try {
+      for (int producer = 0; producer < numberProducers; producer++) {
+        int firstElement = producer * numberElementsPerProducer;
+        executorService.submit(() -> {
+          startLatch.await();
+          for (int i = 0; i < numberElementsPerProducer; i++) {
+            while (!ringBuffer.offer(firstElement + i)) {
+              Thread.onSpinWait();
+            }
+          }
+          return null;
+        });
+      }
+      startLatch.countDown();
+
+      Set<Integer> polledElements = new HashSet<>();
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (polledElements.size() < numberProducers * numberElementsPerProducer
+          && System.nanoTime() < deadline) {
+        Integer element = ringBuffer.poll();
+        if (element != null) {
+          assertThat(polledElements.add(element)).isTrue();
+        }
+      }
+
+      assertThat(polledElements).hasSize(numberProducers * numberElementsPerProducer);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package pt.ulisboa.ewp.node.service.communication.log.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import pt.ulisboa.ewp.node.AbstractTest;
+import pt.ulisboa.ewp.node.api.ewp.wrapper.EwpApiHttpResponseWrapper;
+import pt.ulisboa.ewp.node.config.api.ApiResponseBodyProperties;
+import pt.ulisboa.ewp.node.domain.entity.communication.log.http.HttpRequestLog;
+import pt.ulisboa.ewp.node.domain.entity.communication.log.http.HttpResponseLog;
+import pt.ulisboa.ewp.node.domain.utils.DomainConstants;
+
+class HttpCommunicationLogServiceTest extends AbstractTest {
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @Test
+  void testToHttpResponseLog_BodySpilledToTemporaryFile_OnlyPrefixOfBodyIsRead()
+      throws IOException {
+    ApiResponseBodyProperties responseBodyProperties = new ApiResponseBodyProperties();
+    responseBodyProperties.setMaxInMemorySizeInBytes(1024);
+    responseBodyProperties.setTemporaryDirectory(temporaryDirectory.toString());
+    EwpApiHttpResponseWrapper response = spy(
+        new EwpApiHttpResponseWrapper(new MockHttpServletResponse(), responseBodyProperties));
+    response.setContentType(MediaType.APPLICATION_XML_VALUE);
+    response.getOutputStream()
+        .write("a".repeat(2 * DomainConstants.MAX_TEXT_COLUMN_TEXT_LENGTH)
+            .getBytes(StandardCharsets.UTF_8));
+
+    HttpResponseLog responseLog = new HttpCommunicationLogService().toHttpResponseLog(response);
+
+    assertThat(responseLog.getBody()).hasSize(DomainConstants.MAX_TEXT_COLUMN_TEXT_LENGTH);
+    assertThat(new String(responseLog.getBody(), StandardCharsets.UTF_8))
+        .startsWith("aaa")
+        .endsWith(HttpRequestLog.TRUNCATED_BODY_SUFFIX);
+    verify(response, never()).getContentAsByteArray();
+    response.release();
+  }
+}
@@ -0,0 +1,81 @@
+package pt.ulisboa.ewp.node.service.ewp.iia.hash;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import pt.ulisboa.ewp.node.AbstractTest;
+import pt.ulisboa.ewp.node.config.iia.IiaHashProperties;
+import pt.ulisboa.ewp.node.exception.ewp.hash.HashCalculationException;
+
+class IiaHashCalculationExecutorTest extends AbstractTest {
+
+  @Test
+  void testCalculate_ManyIias_HashesAreCalculatedConcurrentlyAndReturnedInOrder()
+      throws HashCalculationException {
+    IiaHashProperties properties = new IiaHashProperties();
+    properties.setParallelism(4);
+    properties.setMinBatchSizePerTask(10);
+    IiaHashCalculationExecutor executor = new IiaHashCalculationExecutor(properties);
+
+    List<String> iias = new ArrayList<>();
+    for (int index = 0; index < 100; index++) {
+      iias.add("iia" + index);
+    }
+    Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+    List<HashCalculationResult> result = executor.calculate("test", iias, batch -> {
+      threadNames.add(Thread.currentThread().getName());
+      return batch.stream()
+          .map(i -> new HashCalculationResult("hash-" + i, i))
+          .collect(Collectors.toList());
+    });
+
+    assertThat(result.stream().map(HashCalculationResult::getHashedString)
+        .collect(Collectors.toList()), equalTo(iias));
+    assertThat(threadNames.size(), greaterThan(1));
+    executor.destroy();
+  }
+
+  @Test
+  void testCalculate_FewIias_HashesAreCalculatedOnCallingThread()
+      throws HashCalculationException {
+    IiaHashProperties properties = new IiaHashProperties();
+    properties.setParallelism(4);
+    properties.setMinBatchSizePerTask(10);
+    IiaHashCalculationExecutor executor = new IiaHashCalculationExecutor(properties);
+
+    String callingThreadName = Thread.currentThread().getName();
+    List<HashCalculationResult> result = executor.calculate("test", List.of("iia1", "iia2"),
+        batch -> {
+          assertThat(Thread.currentThread().getName(), equalTo(callingThreadName));
+          return batch.stream()
+              .map(i -> new HashCalculationResult("hash-" + i, i))
+              .collect(Collectors.toList());
+        });
+
+    assertThat(result.size(), equalTo(2));
+    executor.destroy();
+  }
+
+  @Test
+  void testCalculate_BatchFails_HashCalculationExceptionIsThrown() {
+    IiaHashProperties properties = new IiaHashProperties();
+    properties.setParallelism(2);
+    properties.setMinBatchSizePerTask(1);
+    IiaHashCalculationExecutor executor = new IiaHashCalculationExecutor(properties);
+
+    assertThrows(HashCalculationException.class,
+        () -> executor.calculate("test", List.of("iia1", "iia2"), batch -> {
+          throw new HashCalculationException(new IllegalStateException("TEST"));
+        }));
+    executor.destroy();
+  }
+}
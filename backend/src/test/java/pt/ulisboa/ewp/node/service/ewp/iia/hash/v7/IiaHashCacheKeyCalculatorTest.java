@@ -0,0 +1,87 @@
+package pt.ulisboa.ewp.node.service.ewp.iia.hash.v7;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import org.junit.jupiter.api.Test;
+import pt.ulisboa.ewp.node.AbstractTest;
+
+class IiaHashCacheKeyCalculatorTest extends AbstractTest {
+
+  @Test
+  public void testCalculateKeys_SameIiaWithoutIndentation_ReturnSameKey()
+      throws IOException, XMLStreamException {
+    String iiasGetResponseXml = readSampleIiasGetResponseV7();
+
+    List<String> keys = calculateKeys(iiasGetResponseXml);
+    List<String> keysWithoutIndentation =
+        calculateKeys(iiasGetResponseXml.replaceAll(">\\s+<", "><"));
+
+    assertThat(keys).hasSize(1);
+    assertThat(keysWithoutIndentation).isEqualTo(keys);
+  }
+
+  @Test
+  public void testCalculateKeys_CooperationConditionsChanged_ReturnDifferentKey()
+      throws IOException, XMLStreamException {
+    String iiasGetResponseXml = readSampleIiasGetResponseV7();
+
+    List<String> keys = calculateKeys(iiasGetResponseXml);
+    List<String> changedKeys = calculateKeys(
+        iiasGetResponseXml.replace("<total-months-per-year>5</total-months-per-year>",
+            "<total-months-per-year>6</total-months-per-year>"));
+
+    assertThat(changedKeys).hasSize(1);
+    assertThat(changedKeys.get(0)).isNotEqualTo(keys.get(0));
+  }
+
+  @Test
+  public void testCalculateKeys_CooperationConditionsTerminatedAsAWhole_ReturnDifferentKey()
+      throws IOException, XMLStreamException {
+    String iiasGetResponseXml = readSampleIiasGetResponseV7();
+
+    List<String> keys = calculateKeys(iiasGetResponseXml);
+    List<String> terminatedKeys = calculateKeys(
+        iiasGetResponseXml.replace("<cooperation-conditions>",
+            "<cooperation-conditions terminated-as-a-whole=\"true\">"));
+
+    assertThat(terminatedKeys).hasSize(1);
+    assertThat(terminatedKeys.get(0)).isNotEqualTo(keys.get(0));
+  }
+
+  @Test
+  public void testCalculateKeys_TwoIias_ReturnKeyPerIia() throws IOException, XMLStreamException {
+    String iiasGetResponseXml = readSampleIiasGetResponseV7();
+    int iiaStartIndex = iiasGetResponseXml.indexOf("<iia>");
+    int iiaEndIndex = iiasGetResponseXml.lastIndexOf("</iia>") + "</iia>".length();
+    String iia = iiasGetResponseXml.substring(iiaStartIndex, iiaEndIndex);
+    String iiasGetResponseWithTwoIiasXml =
+        iiasGetResponseXml.substring(0, iiaEndIndex)
+            + iia.replace("1954991", "1954992")
+            + iiasGetResponseXml.substring(iiaEndIndex);
+
+    List<String> keys = calculateKeys(iiasGetResponseWithTwoIiasXml);
+
+    assertThat(keys).hasSize(2);
+    assertThat(keys.get(0)).isEqualTo(calculateKeys(iiasGetResponseXml).get(0));
+    assertThat(keys.get(1)).isNotEqualTo(keys.get(0));
+  }
+
+  private static List<String> calculateKeys(String iiasGetResponseXml)
+      throws XMLStreamException {
+    return IiaHashCacheKeyCalculator.calculateKeys(
+        iiasGetResponseXml.getBytes(StandardCharsets.UTF_8), 7);
+  }
+
+  private String readSampleIiasGetResponseV7() throws IOException {
+    return new String(
+        getClass()
+            .getClassLoader()
+            .getResourceAsStream("samples/iias/iias-get-response-v7.xml")
+            .readAllBytes(),
+        StandardCharsets.UTF_8);
+  }
+}
@@ -52,6 +52,30 @@ class IiaHashServiceV7IntegrationTest extends AbstractIntegrationTest {
         .isEqualTo("87b33170d7a6c6d894215641f39e7b7de36501265479e5ab3922f32d5b225033");
   }
 
+  @Test
+  public void testCalculateIiaHashes_SameIiaV7Twice_ReturnSameCorrectHash()
+      throws HashCalculationException, IOException {
+    // Given
+    byte[] iiasGetResponseXml =
+        getClass()
+            .getClassLoader()
+            .getResourceAsStream("samples/iias/iias-get-response-v7.xml")
+            .readAllBytes();
+
+    // When
+    List<HashCalculationResult> firstResult =
+        this.iiaHashService.calculateIiaHashes(iiasGetResponseXml, 7);
+    List<HashCalculationResult> secondResult =
+        this.iiaHashService.calculateIiaHashes(iiasGetResponseXml, 7);
+
+    // Then
+    assertThat(secondResult).hasSize(1);
+    assertThat(secondResult.get(0).getHash())
+        .isEqualTo("87b33170d7a6c6d894215641f39e7b7de36501265479e5ab3922f32d5b225033");
+    assertThat(secondResult.get(0).getHashedString())
+        .isEqualTo(firstResult.get(0).getHashedString());
+  }
+
   @Test
   public void testCalculateIiaHashes_IiaV6XmlWithValidIiaHash_ReturnCorrectHash()
       throws HashCalculationException, IOException {
@@ -0,0 +1,224 @@
+package pt.ulisboa.ewp.node.service.ewp.mapping.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import pt.ulisboa.ewp.node.AbstractTest;
+import pt.ulisboa.ewp.node.config.mapping.MappingCacheProperties;
+
+class AbstractEwpMappingNearCacheTest extends AbstractTest {
+
+  @Test
+  public void testGetMappings_SomeMappingsCached_OnlyMissingMappingsLoadedInBulk() {
+    TestMappingNearCache nearCache = new TestMappingNearCache(createProperties(true, 0, 500));
+    nearCache.database.put("a1", "ounit-1");
+    nearCache.database.put("b2", "ounit-2");
+
+    assertThat(nearCache.getMapping("hei", "a1")).map(EwpOunitMapping::getOunitId)
+        .contains("ounit-1");
+    assertThat(nearCache.getMapping("hei", "z9")).isEmpty();
+
+    Map<String, EwpOunitMapping> mappings =
+        nearCache.getMappings("hei", List.of("a1", "b2", "c3", "z9"));
+
+    assertThat(mappings).containsOnlyKeys("a1", "b2");
+    assertThat(mappings.get("b2").getOunitId()).isEqualTo("ounit-2");
+    assertThat(nearCache.bulkLoads).containsExactly(List.of("b2", "c3"));
+
+    nearCache.getMappings("hei", List.of("a1", "b2", "c3"));
+    assertThat(nearCache.bulkLoads).hasSize(1);
+  }
+
+  @Test
+  public void testRegisterMapping_SameOunitId_WriteSkipped() {
+    TestMappingNearCache nearCache = new TestMappingNearCache(createProperties(true, 0, 500));
+    nearCache.database.put("a1", "ounit-1");
+    nearCache.getMapping("hei", "a1");
+
+    nearCache.registerMapping("hei", "ounit-1", "a1");
+    assertThat(nearCache.upserts).isEmpty();
+
+    nearCache.registerMapping("hei", "ounit-2", "a1");
+    nearCache.registerMapping("hei", "ounit-2", "a1");
+    assertThat(nearCache.upserts).containsExactly(Map.of("a1", "ounit-2"));
+    assertThat(nearCache.getMapping("hei", "a1")).map(EwpOunitMapping::getOunitId)
+        .contains("ounit-2");
+  }
+
+  @Test
+  public void testRegisterMapping_WriteBehind_MappingsWrittenInBatchesOnFlush() throws Exception {
+    TestMappingNearCache nearCache = new TestMappingNearCache(
+        createProperties(true, 3600000, 2));
+    nearCache.afterPropertiesSet();
+    try {
+      nearCache.registerMapping("hei", "ounit-1", "a1");
+      nearCache.registerMapping("hei", "ounit-2", "b2");
+      nearCache.registerMapping("hei", null, "c3");
+      nearCache.registerMapping("hei", "ounit-1", "a1");
+
+      assertThat(nearCache.upserts).isEmpty();
+      assertThat(nearCache.getNumberPendingMappings()).isEqualTo(3);
+      assertThat(nearCache.getMapping("hei", "c3")).isPresent()
+          .map(EwpOunitMapping::getOunitId).isEmpty();
+
+      nearCache.flush();
+
+      assertThat(nearCache.getNumberPendingMappings()).isZero();
+      assertThat(nearCache.upserts).hasSize(2);
+      assertThat(nearCache.database).containsEntry("a1", "ounit-1")
+          .containsEntry("b2", "ounit-2").containsEntry("c3", null);
+
+    } finally {
+      nearCache.destroy();
+    }
+  }
+
+  @Test
+  public void testGetMappings_MappingRegisteredButNotFlushed_PendingMappingReturned()
+      throws Exception {
+    TestMappingNearCache nearCache = new TestMappingNearCache(
+        createProperties(true, 3600000, 500));
+    nearCache.database.put("a1", "ounit-1");
+    nearCache.afterPropertiesSet();
+    try {
+      nearCache.getMappings("hei", List.of("a1", "b2"));
+      nearCache.registerMapping("hei", "ounit-2", "a1");
+      nearCache.registerMapping("hei", "ounit-3", "b2");
+
+      Map<String, EwpOunitMapping> mappings = nearCache.getMappings("hei", List.of("a1", "b2"));
+
+      assertThat(nearCache.upserts).isEmpty();
+      assertThat(mappings.get("a1").getOunitId()).isEqualTo("ounit-2");
+      assertThat(mappings.get("b2").getOunitId()).isEqualTo("ounit-3");
+
+    } finally {
+      nearCache.destroy();
+    }
+  }
+
+  @Test
+  public void testRegisterMapping_WriteFails_MappingsKeptPendingUntilNextFlush() throws Exception {
+    TestMappingNearCache nearCache = new TestMappingNearCache(
+        createProperties(true, 3600000, 500));
+    nearCache.afterPropertiesSet();
+    try {
+      nearCache.registerMapping("hei", "ounit-1", "a1");
+      nearCache.failWrites = true;
+      nearCache.flush();
+
+      assertThat(nearCache.getNumberPendingMappings()).isEqualTo(1);
+
+      nearCache.failWrites = false;
+      nearCache.flush();
+
+      assertThat(nearCache.getNumberPendingMappings()).isZero();
+      assertThat(nearCache.database).containsEntry("a1", "ounit-1");
+
+    } finally {
+      nearCache.destroy();
+    }
+  }
+
+  @Test
+  public void testRegisterMapping_BatchWriteFails_OtherMappingsWrittenAndFailingOneDiscarded()
+      throws Exception {
+    MappingCacheProperties properties = createProperties(true, 3600000, 500);
+    properties.setMaxWriteAttempts(2);
+    TestMappingNearCache nearCache = new TestMappingNearCache(properties);
+    nearCache.afterPropertiesSet();
+    try {
+      nearCache.registerMapping("hei", "ounit-1", "a1");
+      nearCache.registerMapping("hei", "ounit-2", "bad");
+      nearCache.registerMapping("hei", "ounit-3", "c3");
+
+      nearCache.flush();
+
+      assertThat(nearCache.database).containsEntry("a1", "ounit-1")
+          .containsEntry("c3", "ounit-3").doesNotContainKey("bad");
+      assertThat(nearCache.getNumberPendingMappings()).isEqualTo(1);
+
+      nearCache.flush();
+
+      assertThat(nearCache.getNumberPendingMappings()).isZero();
+      assertThat(nearCache.getNumberDiscardedWrites()).isEqualTo(1);
+      assertThat(nearCache.getMapping("hei", "bad")).isEmpty();
+
+    } finally {
+      nearCache.destroy();
+    }
+  }
+
+  @Test
+  public void testGetMappingsAndRegisterMapping_Disabled_DatabaseAccessedDirectly() {
+    TestMappingNearCache nearCache = new TestMappingNearCache(createProperties(false, 1000, 500));
+    nearCache.database.put("a1", "ounit-1");
+
+    nearCache.getMappings("hei", List.of("a1"));
+    nearCache.getMappings("hei", List.of("a1"));
+    assertThat(nearCache.bulkLoads).hasSize(2);
+
+    nearCache.registerMapping("hei", "ounit-1", "a1");
+    assertThat(nearCache.upserts).containsExactly(Map.of("a1", "ounit-1"));
+  }
+
+  private static MappingCacheProperties createProperties(boolean enabled,
+      long flushIntervalInMilliseconds, int flushBatchSize) {
+    MappingCacheProperties properties = new MappingCacheProperties();
+    properties.setEnabled(enabled);
+    properties.setFlushIntervalInMilliseconds(flushIntervalInMilliseconds);
+    properties.setFlushBatchSize(flushBatchSize);
+    return properties;
+  }
+
+  private static class TestMappingNearCache extends AbstractEwpMappingNearCache {
+
+    private final Map<String, String> database = new HashMap<>();
+    private final List<List<String>> bulkLoads = new ArrayList<>();
+    private final List<Map<String, String>> upserts = new ArrayList<>();
+    private volatile boolean failWrites;
+
+    TestMappingNearCache(MappingCacheProperties properties) {
+      super("test", properties, mock(PlatformTransactionManager.class));
+    }
+
+    @Override
+    protected Optional<EwpOunitMapping> loadMapping(String heiId, String elementId) {
+      if (!database.containsKey(elementId)) {
+        return Optional.empty();
+      }
+      return Optional.of(new EwpOunitMapping(heiId, elementId, database.get(elementId)));
+    }
+
+    @Override
+    protected Collection<EwpOunitMapping> loadMappings(String heiId,
+        Collection<String> elementIds) {
+      bulkLoads.add(new ArrayList<>(elementIds));
+      return elementIds.stream()
+          .filter(database::containsKey)
+          .map(elementId -> new EwpOunitMapping(heiId, elementId, database.get(elementId)))
+          .collect(Collectors.toList());
+    }
+
+    @Override
+    protected void upsertMappings(String heiId, Map<String, String> elementIdToOunitIdMap) {
+      if (failWrites) {
+        throw new IllegalStateException("Database unavailable");
+      }
+      if (elementIdToOunitIdMap.containsKey("bad")) {
+        throw new IllegalArgumentException("Invalid mapping");
+      }
+      upserts.add(new LinkedHashMap<>(elementIdToOunitIdMap));
+      database.putAll(elementIdToOunitIdMap);
+    }
+  }
+}
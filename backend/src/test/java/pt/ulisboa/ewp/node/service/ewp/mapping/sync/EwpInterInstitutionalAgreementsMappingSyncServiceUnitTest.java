@@ -1,10 +1,14 @@
 package pt.ulisboa.ewp.node.service.ewp.mapping.sync;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import eu.erasmuswithoutpaper.api.iias.v7.endpoints.IiasGetResponseV7;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -15,6 +19,9 @@ import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.pf4j.PluginDescriptor;
+import org.pf4j.PluginWrapper;
+import pt.ulisboa.ewp.host.plugin.skeleton.HostPlugin;
 import pt.ulisboa.ewp.host.plugin.skeleton.provider.iias.InterInstitutionalAgreementsV7HostProvider;
 import pt.ulisboa.ewp.host.plugin.skeleton.provider.iias.MockInterInstitutionalAgreementsV7HostProvider;
 import pt.ulisboa.ewp.node.config.sync.SyncMappingsProperties;
@@ -32,7 +39,8 @@ class EwpInterInstitutionalAgreementsMappingSyncServiceUnitTest {
         EwpInterInstitutionalAgreementMappingService.class);
     SyncProperties syncProperties = SyncProperties.create(SyncMappingsProperties.create(1000));
     EwpInterInstitutionalAgreementMappingSyncService syncService = new EwpInterInstitutionalAgreementMappingSyncService(
-        syncProperties, hostPluginManager, mappingService);
+        syncProperties, hostPluginManager, mappingService,
+        Mockito.mock(EwpMappingSyncWatermarkService.class));
 
     List<String> heiIds = Arrays.asList("h1", "h2");
     List<String> ounitIds = Arrays.asList("o1", "o2");
@@ -86,7 +94,8 @@ class EwpInterInstitutionalAgreementsMappingSyncServiceUnitTest {
         EwpInterInstitutionalAgreementMappingService.class);
     SyncProperties syncProperties = SyncProperties.create(SyncMappingsProperties.create(1000));
     EwpInterInstitutionalAgreementMappingSyncService syncService = new EwpInterInstitutionalAgreementMappingSyncService(
-        syncProperties, hostPluginManager, mappingService);
+        syncProperties, hostPluginManager, mappingService,
+        Mockito.mock(EwpMappingSyncWatermarkService.class));
 
     List<String> heiIds = Arrays.asList("h1", "h2");
     List<String> ounitIds = Arrays.asList("o1", "o2");
@@ -121,11 +130,11 @@ class EwpInterInstitutionalAgreementsMappingSyncServiceUnitTest {
         .getAllProvidersOfTypePerHeiId(InterInstitutionalAgreementsV7HostProvider.class);
 
     doReturn(
-            Optional.of(
+            List.of(
                 EwpInterInstitutionalAgreementMapping.create(
                     heiIds.get(1), ounitIds.get(1), iiaIds.get(1))))
         .when(mappingService)
-        .getMapping(heiIds.get(1), iiaIds.get(1));
+        .getMappings(heiIds.get(1), List.of(iiaIds.get(1)));
 
     syncService.run();
 
@@ -140,4 +149,76 @@ class EwpInterInstitutionalAgreementsMappingSyncServiceUnitTest {
     verify(mappingService, times(0)).registerMapping(heiIds.get(1), ounitIds.get(1), iiaIds.get(1));
   }
 
-}
\ No newline at end of file
+  @Test
+  void testRun_HostPluginV7WithPreviousSuccessfulSync_OnlyModifiedIiaIdsAreRequestedAndWatermarkIsUpdated() {
+    HostPluginManager hostPluginManager = Mockito.mock(HostPluginManager.class);
+    EwpInterInstitutionalAgreementMappingService mappingService = Mockito.mock(
+        EwpInterInstitutionalAgreementMappingService.class);
+    EwpMappingSyncWatermarkService watermarkService = Mockito.mock(
+        EwpMappingSyncWatermarkService.class);
+    SyncProperties syncProperties = SyncProperties.create(SyncMappingsProperties.create(1000));
+    EwpInterInstitutionalAgreementMappingSyncService syncService = new EwpInterInstitutionalAgreementMappingSyncService(
+        syncProperties, hostPluginManager, mappingService, watermarkService);
+
+    String heiId = "h1";
+    MockInterInstitutionalAgreementsV7HostProvider provider = Mockito.spy(
+        new MockInterInstitutionalAgreementsV7HostProvider(1, 1));
+    doReturn(Map.of(heiId, List.of(provider))).when(hostPluginManager)
+        .getAllProvidersOfTypePerHeiId(InterInstitutionalAgreementsV7HostProvider.class);
+
+    HostPlugin plugin = createHostPlugin("plugin1");
+    doReturn(Optional.of(plugin)).when(hostPluginManager).getHostPluginOfProvider(provider);
+
+    ZonedDateTime lastSyncDateTime = ZonedDateTime.now().minusHours(1);
+    doReturn(Optional.of(lastSyncDateTime)).when(watermarkService)
+        .getLastSyncDateTime("iias-v7", heiId, "plugin1");
+
+    syncService.run();
+
+    verify(provider, times(1)).findAllIiaIdsByHeiId(heiId, heiId, null,
+        lastSyncDateTime.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime());
+    verify(watermarkService, times(1)).registerLastSyncDateTime(eq("iias-v7"), eq(heiId),
+        eq("plugin1"), any(ZonedDateTime.class));
+  }
+
+  @Test
+  void testRun_TwoHostPluginsV7WithSameProviderClass_WatermarkIsKeptPerPlugin() {
+    HostPluginManager hostPluginManager = Mockito.mock(HostPluginManager.class);
+    EwpInterInstitutionalAgreementMappingService mappingService = Mockito.mock(
+        EwpInterInstitutionalAgreementMappingService.class);
+    EwpMappingSyncWatermarkService watermarkService = Mockito.mock(
+        EwpMappingSyncWatermarkService.class);
+    SyncProperties syncProperties = SyncProperties.create(SyncMappingsProperties.create(1000));
+    EwpInterInstitutionalAgreementMappingSyncService syncService = new EwpInterInstitutionalAgreementMappingSyncService(
+        syncProperties, hostPluginManager, mappingService, watermarkService);
+
+    String heiId = "h1";
+    MockInterInstitutionalAgreementsV7HostProvider provider1 =
+        new MockInterInstitutionalAgreementsV7HostProvider(1, 1);
+    MockInterInstitutionalAgreementsV7HostProvider provider2 =
+        new MockInterInstitutionalAgreementsV7HostProvider(1, 1);
+    doReturn(Map.of(heiId, List.of(provider1, provider2))).when(hostPluginManager)
+        .getAllProvidersOfTypePerHeiId(InterInstitutionalAgreementsV7HostProvider.class);
+
+    HostPlugin plugin1 = createHostPlugin("plugin1");
+    doReturn(Optional.of(plugin1)).when(hostPluginManager).getHostPluginOfProvider(provider1);
+    HostPlugin plugin2 = createHostPlugin("plugin2");
+    doReturn(Optional.of(plugin2)).when(hostPluginManager).getHostPluginOfProvider(provider2);
+
+    syncService.run();
+
+    verify(watermarkService, times(1)).registerLastSyncDateTime(eq("iias-v7"), eq(heiId),
+        eq("plugin1"), any(ZonedDateTime.class));
+    verify(watermarkService, times(1)).registerLastSyncDateTime(eq("iias-v7"), eq(heiId),
+        eq("plugin2"), any(ZonedDateTime.class));
+  }
+
+  private static HostPlugin createHostPlugin(String pluginId) {
+    PluginWrapper pluginWrapper = Mockito.mock(PluginWrapper.class);
+    doReturn(Mockito.mock(PluginDescriptor.class)).when(pluginWrapper).getDescriptor();
+    doReturn(pluginId).when(pluginWrapper).getPluginId();
+    HostPlugin plugin = Mockito.mock(HostPlugin.class);
+    doReturn(pluginWrapper).when(plugin).getWrapper();
+    return plugin;
+  }
+}
@@ -14,7 +14,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import pt.ulisboa.ewp.host.plugin.skeleton.provider.omobilities.MockOutgoingMobilitiesV1HostProvider;
@@ -36,7 +35,8 @@ class EwpOutgoingMobilityMappingSyncServiceUnitTest {
         EwpOutgoingMobilityMappingService.class);
     SyncProperties syncProperties = SyncProperties.create(SyncMappingsProperties.create(1000));
     EwpOutgoingMobilityMappingSyncService syncService = new EwpOutgoingMobilityMappingSyncService(
-        syncProperties, hostPluginManager, mappingService);
+        syncProperties, hostPluginManager, mappingService,
+        Mockito.mock(EwpMappingSyncWatermarkService.class));
 
     List<String> heiIds = Arrays.asList("h1", "h2");
     List<String> ounitIds = Arrays.asList("o1", "o2");
@@ -88,7 +88,8 @@ class EwpOutgoingMobilityMappingSyncServiceUnitTest {
         EwpOutgoingMobilityMappingService.class);
     SyncProperties syncProperties = SyncProperties.create(SyncMappingsProperties.create(1000));
     EwpOutgoingMobilityMappingSyncService syncService = new EwpOutgoingMobilityMappingSyncService(
-        syncProperties, hostPluginManager, mappingService);
+        syncProperties, hostPluginManager, mappingService,
+        Mockito.mock(EwpMappingSyncWatermarkService.class));
 
     List<String> heiIds = Arrays.asList("h1", "h2");
     List<String> ounitIds = Arrays.asList("o1", "o2");
@@ -118,9 +119,9 @@ class EwpOutgoingMobilityMappingSyncServiceUnitTest {
     doReturn(providersPerHeiId).when(hostPluginManager)
         .getAllProvidersOfTypePerHeiId(OutgoingMobilitiesV1HostProvider.class);
 
-    doReturn(Optional.of(
+    doReturn(List.of(
         EwpOutgoingMobilityMapping.create(heiIds.get(1), ounitIds.get(1), omobilityIds.get(1))))
-        .when(mappingService).getMapping(heiIds.get(1), omobilityIds.get(1));
+        .when(mappingService).getMappings(heiIds.get(1), List.of(omobilityIds.get(1)));
 
     syncService.run();
 
@@ -144,7 +145,8 @@ class EwpOutgoingMobilityMappingSyncServiceUnitTest {
         EwpOutgoingMobilityMappingService.class);
     SyncProperties syncProperties = SyncProperties.create(SyncMappingsProperties.create(1000));
     EwpOutgoingMobilityMappingSyncService syncService = new EwpOutgoingMobilityMappingSyncService(
-        syncProperties, hostPluginManager, mappingService);
+        syncProperties, hostPluginManager, mappingService,
+        Mockito.mock(EwpMappingSyncWatermarkService.class));
 
     List<String> heiIds = Arrays.asList("h1", "h2");
     List<String> ounitIds = Arrays.asList("o1", "o2");
@@ -196,7 +198,8 @@ class EwpOutgoingMobilityMappingSyncServiceUnitTest {
         EwpOutgoingMobilityMappingService.class);
     SyncProperties syncProperties = SyncProperties.create(SyncMappingsProperties.create(1000));
     EwpOutgoingMobilityMappingSyncService syncService = new EwpOutgoingMobilityMappingSyncService(
-        syncProperties, hostPluginManager, mappingService);
+        syncProperties, hostPluginManager, mappingService,
+        Mockito.mock(EwpMappingSyncWatermarkService.class));
 
     List<String> heiIds = Arrays.asList("h1", "h2");
     List<String> ounitIds = Arrays.asList("o1", "o2");
@@ -226,9 +229,9 @@ class EwpOutgoingMobilityMappingSyncServiceUnitTest {
     doReturn(providersPerHeiId).when(hostPluginManager)
         .getAllProvidersOfTypePerHeiId(OutgoingMobilitiesV2HostProvider.class);
 
-    doReturn(Optional.of(
+    doReturn(List.of(
         EwpOutgoingMobilityMapping.create(heiIds.get(1), ounitIds.get(1), omobilityIds.get(1))))
-        .when(mappingService).getMapping(heiIds.get(1), omobilityIds.get(1));
+        .when(mappingService).getMappings(heiIds.get(1), List.of(omobilityIds.get(1)));
 
     syncService.run();
 
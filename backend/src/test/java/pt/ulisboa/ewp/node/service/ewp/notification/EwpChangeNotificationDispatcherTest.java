@@ -0,0 +1,120 @@
+package pt.ulisboa.ewp.node.service.ewp.notification;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import pt.ulisboa.ewp.node.AbstractTest;
+import pt.ulisboa.ewp.node.config.cnr.CnrProperties;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpChangeNotification;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpChangeNotification.Status;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpOutgoingMobilityLearningAgreementChangeNotification;
+
+class EwpChangeNotificationDispatcherTest extends AbstractTest {
+
+  @Test
+  void testDispatch_OneNotificationFails_RemainingNotificationsAreProcessed() {
+    CnrProperties cnrProperties = new CnrProperties();
+    cnrProperties.getDispatcher().setMaxRequestsPerSecondPerHei(0);
+    EwpChangeNotificationDispatcher dispatcher = new EwpChangeNotificationDispatcher(
+        cnrProperties);
+
+    List<EwpChangeNotification> changeNotifications = List.of(
+        createChangeNotification("h1", "om1"),
+        createChangeNotification("h1", "om2"),
+        createChangeNotification("h2", "om3"));
+    Collection<EwpChangeNotification> processedChangeNotifications = new ConcurrentLinkedQueue<>();
+
+    dispatcher.dispatch(toSingletonBatches(changeNotifications), b -> {
+      if (b.contains(changeNotifications.get(0))) {
+        throw new IllegalStateException("TEST");
+      }
+      processedChangeNotifications.addAll(b);
+    });
+
+    assertThat(processedChangeNotifications,
+        containsInAnyOrder(changeNotifications.get(1), changeNotifications.get(2)));
+    dispatcher.destroy();
+  }
+
+  @Test
+  void testDispatch_ManyNotificationsForSameHei_ConcurrencyPerHeiIsLimited() {
+    CnrProperties cnrProperties = new CnrProperties();
+    cnrProperties.getDispatcher().setParallelism(8);
+    cnrProperties.getDispatcher().setMaxConcurrentRequestsPerHei(2);
+    cnrProperties.getDispatcher().setMaxRequestsPerSecondPerHei(0);
+    EwpChangeNotificationDispatcher dispatcher = new EwpChangeNotificationDispatcher(
+        cnrProperties);
+
+    List<EwpChangeNotification> changeNotifications = new ArrayList<>();
+    for (int index = 0; index < 20; index++) {
+      changeNotifications.add(createChangeNotification("h1", "om" + index));
+    }
+    AtomicInteger numberInFlight = new AtomicInteger();
+    AtomicInteger maxNumberInFlight = new AtomicInteger();
+    AtomicInteger numberProcessed = new AtomicInteger();
+
+    dispatcher.dispatch(toSingletonBatches(changeNotifications), b -> {
+      maxNumberInFlight.accumulateAndGet(numberInFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      numberInFlight.decrementAndGet();
+      numberProcessed.incrementAndGet();
+    });
+
+    assertThat(numberProcessed.get(), equalTo(changeNotifications.size()));
+    assertThat(maxNumberInFlight.get(), lessThanOrEqualTo(2));
+    dispatcher.destroy();
+  }
+
+  @Test
+  void testDispatch_NotificationsForManyHeis_MetricsAreNotTaggedPerHei() {
+    CnrProperties cnrProperties = new CnrProperties();
+    cnrProperties.getDispatcher().setMaxRequestsPerSecondPerHei(0);
+    EwpChangeNotificationDispatcher dispatcher = new EwpChangeNotificationDispatcher(
+        cnrProperties);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    dispatcher.bindTo(registry);
+
+    List<EwpChangeNotification> changeNotifications = new ArrayList<>();
+    for (int index = 0; index < 10; index++) {
+      changeNotifications.add(createChangeNotification("h" + index, "om" + index));
+    }
+
+    dispatcher.dispatch(toSingletonBatches(changeNotifications), b -> {
+    });
+
+    assertThat(registry.find("ewp.cnr.dispatch.processed").functionCounters().size(), equalTo(1));
+    assertThat(registry.get("ewp.cnr.dispatch.processed").functionCounter().count(),
+        equalTo((double) changeNotifications.size()));
+    assertThat(registry.find("ewp.cnr.dispatch.lag").timers().size(), equalTo(1));
+    assertThat(registry.get("ewp.cnr.dispatch.heis").gauge().value(),
+        equalTo((double) changeNotifications.size()));
+    dispatcher.destroy();
+  }
+
+  private List<List<EwpChangeNotification>> toSingletonBatches(
+      List<EwpChangeNotification> changeNotifications) {
+    return changeNotifications.stream().map(List::of).collect(Collectors.toList());
+  }
+
+  private EwpChangeNotification createChangeNotification(String receivingHeiId,
+      String omobilityId) {
+    return new EwpOutgoingMobilityLearningAgreementChangeNotification(null, 1,
+        ZonedDateTime.now(), Status.PENDING, "sending-hei", receivingHeiId, omobilityId);
+  }
+}
@@ -58,9 +58,10 @@ class EwpNotificationSenderDaemonTest extends AbstractIntegrationTest {
     @Bean
     @Primary
     public EwpNotificationSenderDaemon notificationSenderDaemon(CnrProperties cnrProperties,
-                                                                   EwpChangeNotificationRepository changeNotificationRepository) {
+                                                                   EwpChangeNotificationRepository changeNotificationRepository,
+                                                                   EwpChangeNotificationDispatcher changeNotificationDispatcher) {
       return new EwpNotificationSenderDaemon(cnrProperties, changeNotificationRepository,
-              Collections.singletonList(outgoingMobilityLearningAgreementChangeNotificationHandler()));
+              changeNotificationDispatcher, Collections.singletonList(outgoingMobilityLearningAgreementChangeNotificationHandler()));
     }
 
     @Bean
@@ -58,4 +58,37 @@ public class EwpInterInstitutionalAgreementChangeNotificationHandlerTest {
               changeNotification.getPartnerHeiId(), List.of(changeNotification.getIiaId()));
     }
   }
+
+  @Test
+  void testHandler_TwoNotificationsAndCnrV3ApiSupported_OneRequestSentPerIiaId()
+      throws NoEwpCnrAPIException, EwpClientErrorException {
+    try (MockedStatic<EwpApiUtils> ewpApiUtils = mockStatic(EwpApiUtils.class)) {
+      // Given
+      String partnerHeiId = "partner-hei-id";
+      EwpInterInstitutionalAgreementChangeNotification firstChangeNotification =
+          new EwpInterInstitutionalAgreementChangeNotification(
+              null, "sending-hei-id", partnerHeiId, "iia-id-1");
+      EwpInterInstitutionalAgreementChangeNotification secondChangeNotification =
+          new EwpInterInstitutionalAgreementChangeNotification(
+              null, "sending-hei-id", partnerHeiId, "iia-id-2");
+      ewpApiUtils
+          .when(
+              () ->
+                  EwpApiUtils.getSupportedMajorVersions(
+                      this.registryClient, partnerHeiId, EwpApi.INTERINSTITUTIONAL_AGREEMENT_CNR))
+          .thenReturn(List.of(3));
+
+      // When
+      changeNotificationHandler.sendChangeNotifications(
+          List.of(firstChangeNotification, secondChangeNotification));
+
+      // Then
+      verify(this.interInstitutionalAgreementCnrV3Client, times(1))
+          .sendChangeNotification(partnerHeiId, List.of(firstChangeNotification.getIiaId()));
+      verify(this.interInstitutionalAgreementCnrV3Client, times(1))
+          .sendChangeNotification(partnerHeiId, List.of(secondChangeNotification.getIiaId()));
+      verify(this.interInstitutionalAgreementCnrV3Client, times(2))
+          .sendChangeNotification(Mockito.eq(partnerHeiId), Mockito.anyList());
+    }
+  }
 }
@@ -0,0 +1,168 @@
+package pt.ulisboa.ewp.node.service.ewp.notification.received;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import pt.ulisboa.ewp.node.AbstractIntegrationTest;
+import pt.ulisboa.ewp.node.config.cnr.CnrProperties;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification.Status;
+import pt.ulisboa.ewp.node.domain.entity.notification.EwpReceivedChangeNotification.Type;
+import pt.ulisboa.ewp.node.domain.repository.notification.EwpReceivedChangeNotificationRepository;
+import pt.ulisboa.ewp.node.exception.ewp.EwpBadRequestException;
+import pt.ulisboa.ewp.node.service.ewp.notification.received.handler.EwpReceivedChangeNotificationHandler;
+
+class EwpReceivedChangeNotificationInboxTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private EwpReceivedChangeNotificationRepository repository;
+
+  private CnrProperties cnrProperties;
+  private EwpReceivedChangeNotificationHandler handler;
+  private EwpReceivedChangeNotificationInbox inbox;
+
+  @BeforeEach
+  void setUp() {
+    cnrProperties = new CnrProperties();
+    cnrProperties.getInbox().setEnabled(true);
+    cnrProperties.getInbox().setMaxNumberAttempts(2);
+    cnrProperties.getInbox().setInitialRetryDelayInSeconds(30);
+    cnrProperties.getInbox().setMaxRetryDelayInSeconds(100);
+
+    handler = mock(EwpReceivedChangeNotificationHandler.class);
+    when(handler.getSupportedType()).thenReturn(Type.OUTGOING_MOBILITY);
+    inbox = new EwpReceivedChangeNotificationInbox(cnrProperties, repository, List.of(handler));
+  }
+
+  @AfterEach
+  void tearDown() {
+    inbox.destroy();
+  }
+
+  @Test
+  void testReceive_SameElementsReceivedTwice_OnlyOneChangeNotificationPerElementIsStored() {
+    String notifierHeiId = UUID.randomUUID().toString();
+
+    inbox.receive(Type.OUTGOING_MOBILITY, notifierHeiId, null, List.of("om1", "om2", "om1"));
+    inbox.receive(Type.OUTGOING_MOBILITY, notifierHeiId, null, List.of("om2", "om3"));
+
+    verify(handler, never()).onChangeNotification(any(), any(), anyList());
+    assertThat(findByNotifierHeiId(notifierHeiId))
+        .extracting(EwpReceivedChangeNotification::getElementId)
+        .containsExactlyInAnyOrder("om1", "om2", "om3");
+  }
+
+  @Test
+  void testProcessDue_HandlerSucceeds_ChangeNotificationsForwardedTogetherAndMarkedAsSuccess() {
+    String notifierHeiId = UUID.randomUUID().toString();
+    inbox.receive(Type.OUTGOING_MOBILITY, notifierHeiId, null, List.of("om1"));
+    inbox.receive(Type.OUTGOING_MOBILITY, notifierHeiId, null, List.of("om2"));
+
+    inbox.processDue();
+
+    verify(handler).onChangeNotification(eq(notifierHeiId), eq(null), eq(List.of("om1", "om2")));
+    assertThat(findByNotifierHeiId(notifierHeiId))
+        .extracting(EwpReceivedChangeNotification::getStatus)
+        .containsOnly(Status.SUCCESS);
+  }
+
+  @Test
+  void testProcessDue_HandlerFails_NewAttemptIsScheduledUntilMaxAttempts() {
+    String notifierHeiId = UUID.randomUUID().toString();
+    doThrow(new IllegalStateException("TEST")).when(handler)
+        .onChangeNotification(eq(notifierHeiId), any(), anyList());
+    inbox.receive(Type.OUTGOING_MOBILITY, notifierHeiId, null, List.of("om1"));
+
+    inbox.processDue();
+
+    List<EwpReceivedChangeNotification> changeNotifications = findByNotifierHeiId(notifierHeiId);
+    assertThat(changeNotifications).hasSize(1);
+    EwpReceivedChangeNotification changeNotification = changeNotifications.get(0);
+    assertThat(changeNotification.getStatus()).isEqualTo(Status.PENDING);
+    assertThat(changeNotification.getAttemptNumber()).isEqualTo(2);
+    assertThat(changeNotification.getScheduledDateTime())
+        .isAfter(changeNotification.getCreationDateTime());
+
+    // NOTE: force the new attempt to be due already
+    changeNotification.setScheduledDateTime(changeNotification.getCreationDateTime());
+    repository.persist(changeNotification);
+
+    inbox.processDue();
+
+    assertThat(findByNotifierHeiId(notifierHeiId))
+        .extracting(EwpReceivedChangeNotification::getStatus)
+        .containsOnly(Status.FAILED_MAX_ATTEMPTS);
+  }
+
+  @Test
+  void testProcessDue_HandlerRejectsChangeNotification_ChangeNotificationMarkedAsRejected() {
+    String notifierHeiId = UUID.randomUUID().toString();
+    doThrow(new EwpBadRequestException("TEST")).when(handler)
+        .onChangeNotification(eq(notifierHeiId), any(), anyList());
+    inbox.receive(Type.OUTGOING_MOBILITY, notifierHeiId, null, List.of("om1"));
+
+    inbox.processDue();
+
+    assertThat(findByNotifierHeiId(notifierHeiId))
+        .extracting(EwpReceivedChangeNotification::getStatus)
+        .containsOnly(Status.REJECTED);
+  }
+
+  @Test
+  void testProcessDue_IiaHandlerRejectsOneOfTwoIias_OnlyInvalidIiaMarkedAsRejected() {
+    EwpReceivedChangeNotificationHandler iiaHandler =
+        mock(EwpReceivedChangeNotificationHandler.class);
+    when(iiaHandler.getSupportedType()).thenReturn(Type.IIA);
+    when(iiaHandler.isForwardedPerElement()).thenReturn(true);
+    inbox.destroy();
+    inbox = new EwpReceivedChangeNotificationInbox(cnrProperties, repository,
+        List.of(handler, iiaHandler));
+
+    String notifierHeiId = UUID.randomUUID().toString();
+    String localHeiId = UUID.randomUUID().toString();
+    doThrow(new EwpBadRequestException("TEST")).when(iiaHandler)
+        .onChangeNotification(notifierHeiId, localHeiId, List.of("invalid-iia"));
+    inbox.receive(Type.IIA, notifierHeiId, localHeiId, List.of("valid-iia", "invalid-iia"));
+
+    inbox.processDue();
+
+    verify(iiaHandler).onChangeNotification(notifierHeiId, localHeiId, List.of("valid-iia"));
+    verify(iiaHandler).onChangeNotification(notifierHeiId, localHeiId, List.of("invalid-iia"));
+    assertThat(findByNotifierHeiId(notifierHeiId))
+        .extracting(EwpReceivedChangeNotification::getElementId,
+            EwpReceivedChangeNotification::getStatus)
+        .containsExactlyInAnyOrder(
+            tuple("valid-iia", Status.SUCCESS),
+            tuple("invalid-iia", Status.REJECTED));
+  }
+
+  @Test
+  void testGetRetryDelay_DelayDoublesOnEachAttemptUpToMaximum() {
+    assertThat(inbox.getRetryDelay(1)).isEqualTo(Duration.ofSeconds(30));
+    assertThat(inbox.getRetryDelay(2)).isEqualTo(Duration.ofSeconds(60));
+    assertThat(inbox.getRetryDelay(3)).isEqualTo(Duration.ofSeconds(100));
+    assertThat(inbox.getRetryDelay(30)).isEqualTo(Duration.ofSeconds(100));
+  }
+
+  private List<EwpReceivedChangeNotification> findByNotifierHeiId(String notifierHeiId) {
+    return repository.findAll().stream()
+        .filter(n -> notifierHeiId.equals(n.getNotifierHeiId()))
+        .collect(Collectors.toList());
+  }
+}
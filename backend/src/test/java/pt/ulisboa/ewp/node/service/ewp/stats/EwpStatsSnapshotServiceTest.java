@@ -0,0 +1,120 @@
+package pt.ulisboa.ewp.node.service.ewp.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import pt.ulisboa.ewp.host.plugin.skeleton.provider.HostProvider;
+import pt.ulisboa.ewp.node.AbstractTest;
+import pt.ulisboa.ewp.node.config.stats.StatsProperties;
+import pt.ulisboa.ewp.node.plugin.manager.host.HostPluginManager;
+
+class EwpStatsSnapshotServiceTest extends AbstractTest {
+
+  private static final String UNCOVERED_HEI_ID = "uncovered-hei";
+
+  @Test
+  public void testGetSnapshot_SnapshotExists_StatsNotComputedAgain() {
+    EwpStatsSnapshotService service = createService(true);
+    AtomicInteger numberComputations = new AtomicInteger();
+    Supplier<Integer> computation = numberComputations::incrementAndGet;
+
+    EwpStatsSnapshot<Integer> firstSnapshot =
+        service.getSnapshot(EwpStatsType.IIAS, "hei", computation);
+    EwpStatsSnapshot<Integer> secondSnapshot =
+        service.getSnapshot(EwpStatsType.IIAS, "hei", computation);
+
+    assertThat(firstSnapshot.getStats()).isEqualTo(1);
+    assertThat(secondSnapshot).isSameAs(firstSnapshot);
+    assertThat(numberComputations).hasValue(1);
+
+    service.getSnapshot(EwpStatsType.IIAS, "other-hei", computation);
+    service.getSnapshot(EwpStatsType.OMOBILITY_LAS, "hei", computation);
+    assertThat(numberComputations).hasValue(3);
+  }
+
+  @Test
+  public void testRequestRefresh_SnapshotsExist_OnlySnapshotsOfTypeAndHeiRefreshed() {
+    EwpStatsSnapshotService service = createService(true);
+    AtomicInteger iiaStats = new AtomicInteger(10);
+    AtomicInteger laStats = new AtomicInteger(20);
+    service.getSnapshot(EwpStatsType.IIAS, "hei1", iiaStats::get);
+    service.getSnapshot(EwpStatsType.IIAS, "hei2", iiaStats::get);
+    service.getSnapshot(EwpStatsType.OMOBILITY_LAS, "hei1", laStats::get);
+
+    iiaStats.set(11);
+    laStats.set(21);
+    service.requestRefresh(EwpStatsType.IIAS, "hei1");
+
+    assertThat(getStats(service, EwpStatsType.IIAS, "hei1")).isEqualTo(11);
+    assertThat(getStats(service, EwpStatsType.IIAS, "hei2")).isEqualTo(10);
+    assertThat(getStats(service, EwpStatsType.OMOBILITY_LAS, "hei1")).isEqualTo(20);
+
+    service.requestRefresh(EwpStatsType.IIAS);
+
+    assertThat(getStats(service, EwpStatsType.IIAS, "hei2")).isEqualTo(11);
+    assertThat(getStats(service, EwpStatsType.OMOBILITY_LAS, "hei1")).isEqualTo(20);
+  }
+
+  @Test
+  public void testRequestRefresh_ComputationFails_PreviousSnapshotKept() {
+    EwpStatsSnapshotService service = createService(true);
+    AtomicInteger numberComputations = new AtomicInteger();
+    service.getSnapshot(EwpStatsType.IIAS, "hei", () -> {
+      if (numberComputations.incrementAndGet() > 1) {
+        throw new IllegalStateException("Provider unavailable");
+      }
+      return 1;
+    });
+
+    service.requestRefresh(EwpStatsType.IIAS, "hei");
+
+    assertThat(numberComputations).hasValue(2);
+    assertThat(getStats(service, EwpStatsType.IIAS, "hei")).isEqualTo(1);
+  }
+
+  @Test
+  public void testGetSnapshot_HeiNotCovered_StatsComputedOnEveryRequestWithoutSnapshot() {
+    EwpStatsSnapshotService service = createService(true);
+    AtomicInteger numberComputations = new AtomicInteger();
+
+    service.getSnapshot(EwpStatsType.IIAS, UNCOVERED_HEI_ID, numberComputations::incrementAndGet);
+    service.getSnapshot(EwpStatsType.IIAS, UNCOVERED_HEI_ID, numberComputations::incrementAndGet);
+    service.requestRefresh(EwpStatsType.IIAS);
+
+    assertThat(numberComputations).hasValue(2);
+  }
+
+  @Test
+  public void testGetSnapshot_Disabled_StatsComputedOnEveryRequest() {
+    EwpStatsSnapshotService service = createService(false);
+    AtomicInteger numberComputations = new AtomicInteger();
+
+    service.getSnapshot(EwpStatsType.IIAS, "hei", numberComputations::incrementAndGet);
+    service.getSnapshot(EwpStatsType.IIAS, "hei", numberComputations::incrementAndGet);
+
+    assertThat(numberComputations).hasValue(2);
+  }
+
+  private static Integer getStats(EwpStatsSnapshotService service, EwpStatsType type,
+      String heiId) {
+    return service.<Integer>getSnapshot(type, heiId, () -> {
+      throw new IllegalStateException("Snapshot expected to exist");
+    }).getStats();
+  }
+
+  private static EwpStatsSnapshotService createService(boolean enabled) {
+    StatsProperties properties = new StatsProperties();
+    properties.getSnapshots().setEnabled(enabled);
+    HostPluginManager hostPluginManager = mock(HostPluginManager.class);
+    when(hostPluginManager.getAllProviders(anyString()))
+        .thenReturn(List.of(mock(HostProvider.class)));
+    when(hostPluginManager.getAllProviders(UNCOVERED_HEI_ID)).thenReturn(List.of());
+    return new EwpStatsSnapshotService(properties, hostPluginManager);
+  }
+}
@@ -0,0 +1,76 @@
+package pt.ulisboa.ewp.node.service.xml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import pt.ulisboa.ewp.node.AbstractTest;
+import pt.ulisboa.ewp.node.domain.dto.validation.ValidationEntryDto.Severity;
+import pt.ulisboa.ewp.node.domain.dto.validation.ValidationResultDto;
+import pt.ulisboa.ewp.node.utils.EwpApiNamespaces;
+
+class XmlValidatorTest extends AbstractTest {
+
+  private static final XmlValidator XML_VALIDATOR = new XmlValidator();
+
+  @Test
+  public void testValidate_MalformedXml_ReturnOnlyParseError() {
+    byte[] xml = ("<iias-get-response xmlns=\""
+        + EwpApiNamespaces.IIAS_V7_GET_RESPONSE.getNamespaceUrl()
+        + "\"><iia></iias-get-response>").getBytes(StandardCharsets.UTF_8);
+
+    ValidationResultDto result = XML_VALIDATOR.validate(xml);
+
+    assertThat(result.isValid()).isFalse();
+    assertThat(result.getValidationEntries()).hasSize(1);
+  }
+
+  @Test
+  public void testValidate_XmlWithDoctype_ReturnParseError() {
+    byte[] xml = ("<!DOCTYPE foo [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>"
+        + "<iias-get-response xmlns=\""
+        + EwpApiNamespaces.IIAS_V7_GET_RESPONSE.getNamespaceUrl()
+        + "\">&xxe;</iias-get-response>").getBytes(StandardCharsets.UTF_8);
+
+    ValidationResultDto result = XML_VALIDATOR.validate(xml);
+
+    assertThat(result.isValid()).isFalse();
+    assertThat(result.getValidationEntries()).hasSize(1);
+  }
+
+  @Test
+  public void testValidate_XmlWithManyErrors_ReturnLimitedNumberOfErrors() {
+    byte[] xml =
+        createIiasGetResponseWithEmptyIias(2 * XmlValidator.MAX_VALIDATION_ENTRIES_PER_DOCUMENT);
+
+    ValidationResultDto result = XML_VALIDATOR.validate(xml);
+
+    assertThat(result.isValid()).isFalse();
+    assertThat(result.getValidationEntries())
+        .hasSize(XmlValidator.MAX_VALIDATION_ENTRIES_PER_DOCUMENT + 1);
+    assertThat(result.getValidationEntries().get(XmlValidator.MAX_VALIDATION_ENTRIES_PER_DOCUMENT)
+        .getSeverity()).isEqualTo(Severity.WARNING);
+  }
+
+  @Test
+  public void testValidateAgainstRootNamespaceSchema_InvalidXml_ReturnSameErrorsAsValidate() {
+    byte[] xml = createIiasGetResponseWithEmptyIias(2);
+
+    ValidationResultDto result = XML_VALIDATOR.validateAgainstRootNamespaceSchema(xml);
+
+    assertThat(result.isValid()).isFalse();
+    assertThat(result.getValidationEntries())
+        .hasSameSizeAs(XML_VALIDATOR.validate(xml).getValidationEntries());
+  }
+
+  private static byte[] createIiasGetResponseWithEmptyIias(int numberIias) {
+    StringBuilder xml = new StringBuilder("<iias-get-response xmlns=\"")
+        .append(EwpApiNamespaces.IIAS_V7_GET_RESPONSE.getNamespaceUrl())
+        .append("\">");
+    for (int index = 0; index < numberIias; index++) {
+      xml.append("<iia></iia>");
+    }
+    xml.append("</iias-get-response>");
+    return xml.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
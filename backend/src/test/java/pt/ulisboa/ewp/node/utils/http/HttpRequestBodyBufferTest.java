@@ -0,0 +1,110 @@
+package pt.ulisboa.ewp.node.utils.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HttpRequestBodyBufferTest {
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @Test
+  void testRead_BodySmallerThanLimit_BodyIsKeptInMemory() throws IOException {
+    byte[] body = "a=b&c=%C3%A9".getBytes(StandardCharsets.UTF_8);
+
+    HttpRequestBodyBuffer buffer =
+        HttpRequestBodyBuffer.read(new ByteArrayInputStream(body), body.length, 1024,
+            temporaryDirectory);
+
+    assertThat(buffer.isInMemory()).isTrue();
+    assertThat(buffer.getSize()).isEqualTo(body.length);
+    assertThat(buffer.toByteArray()).isEqualTo(body);
+    assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("a=b&c=%C3%A9");
+    assertThat(buffer.getSha256Digest()).isEqualTo(DigestUtils.sha256(body));
+    try (InputStream inputStream = buffer.openInputStream()) {
+      assertThat(inputStream.readAllBytes()).isEqualTo(body);
+    }
+    assertThat(Files.list(temporaryDirectory)).isEmpty();
+  }
+
+  @Test
+  void testRead_BodyLargerThanLimit_BodyIsSpilledToTemporaryFile() throws IOException {
+    byte[] body = new byte[100_000];
+    new Random(42).nextBytes(body);
+
+    HttpRequestBodyBuffer buffer =
+        HttpRequestBodyBuffer.read(new ByteArrayInputStream(body), -1, 10_000,
+            temporaryDirectory);
+
+    assertThat(buffer.isInMemory()).isFalse();
+    assertThat(buffer.getSize()).isEqualTo(body.length);
+    assertThat(buffer.toByteArray()).isEqualTo(body);
+    assertThat(buffer.getSha256Digest()).isEqualTo(DigestUtils.sha256(body));
+    assertThat(buffer.getDigest("SHA-512")).isEqualTo(DigestUtils.sha512(body));
+    assertThat(Files.list(temporaryDirectory)).hasSize(1);
+
+    buffer.close();
+
+    assertThat(Files.list(temporaryDirectory)).isEmpty();
+    assertThrows(IOException.class, buffer::openInputStream);
+  }
+
+  @Test
+  void testToString_BodySpilledToTemporaryFileAndLimitBelowSize_OnlyPrefixIsDecoded()
+      throws IOException {
+    byte[] body = "0123456789".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+
+    HttpRequestBodyBuffer buffer =
+        HttpRequestBodyBuffer.read(new ByteArrayInputStream(body), -1, 1_000,
+            temporaryDirectory);
+
+    assertThat(buffer.isInMemory()).isFalse();
+    assertThat(buffer.toString(StandardCharsets.UTF_8, 15)).isEqualTo("012345678901234");
+    assertThat(buffer.toString(StandardCharsets.UTF_8, 200_000)).hasSize(body.length);
+    buffer.close();
+  }
+
+  @Test
+  void testOpenChannel_BodyReadIntoByteBuffer_AllBytesAreRead() throws IOException {
+    byte[] body = new byte[30_000];
+    new Random(7).nextBytes(body);
+
+    for (long maxInMemorySize : new long[]{body.length, 1_000}) {
+      HttpRequestBodyBuffer buffer =
+          HttpRequestBodyBuffer.read(new ByteArrayInputStream(body), body.length,
+              maxInMemorySize, temporaryDirectory);
+
+      ByteBuffer byteBuffer = ByteBuffer.allocate(body.length);
+      try (ReadableByteChannel channel = buffer.openChannel()) {
+        while (byteBuffer.hasRemaining() && channel.read(byteBuffer) != -1) {
+          // NOTE: keep reading until the whole body is read
+        }
+      }
+
+      assertThat(byteBuffer.array()).isEqualTo(body);
+      buffer.close();
+    }
+  }
+
+  @Test
+  void testEmpty_DigestIsOfEmptyBody() throws IOException {
+    HttpRequestBodyBuffer buffer = HttpRequestBodyBuffer.empty();
+
+    assertThat(buffer.getSize()).isZero();
+    assertThat(buffer.toByteArray()).isEmpty();
+    assertThat(buffer.getSha256Digest()).isEqualTo(DigestUtils.sha256(new byte[0]));
+  }
+}
@@ -0,0 +1,75 @@
+package pt.ulisboa.ewp.node.utils.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HttpResponseBodyBufferTest {
+
+  @TempDir
+  Path temporaryDirectory;
+
+  @Test
+  void testWrite_BodySmallerThanLimit_BodyIsKeptInMemory() throws IOException {
+    byte[] body = "<response/>".getBytes(StandardCharsets.UTF_8);
+
+    HttpResponseBodyBuffer buffer = new HttpResponseBodyBuffer(1024, temporaryDirectory);
+    buffer.write(body[0]);
+    buffer.write(body, 1, body.length - 1);
+
+    assertThat(buffer.isInMemory()).isTrue();
+    assertThat(buffer.getSize()).isEqualTo(body.length);
+    assertThat(buffer.toByteArray()).isEqualTo(body);
+    assertThat(buffer.getSha256Digest()).isEqualTo(DigestUtils.sha256(body));
+    assertThat(Files.list(temporaryDirectory)).isEmpty();
+  }
+
+  @Test
+  void testWrite_BodyLargerThanLimit_BodyIsSpilledToTemporaryFile() throws IOException {
+    byte[] body = new byte[100_000];
+    new Random(42).nextBytes(body);
+
+    HttpResponseBodyBuffer buffer = new HttpResponseBodyBuffer(10_000, temporaryDirectory);
+    for (int offset = 0; offset < body.length; offset += 3000) {
+      buffer.write(body, offset, Math.min(3000, body.length - offset));
+    }
+
+    assertThat(buffer.isInMemory()).isFalse();
+    assertThat(buffer.getSize()).isEqualTo(body.length);
+    assertThat(buffer.getSha256Digest()).isEqualTo(DigestUtils.sha256(body));
+    try (InputStream inputStream = buffer.openInputStream()) {
+      assertThat(inputStream.readAllBytes()).isEqualTo(body);
+    }
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    buffer.writeTo(outputStream);
+    assertThat(outputStream.toByteArray()).isEqualTo(body);
+    assertThat(Files.list(temporaryDirectory)).hasSize(1);
+
+    buffer.close();
+
+    assertThat(Files.list(temporaryDirectory)).isEmpty();
+  }
+
+  @Test
+  void testReset_BodySpilledToTemporaryFile_BufferIsEmptyAndFileDeleted() throws IOException {
+    HttpResponseBodyBuffer buffer = new HttpResponseBodyBuffer(10, temporaryDirectory);
+    buffer.write(new byte[100], 0, 100);
+
+    buffer.reset();
+    buffer.write("abc".getBytes(StandardCharsets.UTF_8), 0, 3);
+
+    assertThat(buffer.isInMemory()).isTrue();
+    assertThat(buffer.toByteArray()).isEqualTo("abc".getBytes(StandardCharsets.UTF_8));
+    assertThat(buffer.getSha256Digest()).isEqualTo(DigestUtils.sha256("abc"));
+    assertThat(Files.list(temporaryDirectory)).isEmpty();
+  }
+}
@@ -0,0 +1,98 @@
+package pt.ulisboa.ewp.node.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import javax.xml.bind.Marshaller;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import pt.ulisboa.ewp.node.utils.http.HttpParams;
+import pt.ulisboa.ewp.node.utils.http.converter.xml.EwpNamespacePrefixMapper;
+import pt.ulisboa.ewp.node.utils.http.converter.xml.Jaxb2HttpMessageConverter;
+
+/**
+ * Representative EWP payloads (and the XML infrastructure configured as in the application) used
+ * by the benchmarks.
+ */
+public class BenchmarkPayloads {
+
+  private static final String IIAS_GET_RESPONSE_V6_SAMPLE_PATH =
+      "samples/iias/iias-get-response-v6.xml";
+  private static final String IIAS_GET_RESPONSE_V7_SAMPLE_PATH =
+      "samples/iias/iias-get-response-v7.xml";
+
+  private static final String SAMPLE_IIA_ID = "0f7a5682-faf7-49a7-9cc7-ec486c49a281";
+
+  private BenchmarkPayloads() {}
+
+  /** Returns an IIAs get response V6 containing a given number of IIAs. */
+  public static byte[] createIiasGetResponseV6(int numberIias) {
+    return createIiasGetResponse(IIAS_GET_RESPONSE_V6_SAMPLE_PATH, numberIias);
+  }
+
+  /** Returns an IIAs get response V7 containing a given number of IIAs. */
+  public static byte[] createIiasGetResponseV7(int numberIias) {
+    return createIiasGetResponse(IIAS_GET_RESPONSE_V7_SAMPLE_PATH, numberIias);
+  }
+
+  /** Returns form data requesting a given number of IIA IDs (as sent on a IIAs get request). */
+  public static HttpParams createIiasGetRequestFormData(String heiId, int numberIiaIds) {
+    HttpParams formData = new HttpParams();
+    formData.param("hei_id", heiId);
+    for (int index = 0; index < numberIiaIds; index++) {
+      formData.param("iia_id", UUID.randomUUID().toString());
+    }
+    return formData;
+  }
+
+  public static Jaxb2Marshaller createJaxb2Marshaller() {
+    Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+    marshaller.setPackagesToScan("eu.erasmuswithoutpaper.api", "pt.ulisboa.ewp.node");
+    marshaller.setSupportJaxbElementClass(true);
+
+    Map<String, Object> jaxbProperties = new HashMap<>();
+    jaxbProperties.put(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+    marshaller.setMarshallerProperties(jaxbProperties);
+    return marshaller;
+  }
+
+  public static Jaxb2HttpMessageConverter createJaxb2HttpMessageConverter() {
+    Jaxb2HttpMessageConverter result = new Jaxb2HttpMessageConverter();
+    result.setPackagesToScan("eu.erasmuswithoutpaper.api", "pt.ulisboa.ewp.node");
+    result.setSupportJaxbElementClass(true);
+    result.setNamespacePrefixMapper(new EwpNamespacePrefixMapper());
+    return result;
+  }
+
+  /**
+   * Replicates the single IIA of a sample IIAs get response, giving each copy a distinct IIA ID.
+   */
+  private static byte[] createIiasGetResponse(String samplePath, int numberIias) {
+    String sample = readResource(samplePath);
+    int iiaStartIndex = sample.indexOf("<iia>");
+    int iiaEndIndex = sample.lastIndexOf("</iia>") + "</iia>".length();
+    String iia = sample.substring(iiaStartIndex, iiaEndIndex);
+
+    StringBuilder result = new StringBuilder(sample.substring(0, iiaStartIndex));
+    for (int index = 0; index < numberIias; index++) {
+      result.append(iia.replace(SAMPLE_IIA_ID, UUID.randomUUID().toString()));
+    }
+    result.append(sample.substring(iiaEndIndex));
+    return result.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String readResource(String path) {
+    try (InputStream inputStream =
+        BenchmarkPayloads.class.getClassLoader().getResourceAsStream(path)) {
+      if (inputStream == null) {
+        throw new IllegalStateException("Failed to find benchmark payload: " + path);
+      }
+      return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package pt.ulisboa.ewp.node.service.ewp.iia.hash.v6;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.ulisboa.ewp.node.benchmark.BenchmarkPayloads;
+import pt.ulisboa.ewp.node.config.iia.IiaHashProperties;
+import pt.ulisboa.ewp.node.exception.ewp.hash.HashCalculationException;
+import pt.ulisboa.ewp.node.service.ewp.iia.hash.HashCalculationResult;
+import pt.ulisboa.ewp.node.service.ewp.iia.hash.IiaHashCalculationExecutor;
+
+/**
+ * Measures the calculation, by {@link IiaHashServiceV6}, of the cooperation conditions hashes of
+ * IIAs get responses with a varying number of IIAs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IiaHashServiceV6Benchmark {
+
+  @Param({"1", "10", "100"})
+  private int numberIias;
+
+  private IiaHashServiceV6 iiaHashService;
+  private byte[] iiasGetResponseBytes;
+
+  @Setup
+  public void setup() {
+    this.iiaHashService =
+        new IiaHashServiceV6(
+            BenchmarkPayloads.createJaxb2HttpMessageConverter(),
+            new IiaHashCalculationExecutor(new IiaHashProperties()));
+    this.iiasGetResponseBytes = BenchmarkPayloads.createIiasGetResponseV6(numberIias);
+  }
+
+  @Benchmark
+  public List<HashCalculationResult> calculateCooperationConditionsHashes()
+      throws HashCalculationException {
+    return iiaHashService.calculateCooperationConditionsHashes(iiasGetResponseBytes);
+  }
+}
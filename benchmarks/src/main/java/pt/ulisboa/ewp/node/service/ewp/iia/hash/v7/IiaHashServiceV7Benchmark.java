@@ -0,0 +1,67 @@
+package pt.ulisboa.ewp.node.service.ewp.iia.hash.v7;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.ulisboa.ewp.node.benchmark.BenchmarkPayloads;
+import pt.ulisboa.ewp.node.config.iia.IiaHashProperties;
+import pt.ulisboa.ewp.node.exception.ewp.hash.HashCalculationException;
+import pt.ulisboa.ewp.node.service.ewp.iia.hash.HashCalculationResult;
+import pt.ulisboa.ewp.node.service.ewp.iia.hash.IiaHashCache;
+import pt.ulisboa.ewp.node.service.ewp.iia.hash.IiaHashCalculationExecutor;
+
+/**
+ * Measures the calculation, by {@link IiaHashServiceV7}, of the hashes of IIAs get responses with a
+ * varying number of IIAs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IiaHashServiceV7Benchmark {
+
+  @Param({"1", "10", "100"})
+  private int numberIias;
+
+  private IiaHashServiceV7 iiaHashService;
+  private byte[] iiasGetResponseV6Bytes;
+  private byte[] iiasGetResponseV7Bytes;
+
+  @Setup
+  public void setup() {
+    // NOTE: Measures the hash calculation itself, so cached hashes are not used
+    IiaHashProperties properties = new IiaHashProperties();
+    properties.getCache().setEnabled(false);
+    this.iiaHashService =
+        new IiaHashServiceV7(
+            BenchmarkPayloads.createJaxb2HttpMessageConverter(),
+            new IiaHashCalculationExecutor(properties),
+            new IiaHashCache(properties, null));
+    this.iiasGetResponseV6Bytes = BenchmarkPayloads.createIiasGetResponseV6(numberIias);
+    this.iiasGetResponseV7Bytes = BenchmarkPayloads.createIiasGetResponseV7(numberIias);
+  }
+
+  @Benchmark
+  public List<HashCalculationResult> calculateIiaHashesFromVersion6()
+      throws HashCalculationException {
+    return iiaHashService.calculateIiaHashes(iiasGetResponseV6Bytes, 6);
+  }
+
+  @Benchmark
+  public List<HashCalculationResult> calculateIiaHashesFromVersion7()
+      throws HashCalculationException {
+    return iiaHashService.calculateIiaHashes(iiasGetResponseV7Bytes, 7);
+  }
+}
@@ -0,0 +1,131 @@
+package pt.ulisboa.ewp.node.service.ewp.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.tomitribe.auth.signatures.Signature;
+import pt.ulisboa.ewp.node.benchmark.BenchmarkPayloads;
+import pt.ulisboa.ewp.node.client.ewp.operation.request.EwpRequest;
+import pt.ulisboa.ewp.node.client.ewp.operation.request.body.EwpRequestFormDataUrlEncodedBody;
+import pt.ulisboa.ewp.node.config.security.SecurityKeyStoreProperties;
+import pt.ulisboa.ewp.node.config.security.SecurityProperties;
+import pt.ulisboa.ewp.node.service.ewp.security.signer.request.HttpSignatureRequestAuthenticationMethodSigner;
+import pt.ulisboa.ewp.node.service.keystore.KeyStoreService;
+import pt.ulisboa.ewp.node.utils.http.ExtendedHttpHeaders;
+import pt.ulisboa.ewp.node.utils.http.HttpSignatureUtils;
+import pt.ulisboa.ewp.node.utils.http.HttpSignatureUtils.VerificationResult;
+import pt.ulisboa.ewp.node.utils.keystore.DecodedCertificateAndKey;
+import pt.ulisboa.ewp.node.utils.keystore.KeyStoreGenerator;
+import pt.ulisboa.ewp.node.utils.keystore.KeyStoreSecurityBundle;
+
+/**
+ * Measures the creation (by {@link HttpSignatureRequestAuthenticationMethodSigner}) and the
+ * verification (as done by the request and response verifiers) of HTTP signatures of IIAs get
+ * requests with a varying number of IIA IDs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HttpSignatureBenchmark {
+
+  private static final String KEYSTORE_PASSWORD = "benchmark";
+  private static final String CERTIFICATE_ALIAS = "1";
+  private static final String REQUEST_URL = "https://ewp.example.com/iias/get";
+  private static final String REQUEST_TARGET = "/iias/get";
+
+  @Param({"1", "10", "100"})
+  private int numberIiaIds;
+
+  private HttpSignatureRequestAuthenticationMethodSigner signer;
+  private RSAPublicKey publicKey;
+  private EwpRequestFormDataUrlEncodedBody body;
+
+  private ExtendedHttpHeaders signedHeaders;
+  private byte[] signedBodyBytes;
+
+  @Setup
+  public void setup() throws Exception {
+    KeyStoreSecurityBundle securityBundle =
+        KeyStoreSecurityBundle.create(
+            1, KeyStoreGenerator.generate(KEYSTORE_PASSWORD, CERTIFICATE_ALIAS), CERTIFICATE_ALIAS);
+    this.signer =
+        new HttpSignatureRequestAuthenticationMethodSigner(
+            new FixedKeyStoreService(securityBundle));
+    this.publicKey =
+        (RSAPublicKey) securityBundle.getDecodedCertificateAndKey().getCertificate().getPublicKey();
+    this.body =
+        new EwpRequestFormDataUrlEncodedBody(
+            BenchmarkPayloads.createIiasGetRequestFormData("ewp.example.com", numberIiaIds));
+
+    EwpRequest signedRequest = signRequest();
+    this.signedHeaders = new ExtendedHttpHeaders();
+    this.signedHeaders.putAll(signedRequest.getHeaders());
+    this.signedHeaders.set(HttpHeaders.HOST, "ewp.example.com");
+    this.signedBodyBytes = this.body.serialize().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public EwpRequest signRequest() {
+    EwpRequest request = new EwpRequest(HttpMethod.POST, REQUEST_URL, null).body(body);
+    signer.sign(request);
+    return request;
+  }
+
+  @Benchmark
+  public boolean verifyRequestSignature() {
+    Signature signature =
+        Signature.fromString(signedHeaders.getFirst(HttpHeaders.AUTHORIZATION));
+    VerificationResult signatureVerificationResult =
+        HttpSignatureUtils.verifySignature(
+            HttpMethod.POST.name(), REQUEST_TARGET, signedHeaders, signature, publicKey);
+    VerificationResult digestVerificationResult =
+        HttpSignatureUtils.verifyDigest(signedHeaders, signedBodyBytes);
+    return signatureVerificationResult.isSuccess() && digestVerificationResult.isSuccess();
+  }
+
+  /** Key store service that always provides the same keystore, without any storage. */
+  private static class FixedKeyStoreService extends KeyStoreService {
+
+    private final KeyStoreSecurityBundle securityBundle;
+
+    FixedKeyStoreService(KeyStoreSecurityBundle securityBundle) {
+      super(createSecurityProperties());
+      this.securityBundle = securityBundle;
+    }
+
+    @Override
+    public KeyStoreSecurityBundle getSecurityBundle() {
+      return securityBundle;
+    }
+
+    @Override
+    public DecodedCertificateAndKey getDecodedCertificateAndKeyFromStorage() {
+      return securityBundle.getDecodedCertificateAndKey();
+    }
+
+    private static SecurityProperties createSecurityProperties() {
+      SecurityKeyStoreProperties keyStoreProperties = new SecurityKeyStoreProperties();
+      keyStoreProperties.setPassword(KEYSTORE_PASSWORD);
+      keyStoreProperties.setCacheValidityInSeconds(3600);
+      SecurityProperties securityProperties = new SecurityProperties();
+      securityProperties.setKeyStore(keyStoreProperties);
+      return securityProperties;
+    }
+  }
+}
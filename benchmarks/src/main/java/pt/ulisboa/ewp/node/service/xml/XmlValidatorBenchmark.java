@@ -0,0 +1,46 @@
+package pt.ulisboa.ewp.node.service.xml;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.ulisboa.ewp.node.benchmark.BenchmarkPayloads;
+import pt.ulisboa.ewp.node.domain.dto.validation.ValidationResultDto;
+
+/**
+ * Measures the schema validation, by {@link XmlValidator}, of IIAs get responses with a varying
+ * number of IIAs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class XmlValidatorBenchmark {
+
+  @Param({"1", "10", "100"})
+  private int numberIias;
+
+  private XmlValidator xmlValidator;
+  private byte[] iiasGetResponseBytes;
+
+  @Setup
+  public void setup() {
+    this.xmlValidator = new XmlValidator();
+    this.iiasGetResponseBytes = BenchmarkPayloads.createIiasGetResponseV7(numberIias);
+  }
+
+  @Benchmark
+  public ValidationResultDto validate() {
+    return xmlValidator.validate(iiasGetResponseBytes);
+  }
+}
@@ -0,0 +1,56 @@
+package pt.ulisboa.ewp.node.utils.xml;
+
+import eu.erasmuswithoutpaper.api.iias.v7.endpoints.IiasGetResponseV7;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import pt.ulisboa.ewp.node.benchmark.BenchmarkPayloads;
+import pt.ulisboa.ewp.node.exception.XmlCannotUnmarshallToTypeException;
+
+/**
+ * Measures JAXB marshalling and unmarshalling, through {@link XmlUtils} and {@link
+ * Jaxb2Marshaller}, of IIAs get responses with a varying number of IIAs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class XmlUtilsBenchmark {
+
+  @Param({"1", "10", "100"})
+  private int numberIias;
+
+  private Jaxb2Marshaller jaxb2Marshaller;
+  private byte[] iiasGetResponseBytes;
+  private IiasGetResponseV7 iiasGetResponse;
+
+  @Setup
+  public void setup() throws XmlCannotUnmarshallToTypeException {
+    this.jaxb2Marshaller = BenchmarkPayloads.createJaxb2Marshaller();
+    this.iiasGetResponseBytes = BenchmarkPayloads.createIiasGetResponseV7(numberIias);
+    this.iiasGetResponse =
+        XmlUtils.unmarshall(jaxb2Marshaller, iiasGetResponseBytes, IiasGetResponseV7.class);
+  }
+
+  @Benchmark
+  public String marshall() {
+    return XmlUtils.marshall(jaxb2Marshaller, iiasGetResponse);
+  }
+
+  @Benchmark
+  public IiasGetResponseV7 unmarshall() throws XmlCannotUnmarshallToTypeException {
+    return XmlUtils.unmarshall(jaxb2Marshaller, iiasGetResponseBytes, IiasGetResponseV7.class);
+  }
+}